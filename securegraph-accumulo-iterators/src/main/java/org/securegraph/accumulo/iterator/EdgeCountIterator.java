@@ -0,0 +1,230 @@
+package org.securegraph.accumulo.iterator;
+
+import org.apache.accumulo.core.data.*;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Replaces the edge reference columns of each vertex row with the number of edges in each direction, and
+ * optionally the number of edges per label, so edge counts can be computed without sending the refs to the client.
+ * <p/>
+ * For every row one key is returned in {@link #CF_IN_EDGE_COUNT} and {@link #CF_OUT_EDGE_COUNT} with an empty
+ * column qualifier. With {@link #OPT_COUNT_LABELS} set, one additional key per label is returned in
+ * {@link #CF_IN_EDGE_LABEL_COUNT} and {@link #CF_OUT_EDGE_LABEL_COUNT} with the label as the column qualifier.
+ * Values are the counts as decimal strings. Rows of hidden vertices are skipped and hidden edges are not counted
+ * unless {@link #OPT_INCLUDE_HIDDEN} is set.
+ */
+public class EdgeCountIterator implements SortedKeyValueIterator<Key, Value> {
+    public static final String OPT_COUNT_LABELS = "countLabels";
+    public static final String OPT_INCLUDE_HIDDEN = "includeHidden";
+    public static final Text CF_IN_EDGE_COUNT = new Text("EIN");
+    public static final Text CF_OUT_EDGE_COUNT = new Text("EOUT");
+    public static final Text CF_IN_EDGE_LABEL_COUNT = new Text("EINL");
+    public static final Text CF_OUT_EDGE_LABEL_COUNT = new Text("EOUTL");
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Text EMPTY_TEXT = new Text();
+
+    // must match org.securegraph.accumulo.AccumuloVertex.CF_IN_EDGE
+    private static final Text VERTEX_CF_IN_EDGE = new Text("EIN");
+
+    // must match org.securegraph.accumulo.AccumuloVertex.CF_IN_EDGE_HIDDEN
+    private static final Text VERTEX_CF_IN_EDGE_HIDDEN = new Text("EINH");
+
+    // must match org.securegraph.accumulo.AccumuloVertex.CF_OUT_EDGE
+    private static final Text VERTEX_CF_OUT_EDGE = new Text("EOUT");
+
+    // must match org.securegraph.accumulo.AccumuloVertex.CF_OUT_EDGE_HIDDEN
+    private static final Text VERTEX_CF_OUT_EDGE_HIDDEN = new Text("EOUTH");
+
+    // must match org.securegraph.accumulo.AccumuloElement.CF_HIDDEN
+    private static final Text CF_HIDDEN = new Text("H");
+
+    private SortedKeyValueIterator<Key, Value> source;
+    private IteratorEnvironment env;
+    private boolean countLabels;
+    private boolean includeHidden;
+    private Range range;
+    private final SortedMap<Key, Value> rowCounts = new TreeMap<>();
+    private Iterator<Map.Entry<Key, Value>> rowCountsIterator;
+    private Key topKey;
+    private Value topValue;
+
+    @Override
+    public void init(SortedKeyValueIterator<Key, Value> source, Map<String, String> options, IteratorEnvironment env) throws IOException {
+        this.source = source;
+        this.env = env;
+        this.countLabels = Boolean.parseBoolean(options.get(OPT_COUNT_LABELS));
+        this.includeHidden = Boolean.parseBoolean(options.get(OPT_INCLUDE_HIDDEN));
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        EdgeCountIterator copy = new EdgeCountIterator();
+        copy.source = source.deepCopy(env);
+        copy.env = env;
+        copy.countLabels = countLabels;
+        copy.includeHidden = includeHidden;
+        return copy;
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        this.range = range;
+        this.rowCountsIterator = null;
+
+        // counts are only correct if the whole row is read, so always start at the beginning of the row and drop
+        // the counts that were already returned before the scan was re-seeked
+        Range rowRange = range;
+        if (!range.isInfiniteStartKey()) {
+            Key rowStartKey = new Key(range.getStartKey().getRow());
+            rowRange = new Range(rowStartKey, true, range.getEndKey(), range.isEndKeyInclusive());
+        }
+        source.seek(rowRange, columnFamilies, inclusive);
+        findTop();
+    }
+
+    @Override
+    public boolean hasTop() {
+        return topKey != null;
+    }
+
+    @Override
+    public void next() throws IOException {
+        findTop();
+    }
+
+    @Override
+    public Key getTopKey() {
+        return topKey;
+    }
+
+    @Override
+    public Value getTopValue() {
+        return topValue;
+    }
+
+    private void findTop() throws IOException {
+        while (true) {
+            if (rowCountsIterator != null) {
+                while (rowCountsIterator.hasNext()) {
+                    Map.Entry<Key, Value> entry = rowCountsIterator.next();
+                    if (range.beforeStartKey(entry.getKey())) {
+                        continue;
+                    }
+                    topKey = entry.getKey();
+                    topValue = entry.getValue();
+                    return;
+                }
+            }
+            if (!source.hasTop()) {
+                topKey = null;
+                topValue = null;
+                return;
+            }
+            countRow();
+        }
+    }
+
+    private void countRow() throws IOException {
+        Text row = source.getTopKey().getRow();
+        DirectionCounts inCounts = new DirectionCounts();
+        DirectionCounts outCounts = new DirectionCounts();
+        Set<Text> hiddenEdgeIds = new HashSet<>();
+        boolean hiddenVertex = false;
+
+        while (source.hasTop() && source.getTopKey().compareRow(row) == 0) {
+            Key key = source.getTopKey();
+            if (key.compareColumnFamily(VERTEX_CF_IN_EDGE) == 0) {
+                inCounts.add(source.getTopValue(), 1);
+            } else if (key.compareColumnFamily(VERTEX_CF_OUT_EDGE) == 0) {
+                outCounts.add(source.getTopValue(), 1);
+            } else if (key.compareColumnFamily(VERTEX_CF_IN_EDGE_HIDDEN) == 0
+                    || key.compareColumnFamily(VERTEX_CF_OUT_EDGE_HIDDEN) == 0) {
+                hiddenEdgeIds.add(key.getColumnQualifier());
+            } else if (key.compareColumnFamily(CF_HIDDEN) == 0) {
+                hiddenVertex = true;
+            }
+            source.next();
+        }
+
+        rowCounts.clear();
+        rowCountsIterator = rowCounts.entrySet().iterator();
+        if (hiddenVertex && !includeHidden) {
+            return;
+        }
+
+        if (!includeHidden && hiddenEdgeIds.size() > 0) {
+            // hidden markers sort after the refs they hide and may outlive the edge, so look each ref up again
+            SortedKeyValueIterator<Key, Value> lookup = source.deepCopy(env);
+            for (Text hiddenEdgeId : hiddenEdgeIds) {
+                removeHiddenEdge(lookup, row, VERTEX_CF_IN_EDGE, hiddenEdgeId, inCounts);
+                removeHiddenEdge(lookup, row, VERTEX_CF_OUT_EDGE, hiddenEdgeId, outCounts);
+            }
+        }
+
+        addRowCounts(row, CF_IN_EDGE_COUNT, CF_IN_EDGE_LABEL_COUNT, inCounts);
+        addRowCounts(row, CF_OUT_EDGE_COUNT, CF_OUT_EDGE_LABEL_COUNT, outCounts);
+        rowCountsIterator = rowCounts.entrySet().iterator();
+    }
+
+    private void removeHiddenEdge(SortedKeyValueIterator<Key, Value> lookup, Text row, Text columnFamily, Text edgeId, DirectionCounts counts) throws IOException {
+        Key key = new Key(row, columnFamily, edgeId);
+        lookup.seek(new Range(key, true, key.followingKey(PartialKey.ROW_COLFAM_COLQUAL), false), Collections.<ByteSequence>emptyList(), false);
+        if (lookup.hasTop()) {
+            counts.add(lookup.getTopValue(), -1);
+        }
+    }
+
+    private void addRowCounts(Text row, Text countColumnFamily, Text labelCountColumnFamily, DirectionCounts counts) {
+        rowCounts.put(new Key(row, countColumnFamily, EMPTY_TEXT), toValue(counts.count));
+        if (countLabels) {
+            for (Map.Entry<ByteBuffer, long[]> labelCount : counts.labelCounts.entrySet()) {
+                if (labelCount.getValue()[0] <= 0) {
+                    continue;
+                }
+                ByteBuffer label = labelCount.getKey();
+                Text labelText = new Text();
+                labelText.set(label.array(), label.arrayOffset() + label.position(), label.remaining());
+                rowCounts.put(new Key(row, labelCountColumnFamily, labelText), toValue(labelCount.getValue()[0]));
+            }
+        }
+    }
+
+    private static Value toValue(long count) {
+        return new Value(Long.toString(count).getBytes(UTF8));
+    }
+
+    private class DirectionCounts {
+        private long count;
+        private final Map<ByteBuffer, long[]> labelCounts = new HashMap<>();
+
+        public void add(Value edgeInfo, int delta) {
+            count += delta;
+            if (!countLabels) {
+                return;
+            }
+
+            // value layout must match org.securegraph.accumulo.EdgeInfo: int labelLength, label, ...
+            byte[] bytes = edgeInfo.get();
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            int labelLength = in.getInt();
+            if (labelLength < 0) {
+                // edges without a label are only part of the total count
+                return;
+            }
+            ByteBuffer label = ByteBuffer.wrap(Arrays.copyOfRange(bytes, 4, 4 + labelLength));
+            long[] labelCount = labelCounts.get(label);
+            if (labelCount == null) {
+                labelCount = new long[1];
+                labelCounts.put(label, labelCount);
+            }
+            labelCount[0] += delta;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.securegraph.accumulo.iterator;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filters the edge reference columns of vertex rows by edge label and/or by the vertex on the other side of the
+ * edge. All other columns are passed through untouched.
+ */
+public class EdgeRefFilter extends Filter {
+    public static final String OPT_LABELS = "labels";
+    public static final String OPT_OTHER_VERTEX_IDS = "otherVertexIds";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // must match org.securegraph.accumulo.ElementMutationBuilder.VALUE_SEPARATOR
+    private static final String SEPARATOR = "\u001f";
+
+    // must match org.securegraph.accumulo.AccumuloVertex.CF_OUT_EDGE
+    private static final Text VERTEX_CF_OUT_EDGE = new Text("EOUT");
+
+    // must match org.securegraph.accumulo.AccumuloVertex.CF_IN_EDGE
+    private static final Text VERTEX_CF_IN_EDGE = new Text("EIN");
+
+    private Set<ByteBuffer> labels;
+    private Set<ByteBuffer> otherVertexIds;
+
+    public static void setLabels(IteratorSetting iteratorSetting, Collection<String> labels) {
+        iteratorSetting.addOption(OPT_LABELS, join(labels));
+    }
+
+    public static void setOtherVertexIds(IteratorSetting iteratorSetting, Collection<String> otherVertexIds) {
+        iteratorSetting.addOption(OPT_OTHER_VERTEX_IDS, join(otherVertexIds));
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key, Value> source, Map<String, String> options, IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        this.labels = split(options.get(OPT_LABELS));
+        this.otherVertexIds = split(options.get(OPT_OTHER_VERTEX_IDS));
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        EdgeRefFilter copy = (EdgeRefFilter) super.deepCopy(env);
+        copy.labels = labels;
+        copy.otherVertexIds = otherVertexIds;
+        return copy;
+    }
+
+    @Override
+    public boolean accept(Key key, Value value) {
+        if (key.compareColumnFamily(VERTEX_CF_OUT_EDGE) != 0 && key.compareColumnFamily(VERTEX_CF_IN_EDGE) != 0) {
+            return true;
+        }
+
+        // value layout must match org.securegraph.accumulo.EdgeInfo: int labelLength, label, int vertexIdLength, vertexId
+        ByteBuffer edgeInfo = ByteBuffer.wrap(value.get());
+        ByteBuffer label = readString(edgeInfo);
+        if (labels != null && (label == null || !labels.contains(label))) {
+            return false;
+        }
+        if (otherVertexIds != null) {
+            ByteBuffer otherVertexId = readString(edgeInfo);
+            if (otherVertexId == null || !otherVertexIds.contains(otherVertexId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        ByteBuffer result = in.slice();
+        result.limit(length);
+        in.position(in.position() + length);
+        return result;
+    }
+
+    private static String join(Collection<String> values) {
+        StringBuilder result = new StringBuilder();
+        boolean first = true;
+        for (String value : values) {
+            if (!first) {
+                result.append(SEPARATOR);
+            }
+            result.append(value);
+            first = false;
+        }
+        return result.toString();
+    }
+
+    private static Set<ByteBuffer> split(String option) {
+        if (option == null) {
+            return null;
+        }
+        Set<ByteBuffer> results = new HashSet<>();
+        for (String value : option.split(SEPARATOR, -1)) {
+            results.add(ByteBuffer.wrap(value.getBytes(UTF8)));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,158 @@
+package org.securegraph.accumulo.iterator;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Leaves out the edge refs, and their hidden markers, of a direction of a vertex row which has more refs in that
+ * direction than the limit, and returns a single marker column in their place. The refs are counted on the tablet
+ * server so that the client never receives the refs of very large vertices when it loads them.
+ */
+public class EdgeRefLimitIterator implements SortedKeyValueIterator<Key, Value> {
+    public static final String OPT_LIMIT = "limit";
+    public static final Text CF_IN_EDGE_OMITTED = new Text("EINS");
+    public static final Text CF_OUT_EDGE_OMITTED = new Text("EOUTS");
+    private static final Value EMPTY_VALUE = new Value(new byte[0]);
+
+    // must match org.securegraph.accumulo.AccumuloVertex.CF_IN_EDGE
+    private static final Text VERTEX_CF_IN_EDGE = new Text("EIN");
+
+    // must match org.securegraph.accumulo.AccumuloVertex.CF_OUT_EDGE
+    private static final Text VERTEX_CF_OUT_EDGE = new Text("EOUT");
+
+    private SortedKeyValueIterator<Key, Value> source;
+    private SortedKeyValueIterator<Key, Value> countSource;
+    private int limit;
+    private Range range;
+    private Collection<ByteSequence> columnFamilies;
+    private boolean inclusive;
+    private final Text checkedRow = new Text();
+    private Text checkedColumnFamily;
+    private Key omittedKey;
+    private boolean skippedToEnd;
+
+    @Override
+    public void init(SortedKeyValueIterator<Key, Value> source, Map<String, String> options, IteratorEnvironment env) throws IOException {
+        this.source = source;
+        this.countSource = source.deepCopy(env);
+        this.limit = Integer.parseInt(options.get(OPT_LIMIT));
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        EdgeRefLimitIterator copy = new EdgeRefLimitIterator();
+        copy.source = source.deepCopy(env);
+        copy.countSource = source.deepCopy(env);
+        copy.limit = limit;
+        return copy;
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        this.range = range;
+        this.columnFamilies = columnFamilies;
+        this.inclusive = inclusive;
+        this.omittedKey = null;
+        this.skippedToEnd = false;
+        this.checkedColumnFamily = null;
+
+        // a scan re-seeked in the middle of the edge refs of a direction was under the limit for that direction
+        if (!range.isInfiniteStartKey()) {
+            Key startKey = range.getStartKey();
+            Text edgeColumnFamily = getEdgeColumnFamily(startKey);
+            if (edgeColumnFamily != null) {
+                startKey.getRow(checkedRow);
+                checkedColumnFamily = edgeColumnFamily;
+            }
+        }
+
+        source.seek(range, columnFamilies, inclusive);
+        findTop();
+    }
+
+    @Override
+    public boolean hasTop() {
+        return omittedKey != null || (!skippedToEnd && source.hasTop());
+    }
+
+    @Override
+    public void next() throws IOException {
+        if (omittedKey != null) {
+            omittedKey = null;
+        } else {
+            source.next();
+        }
+        findTop();
+    }
+
+    private void findTop() throws IOException {
+        if (skippedToEnd || !source.hasTop()) {
+            return;
+        }
+        Key key = source.getTopKey();
+        Text edgeColumnFamily = getEdgeColumnFamily(key);
+        if (edgeColumnFamily == null || (edgeColumnFamily == checkedColumnFamily && key.compareRow(checkedRow) == 0)) {
+            return;
+        }
+        key.getRow(checkedRow);
+        checkedColumnFamily = edgeColumnFamily;
+        if (countEdgeRefs(checkedRow, edgeColumnFamily) <= limit) {
+            return;
+        }
+
+        Key marker = new Key(checkedRow, edgeColumnFamily == VERTEX_CF_IN_EDGE ? CF_IN_EDGE_OMITTED : CF_OUT_EDGE_OMITTED);
+        Key skipKey = marker.followingKey(PartialKey.ROW_COLFAM);
+        if (range.afterEndKey(skipKey)) {
+            skippedToEnd = true;
+        } else {
+            source.seek(new Range(skipKey, true, range.getEndKey(), range.isEndKeyInclusive()), columnFamilies, inclusive);
+        }
+        if (!range.afterEndKey(marker)) {
+            omittedKey = marker;
+        }
+    }
+
+    private int countEdgeRefs(Text row, Text edgeColumnFamily) throws IOException {
+        Key startKey = new Key(row, edgeColumnFamily);
+        Range edgeRefRange = new Range(startKey, true, startKey.followingKey(PartialKey.ROW_COLFAM), false);
+        // seeked with the column families of the scan so that row filters below decide on the same columns
+        countSource.seek(edgeRefRange, columnFamilies, inclusive);
+        int count = 0;
+        // iterators below this one, like the row boundary iterator, may add keys after the refs
+        while (countSource.hasTop() && countSource.getTopKey().compareColumnFamily(edgeColumnFamily) == 0 && count <= limit) {
+            count++;
+            countSource.next();
+        }
+        return count;
+    }
+
+    private static Text getEdgeColumnFamily(Key key) {
+        if (key.compareColumnFamily(VERTEX_CF_IN_EDGE) == 0) {
+            return VERTEX_CF_IN_EDGE;
+        }
+        if (key.compareColumnFamily(VERTEX_CF_OUT_EDGE) == 0) {
+            return VERTEX_CF_OUT_EDGE;
+        }
+        return null;
+    }
+
+    @Override
+    public Key getTopKey() {
+        return omittedKey != null ? omittedKey : source.getTopKey();
+    }
+
+    @Override
+    public Value getTopValue() {
+        return omittedKey != null ? EMPTY_VALUE : source.getTopValue();
+    }
+}
@@ -35,6 +35,15 @@ public class ElementVisibilityRowFilter extends RowFilter {
         super.init(source, options, env);
     }
 
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        // RowFilter.deepCopy does not call init so the options have to be copied
+        ElementVisibilityRowFilter copy = (ElementVisibilityRowFilter) super.deepCopy(env);
+        copy.filterVertices = this.filterVertices;
+        copy.filterEdges = this.filterEdges;
+        return copy;
+    }
+
     @Override
     public boolean acceptRow(SortedKeyValueIterator<Key, Value> rowIterator) throws IOException {
         while (rowIterator.hasTop()) {
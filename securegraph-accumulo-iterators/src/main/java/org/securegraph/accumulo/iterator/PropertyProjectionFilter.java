@@ -0,0 +1,134 @@
+package org.securegraph.accumulo.iterator;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Filters the property, property metadata and hidden property columns of element rows by the property name, or by
+ * property name and key, at the start of the column qualifier. All other columns are passed through untouched.
+ */
+public class PropertyProjectionFilter extends Filter {
+    public static final String OPT_PROPERTY_NAMES = "propertyNames";
+    public static final String OPT_PROPERTY_NAME_KEYS = "propertyNameKeys";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // must match org.securegraph.accumulo.ElementMutationBuilder.VALUE_SEPARATOR
+    private static final byte SEPARATOR = 0x1f;
+    private static final String LIST_SEPARATOR = "\u001e";
+
+    // must match org.securegraph.accumulo.AccumuloElement.CF_PROPERTY
+    private static final Text CF_PROPERTY = new Text("PROP");
+
+    // must match org.securegraph.accumulo.AccumuloElement.CF_PROPERTY_HIDDEN
+    private static final Text CF_PROPERTY_HIDDEN = new Text("PROPH");
+
+    // must match org.securegraph.accumulo.AccumuloElement.CF_PROPERTY_METADATA
+    private static final Text CF_PROPERTY_METADATA = new Text("PROPMETA");
+
+    private Set<ByteBuffer> propertyNames;
+    private Set<ByteBuffer> propertyNameKeys;
+
+    public static void setPropertyNames(IteratorSetting iteratorSetting, Collection<String> propertyNames) {
+        iteratorSetting.addOption(OPT_PROPERTY_NAMES, join(propertyNames));
+    }
+
+    public static void setPropertyKeys(IteratorSetting iteratorSetting, Map<String, ? extends Collection<String>> propertyKeys) {
+        List<String> nameKeys = new ArrayList<>();
+        for (Map.Entry<String, ? extends Collection<String>> entry : propertyKeys.entrySet()) {
+            for (String key : entry.getValue()) {
+                nameKeys.add(entry.getKey() + (char) SEPARATOR + key);
+            }
+        }
+        iteratorSetting.addOption(OPT_PROPERTY_NAME_KEYS, join(nameKeys));
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key, Value> source, Map<String, String> options, IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        this.propertyNames = split(options.get(OPT_PROPERTY_NAMES));
+        this.propertyNameKeys = split(options.get(OPT_PROPERTY_NAME_KEYS));
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        PropertyProjectionFilter copy = (PropertyProjectionFilter) super.deepCopy(env);
+        copy.propertyNames = propertyNames;
+        copy.propertyNameKeys = propertyNameKeys;
+        return copy;
+    }
+
+    @Override
+    public boolean accept(Key key, Value value) {
+        if (key.compareColumnFamily(CF_PROPERTY) != 0
+                && key.compareColumnFamily(CF_PROPERTY_METADATA) != 0
+                && key.compareColumnFamily(CF_PROPERTY_HIDDEN) != 0) {
+            return true;
+        }
+
+        // column qualifier layout must match org.securegraph.accumulo.ElementMutationBuilder: name, key, ...
+        ByteSequence columnQualifier = key.getColumnQualifierData();
+        int nameEnd = indexOfSeparator(columnQualifier, 0);
+        if (nameEnd < 0) {
+            return false;
+        }
+        if (contains(propertyNames, columnQualifier, nameEnd)) {
+            return true;
+        }
+        int keyEnd = indexOfSeparator(columnQualifier, nameEnd + 1);
+        return contains(propertyNameKeys, columnQualifier, keyEnd < 0 ? columnQualifier.length() : keyEnd);
+    }
+
+    private static int indexOfSeparator(ByteSequence bytes, int start) {
+        for (int i = start; i < bytes.length(); i++) {
+            if (bytes.byteAt(i) == SEPARATOR) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contains(Set<ByteBuffer> values, ByteSequence bytes, int length) {
+        if (values == null) {
+            return false;
+        }
+        if (bytes.isBackedByArray()) {
+            return values.contains(ByteBuffer.wrap(bytes.getBackingArray(), bytes.offset(), length));
+        }
+        return values.contains(ByteBuffer.wrap(bytes.subSequence(0, length).toArray()));
+    }
+
+    private static String join(Collection<String> values) {
+        StringBuilder result = new StringBuilder();
+        boolean first = true;
+        for (String value : values) {
+            if (!first) {
+                result.append(LIST_SEPARATOR);
+            }
+            result.append(value);
+            first = false;
+        }
+        return result.toString();
+    }
+
+    private static Set<ByteBuffer> split(String option) {
+        if (option == null || option.isEmpty()) {
+            return null;
+        }
+        Set<ByteBuffer> results = new HashSet<>();
+        for (String value : option.split(LIST_SEPARATOR, -1)) {
+            results.add(ByteBuffer.wrap(value.getBytes(UTF8)));
+        }
+        return results;
+    }
+}
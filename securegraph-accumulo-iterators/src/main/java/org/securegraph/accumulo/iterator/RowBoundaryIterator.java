@@ -0,0 +1,91 @@
+package org.securegraph.accumulo.iterator;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Passes the cells of each row through unchanged and adds a marker key after the last cell of every row, so that
+ * a client reading from a BatchScanner, where the cells of different rows can be interleaved, knows when a row is
+ * complete without the tablet server having to buffer and encode the whole row.
+ */
+public class RowBoundaryIterator implements SortedKeyValueIterator<Key, Value> {
+    public static final Text CF_ROW_BOUNDARY = new Text(new byte[]{(byte) 0xff});
+    private static final Value EMPTY_VALUE = new Value(new byte[0]);
+    private SortedKeyValueIterator<Key, Value> source;
+    private final Text lastRow = new Text();
+    private boolean hasLastRow;
+    private Key boundaryKey;
+
+    public static boolean isRowBoundary(Key key) {
+        return key.compareColumnFamily(CF_ROW_BOUNDARY) == 0;
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key, Value> source, Map<String, String> options, IteratorEnvironment env) throws IOException {
+        this.source = source;
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        RowBoundaryIterator copy = new RowBoundaryIterator();
+        copy.source = source.deepCopy(env);
+        return copy;
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        boundaryKey = null;
+        hasLastRow = false;
+        source.seek(range, columnFamilies, inclusive);
+
+        // a scan re-seeked after a cell still owes the client the boundary of that cell's row
+        if (!range.isInfiniteStartKey() && !range.isStartKeyInclusive() && !isRowBoundary(range.getStartKey())) {
+            range.getStartKey().getRow(lastRow);
+            hasLastRow = true;
+        }
+        findTop();
+    }
+
+    @Override
+    public boolean hasTop() {
+        return boundaryKey != null || source.hasTop();
+    }
+
+    @Override
+    public void next() throws IOException {
+        if (boundaryKey != null) {
+            boundaryKey = null;
+        } else {
+            source.getTopKey().getRow(lastRow);
+            hasLastRow = true;
+            source.next();
+        }
+        findTop();
+    }
+
+    private void findTop() {
+        if (hasLastRow && (!source.hasTop() || source.getTopKey().compareRow(lastRow) != 0)) {
+            boundaryKey = new Key(lastRow, CF_ROW_BOUNDARY);
+            hasLastRow = false;
+        }
+    }
+
+    @Override
+    public Key getTopKey() {
+        return boundaryKey != null ? boundaryKey : source.getTopKey();
+    }
+
+    @Override
+    public Value getTopValue() {
+        return boundaryKey != null ? EMPTY_VALUE : source.getTopValue();
+    }
+}
@@ -6,8 +6,11 @@ import org.securegraph.*;
 import org.securegraph.mutation.EdgeMutation;
 import org.securegraph.mutation.ExistingElementMutationImpl;
 import org.securegraph.mutation.PropertyRemoveMutation;
+import org.securegraph.property.StreamingPropertyValue;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class AccumuloElement extends ElementBase implements Serializable, HasTimestamp {
     private static final long serialVersionUID = 1L;
@@ -59,6 +62,15 @@ public abstract class AccumuloElement extends ElementBase implements Serializabl
         getGraph().markPropertyVisible(this, property, visibility, authorizations);
     }
 
+    @Override
+    protected boolean isStored(Property property) {
+        // properties loaded from a row were stored by definition, checking would deserialize every value eagerly
+        if (property instanceof LazyMutableProperty) {
+            return true;
+        }
+        return super.isStored(property);
+    }
+
     @Override
     public AccumuloGraph getGraph() {
         return (AccumuloGraph) super.getGraph();
@@ -75,8 +87,19 @@ public abstract class AccumuloElement extends ElementBase implements Serializabl
 
         Iterable<PropertyRemoveMutation> propertyRemoves = mutation.getPropertyRemoves();
         Iterable<Property> properties = mutation.getProperties();
-        updatePropertiesInternal(properties, propertyRemoves);
-        getGraph().saveProperties((AccumuloElement) mutation.getElement(), properties, propertyRemoves, mutation.getIndexHint(), authorizations);
+        boolean propertiesChanged = true;
+        if (getGraph().getConfiguration().isElideUnchangedPropertyWrites()) {
+            List<Property> changedProperties = removeUnchangedProperties(mutation.getElement(), properties, authorizations);
+            propertiesChanged = changedProperties.size() > 0
+                    || propertyRemoves.iterator().hasNext()
+                    || mutation.getSetPropertyMetadatas().size() > 0
+                    || mutation.getAlterPropertyVisibilities().size() > 0;
+            properties = changedProperties;
+        }
+        if (propertiesChanged) {
+            updatePropertiesInternal(properties, propertyRemoves);
+            getGraph().saveProperties((AccumuloElement) mutation.getElement(), properties, propertyRemoves, mutation.getIndexHint(), authorizations);
+        }
 
         if (mutation.getNewElementVisibility() != null) {
             getGraph().alterElementVisibility((AccumuloElement) mutation.getElement(), mutation.getNewElementVisibility());
@@ -92,6 +115,55 @@ public abstract class AccumuloElement extends ElementBase implements Serializabl
         }
     }
 
+    /**
+     * Returns the properties which differ from the visible property with the same key, name and visibility on the
+     * element. Streaming values are always treated as changed.
+     */
+    private List<Property> removeUnchangedProperties(Element element, Iterable<Property> properties, Authorizations authorizations) {
+        List<Property> changedProperties = new ArrayList<>();
+        int elided = 0;
+        for (Property property : properties) {
+            Property existingProperty = element.getProperty(property.getKey(), property.getName(), property.getVisibility());
+            if (existingProperty != null && isSameProperty(existingProperty, property, authorizations)) {
+                elided++;
+            } else {
+                changedProperties.add(property);
+            }
+        }
+        if (elided > 0) {
+            getGraph().addElidedPropertyWrites(elided);
+        }
+        return changedProperties;
+    }
+
+    private static boolean isSameProperty(Property existingProperty, Property property, Authorizations authorizations) {
+        if (existingProperty.isHidden(authorizations)
+                || (existingProperty.getHiddenVisibilities() != null && existingProperty.getHiddenVisibilities().iterator().hasNext())) {
+            return false;
+        }
+        Object value = property.getValue();
+        if (value == null || value instanceof StreamingPropertyValue || value.getClass().isArray()) {
+            return false;
+        }
+        if (!value.equals(existingProperty.getValue())) {
+            return false;
+        }
+        return isSameMetadata(existingProperty.getMetadata(), property.getMetadata());
+    }
+
+    private static boolean isSameMetadata(Metadata existingMetadata, Metadata metadata) {
+        if (existingMetadata.entrySet().size() != metadata.entrySet().size()) {
+            return false;
+        }
+        for (Metadata.Entry entry : metadata.entrySet()) {
+            Metadata.Entry existingEntry = existingMetadata.getEntry(entry.getKey(), entry.getVisibility());
+            if (existingEntry == null || entry.getValue() == null || !entry.getValue().equals(existingEntry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public long getTimestamp() {
         return timestamp;
@@ -0,0 +1,260 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.securegraph.Authorizations;
+import org.securegraph.ElementType;
+import org.securegraph.FetchHint;
+
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded LRU cache of the rows read by point lookups, keyed by element id, authorizations and fetch hints. Elements
+ * are mutable so a new element is made from the cached row for every lookup.
+ * <p/>
+ * Rows touched by a mutation are invalidated when the mutation is added to a writer and again once the writers
+ * are flushed. Until that flush completes the row is not cached, so a lookup racing with buffered mutations
+ * can never pin a stale element in the cache.
+ */
+public class AccumuloElementCache {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int GENERATION_STRIPES = 64;
+    private final int maxSize;
+    private final LinkedHashMap<CacheKey, List<Map.Entry<Key, Value>>> entries;
+    private final Map<ElementId, Set<CacheKey>> keysByElementId = new HashMap<>();
+    private final ConcurrentHashMap<ElementId, Long> unflushedElementIds = new ConcurrentHashMap<>();
+    private final AtomicLong mutationSequence = new AtomicLong();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public AccumuloElementCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<CacheKey, List<Map.Entry<Key, Value>>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, List<Map.Entry<Key, Value>>> eldest) {
+                if (size() > AccumuloElementCache.this.maxSize) {
+                    removeKeyFromIndex(eldest.getKey());
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public List<Map.Entry<Key, Value>> get(ElementType elementType, String id, EnumSet<FetchHint> fetchHints, Authorizations authorizations) {
+        CacheKey key = new CacheKey(new ElementId(elementType, id), fetchHints, authorizations);
+        List<Map.Entry<Key, Value>> row;
+        synchronized (entries) {
+            row = entries.get(key);
+        }
+        if (row == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return row;
+    }
+
+    /**
+     * Returns a stamp that must be passed to {@link #put} so the put can be discarded if the row was
+     * invalidated while it was being read.
+     */
+    public long getGeneration(ElementType elementType, String id) {
+        return generations.get(stripe(new ElementId(elementType, id)));
+    }
+
+    public void put(ElementType elementType, String id, EnumSet<FetchHint> fetchHints, Authorizations authorizations, List<Map.Entry<Key, Value>> row, long generation) {
+        ElementId elementId = new ElementId(elementType, id);
+        if (unflushedElementIds.containsKey(elementId)) {
+            return;
+        }
+        CacheKey key = new CacheKey(elementId, fetchHints, authorizations);
+        synchronized (entries) {
+            if (generations.get(stripe(elementId)) != generation) {
+                return;
+            }
+            entries.put(key, Collections.unmodifiableList(row));
+            Set<CacheKey> keys = keysByElementId.get(elementId);
+            if (keys == null) {
+                keys = new HashSet<>();
+                keysByElementId.put(elementId, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    public void invalidate(Mutation mutation) {
+        byte[] row = mutation.getRow();
+        if (row.length == 0) {
+            return;
+        }
+        ElementType elementType;
+        if (row[0] == AccumuloConstants.VERTEX_ROW_KEY_PREFIX.charAt(0)) {
+            elementType = ElementType.VERTEX;
+        } else if (row[0] == AccumuloConstants.EDGE_ROW_KEY_PREFIX.charAt(0)) {
+            elementType = ElementType.EDGE;
+        } else {
+            return;
+        }
+        ElementId elementId = new ElementId(elementType, new String(row, 1, row.length - 1, UTF8));
+        unflushedElementIds.put(elementId, mutationSequence.incrementAndGet());
+        invalidate(elementId);
+    }
+
+    /**
+     * Must be called before the writers are flushed. The returned value is passed to {@link #flushed(long)}.
+     */
+    public long beforeFlush() {
+        return mutationSequence.get();
+    }
+
+    /**
+     * Called after the writers have been flushed. Anything mutated before the flush started is now visible to
+     * scanners, so those elements can be cached again.
+     */
+    public void flushed(long flushSequence) {
+        for (Map.Entry<ElementId, Long> entry : unflushedElementIds.entrySet()) {
+            if (entry.getValue() <= flushSequence && unflushedElementIds.remove(entry.getKey(), entry.getValue())) {
+                invalidate(entry.getKey());
+            }
+        }
+    }
+
+    private void invalidate(ElementId elementId) {
+        synchronized (entries) {
+            generations.incrementAndGet(stripe(elementId));
+            Set<CacheKey> keys = keysByElementId.remove(elementId);
+            if (keys != null) {
+                for (CacheKey key : keys) {
+                    entries.remove(key);
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            for (int i = 0; i < GENERATION_STRIPES; i++) {
+                generations.incrementAndGet(i);
+            }
+            entries.clear();
+            keysByElementId.clear();
+        }
+    }
+
+    private void removeKeyFromIndex(CacheKey key) {
+        Set<CacheKey> keys = keysByElementId.get(key.elementId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.size() == 0) {
+                keysByElementId.remove(key.elementId);
+            }
+        }
+    }
+
+    private static int stripe(ElementId elementId) {
+        return (elementId.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AccumuloElementCache{" +
+                "size=" + size() +
+                ", maxSize=" + maxSize +
+                ", hitCount=" + getHitCount() +
+                ", missCount=" + getMissCount() +
+                ", evictionCount=" + getEvictionCount() +
+                '}';
+    }
+
+    private static class ElementId {
+        private final ElementType elementType;
+        private final String id;
+
+        public ElementId(ElementType elementType, String id) {
+            this.elementType = elementType;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ElementId that = (ElementId) o;
+            return elementType == that.elementType && id.equals(that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * elementType.hashCode() + id.hashCode();
+        }
+    }
+
+    private static class CacheKey {
+        private final ElementId elementId;
+        private final EnumSet<FetchHint> fetchHints;
+        private final Set<String> authorizations;
+
+        public CacheKey(ElementId elementId, EnumSet<FetchHint> fetchHints, Authorizations authorizations) {
+            this.elementId = elementId;
+            this.fetchHints = fetchHints;
+            this.authorizations = new HashSet<>(Arrays.asList(authorizations.getAuthorizations()));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey that = (CacheKey) o;
+            return elementId.equals(that.elementId)
+                    && fetchHints.equals(that.fetchHints)
+                    && authorizations.equals(that.authorizations);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = elementId.hashCode();
+            result = 31 * result + fetchHints.hashCode();
+            result = 31 * result + authorizations.hashCode();
+            return result;
+        }
+    }
+}
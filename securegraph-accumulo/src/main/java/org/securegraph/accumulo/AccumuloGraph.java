@@ -6,13 +6,23 @@ import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyIterator;
 import org.apache.accumulo.core.iterators.user.RowDeletingIterator;
-import org.apache.accumulo.core.iterators.user.WholeRowIterator;
 import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.security.VisibilityEvaluator;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
 import org.apache.hadoop.io.Text;
 import org.securegraph.*;
+import org.securegraph.accumulo.iterator.EdgeCountIterator;
+import org.securegraph.accumulo.iterator.EdgeRefFilter;
+import org.securegraph.accumulo.iterator.EdgeRefLimitIterator;
 import org.securegraph.accumulo.iterator.ElementVisibilityRowFilter;
+import org.securegraph.accumulo.iterator.PropertyProjectionFilter;
+import org.securegraph.accumulo.iterator.RowBoundaryIterator;
+import org.securegraph.accumulo.serializer.JavaValueSerializer;
 import org.securegraph.accumulo.serializer.ValueSerializer;
 import org.securegraph.event.*;
 import org.securegraph.id.IdGenerator;
@@ -23,18 +33,29 @@ import org.securegraph.property.MutableProperty;
 import org.securegraph.property.StreamingPropertyValue;
 import org.securegraph.search.IndexHint;
 import org.securegraph.search.SearchIndex;
+import org.securegraph.util.ByteChunkPool;
 import org.securegraph.util.CloseableIterable;
 import org.securegraph.util.EmptyClosableIterable;
 import org.securegraph.util.JavaSerializableUtils;
 import org.securegraph.util.LookAheadIterable;
+import org.securegraph.util.ToElementIterable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.securegraph.util.IterableUtils.singleOrDefault;
+import static org.securegraph.util.IterableUtils.toList;
 import static org.securegraph.util.IterableUtils.toSet;
 import static org.securegraph.util.Preconditions.checkNotNull;
 
@@ -42,6 +63,17 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
     private static final Logger LOGGER = LoggerFactory.getLogger(AccumuloGraph.class);
     private static final String ROW_DELETING_ITERATOR_NAME = RowDeletingIterator.class.getSimpleName();
     private static final int ROW_DELETING_ITERATOR_PRIORITY = 7;
+    private static final int EDGE_REF_FILTER_PRIORITY = 102;
+    private static final int EDGE_COUNT_ITERATOR_PRIORITY = 103;
+    private static final int PROPERTY_PROJECTION_FILTER_PRIORITY = 104;
+    private static final int EDGE_REF_LIMIT_ITERATOR_PRIORITY = 105;
+    private static final int SORTED_KEY_ITERATOR_PRIORITY = 106;
+    private static final int PARALLEL_SCAN_QUEUE_SIZE = 1000;
+    private static final int DECODE_QUEUE_SIZE = 1000;
+    private static final String LOCALITY_GROUP_SIGNAL = "signal";
+    private static final String LOCALITY_GROUP_EDGE_REFS = "edgeRefs";
+    private static final String LOCALITY_GROUP_PROPERTIES = "properties";
+    private static final String LOCALITY_GROUP_PROPERTY_METADATA = "propertyMetadata";
     public static final Text DELETE_ROW_COLUMN_FAMILY = new Text("");
     public static final Text DELETE_ROW_COLUMN_QUALIFIER = new Text("");
     public static final Text METADATA_COLUMN_FAMILY = new Text("");
@@ -57,12 +89,22 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
     private final ValueSerializer valueSerializer;
     private final FileSystem fileSystem;
     private final String dataDir;
-    private BatchWriter verticesWriter;
-    private BatchWriter edgesWriter;
-    private BatchWriter dataWriter;
-    private BatchWriter metadataWriter;
+    private MultiTableBatchWriter multiTableBatchWriter;
+    private CountingBatchWriter verticesWriter;
+    private CountingBatchWriter edgesWriter;
+    private CountingBatchWriter dataWriter;
+    private CountingBatchWriter metadataWriter;
     private ElementMutationBuilder elementMutationBuilder;
+    private final AccumuloElementCache elementCache;
+    private final int edgeRefStreamingThreshold;
+    private final ExecutorService decodeExecutor;
+    private final CoalescingMutationBuffer pendingEdgeRefMutations;
+    private final int edgeRefCoalesceMaxUpdates;
+    private final GroupCommit groupCommit;
+    private final WriteOverlay writeOverlay;
+    private final ByteChunkPool streamingPropertyValueBufferPool;
     private final Queue<GraphEvent> graphEventQueue = new LinkedList<>();
+    private final AtomicLong elidedPropertyWriteCount = new AtomicLong();
     private Integer accumuloGraphVersion;
     private boolean foundValueSerializerMetadata;
 
@@ -72,13 +114,37 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         this.valueSerializer = valueSerializer;
         this.fileSystem = fileSystem;
         this.dataDir = config.getDataDir();
-        long maxStreamingPropertyValueTableDataSize = config.getMaxStreamingPropertyValueTableDataSize();
-        this.elementMutationBuilder = new ElementMutationBuilder(fileSystem, valueSerializer, maxStreamingPropertyValueTableDataSize, dataDir) {
+        this.elementCache = config.getElementCacheSize() > 0 ? new AccumuloElementCache(config.getElementCacheSize()) : null;
+        this.edgeRefStreamingThreshold = config.getEdgeRefStreamingThreshold();
+        this.decodeExecutor = config.getDecodeThreads() > 0 ? createDecodeExecutor(config.getDecodeThreads()) : null;
+        this.edgeRefCoalesceMaxUpdates = config.isAutoFlush() ? 0 : config.getEdgeRefCoalesceMaxUpdates();
+        this.pendingEdgeRefMutations = this.edgeRefCoalesceMaxUpdates > 0 ? new CoalescingMutationBuffer() : null;
+        this.writeOverlay = !config.isAutoFlush() && config.getWriteOverlayMaxCells() > 0 ? new WriteOverlay(config.getWriteOverlayMaxCells()) : null;
+        this.streamingPropertyValueBufferPool = config.createStreamingPropertyValueBufferPool();
+        this.groupCommit = config.isAutoFlush() && config.getGroupCommitWindow() >= 0 ? new GroupCommit(config.getGroupCommitWindow(), new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }) : null;
+        this.elementMutationBuilder = new AccumuloGraphElementMutationBuilder() {
             @Override
             protected void saveVertexMutation(Mutation m) {
                 addMutations(getVerticesWriter(), m);
             }
 
+            @Override
+            protected void saveEdgeRefMutation(Mutation m) {
+                if (pendingEdgeRefMutations == null) {
+                    super.saveEdgeRefMutation(m);
+                    return;
+                }
+                pendingEdgeRefMutations.add(m);
+                if (pendingEdgeRefMutations.getUpdateCount() >= edgeRefCoalesceMaxUpdates) {
+                    writePendingEdgeRefMutations();
+                }
+            }
+
             @Override
             protected void saveEdgeMutation(Mutation m) {
                 addMutations(getEdgesWriter(), m);
@@ -88,14 +154,52 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
             protected void saveDataMutation(Mutation dataMutation) {
                 addMutations(getDataWriter(), dataMutation);
             }
+        };
+    }
+
+    private abstract class AccumuloGraphElementMutationBuilder extends ElementMutationBuilder {
+        protected AccumuloGraphElementMutationBuilder() {
+            super(fileSystem, valueSerializer, getConfiguration().getMaxStreamingPropertyValueTableDataSize(), dataDir);
+        }
+
+        @Override
+        protected StreamingPropertyValueRef saveStreamingPropertyValue(String rowKey, Property property, StreamingPropertyValue propertyValue) {
+            StreamingPropertyValueRef streamingPropertyValueRef = super.saveStreamingPropertyValue(rowKey, property, propertyValue);
+            ((MutableProperty) property).setValue(streamingPropertyValueRef.toStreamingPropertyValue(AccumuloGraph.this));
+            return streamingPropertyValueRef;
+        }
+
+        @Override
+        protected boolean isContentAddressedStreamingPropertyValues() {
+            return getConfiguration().isContentAddressedStreamingPropertyValues();
+        }
 
+        @Override
+        protected ByteChunkPool getStreamingPropertyValueBufferPool() {
+            return streamingPropertyValueBufferPool;
+        }
+
+        @Override
+        protected int getStreamingPropertyValueTableChunkSize() {
+            return getConfiguration().getStreamingPropertyValueTableChunkSize();
+        }
+
+        @Override
+        protected Iterable<Key> getStoredDataColumns(String dataRowKey) {
+            return AccumuloGraph.this.getStoredDataColumns(dataRowKey);
+        }
+    }
+
+    private static ExecutorService createDecodeExecutor(int decodeThreads) {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(decodeThreads, new ThreadFactory() {
             @Override
-            protected StreamingPropertyValueRef saveStreamingPropertyValue(String rowKey, Property property, StreamingPropertyValue propertyValue) {
-                StreamingPropertyValueRef streamingPropertyValueRef = super.saveStreamingPropertyValue(rowKey, property, propertyValue);
-                ((MutableProperty) property).setValue(streamingPropertyValueRef.toStreamingPropertyValue(AccumuloGraph.this));
-                return streamingPropertyValueRef;
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "securegraph-decode-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
             }
-        };
+        });
     }
 
     public static AccumuloGraph create(AccumuloGraphConfiguration config) throws AccumuloSecurityException, AccumuloException, SecureGraphException, InterruptedException, IOException, URISyntaxException {
@@ -107,8 +211,12 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         ValueSerializer valueSerializer = config.createValueSerializer();
         SearchIndex searchIndex = config.createSearchIndex();
         IdGenerator idGenerator = config.createIdGenerator();
-        ensureTableExists(connector, getVerticesTableName(config.getTableNamePrefix()));
-        ensureTableExists(connector, getEdgesTableName(config.getTableNamePrefix()));
+        if (ensureTableExists(connector, getVerticesTableName(config.getTableNamePrefix())) && config.isUseLocalityGroups()) {
+            setLocalityGroups(connector, getVerticesTableName(config.getTableNamePrefix()), getVertexLocalityGroups());
+        }
+        if (ensureTableExists(connector, getEdgesTableName(config.getTableNamePrefix())) && config.isUseLocalityGroups()) {
+            setLocalityGroups(connector, getEdgesTableName(config.getTableNamePrefix()), getEdgeLocalityGroups());
+        }
         ensureTableExists(connector, getDataTableName(config.getTableNamePrefix()));
         ensureTableExists(connector, getMetadataTableName(config.getTableNamePrefix()));
         ensureRowDeletingIteratorIsAttached(connector, getVerticesTableName(config.getTableNamePrefix()));
@@ -161,16 +269,73 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         }
     }
 
-    private static void ensureTableExists(Connector connector, String tableName) {
+    /**
+     * @return true, if the table was created
+     */
+    private static boolean ensureTableExists(Connector connector, String tableName) {
         try {
             if (!connector.tableOperations().exists(tableName)) {
                 connector.tableOperations().create(tableName);
+                return true;
             }
+            return false;
         } catch (Exception e) {
             throw new RuntimeException("Unable to create table " + tableName, e);
         }
     }
 
+    // the signal group holds the columns every fetch hint reads
+    static Map<String, Set<Text>> getVertexLocalityGroups() {
+        Map<String, Set<Text>> groups = new HashMap<>();
+        groups.put(LOCALITY_GROUP_SIGNAL, columnFamilies(AccumuloVertex.CF_SIGNAL, AccumuloElement.CF_HIDDEN));
+        groups.put(LOCALITY_GROUP_EDGE_REFS, columnFamilies(AccumuloVertex.CF_IN_EDGE, AccumuloVertex.CF_IN_EDGE_HIDDEN, AccumuloVertex.CF_OUT_EDGE, AccumuloVertex.CF_OUT_EDGE_HIDDEN));
+        groups.put(LOCALITY_GROUP_PROPERTIES, columnFamilies(AccumuloElement.CF_PROPERTY, AccumuloElement.CF_PROPERTY_HIDDEN));
+        groups.put(LOCALITY_GROUP_PROPERTY_METADATA, columnFamilies(AccumuloElement.CF_PROPERTY_METADATA));
+        return groups;
+    }
+
+    static Map<String, Set<Text>> getEdgeLocalityGroups() {
+        Map<String, Set<Text>> groups = new HashMap<>();
+        groups.put(LOCALITY_GROUP_SIGNAL, columnFamilies(AccumuloEdge.CF_SIGNAL, AccumuloElement.CF_HIDDEN, AccumuloEdge.CF_IN_VERTEX, AccumuloEdge.CF_OUT_VERTEX));
+        groups.put(LOCALITY_GROUP_PROPERTIES, columnFamilies(AccumuloElement.CF_PROPERTY, AccumuloElement.CF_PROPERTY_HIDDEN));
+        groups.put(LOCALITY_GROUP_PROPERTY_METADATA, columnFamilies(AccumuloElement.CF_PROPERTY_METADATA));
+        return groups;
+    }
+
+    private static Set<Text> columnFamilies(Text... columnFamilies) {
+        return new HashSet<>(Arrays.asList(columnFamilies));
+    }
+
+    private static void setLocalityGroups(Connector connector, String tableName, Map<String, Set<Text>> groups) {
+        try {
+            if (!groups.equals(connector.tableOperations().getLocalityGroups(tableName))) {
+                LOGGER.info("Setting locality groups of table " + tableName + " to " + groups.keySet());
+                connector.tableOperations().setLocalityGroups(tableName, groups);
+            }
+        } catch (Exception e) {
+            throw new SecureGraphException("Unable to set locality groups of table " + tableName, e);
+        }
+    }
+
+    /**
+     * Sets the locality groups of the vertex and edge tables. Data written before the change is only split into
+     * the new groups once it is compacted.
+     *
+     * @param compact Start a full compaction of both tables after setting the groups.
+     */
+    public void setupLocalityGroups(boolean compact) {
+        setLocalityGroups(connector, getVerticesTableName(), getVertexLocalityGroups());
+        setLocalityGroups(connector, getEdgesTableName(), getEdgeLocalityGroups());
+        if (compact) {
+            try {
+                connector.tableOperations().compact(getVerticesTableName(), null, null, true, false);
+                connector.tableOperations().compact(getEdgesTableName(), null, null, true, false);
+            } catch (Exception e) {
+                throw new SecureGraphException("Unable to compact tables", e);
+            }
+        }
+    }
+
     private static void ensureRowDeletingIteratorIsAttached(Connector connector, String tableName) {
         try {
             synchronized (addIteratorLock) {
@@ -212,36 +377,128 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         return new VertexBuilder(vertexId, visibility) {
             @Override
             public Vertex save(Authorizations authorizations) {
-                AccumuloVertex vertex = new AccumuloVertex(
-                        AccumuloGraph.this,
-                        getVertexId(),
-                        getVisibility(),
-                        getProperties(),
-                        getPropertyRemoves(),
-                        null,
-                        authorizations,
-                        System.currentTimeMillis()
-                );
+                return savePreparedVertex(this, elementMutationBuilder, null, authorizations);
+            }
+        };
+    }
 
-                elementMutationBuilder.saveVertex(vertex);
+    /**
+     * @param elementsToIndex If not null, the vertex is added to this list instead of being indexed right away.
+     */
+    private Vertex savePreparedVertex(VertexBuilder vertexBuilder, ElementMutationBuilder elementMutationBuilder, List<Element> elementsToIndex, Authorizations authorizations) {
+        AccumuloVertex vertex = new AccumuloVertex(
+                AccumuloGraph.this,
+                vertexBuilder.getVertexId(),
+                vertexBuilder.getVisibility(),
+                vertexBuilder.getProperties(),
+                vertexBuilder.getPropertyRemoves(),
+                null,
+                authorizations,
+                System.currentTimeMillis()
+        );
 
-                if (getIndexHint() != IndexHint.DO_NOT_INDEX) {
-                    getSearchIndex().addElement(AccumuloGraph.this, vertex, authorizations);
-                }
+        elementMutationBuilder.saveVertex(vertex);
 
-                if (hasEventListeners()) {
-                    queueEvent(new AddVertexEvent(AccumuloGraph.this, vertex));
-                    for (Property property : getProperties()) {
-                        queueEvent(new AddPropertyEvent(AccumuloGraph.this, vertex, property));
-                    }
-                    for (PropertyRemoveMutation propertyRemoveMutation : getPropertyRemoves()) {
-                        queueEvent(new RemovePropertyEvent(AccumuloGraph.this, vertex, propertyRemoveMutation));
-                    }
-                }
+        if (vertexBuilder.getIndexHint() != IndexHint.DO_NOT_INDEX) {
+            if (elementsToIndex == null) {
+                getSearchIndex().addElement(AccumuloGraph.this, vertex, authorizations);
+            } else {
+                elementsToIndex.add(vertex);
+            }
+        }
 
-                return vertex;
+        if (hasEventListeners()) {
+            queueEvent(new AddVertexEvent(AccumuloGraph.this, vertex));
+            for (Property property : vertexBuilder.getProperties()) {
+                queueEvent(new AddPropertyEvent(AccumuloGraph.this, vertex, property));
             }
-        };
+            for (PropertyRemoveMutation propertyRemoveMutation : vertexBuilder.getPropertyRemoves()) {
+                queueEvent(new RemovePropertyEvent(AccumuloGraph.this, vertex, propertyRemoveMutation));
+            }
+        }
+
+        return vertex;
+    }
+
+    /**
+     * Saves the vertices with one mutation per row, one call to the search index and, with auto flush, one flush.
+     */
+    @Override
+    public Iterable<Vertex> addVertices(Iterable<ElementBuilder<Vertex>> vertices, Authorizations authorizations) {
+        MutationBatch batch = new MutationBatch();
+        List<Element> elementsToIndex = new ArrayList<>();
+        List<Vertex> addedVertices = new ArrayList<>();
+        for (ElementBuilder<Vertex> vertexBuilder : vertices) {
+            if (vertexBuilder instanceof VertexBuilder) {
+                addedVertices.add(savePreparedVertex((VertexBuilder) vertexBuilder, batch, elementsToIndex, authorizations));
+            } else {
+                addedVertices.add(vertexBuilder.save(authorizations));
+            }
+        }
+        batch.save(elementsToIndex, authorizations);
+        return addedVertices;
+    }
+
+    /**
+     * Saves the edges with one mutation per row, one call to the search index and, with auto flush, one flush.
+     */
+    @Override
+    public Iterable<Edge> addEdges(Iterable<ElementBuilder<Edge>> edges, Authorizations authorizations) {
+        MutationBatch batch = new MutationBatch();
+        List<Element> elementsToIndex = new ArrayList<>();
+        List<Edge> addedEdges = new ArrayList<>();
+        for (ElementBuilder<Edge> edgeBuilder : edges) {
+            if (edgeBuilder instanceof EdgeBuilderByVertexId) {
+                EdgeBuilderByVertexId edgeBuilderByVertexId = (EdgeBuilderByVertexId) edgeBuilder;
+                addedEdges.add(savePreparedEdge(edgeBuilderByVertexId, edgeBuilderByVertexId.getOutVertexId(), edgeBuilderByVertexId.getInVertexId(), null, batch, elementsToIndex, authorizations));
+            } else if (edgeBuilder instanceof EdgeBuilder) {
+                EdgeBuilder edgeBuilderByVertex = (EdgeBuilder) edgeBuilder;
+                addedEdges.add(savePreparedEdge(edgeBuilderByVertex, edgeBuilderByVertex.getOutVertex().getId(), edgeBuilderByVertex.getInVertex().getId(), createAddEdgeToVertexRunnable(edgeBuilderByVertex), batch, elementsToIndex, authorizations));
+            } else {
+                addedEdges.add(edgeBuilder.save(authorizations));
+            }
+        }
+        batch.save(elementsToIndex, authorizations);
+        return addedEdges;
+    }
+
+    /**
+     * Collects the mutations of a batch of elements, merging the mutations of each row into one.
+     */
+    private class MutationBatch extends AccumuloGraphElementMutationBuilder {
+        private final CoalescingMutationBuffer vertexMutations = new CoalescingMutationBuffer();
+        private final CoalescingMutationBuffer edgeMutations = new CoalescingMutationBuffer();
+        private final CoalescingMutationBuffer dataMutations = new CoalescingMutationBuffer();
+
+        @Override
+        protected void saveVertexMutation(Mutation m) {
+            vertexMutations.add(m);
+        }
+
+        @Override
+        protected void saveEdgeMutation(Mutation m) {
+            edgeMutations.add(m);
+        }
+
+        @Override
+        protected void saveDataMutation(Mutation dataMutation) {
+            dataMutations.add(dataMutation);
+        }
+
+        public void save(List<Element> elementsToIndex, Authorizations authorizations) {
+            try {
+                // data first so no element row references a streaming property value which is not written yet
+                addMutationsWithoutFlush(getDataWriter(), dataMutations.drain());
+                addMutationsWithoutFlush(getVerticesWriter(), vertexMutations.drain());
+                addMutationsWithoutFlush(getEdgesWriter(), edgeMutations.drain());
+            } catch (MutationsRejectedException ex) {
+                throw new RuntimeException("Could not add mutation", ex);
+            }
+            autoFlush();
+            if (elementsToIndex.size() > 0) {
+                getSearchIndex().addElements(AccumuloGraph.this, elementsToIndex, authorizations);
+            }
+        }
     }
 
     private void queueEvent(GraphEvent graphEvent) {
@@ -250,6 +507,12 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         }
     }
 
+    private void queueEvents(List<GraphEvent> graphEvents) {
+        synchronized (this.graphEventQueue) {
+            this.graphEventQueue.addAll(graphEvents);
+        }
+    }
+
     void saveProperties(AccumuloElement element, Iterable<Property> properties, Iterable<PropertyRemoveMutation> propertyRemoves, IndexHint indexHint, Authorizations authorizations) {
         String rowPrefix = getRowPrefixForElement(element);
 
@@ -317,53 +580,63 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
     }
 
     private void addMutations(BatchWriter writer, Mutation... mutations) {
+        addMutations(writer, Arrays.asList(mutations));
+    }
+
+    private void addMutations(BatchWriter writer, List<Mutation> mutations) {
         try {
-            for (Mutation mutation : mutations) {
-                writer.addMutation(mutation);
-            }
-            if (getConfiguration().isAutoFlush()) {
-                flush();
-            }
+            addMutationsWithoutFlush(writer, mutations);
+            autoFlush();
         } catch (MutationsRejectedException ex) {
             throw new RuntimeException("Could not add mutation", ex);
         }
     }
 
-    protected BatchWriter getVerticesWriter() {
-        try {
-            // to avoid a synchronized block check verticesWriter first and return it.
-            if (this.verticesWriter != null) {
-                return this.verticesWriter;
+    private void addMutationsWithoutFlush(BatchWriter writer, List<Mutation> mutations) throws MutationsRejectedException {
+        // edge refs held back go first, so later deletes and alterations of the vertex rows are applied after them
+        if (writer == verticesWriter && pendingEdgeRefMutations != null && !pendingEdgeRefMutations.isEmpty()) {
+            addMutationsWithoutFlush(writer, pendingEdgeRefMutations.drain());
+        }
+        for (Mutation mutation : mutations) {
+            if (elementCache != null) {
+                elementCache.invalidate(mutation);
             }
-            synchronized (this) {
-                if (this.verticesWriter != null) {
-                    return this.verticesWriter;
+            if (writeOverlay != null) {
+                if (writer == verticesWriter) {
+                    writeOverlay.add(ElementType.VERTEX, mutation);
+                } else if (writer == edgesWriter) {
+                    writeOverlay.add(ElementType.EDGE, mutation);
                 }
-                BatchWriterConfig writerConfig = new BatchWriterConfig();
-                this.verticesWriter = this.connector.createBatchWriter(getVerticesTableName(), writerConfig);
+            }
+            writer.addMutation(mutation);
+        }
+    }
+
+    protected BatchWriter getVerticesWriter() {
+        // to avoid a synchronized block check verticesWriter first and return it.
+        if (this.verticesWriter != null) {
+            return this.verticesWriter;
+        }
+        synchronized (this) {
+            if (this.verticesWriter != null) {
                 return this.verticesWriter;
             }
-        } catch (TableNotFoundException ex) {
-            throw new RuntimeException("Could not create batch writer", ex);
+            this.verticesWriter = createTableWriter(getVerticesTableName());
+            return this.verticesWriter;
         }
     }
 
     protected BatchWriter getEdgesWriter() {
-        try {
-            // to avoid a synchronized block check edgesWriter first and return it.
+        // to avoid a synchronized block check edgesWriter first and return it.
+        if (this.edgesWriter != null) {
+            return this.edgesWriter;
+        }
+        synchronized (this) {
             if (this.edgesWriter != null) {
                 return this.edgesWriter;
             }
-            synchronized (this) {
-                if (this.edgesWriter != null) {
-                    return this.edgesWriter;
-                }
-                BatchWriterConfig writerConfig = new BatchWriterConfig();
-                this.edgesWriter = this.connector.createBatchWriter(getEdgesTableName(), writerConfig);
-                return this.edgesWriter;
-            }
-        } catch (TableNotFoundException ex) {
-            throw new RuntimeException("Could not create batch writer", ex);
+            this.edgesWriter = createTableWriter(getEdgesTableName());
+            return this.edgesWriter;
         }
     }
 
@@ -378,45 +651,101 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
     }
 
     protected BatchWriter getDataWriter() {
-        try {
-            // to avoid a synchronized block check dataWriter first and return it.
+        // to avoid a synchronized block check dataWriter first and return it.
+        if (this.dataWriter != null) {
+            return this.dataWriter;
+        }
+        synchronized (this) {
             if (this.dataWriter != null) {
                 return this.dataWriter;
             }
-            synchronized (this) {
-                if (this.dataWriter != null) {
-                    return this.dataWriter;
-                }
-                BatchWriterConfig writerConfig = new BatchWriterConfig();
-                this.dataWriter = this.connector.createBatchWriter(getDataTableName(), writerConfig);
-                return this.dataWriter;
-            }
-        } catch (TableNotFoundException ex) {
-            throw new RuntimeException("Could not create batch writer", ex);
+            this.dataWriter = createTableWriter(getDataTableName());
+            return this.dataWriter;
         }
     }
 
     protected BatchWriter getMetadataWriter() {
-        try {
-            // to avoid a synchronized block check dataWriter first and return it.
+        // to avoid a synchronized block check metadataWriter first and return it.
+        if (this.metadataWriter != null) {
+            return this.metadataWriter;
+        }
+        synchronized (this) {
             if (this.metadataWriter != null) {
                 return this.metadataWriter;
             }
-            synchronized (this) {
-                if (this.metadataWriter != null) {
-                    return this.metadataWriter;
-                }
-                BatchWriterConfig writerConfig = new BatchWriterConfig();
-                this.metadataWriter = this.connector.createBatchWriter(getMetadataTableName(), writerConfig);
-                return this.metadataWriter;
+            // not part of the shared writer so setMetadata only has to flush the metadata table
+            try {
+                this.metadataWriter = new CountingBatchWriter(this.connector.createBatchWriter(getMetadataTableName(), new BatchWriterConfig()));
+            } catch (TableNotFoundException ex) {
+                throw new SecureGraphException("Could not create batch writer", ex);
             }
-        } catch (TableNotFoundException ex) {
-            throw new RuntimeException("Could not create batch writer", ex);
+            return this.metadataWriter;
+        }
+    }
+
+    private synchronized CountingBatchWriter createTableWriter(String tableName) {
+        try {
+            if (this.multiTableBatchWriter == null) {
+                BatchWriterConfig writerConfig = new BatchWriterConfig()
+                        .setMaxMemory(getConfiguration().getBatchWriterMaxMemory())
+                        .setMaxWriteThreads(getConfiguration().getBatchWriterMaxWriteThreads())
+                        .setMaxLatency(getConfiguration().getBatchWriterMaxLatency(), TimeUnit.MILLISECONDS)
+                        .setTimeout(getConfiguration().getBatchWriterTimeout(), TimeUnit.MILLISECONDS);
+                this.multiTableBatchWriter = this.connector.createMultiTableBatchWriter(writerConfig);
+            }
+            return new CountingBatchWriter(this.multiTableBatchWriter, this.multiTableBatchWriter.getBatchWriter(tableName));
+        } catch (Exception ex) {
+            throw new SecureGraphException("Could not create batch writer", ex);
+        }
+    }
+
+    /**
+     * Number of mutations added to the given table since the graph was created.
+     */
+    public long getMutationCount(String tableName) {
+        CountingBatchWriter writer = getTableWriterIfCreated(tableName);
+        return writer == null ? 0 : writer.getMutationCount();
+    }
+
+    /**
+     * Size in bytes of the mutations added to the given table since the graph was created.
+     */
+    public long getMutationByteCount(String tableName) {
+        CountingBatchWriter writer = getTableWriterIfCreated(tableName);
+        return writer == null ? 0 : writer.getByteCount();
+    }
+
+    private CountingBatchWriter getTableWriterIfCreated(String tableName) {
+        if (tableName.equals(getVerticesTableName())) {
+            return this.verticesWriter;
+        } else if (tableName.equals(getEdgesTableName())) {
+            return this.edgesWriter;
+        } else if (tableName.equals(getDataTableName())) {
+            return this.dataWriter;
+        } else if (tableName.equals(getMetadataTableName())) {
+            return this.metadataWriter;
         }
+        throw new SecureGraphException("Unknown table: " + tableName);
+    }
+
+    /**
+     * Number of property writes skipped because the property was unchanged.
+     *
+     * @see AccumuloGraphConfiguration#isElideUnchangedPropertyWrites()
+     */
+    public long getElidedPropertyWriteCount() {
+        return elidedPropertyWriteCount.get();
+    }
+
+    void addElidedPropertyWrites(int count) {
+        elidedPropertyWriteCount.addAndGet(count);
     }
 
     @Override
     public Iterable<Vertex> getVertices(EnumSet<FetchHint> fetchHints, Authorizations authorizations) throws SecureGraphException {
+        if (getConfiguration().getParallelScanThreads() > 1) {
+            return getVerticesInRangeParallel(getVertexRange(null, null), fetchHints, authorizations);
+        }
         return getVerticesInRange(null, null, fetchHints, authorizations);
     }
 
@@ -426,17 +755,29 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
             throw new IllegalArgumentException("vertex cannot be null");
         }
 
-        getSearchIndex().removeElement(this, vertex, authorizations);
-
         // Remove all edges that this vertex participates.
-        for (Edge edge : vertex.getEdges(Direction.BOTH, authorizations)) {
-            removeEdge(edge, authorizations);
+        List<Edge> edges = toList(vertex.getEdges(Direction.BOTH, authorizations));
+        String vertexRowKey = AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertex.getId();
+        CoalescingMutationBuffer vertexMutations = new CoalescingMutationBuffer();
+        List<Mutation> edgeMutations = new ArrayList<>();
+        for (Edge edge : edges) {
+            addRemoveEdgeMutations(edge, vertexRowKey, vertexMutations, edgeMutations);
         }
+        vertexMutations.add(getDeleteRowMutation(vertexRowKey));
 
-        addMutations(getVerticesWriter(), getDeleteRowMutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertex.getId()));
+        List<Element> elementsToRemove = new ArrayList<Element>(edges);
+        elementsToRemove.add(vertex);
+        getSearchIndex().removeElements(this, elementsToRemove, authorizations);
+
+        addCascadeMutations(vertexMutations, edgeMutations);
 
         if (hasEventListeners()) {
-            queueEvent(new RemoveVertexEvent(this, vertex));
+            List<GraphEvent> events = new ArrayList<>();
+            for (Edge edge : edges) {
+                events.add(new RemoveEdgeEvent(this, edge));
+            }
+            events.add(new RemoveVertexEvent(this, vertex));
+            queueEvents(events);
         }
     }
 
@@ -446,15 +787,44 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
 
         ColumnVisibility columnVisibility = visibilityToAccumuloVisibility(visibility);
 
-        // Remove all edges that this vertex participates.
-        for (Edge edge : vertex.getEdges(Direction.BOTH, authorizations)) {
-            markEdgeHidden(edge, visibility, authorizations);
+        // Hide all edges that this vertex participates in, the edges themselves are only loaded for the events.
+        Map<String, EdgeInfo> inEdgeInfos = new LinkedHashMap<>();
+        Map<String, EdgeInfo> outEdgeInfos = new LinkedHashMap<>();
+        readEdgeRefs(vertex.getId(), false, inEdgeInfos, outEdgeInfos, authorizations);
+        List<Edge> edges = null;
+        if (hasEventListeners()) {
+            edges = toList(getEdges(getEdgeIds(inEdgeInfos, outEdgeInfos), FetchHint.ALL, authorizations));
+        }
+        CoalescingMutationBuffer vertexMutations = new CoalescingMutationBuffer();
+        List<Mutation> edgeMutations = new ArrayList<>();
+        for (Map.Entry<String, EdgeInfo> edgeInfo : outEdgeInfos.entrySet()) {
+            addMarkEdgeHiddenMutations(edgeInfo.getKey(), vertex.getId(), edgeInfo.getValue().getVertexId(), columnVisibility, vertexMutations, edgeMutations);
+        }
+        for (Map.Entry<String, EdgeInfo> edgeInfo : inEdgeInfos.entrySet()) {
+            if (!outEdgeInfos.containsKey(edgeInfo.getKey())) {
+                addMarkEdgeHiddenMutations(edgeInfo.getKey(), edgeInfo.getValue().getVertexId(), vertex.getId(), columnVisibility, vertexMutations, edgeMutations);
+            }
         }
+        vertexMutations.add(getMarkHiddenRowMutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertex.getId(), columnVisibility));
 
-        addMutations(getVerticesWriter(), getMarkHiddenRowMutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertex.getId(), columnVisibility));
+        addCascadeMutations(vertexMutations, edgeMutations);
 
-        if (hasEventListeners()) {
-            queueEvent(new MarkHiddenVertexEvent(this, vertex));
+        if (vertex instanceof AccumuloVertex) {
+            for (String edgeId : outEdgeInfos.keySet()) {
+                ((AccumuloVertex) vertex).removeOutEdge(edgeId);
+            }
+            for (String edgeId : inEdgeInfos.keySet()) {
+                ((AccumuloVertex) vertex).removeInEdge(edgeId);
+            }
+        }
+
+        if (edges != null) {
+            List<GraphEvent> events = new ArrayList<>();
+            for (Edge edge : edges) {
+                events.add(new MarkHiddenEdgeEvent(this, edge));
+            }
+            events.add(new MarkHiddenVertexEvent(this, vertex));
+            queueEvents(events);
         }
     }
 
@@ -464,16 +834,91 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
 
         ColumnVisibility columnVisibility = visibilityToAccumuloVisibility(visibility);
 
-        // Remove all edges that this vertex participates.
-        for (Edge edge : vertex.getEdges(Direction.BOTH, FetchHint.ALL_INCLUDING_HIDDEN, authorizations)) {
-            markEdgeVisible(edge, visibility, authorizations);
+        // Show all edges that this vertex participates in, the edges themselves are only loaded for the events.
+        Map<String, EdgeInfo> inEdgeInfos = new LinkedHashMap<>();
+        Map<String, EdgeInfo> outEdgeInfos = new LinkedHashMap<>();
+        readEdgeRefs(vertex.getId(), true, inEdgeInfos, outEdgeInfos, authorizations);
+        List<Edge> edges = null;
+        if (hasEventListeners()) {
+            edges = toList(getEdges(getEdgeIds(inEdgeInfos, outEdgeInfos), FetchHint.ALL_INCLUDING_HIDDEN, authorizations));
+        }
+        CoalescingMutationBuffer vertexMutations = new CoalescingMutationBuffer();
+        List<Mutation> edgeMutations = new ArrayList<>();
+        for (Map.Entry<String, EdgeInfo> edgeInfo : outEdgeInfos.entrySet()) {
+            addMarkEdgeVisibleMutations(edgeInfo.getKey(), vertex.getId(), edgeInfo.getValue().getVertexId(), columnVisibility, vertexMutations, edgeMutations);
+        }
+        for (Map.Entry<String, EdgeInfo> edgeInfo : inEdgeInfos.entrySet()) {
+            if (!outEdgeInfos.containsKey(edgeInfo.getKey())) {
+                addMarkEdgeVisibleMutations(edgeInfo.getKey(), edgeInfo.getValue().getVertexId(), vertex.getId(), columnVisibility, vertexMutations, edgeMutations);
+            }
         }
+        vertexMutations.add(getMarkVisibleRowMutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertex.getId(), columnVisibility));
 
-        addMutations(getVerticesWriter(), getMarkVisibleRowMutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertex.getId(), columnVisibility));
+        addCascadeMutations(vertexMutations, edgeMutations);
 
-        if (hasEventListeners()) {
-            queueEvent(new MarkVisibleVertexEvent(this, vertex));
+        if (vertex instanceof AccumuloVertex) {
+            for (Map.Entry<String, EdgeInfo> edgeInfo : outEdgeInfos.entrySet()) {
+                ((AccumuloVertex) vertex).addOutEdge(edgeInfo.getKey(), edgeInfo.getValue());
+            }
+            for (Map.Entry<String, EdgeInfo> edgeInfo : inEdgeInfos.entrySet()) {
+                ((AccumuloVertex) vertex).addInEdge(edgeInfo.getKey(), edgeInfo.getValue());
+            }
+        }
+
+        if (edges != null) {
+            List<GraphEvent> events = new ArrayList<>();
+            for (Edge edge : edges) {
+                events.add(new MarkVisibleEdgeEvent(this, edge));
+            }
+            events.add(new MarkVisibleVertexEvent(this, vertex));
+            queueEvents(events);
+        }
+    }
+
+    /**
+     * Reads the edge refs of a vertex row, including unflushed writes, with a single scan.
+     */
+    private void readEdgeRefs(String vertexId, boolean includeHidden, Map<String, EdgeInfo> inEdgeInfos, Map<String, EdgeInfo> outEdgeInfos, Authorizations authorizations) {
+        Scanner scanner = createElementVisibilityScanner(FetchHint.EDGE_REFS, authorizations, ElementType.VERTEX);
+        List<Map.Entry<Key, Value>> row = readElementRow(scanner, ElementType.VERTEX, new Text(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertexId), FetchHint.EDGE_REFS, authorizations);
+        if (row == null) {
+            return;
+        }
+        Set<String> hiddenEdgeIds = new HashSet<>();
+        for (Map.Entry<Key, Value> column : row) {
+            Key key = column.getKey();
+            if (key.compareColumnFamily(AccumuloVertex.CF_IN_EDGE) == 0) {
+                inEdgeInfos.put(key.getColumnQualifier().toString(), EdgeInfo.parse(column.getValue()));
+            } else if (key.compareColumnFamily(AccumuloVertex.CF_OUT_EDGE) == 0) {
+                outEdgeInfos.put(key.getColumnQualifier().toString(), EdgeInfo.parse(column.getValue()));
+            } else if (key.compareColumnFamily(AccumuloVertex.CF_IN_EDGE_HIDDEN) == 0
+                    || key.compareColumnFamily(AccumuloVertex.CF_OUT_EDGE_HIDDEN) == 0) {
+                hiddenEdgeIds.add(key.getColumnQualifier().toString());
+            }
+        }
+        if (!includeHidden) {
+            inEdgeInfos.keySet().removeAll(hiddenEdgeIds);
+            outEdgeInfos.keySet().removeAll(hiddenEdgeIds);
+        }
+    }
+
+    private static Set<String> getEdgeIds(Map<String, EdgeInfo> inEdgeInfos, Map<String, EdgeInfo> outEdgeInfos) {
+        Set<String> edgeIds = new LinkedHashSet<>(inEdgeInfos.keySet());
+        edgeIds.addAll(outEdgeInfos.keySet());
+        return edgeIds;
+    }
+
+    /**
+     * Writes the mutations of a vertex and all its edges, with one mutation per vertex row.
+     */
+    private void addCascadeMutations(CoalescingMutationBuffer vertexMutations, List<Mutation> edgeMutations) {
+        try {
+            addMutationsWithoutFlush(getEdgesWriter(), edgeMutations);
+            addMutationsWithoutFlush(getVerticesWriter(), vertexMutations.drain());
+        } catch (MutationsRejectedException ex) {
+            throw new RuntimeException("Could not add mutation", ex);
         }
+        autoFlush();
     }
 
     @Override
@@ -485,7 +930,7 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         return new EdgeBuilderByVertexId(edgeId, outVertexId, inVertexId, label, visibility) {
             @Override
             public Edge save(Authorizations authorizations) {
-                return savePreparedEdge(this, getOutVertexId(), getInVertexId(), null, authorizations);
+                return savePreparedEdge(this, getOutVertexId(), getInVertexId(), null, elementMutationBuilder, null, authorizations);
             }
         };
     }
@@ -505,23 +950,29 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         return new EdgeBuilder(edgeId, outVertex, inVertex, label, visibility) {
             @Override
             public Edge save(Authorizations authorizations) {
-                AddEdgeToVertexRunnable addEdgeToVertex = new AddEdgeToVertexRunnable() {
-                    @Override
-                    public void run(AccumuloEdge edge) {
-                        if (getOutVertex() instanceof AccumuloVertex) {
-                            ((AccumuloVertex) getOutVertex()).addOutEdge(edge);
-                        }
-                        if (getInVertex() instanceof AccumuloVertex) {
-                            ((AccumuloVertex) getInVertex()).addInEdge(edge);
-                        }
-                    }
-                };
-                return savePreparedEdge(this, getOutVertex().getId(), getInVertex().getId(), addEdgeToVertex, authorizations);
+                return savePreparedEdge(this, getOutVertex().getId(), getInVertex().getId(), createAddEdgeToVertexRunnable(this), elementMutationBuilder, null, authorizations);
+            }
+        };
+    }
+
+    private AddEdgeToVertexRunnable createAddEdgeToVertexRunnable(final EdgeBuilder edgeBuilder) {
+        return new AddEdgeToVertexRunnable() {
+            @Override
+            public void run(AccumuloEdge edge) {
+                if (edgeBuilder.getOutVertex() instanceof AccumuloVertex) {
+                    ((AccumuloVertex) edgeBuilder.getOutVertex()).addOutEdge(edge);
+                }
+                if (edgeBuilder.getInVertex() instanceof AccumuloVertex) {
+                    ((AccumuloVertex) edgeBuilder.getInVertex()).addInEdge(edge);
+                }
             }
         };
     }
 
-    private Edge savePreparedEdge(EdgeBuilderBase edgeBuilder, String outVertexId, String inVertexId, AddEdgeToVertexRunnable addEdgeToVertex, Authorizations authorizations) {
+    /**
+     * @param elementsToIndex If not null, the edge is added to this list instead of being indexed right away.
+     */
+    private Edge savePreparedEdge(EdgeBuilderBase edgeBuilder, String outVertexId, String inVertexId, AddEdgeToVertexRunnable addEdgeToVertex, ElementMutationBuilder elementMutationBuilder, List<Element> elementsToIndex, Authorizations authorizations) {
         AccumuloEdge edge = new AccumuloEdge(
                 AccumuloGraph.this,
                 edgeBuilder.getEdgeId(),
@@ -543,7 +994,11 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         }
 
         if (edgeBuilder.getIndexHint() != IndexHint.DO_NOT_INDEX) {
-            getSearchIndex().addElement(AccumuloGraph.this, edge, authorizations);
+            if (elementsToIndex == null) {
+                getSearchIndex().addElement(AccumuloGraph.this, edge, authorizations);
+            } else {
+                elementsToIndex.add(edge);
+            }
         }
 
         if (hasEventListeners()) {
@@ -565,6 +1020,9 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
 
     @Override
     public CloseableIterable<Edge> getEdges(EnumSet<FetchHint> fetchHints, Authorizations authorizations) {
+        if (getConfiguration().getParallelScanThreads() > 1) {
+            return getEdgesInRangeParallel(getEdgeRange(null, null), fetchHints, authorizations);
+        }
         return getEdgesInRange(null, null, fetchHints, authorizations);
     }
 
@@ -574,24 +1032,43 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
 
         getSearchIndex().removeElement(this, edge, authorizations);
 
-        ColumnVisibility visibility = visibilityToAccumuloVisibility(edge.getVisibility());
-
-        Mutation outMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + edge.getVertexId(Direction.OUT));
-        outMutation.putDelete(AccumuloVertex.CF_OUT_EDGE, new Text(edge.getId()), visibility);
+        CoalescingMutationBuffer vertexMutations = new CoalescingMutationBuffer();
+        List<Mutation> edgeMutations = new ArrayList<>();
+        addRemoveEdgeMutations(edge, null, vertexMutations, edgeMutations);
 
-        Mutation inMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + edge.getVertexId(Direction.IN));
-        inMutation.putDelete(AccumuloVertex.CF_IN_EDGE, new Text(edge.getId()), visibility);
-
-        addMutations(getVerticesWriter(), outMutation, inMutation);
+        addMutations(getVerticesWriter(), vertexMutations.drain());
 
         // Remove everything else related to edge.
-        addMutations(getEdgesWriter(), getDeleteRowMutation(AccumuloConstants.EDGE_ROW_KEY_PREFIX + edge.getId()));
+        addMutations(getEdgesWriter(), edgeMutations);
 
         if (hasEventListeners()) {
             queueEvent(new RemoveEdgeEvent(this, edge));
         }
     }
 
+    /**
+     * @param removedVertexRowKey Row of a vertex which is removed with the edge. Its edge refs are not deleted.
+     */
+    private void addRemoveEdgeMutations(Edge edge, String removedVertexRowKey, CoalescingMutationBuffer vertexMutations, List<Mutation> edgeMutations) {
+        ColumnVisibility visibility = visibilityToAccumuloVisibility(edge.getVisibility());
+
+        String outRowKey = AccumuloConstants.VERTEX_ROW_KEY_PREFIX + edge.getVertexId(Direction.OUT);
+        if (!outRowKey.equals(removedVertexRowKey)) {
+            Mutation outMutation = new Mutation(outRowKey);
+            outMutation.putDelete(AccumuloVertex.CF_OUT_EDGE, new Text(edge.getId()), visibility);
+            vertexMutations.add(outMutation);
+        }
+
+        String inRowKey = AccumuloConstants.VERTEX_ROW_KEY_PREFIX + edge.getVertexId(Direction.IN);
+        if (!inRowKey.equals(removedVertexRowKey)) {
+            Mutation inMutation = new Mutation(inRowKey);
+            inMutation.putDelete(AccumuloVertex.CF_IN_EDGE, new Text(edge.getId()), visibility);
+            vertexMutations.add(inMutation);
+        }
+
+        edgeMutations.add(getDeleteRowMutation(AccumuloConstants.EDGE_ROW_KEY_PREFIX + edge.getId()));
+    }
+
     @Override
     public void markEdgeHidden(Edge edge, Visibility visibility, Authorizations authorizations) {
         checkNotNull(edge);
@@ -607,22 +1084,20 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
 
         ColumnVisibility columnVisibility = visibilityToAccumuloVisibility(visibility);
 
-        Mutation outMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + out.getId());
-        outMutation.put(AccumuloVertex.CF_OUT_EDGE_HIDDEN, new Text(edge.getId()), columnVisibility, AccumuloElement.HIDDEN_VALUE);
-
-        Mutation inMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + in.getId());
-        inMutation.put(AccumuloVertex.CF_IN_EDGE_HIDDEN, new Text(edge.getId()), columnVisibility, AccumuloElement.HIDDEN_VALUE);
+        CoalescingMutationBuffer vertexMutations = new CoalescingMutationBuffer();
+        List<Mutation> edgeMutations = new ArrayList<>();
+        addMarkEdgeHiddenMutations(edge.getId(), edge.getVertexId(Direction.OUT), edge.getVertexId(Direction.IN), columnVisibility, vertexMutations, edgeMutations);
 
-        addMutations(getVerticesWriter(), outMutation, inMutation);
+        addMutations(getVerticesWriter(), vertexMutations.drain());
 
         // Remove everything else related to edge.
-        addMutations(getEdgesWriter(), getMarkHiddenRowMutation(AccumuloConstants.EDGE_ROW_KEY_PREFIX + edge.getId(), columnVisibility));
+        addMutations(getEdgesWriter(), edgeMutations);
 
         if (out instanceof AccumuloVertex) {
-            ((AccumuloVertex) out).removeOutEdge(edge);
+            ((AccumuloVertex) out).removeOutEdge(edge.getId());
         }
         if (in instanceof AccumuloVertex) {
-            ((AccumuloVertex) in).removeInEdge(edge);
+            ((AccumuloVertex) in).removeInEdge(edge.getId());
         }
 
         if (hasEventListeners()) {
@@ -630,6 +1105,18 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         }
     }
 
+    private void addMarkEdgeHiddenMutations(String edgeId, String outVertexId, String inVertexId, ColumnVisibility columnVisibility, CoalescingMutationBuffer vertexMutations, List<Mutation> edgeMutations) {
+        Mutation outMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + outVertexId);
+        outMutation.put(AccumuloVertex.CF_OUT_EDGE_HIDDEN, new Text(edgeId), columnVisibility, AccumuloElement.HIDDEN_VALUE);
+        vertexMutations.add(outMutation);
+
+        Mutation inMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + inVertexId);
+        inMutation.put(AccumuloVertex.CF_IN_EDGE_HIDDEN, new Text(edgeId), columnVisibility, AccumuloElement.HIDDEN_VALUE);
+        vertexMutations.add(inMutation);
+
+        edgeMutations.add(getMarkHiddenRowMutation(AccumuloConstants.EDGE_ROW_KEY_PREFIX + edgeId, columnVisibility));
+    }
+
     @Override
     public void markEdgeVisible(Edge edge, Visibility visibility, Authorizations authorizations) {
         checkNotNull(edge);
@@ -645,16 +1132,14 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
 
         ColumnVisibility columnVisibility = visibilityToAccumuloVisibility(visibility);
 
-        Mutation outMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + out.getId());
-        outMutation.putDelete(AccumuloVertex.CF_OUT_EDGE_HIDDEN, new Text(edge.getId()), columnVisibility);
+        CoalescingMutationBuffer vertexMutations = new CoalescingMutationBuffer();
+        List<Mutation> edgeMutations = new ArrayList<>();
+        addMarkEdgeVisibleMutations(edge.getId(), edge.getVertexId(Direction.OUT), edge.getVertexId(Direction.IN), columnVisibility, vertexMutations, edgeMutations);
 
-        Mutation inMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + in.getId());
-        inMutation.putDelete(AccumuloVertex.CF_IN_EDGE_HIDDEN, new Text(edge.getId()), columnVisibility);
-
-        addMutations(getVerticesWriter(), outMutation, inMutation);
+        addMutations(getVerticesWriter(), vertexMutations.drain());
 
         // Remove everything else related to edge.
-        addMutations(getEdgesWriter(), getMarkVisibleRowMutation(AccumuloConstants.EDGE_ROW_KEY_PREFIX + edge.getId(), columnVisibility));
+        addMutations(getEdgesWriter(), edgeMutations);
 
         if (out instanceof AccumuloVertex) {
             ((AccumuloVertex) out).addOutEdge(edge);
@@ -668,6 +1153,18 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         }
     }
 
+    private void addMarkEdgeVisibleMutations(String edgeId, String outVertexId, String inVertexId, ColumnVisibility columnVisibility, CoalescingMutationBuffer vertexMutations, List<Mutation> edgeMutations) {
+        Mutation outMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + outVertexId);
+        outMutation.putDelete(AccumuloVertex.CF_OUT_EDGE_HIDDEN, new Text(edgeId), columnVisibility);
+        vertexMutations.add(outMutation);
+
+        Mutation inMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + inVertexId);
+        inMutation.putDelete(AccumuloVertex.CF_IN_EDGE_HIDDEN, new Text(edgeId), columnVisibility);
+        vertexMutations.add(inMutation);
+
+        edgeMutations.add(getMarkVisibleRowMutation(AccumuloConstants.EDGE_ROW_KEY_PREFIX + edgeId, columnVisibility));
+    }
+
     @Override
     public Authorizations createAuthorizations(String... auths) {
         return new AccumuloAuthorizations(auths);
@@ -721,6 +1218,20 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         return m;
     }
 
+    private void autoFlush() {
+        if (!getConfiguration().isAutoFlush()) {
+            if (writeOverlay != null && writeOverlay.isFull()) {
+                flush();
+            }
+            return;
+        }
+        if (groupCommit != null) {
+            groupCommit.commit();
+        } else {
+            flush();
+        }
+    }
+
     @Override
     public void flush() {
         if (hasEventListeners()) {
@@ -733,13 +1244,37 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         }
     }
 
+    private void writePendingEdgeRefMutations() {
+        if (pendingEdgeRefMutations == null || pendingEdgeRefMutations.isEmpty()) {
+            return;
+        }
+        try {
+            addMutationsWithoutFlush(getVerticesWriter(), pendingEdgeRefMutations.drain());
+        } catch (MutationsRejectedException ex) {
+            throw new RuntimeException("Could not add mutation", ex);
+        }
+    }
+
     private void flushWritersAndSuper() {
-        flushWriter(this.dataWriter);
-        flushWriter(this.verticesWriter);
-        flushWriter(this.edgesWriter);
+        writePendingEdgeRefMutations();
+        long flushSequence = elementCache == null ? 0 : elementCache.beforeFlush();
+        long overlayFlushSequence = writeOverlay == null ? 0 : writeOverlay.beforeFlush();
+        flushWriter(this.multiTableBatchWriter);
+        if (elementCache != null) {
+            elementCache.flushed(flushSequence);
+        }
+        if (writeOverlay != null) {
+            writeOverlay.flushed(overlayFlushSequence);
+        }
         super.flush();
     }
 
+    void invalidateElementCache() {
+        if (elementCache != null) {
+            elementCache.invalidateAll();
+        }
+    }
+
     private void flushGraphEventQueue() {
         GraphEvent graphEvent;
         while ((graphEvent = this.graphEventQueue.poll()) != null) {
@@ -747,7 +1282,7 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         }
     }
 
-    private static void flushWriter(BatchWriter writer) {
+    private static void flushWriter(MultiTableBatchWriter writer) {
         if (writer != null) {
             try {
                 writer.flush();
@@ -761,17 +1296,21 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
     public void shutdown() {
         try {
             flush();
-            if (this.dataWriter != null) {
-                this.dataWriter.close();
+            synchronized (this) {
+                if (this.multiTableBatchWriter != null) {
+                    this.multiTableBatchWriter.close();
+                    this.multiTableBatchWriter = null;
+                }
+                if (this.metadataWriter != null) {
+                    this.metadataWriter.close();
+                }
                 this.dataWriter = null;
-            }
-            if (this.verticesWriter != null) {
-                this.verticesWriter.close();
                 this.verticesWriter = null;
-            }
-            if (this.edgesWriter != null) {
-                this.edgesWriter.close();
                 this.edgesWriter = null;
+                this.metadataWriter = null;
+            }
+            if (this.decodeExecutor != null) {
+                this.decodeExecutor.shutdown();
             }
             super.shutdown();
         } catch (Exception ex) {
@@ -806,9 +1345,54 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         return (AccumuloGraphConfiguration) super.getConfiguration();
     }
 
+    int getEdgeRefStreamingThreshold() {
+        return edgeRefStreamingThreshold;
+    }
+
     @Override
     public Vertex getVertex(String vertexId, EnumSet<FetchHint> fetchHints, Authorizations authorizations) throws SecureGraphException {
-        Iterator<Vertex> vertices = getVerticesInRange(new Range(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertexId), fetchHints, authorizations).iterator();
+        if (elementCache == null) {
+            return getVertexFromTable(vertexId, fetchHints, authorizations);
+        }
+
+        List<Map.Entry<Key, Value>> row = elementCache.get(ElementType.VERTEX, vertexId, fetchHints, authorizations);
+        if (row == null) {
+            long generation = elementCache.getGeneration(ElementType.VERTEX, vertexId);
+            row = readElementRow(createVertexScanner(fetchHints, authorizations), ElementType.VERTEX, new Text(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertexId), fetchHints, authorizations);
+            if (row == null) {
+                return null;
+            }
+            elementCache.put(ElementType.VERTEX, vertexId, fetchHints, authorizations, row, generation);
+        }
+        return new VertexMaker(this, row.iterator(), authorizations).make(fetchHints.contains(FetchHint.INCLUDE_HIDDEN));
+    }
+
+    /**
+     * Reads the columns of a single row, merged with the unflushed writes, and closes the scanner.
+     *
+     * @return the columns or null if the row was not found.
+     */
+    private List<Map.Entry<Key, Value>> readElementRow(Scanner scanner, ElementType elementType, Text rowKey, EnumSet<FetchHint> fetchHints, Authorizations authorizations) {
+        try {
+            scanner.setRange(new Range(rowKey));
+            Iterator<Iterator<Map.Entry<Key, Value>>> rows = mergeWriteOverlay(new RowIterator(scanner.iterator()), elementType, Collections.singletonList(rowKey), fetchHints, null, authorizations);
+            if (!rows.hasNext()) {
+                return null;
+            }
+            List<Map.Entry<Key, Value>> row = new ArrayList<>();
+            Iterator<Map.Entry<Key, Value>> columns = rows.next();
+            while (columns.hasNext()) {
+                row.add(columns.next());
+            }
+            return row;
+        } finally {
+            scanner.close();
+        }
+    }
+
+    private Vertex getVertexFromTable(String vertexId, EnumSet<FetchHint> fetchHints, Authorizations authorizations) {
+        Text rowKey = new Text(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertexId);
+        Iterator<Vertex> vertices = getVerticesInRange(new Range(rowKey), fetchHints, authorizations, null, Collections.singletonList(rowKey)).iterator();
         if (vertices.hasNext()) {
             return vertices.next();
         }
@@ -816,54 +1400,55 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
     }
 
     @Override
-    public CloseableIterable<Vertex> getVertices(Iterable<String> ids, final EnumSet<FetchHint> fetchHints, final Authorizations authorizations) {
+    public CloseableIterable<Vertex> getVertices(Iterable<String> ids, EnumSet<FetchHint> fetchHints, Authorizations authorizations) {
+        return getVertices(ids, fetchHints, null, authorizations);
+    }
+
+    @Override
+    public CloseableIterable<Vertex> getVertices(Iterable<String> ids, final EnumSet<FetchHint> fetchHints, final PropertyProjection propertyProjection, final Authorizations authorizations) {
         final AccumuloGraph graph = this;
         final boolean includeHidden = fetchHints.contains(FetchHint.INCLUDE_HIDDEN);
 
         final List<Range> ranges = new ArrayList<>();
+        final List<Text> rowKeys = new ArrayList<>();
         for (String id : ids) {
             Text rowKey = new Text(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + id);
             ranges.add(new Range(rowKey));
+            rowKeys.add(rowKey);
         }
         if (ranges.size() == 0) {
             return new EmptyClosableIterable<>();
         }
 
-        return new LookAheadIterable<Map.Entry<Key, Value>, Vertex>() {
+        return new RowDecodingIterable<Vertex>(ranges.size() > 1 ? decodeExecutor : null, DECODE_QUEUE_SIZE) {
             public BatchScanner batchScanner;
 
             @Override
-            protected boolean isIncluded(Map.Entry<Key, Value> src, Vertex dest) {
-                return dest != null;
-            }
-
-            @Override
-            protected Vertex convert(Map.Entry<Key, Value> wholeRow) {
-                try {
-                    SortedMap<Key, Value> row = WholeRowIterator.decodeRow(wholeRow.getKey(), wholeRow.getValue());
-                    VertexMaker maker = new VertexMaker(graph, row.entrySet().iterator(), authorizations);
-                    return maker.make(includeHidden);
-                } catch (IOException ex) {
-                    throw new SecureGraphException("Could not recreate row", ex);
-                }
+            protected Vertex convert(Iterator<Map.Entry<Key, Value>> row) {
+                VertexMaker maker = new VertexMaker(graph, row, authorizations);
+                return maker.make(includeHidden);
             }
 
             @Override
-            protected Iterator<Map.Entry<Key, Value>> createIterator() {
+            protected Iterator<Iterator<Map.Entry<Key, Value>>> createRows() {
                 batchScanner = createVertexBatchScanner(fetchHints, authorizations, Math.min(Math.max(1, ranges.size() / 10), 10));
+                applyPropertyProjection(batchScanner, propertyProjection);
                 batchScanner.setRanges(ranges);
-                return batchScanner.iterator();
+                return mergeWriteOverlay(new BatchRowIterator(batchScanner.iterator()), ElementType.VERTEX, rowKeys, fetchHints, propertyProjection, authorizations);
             }
 
             @Override
-            public void close() {
-                super.close();
+            protected void closeRows() {
                 batchScanner.close();
             }
         };
     }
 
     private CloseableIterable<Vertex> getVerticesInRange(String startId, String endId, EnumSet<FetchHint> fetchHints, final Authorizations authorizations) throws SecureGraphException {
+        return getVerticesInRange(getVertexRange(startId, endId), fetchHints, authorizations, decodeExecutor, null);
+    }
+
+    private static Range getVertexRange(String startId, String endId) {
         final Key startKey;
         if (startId == null) {
             startKey = new Key(AccumuloConstants.VERTEX_ROW_KEY_PREFIX);
@@ -878,21 +1463,18 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
             endKey = new Key(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + endId + "~");
         }
 
-        Range range = new Range(startKey, endKey);
-        return getVerticesInRange(range, fetchHints, authorizations);
+        return new Range(startKey, endKey);
     }
 
-    private CloseableIterable<Vertex> getVerticesInRange(final Range range, final EnumSet<FetchHint> fetchHints, final Authorizations authorizations) {
+    /**
+     * @param overlayRowKeys Rows to merge with the unflushed writes, or null to read the table only.
+     */
+    private CloseableIterable<Vertex> getVerticesInRange(final Range range, final EnumSet<FetchHint> fetchHints, final Authorizations authorizations, ExecutorService decodeExecutor, final List<Text> overlayRowKeys) {
         final boolean includeHidden = fetchHints.contains(FetchHint.INCLUDE_HIDDEN);
 
-        return new LookAheadIterable<Iterator<Map.Entry<Key, Value>>, Vertex>() {
+        return new RowDecodingIterable<Vertex>(decodeExecutor, DECODE_QUEUE_SIZE) {
             public Scanner scanner;
 
-            @Override
-            protected boolean isIncluded(Iterator<Map.Entry<Key, Value>> src, Vertex dest) {
-                return dest != null;
-            }
-
             @Override
             protected Vertex convert(Iterator<Map.Entry<Key, Value>> next) {
                 VertexMaker maker = new VertexMaker(AccumuloGraph.this, next, authorizations);
@@ -900,22 +1482,36 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
             }
 
             @Override
-            protected Iterator<Iterator<Map.Entry<Key, Value>>> createIterator() {
+            protected Iterator<Iterator<Map.Entry<Key, Value>>> createRows() {
                 scanner = createVertexScanner(fetchHints, authorizations);
                 scanner.setRange(range);
-                return new RowIterator(scanner.iterator());
+                return mergeWriteOverlay(new RowIterator(scanner.iterator()), ElementType.VERTEX, overlayRowKeys, fetchHints, null, authorizations);
             }
 
             @Override
-            public void close() {
-                super.close();
+            protected void closeRows() {
                 scanner.close();
             }
         };
     }
 
+    private Iterator<Iterator<Map.Entry<Key, Value>>> mergeWriteOverlay(Iterator<Iterator<Map.Entry<Key, Value>>> rows, ElementType elementType, List<Text> rowKeys, EnumSet<FetchHint> fetchHints, PropertyProjection propertyProjection, Authorizations authorizations) {
+        if (writeOverlay == null || rowKeys == null) {
+            return rows;
+        }
+        // held back edge refs go to the writer, and with that into the overlay
+        writePendingEdgeRefMutations();
+        if (writeOverlay.isEmpty()) {
+            return rows;
+        }
+        Set<Text> columnFamilies = getFetchedColumnFamilies(fetchHints, elementType);
+        return writeOverlay.merge(rows, elementType, rowKeys, columnFamilies, propertyProjection, toAccumuloAuthorizations(authorizations));
+    }
+
     Scanner createVertexScanner(EnumSet<FetchHint> fetchHints, Authorizations authorizations) throws SecureGraphException {
-        return createElementVisibilityScanner(fetchHints, authorizations, ElementType.VERTEX);
+        Scanner scanner = createElementVisibilityScanner(fetchHints, authorizations, ElementType.VERTEX);
+        applyEdgeRefLimit(scanner, fetchHints);
+        return scanner;
     }
 
     Scanner createEdgeScanner(EnumSet<FetchHint> fetchHints, Authorizations authorizations) throws SecureGraphException {
@@ -944,21 +1540,23 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
     }
 
     private BatchScanner createVertexBatchScanner(EnumSet<FetchHint> fetchHints, Authorizations authorizations, int numQueryThreads) throws SecureGraphException {
-        return createElementVisibilityWholeRowBatchScanner(fetchHints, authorizations, ElementType.VERTEX, numQueryThreads);
+        BatchScanner scanner = createElementVisibilityRowBoundaryBatchScanner(fetchHints, authorizations, ElementType.VERTEX, numQueryThreads);
+        applyEdgeRefLimit(scanner, fetchHints);
+        return scanner;
     }
 
     private BatchScanner createEdgeBatchScanner(EnumSet<FetchHint> fetchHints, Authorizations authorizations, int numQueryThreads) throws SecureGraphException {
-        return createElementVisibilityWholeRowBatchScanner(fetchHints, authorizations, ElementType.EDGE, numQueryThreads);
+        return createElementVisibilityRowBoundaryBatchScanner(fetchHints, authorizations, ElementType.EDGE, numQueryThreads);
     }
 
-    private BatchScanner createElementVisibilityWholeRowBatchScanner(EnumSet<FetchHint> fetchHints, Authorizations authorizations, ElementType elementType, int numQueryThreads) throws SecureGraphException {
+    private BatchScanner createElementVisibilityRowBoundaryBatchScanner(EnumSet<FetchHint> fetchHints, Authorizations authorizations, ElementType elementType, int numQueryThreads) throws SecureGraphException {
         BatchScanner scanner = createElementVisibilityBatchScanner(fetchHints, authorizations, elementType, numQueryThreads);
         IteratorSetting iteratorSetting;
 
         iteratorSetting = new IteratorSetting(
                 101,
-                WholeRowIterator.class.getSimpleName(),
-                WholeRowIterator.class
+                RowBoundaryIterator.class.getSimpleName(),
+                RowBoundaryIterator.class
         );
         scanner.addScanIterator(iteratorSetting);
 
@@ -994,38 +1592,85 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
 
     private void applyFetchHints(ScannerBase scanner, EnumSet<FetchHint> fetchHints, ElementType elementType) {
         scanner.clearColumns();
-        if (fetchHints.equals(FetchHint.ALL)) {
+        Set<Text> columnFamilies = getFetchedColumnFamilies(fetchHints, elementType);
+        if (columnFamilies == null) {
             return;
         }
+        for (Text columnFamily : columnFamilies) {
+            scanner.fetchColumnFamily(columnFamily);
+        }
+    }
 
-        scanner.fetchColumnFamily(AccumuloElement.CF_HIDDEN);
+    /**
+     * @return the column families read for the fetch hints, or null if all column families are read.
+     */
+    static Set<Text> getFetchedColumnFamilies(EnumSet<FetchHint> fetchHints, ElementType elementType) {
+        if (fetchHints.equals(FetchHint.ALL)) {
+            return null;
+        }
+
+        Set<Text> columnFamilies = new HashSet<>();
+        columnFamilies.add(AccumuloElement.CF_HIDDEN);
 
         if (elementType == ElementType.VERTEX) {
-            scanner.fetchColumnFamily(AccumuloVertex.CF_SIGNAL);
+            columnFamilies.add(AccumuloVertex.CF_SIGNAL);
         } else if (elementType == ElementType.EDGE) {
-            scanner.fetchColumnFamily(AccumuloEdge.CF_SIGNAL);
-            scanner.fetchColumnFamily(AccumuloEdge.CF_IN_VERTEX);
-            scanner.fetchColumnFamily(AccumuloEdge.CF_OUT_VERTEX);
+            columnFamilies.add(AccumuloEdge.CF_SIGNAL);
+            columnFamilies.add(AccumuloEdge.CF_IN_VERTEX);
+            columnFamilies.add(AccumuloEdge.CF_OUT_VERTEX);
         } else {
             throw new SecureGraphException("Unhandled element type: " + elementType);
         }
 
         if (fetchHints.contains(FetchHint.IN_EDGE_REFS)) {
-            scanner.fetchColumnFamily(AccumuloVertex.CF_IN_EDGE);
-            scanner.fetchColumnFamily(AccumuloVertex.CF_IN_EDGE_HIDDEN);
+            columnFamilies.add(AccumuloVertex.CF_IN_EDGE);
+            columnFamilies.add(AccumuloVertex.CF_IN_EDGE_HIDDEN);
         }
         if (fetchHints.contains(FetchHint.OUT_EDGE_REFS)) {
-            scanner.fetchColumnFamily(AccumuloVertex.CF_OUT_EDGE);
-            scanner.fetchColumnFamily(AccumuloVertex.CF_OUT_EDGE_HIDDEN);
+            columnFamilies.add(AccumuloVertex.CF_OUT_EDGE);
+            columnFamilies.add(AccumuloVertex.CF_OUT_EDGE_HIDDEN);
         }
         if (fetchHints.contains(FetchHint.PROPERTIES)) {
-            scanner.fetchColumnFamily(AccumuloElement.CF_PROPERTY_HIDDEN);
-            scanner.fetchColumnFamily(AccumuloElement.CF_PROPERTY);
+            columnFamilies.add(AccumuloElement.CF_PROPERTY_HIDDEN);
+            columnFamilies.add(AccumuloElement.CF_PROPERTY);
         }
         if (fetchHints.contains(FetchHint.PROPERTY_METADATA)) {
-            scanner.fetchColumnFamily(AccumuloElement.CF_PROPERTY_HIDDEN);
-            scanner.fetchColumnFamily(AccumuloElement.CF_PROPERTY_METADATA);
+            columnFamilies.add(AccumuloElement.CF_PROPERTY_HIDDEN);
+            columnFamilies.add(AccumuloElement.CF_PROPERTY_METADATA);
         }
+        return columnFamilies;
+    }
+
+    /**
+     * Leaves the edge refs of vertices over the streaming threshold on the tablet server, those are streamed from
+     * the vertex table when they are asked for.
+     */
+    private void applyEdgeRefLimit(ScannerBase scanner, EnumSet<FetchHint> fetchHints) {
+        if (edgeRefStreamingThreshold < 0
+                || (!fetchHints.contains(FetchHint.IN_EDGE_REFS) && !fetchHints.contains(FetchHint.OUT_EDGE_REFS))) {
+            return;
+        }
+        IteratorSetting iteratorSetting = new IteratorSetting(
+                EDGE_REF_LIMIT_ITERATOR_PRIORITY,
+                EdgeRefLimitIterator.class.getSimpleName(),
+                EdgeRefLimitIterator.class
+        );
+        iteratorSetting.addOption(EdgeRefLimitIterator.OPT_LIMIT, Integer.toString(edgeRefStreamingThreshold));
+        scanner.addScanIterator(iteratorSetting);
+    }
+
+    private void applyPropertyProjection(ScannerBase scanner, PropertyProjection propertyProjection) {
+        if (propertyProjection == null) {
+            return;
+        }
+        IteratorSetting iteratorSetting = new IteratorSetting(
+                PROPERTY_PROJECTION_FILTER_PRIORITY,
+                PropertyProjectionFilter.class.getSimpleName(),
+                PropertyProjectionFilter.class
+        );
+        PropertyProjectionFilter.setPropertyNames(iteratorSetting, propertyProjection.getPropertyNames());
+        PropertyProjectionFilter.setPropertyKeys(iteratorSetting, propertyProjection.getPropertyKeys());
+        scanner.addScanIterator(iteratorSetting);
     }
 
     private String getTableNameFromElementType(ElementType elementType) {
@@ -1067,7 +1712,24 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
 
     @Override
     public Edge getEdge(String edgeId, EnumSet<FetchHint> fetchHints, Authorizations authorizations) {
-        Iterator<Edge> edges = getEdgesInRange(edgeId, edgeId, fetchHints, authorizations).iterator();
+        if (elementCache == null) {
+            return getEdgeFromTable(edgeId, fetchHints, authorizations);
+        }
+
+        List<Map.Entry<Key, Value>> row = elementCache.get(ElementType.EDGE, edgeId, fetchHints, authorizations);
+        if (row == null) {
+            long generation = elementCache.getGeneration(ElementType.EDGE, edgeId);
+            row = readElementRow(createEdgeScanner(fetchHints, authorizations), ElementType.EDGE, new Text(AccumuloConstants.EDGE_ROW_KEY_PREFIX + edgeId), fetchHints, authorizations);
+            if (row == null) {
+                return null;
+            }
+            elementCache.put(ElementType.EDGE, edgeId, fetchHints, authorizations, row, generation);
+        }
+        return new EdgeMaker(this, row.iterator(), authorizations).make(fetchHints.contains(FetchHint.INCLUDE_HIDDEN));
+    }
+
+    private Edge getEdgeFromTable(String edgeId, EnumSet<FetchHint> fetchHints, Authorizations authorizations) {
+        Iterator<Edge> edges = getEdgesInRange(getEdgeRange(edgeId, edgeId), fetchHints, authorizations, null, Collections.singletonList(new Text(AccumuloConstants.EDGE_ROW_KEY_PREFIX + edgeId))).iterator();
         if (edges.hasNext()) {
             return edges.next();
         }
@@ -1075,57 +1737,55 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
     }
 
     @Override
-    public CloseableIterable<Edge> getEdges(Iterable<String> ids, final EnumSet<FetchHint> fetchHints, final Authorizations authorizations) {
+    public CloseableIterable<Edge> getEdges(Iterable<String> ids, EnumSet<FetchHint> fetchHints, Authorizations authorizations) {
+        return getEdges(ids, fetchHints, null, authorizations);
+    }
+
+    @Override
+    public CloseableIterable<Edge> getEdges(Iterable<String> ids, final EnumSet<FetchHint> fetchHints, final PropertyProjection propertyProjection, final Authorizations authorizations) {
         final AccumuloGraph graph = this;
         final boolean includeHidden = fetchHints.contains(FetchHint.INCLUDE_HIDDEN);
 
         final List<Range> ranges = new ArrayList<>();
+        final List<Text> rowKeys = new ArrayList<>();
         for (String id : ids) {
             Text rowKey = new Text(AccumuloConstants.EDGE_ROW_KEY_PREFIX + id);
             ranges.add(new Range(rowKey));
+            rowKeys.add(rowKey);
         }
         if (ranges.size() == 0) {
             return new EmptyClosableIterable<>();
         }
 
-        return new LookAheadIterable<Map.Entry<Key, Value>, Edge>() {
+        return new RowDecodingIterable<Edge>(ranges.size() > 1 ? decodeExecutor : null, DECODE_QUEUE_SIZE) {
             public BatchScanner batchScanner;
 
             @Override
-            protected boolean isIncluded(Map.Entry<Key, Value> src, Edge dest) {
-                return dest != null;
-            }
-
-            @Override
-            protected Edge convert(Map.Entry<Key, Value> wholeRow) {
-                try {
-                    SortedMap<Key, Value> row = WholeRowIterator.decodeRow(wholeRow.getKey(), wholeRow.getValue());
-                    EdgeMaker maker = new EdgeMaker(graph, row.entrySet().iterator(), authorizations);
-                    return maker.make(includeHidden);
-                } catch (IOException ex) {
-                    throw new SecureGraphException("Could not recreate row", ex);
-                }
+            protected Edge convert(Iterator<Map.Entry<Key, Value>> row) {
+                EdgeMaker maker = new EdgeMaker(graph, row, authorizations);
+                return maker.make(includeHidden);
             }
 
             @Override
-            protected Iterator<Map.Entry<Key, Value>> createIterator() {
+            protected Iterator<Iterator<Map.Entry<Key, Value>>> createRows() {
                 batchScanner = createEdgeBatchScanner(fetchHints, authorizations, Math.min(Math.max(1, ranges.size() / 10), 10));
+                applyPropertyProjection(batchScanner, propertyProjection);
                 batchScanner.setRanges(ranges);
-                return batchScanner.iterator();
+                return mergeWriteOverlay(new BatchRowIterator(batchScanner.iterator()), ElementType.EDGE, rowKeys, fetchHints, propertyProjection, authorizations);
             }
 
             @Override
-            public void close() {
-                super.close();
+            protected void closeRows() {
                 batchScanner.close();
             }
         };
     }
 
     private CloseableIterable<Edge> getEdgesInRange(String startId, String endId, final EnumSet<FetchHint> fetchHints, final Authorizations authorizations) throws SecureGraphException {
-        final AccumuloGraph graph = this;
-        final boolean includeHidden = fetchHints.contains(FetchHint.INCLUDE_HIDDEN);
+        return getEdgesInRange(getEdgeRange(startId, endId), fetchHints, authorizations, decodeExecutor, null);
+    }
 
+    private static Range getEdgeRange(String startId, String endId) {
         final Key startKey;
         if (startId == null) {
             startKey = new Key(AccumuloConstants.EDGE_ROW_KEY_PREFIX);
@@ -1140,35 +1800,184 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
             endKey = new Key(AccumuloConstants.EDGE_ROW_KEY_PREFIX + endId + "~");
         }
 
-        return new LookAheadIterable<Iterator<Map.Entry<Key, Value>>, Edge>() {
-            public Scanner scanner;
+        return new Range(startKey, endKey);
+    }
 
-            @Override
-            protected boolean isIncluded(Iterator<Map.Entry<Key, Value>> src, Edge dest) {
-                return dest != null;
-            }
+    /**
+     * @param overlayRowKeys Rows to merge with the unflushed writes, or null to read the table only.
+     */
+    private CloseableIterable<Edge> getEdgesInRange(final Range range, final EnumSet<FetchHint> fetchHints, final Authorizations authorizations, ExecutorService decodeExecutor, final List<Text> overlayRowKeys) {
+        final boolean includeHidden = fetchHints.contains(FetchHint.INCLUDE_HIDDEN);
+
+        return new RowDecodingIterable<Edge>(decodeExecutor, DECODE_QUEUE_SIZE) {
+            public Scanner scanner;
 
             @Override
             protected Edge convert(Iterator<Map.Entry<Key, Value>> next) {
-                EdgeMaker maker = new EdgeMaker(graph, next, authorizations);
+                EdgeMaker maker = new EdgeMaker(AccumuloGraph.this, next, authorizations);
                 return maker.make(includeHidden);
             }
 
             @Override
-            protected Iterator<Iterator<Map.Entry<Key, Value>>> createIterator() {
+            protected Iterator<Iterator<Map.Entry<Key, Value>>> createRows() {
                 scanner = createEdgeScanner(fetchHints, authorizations);
-                scanner.setRange(new Range(startKey, endKey));
-                return new RowIterator(scanner.iterator());
+                scanner.setRange(range);
+                return mergeWriteOverlay(new RowIterator(scanner.iterator()), ElementType.EDGE, overlayRowKeys, fetchHints, null, authorizations);
             }
 
             @Override
-            public void close() {
-                super.close();
+            protected void closeRows() {
                 scanner.close();
             }
         };
     }
 
+    private CloseableIterable<Vertex> getVerticesInRangeParallel(Range range, final EnumSet<FetchHint> fetchHints, final Authorizations authorizations) {
+        final boolean includeHidden = fetchHints.contains(FetchHint.INCLUDE_HIDDEN);
+        return new ParallelScanIterable<Vertex>(
+                range,
+                getSplits(getVerticesTableName()),
+                getConfiguration().getParallelScanThreads(),
+                getConfiguration().isParallelScanOrdered(),
+                PARALLEL_SCAN_QUEUE_SIZE
+        ) {
+            @Override
+            protected Scanner createScanner(Range range) {
+                Scanner scanner = createVertexScanner(fetchHints, authorizations);
+                scanner.setRange(range);
+                return scanner;
+            }
+
+            @Override
+            protected Vertex convert(Iterator<Map.Entry<Key, Value>> row) {
+                return new VertexMaker(AccumuloGraph.this, row, authorizations).make(includeHidden);
+            }
+        };
+    }
+
+    private CloseableIterable<Edge> getEdgesInRangeParallel(Range range, final EnumSet<FetchHint> fetchHints, final Authorizations authorizations) {
+        final boolean includeHidden = fetchHints.contains(FetchHint.INCLUDE_HIDDEN);
+        return new ParallelScanIterable<Edge>(
+                range,
+                getSplits(getEdgesTableName()),
+                getConfiguration().getParallelScanThreads(),
+                getConfiguration().isParallelScanOrdered(),
+                PARALLEL_SCAN_QUEUE_SIZE
+        ) {
+            @Override
+            protected Scanner createScanner(Range range) {
+                Scanner scanner = createEdgeScanner(fetchHints, authorizations);
+                scanner.setRange(range);
+                return scanner;
+            }
+
+            @Override
+            protected Edge convert(Iterator<Map.Entry<Key, Value>> row) {
+                return new EdgeMaker(AccumuloGraph.this, row, authorizations).make(includeHidden);
+            }
+        };
+    }
+
+    /**
+     * Splits the ids at the tablet boundaries of the vertex or edge table so each range is read from one tablet. When
+     * there are fewer tablets than threads the tablets are split further between their first and last ids.
+     */
+    @Override
+    protected List<IdRange> getReindexRanges(ElementType elementType, int threads, Authorizations authorizations) {
+        String rowKeyPrefix = getRowKeyPrefix(elementType);
+        String tableName = elementType == ElementType.VERTEX ? getVerticesTableName() : getEdgesTableName();
+        List<String> splitIds = new ArrayList<>();
+        for (Text split : getSplits(tableName)) {
+            String row = split.toString();
+            if (row.startsWith(rowKeyPrefix) && row.length() > rowKeyPrefix.length()) {
+                splitIds.add(row.substring(rowKeyPrefix.length()));
+            }
+        }
+        if (splitIds.size() + 1 < threads) {
+            splitIds = splitTablets(elementType, splitIds, threads, authorizations);
+        }
+
+        List<IdRange> ranges = new ArrayList<>();
+        String startId = null;
+        for (String id : splitIds) {
+            ranges.add(new IdRange(startId, id));
+            startId = id;
+        }
+        ranges.add(new IdRange(startId, null));
+        return ranges;
+    }
+
+    private List<String> splitTablets(ElementType elementType, List<String> splitIds, int threads, Authorizations authorizations) {
+        String rowKeyPrefix = getRowKeyPrefix(elementType);
+        String tableName = elementType == ElementType.VERTEX ? getVerticesTableName() : getEdgesTableName();
+        Text afterRowKeyPrefix = new Text(elementType == ElementType.VERTEX ? VERTEX_AFTER_ROW_KEY_PREFIX : EDGE_AFTER_ROW_KEY_PREFIX);
+        org.apache.accumulo.core.security.Authorizations accumuloAuthorizations = toAccumuloAuthorizations(authorizations);
+        Text firstRow;
+        Text lastRow;
+        try {
+            Scanner scanner = connector.createScanner(tableName, accumuloAuthorizations);
+            try {
+                scanner.setRange(new Range(new Text(rowKeyPrefix), true, afterRowKeyPrefix, false));
+                scanner.setBatchSize(1);
+                Iterator<Map.Entry<Key, Value>> it = scanner.iterator();
+                if (!it.hasNext()) {
+                    return splitIds;
+                }
+                firstRow = it.next().getKey().getRow();
+            } finally {
+                scanner.close();
+            }
+            lastRow = connector.tableOperations().getMaxRow(tableName, accumuloAuthorizations, new Text(rowKeyPrefix), true, afterRowKeyPrefix, false);
+        } catch (TableNotFoundException | AccumuloSecurityException | AccumuloException e) {
+            throw new SecureGraphException("Could not get the row range of table: " + tableName, e);
+        }
+
+        List<String> bounds = new ArrayList<>();
+        bounds.add(firstRow.toString().substring(rowKeyPrefix.length()));
+        bounds.addAll(splitIds);
+        bounds.add(lastRow.toString().substring(rowKeyPrefix.length()));
+        int partsPerTablet = (threads + splitIds.size()) / (splitIds.size() + 1);
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < bounds.size() - 1; i++) {
+            if (i > 0) {
+                results.add(bounds.get(i));
+            }
+            results.addAll(IdSplitter.split(bounds.get(i), bounds.get(i + 1), partsPerTablet));
+        }
+        return results;
+    }
+
+    @Override
+    protected Iterable<Element> getElementsInIdRange(ElementType elementType, IdRange idRange, Authorizations authorizations) {
+        String rowKeyPrefix = getRowKeyPrefix(elementType);
+        Key startKey = new Key(rowKeyPrefix + (idRange.getStartId() == null ? "" : idRange.getStartId()));
+        Key endKey;
+        if (idRange.getEndId() != null) {
+            endKey = new Key(rowKeyPrefix + idRange.getEndId());
+        } else if (elementType == ElementType.VERTEX) {
+            endKey = new Key(VERTEX_AFTER_ROW_KEY_PREFIX);
+        } else {
+            endKey = new Key(EDGE_AFTER_ROW_KEY_PREFIX);
+        }
+        Range range = new Range(startKey, true, endKey, false);
+        if (elementType == ElementType.VERTEX) {
+            return new ToElementIterable<>(getVerticesInRange(range, FetchHint.ALL, authorizations, decodeExecutor, null));
+        }
+        return new ToElementIterable<>(getEdgesInRange(range, FetchHint.ALL, authorizations, decodeExecutor, null));
+    }
+
+    private static String getRowKeyPrefix(ElementType elementType) {
+        return elementType == ElementType.VERTEX ? AccumuloConstants.VERTEX_ROW_KEY_PREFIX : AccumuloConstants.EDGE_ROW_KEY_PREFIX;
+    }
+
+    private Collection<Text> getSplits(String tableName) {
+        try {
+            return connector.tableOperations().listSplits(tableName);
+        } catch (TableNotFoundException | AccumuloSecurityException | AccumuloException e) {
+            throw new SecureGraphException("Could not get splits of table: " + tableName, e);
+        }
+    }
+
     @SuppressWarnings("unused")
     private void printTable(Authorizations authorizations) {
         String[] tables = new String[]{getEdgesTableName(), getVerticesTableName(), getDataTableName()};
@@ -1205,18 +2014,185 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
     }
 
     public byte[] streamingPropertyValueTableData(String dataRowKey) {
+        byte[] singleCellData = null;
+        long length = -1;
+        int chunkSize = 0;
+        ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+        Iterator<Map.Entry<Key, Value>> it = scanDataTable(new Range(dataRowKey));
+        while (it.hasNext()) {
+            Map.Entry<Key, Value> col = it.next();
+            Text columnFamily = col.getKey().getColumnFamily();
+            if (columnFamily.equals(StreamingPropertyValueTable.CF_CHUNK)) {
+                byte[] chunk = col.getValue().get();
+                chunks.write(chunk, 0, chunk.length);
+            } else if (columnFamily.equals(StreamingPropertyValueTable.CF_INFO)) {
+                if (col.getKey().getColumnQualifier().equals(StreamingPropertyValueTable.CQ_LENGTH)) {
+                    length = Long.parseLong(col.getValue().toString());
+                } else if (col.getKey().getColumnQualifier().equals(StreamingPropertyValueTable.CQ_CHUNK_SIZE)) {
+                    chunkSize = Integer.parseInt(col.getValue().toString());
+                }
+            } else if (columnFamily.getLength() == 0) {
+                singleCellData = col.getValue().get();
+            }
+        }
+        if (chunkSize > 0) {
+            if (chunks.size() != length) {
+                throw new SecureGraphException("Expected " + length + " bytes in the chunks of " + dataRowKey + " but found " + chunks.size());
+            }
+            return chunks.toByteArray();
+        }
+        if (singleCellData == null) {
+            throw new SecureGraphException("Unexpected end of row: " + dataRowKey);
+        }
+        return singleCellData;
+    }
+
+    List<Key> getStoredDataColumns(String dataRowKey) {
         try {
             Scanner scanner = connector.createScanner(getDataTableName(), new org.apache.accumulo.core.security.Authorizations());
             scanner.setRange(new Range(dataRowKey));
-            Iterator<Map.Entry<Key, Value>> it = scanner.iterator();
-            if (it.hasNext()) {
-                Map.Entry<Key, Value> col = it.next();
-                return col.getValue().get();
+            // only the keys are needed, leave the chunk values on the tablet server
+            scanner.addScanIterator(new IteratorSetting(SORTED_KEY_ITERATOR_PRIORITY, SortedKeyIterator.class));
+            List<Key> keys = new ArrayList<>();
+            for (Map.Entry<Key, Value> col : scanner) {
+                keys.add(col.getKey());
             }
+            return keys;
+        } catch (TableNotFoundException ex) {
+            throw new SecureGraphException("Could not read the columns of " + dataRowKey, ex);
+        }
+    }
+
+    ByteChunkPool getStreamingPropertyValueBufferPool() {
+        return streamingPropertyValueBufferPool;
+    }
+
+    Iterator<Map.Entry<Key, Value>> scanDataTable(Range range) {
+        try {
+            Scanner scanner = connector.createScanner(getDataTableName(), new org.apache.accumulo.core.security.Authorizations());
+            scanner.setRange(range);
+            return scanner.iterator();
         } catch (Exception ex) {
             throw new SecureGraphException(ex);
         }
-        throw new SecureGraphException("Unexpected end of row: " + dataRowKey);
+    }
+
+    /**
+     * Removes content addressed streaming property values which are not referenced by any vertex or edge property.
+     * Values written less than minAgeMillis ago are kept since the elements referencing them may not be flushed yet.
+     *
+     * @return The number of values removed.
+     */
+    public long sweepStreamingPropertyValues(long minAgeMillis) {
+        flush();
+        long maxTimestamp = System.currentTimeMillis() - minAgeMillis;
+        try {
+            org.apache.accumulo.core.security.Authorizations accumuloAuthorizations = connector.securityOperations().getUserAuthorizations(connector.whoami());
+            checkCanSeeStreamingPropertyValueRefs(accumuloAuthorizations);
+            Set<String> referencedPaths = new HashSet<>();
+            Set<String> referencedDataRowKeys = new HashSet<>();
+            findStreamingPropertyValueRefs(getVerticesTableName(), accumuloAuthorizations, referencedPaths, referencedDataRowKeys);
+            findStreamingPropertyValueRefs(getEdgesTableName(), accumuloAuthorizations, referencedPaths, referencedDataRowKeys);
+
+            long removed = 0;
+            Path contentAddressedDir = new Path(getDataDir(), ContentAddressedHdfsLargeDataStore.DIRECTORY);
+            if (fileSystem.exists(contentAddressedDir)) {
+                RemoteIterator<LocatedFileStatus> files = fileSystem.listFiles(contentAddressedDir, true);
+                while (files.hasNext()) {
+                    LocatedFileStatus file = files.next();
+                    String relativeFileName = ContentAddressedHdfsLargeDataStore.getRelativeFileName(file.getPath().getName());
+                    if (file.getModificationTime() < maxTimestamp && !referencedPaths.contains(relativeFileName)
+                            && deleteIfNotModifiedSince(file.getPath(), maxTimestamp)) {
+                        removed++;
+                    }
+                }
+            }
+
+            Scanner scanner = connector.createScanner(getDataTableName(), new org.apache.accumulo.core.security.Authorizations());
+            scanner.setRange(Range.prefix(ElementMutationBuilder.CONTENT_ADDRESSED_DATA_ROW_KEY_PREFIX));
+            List<Mutation> mutations = new ArrayList<>();
+            Set<String> removedDataRowKeys = new HashSet<>();
+            for (Map.Entry<Key, Value> col : scanner) {
+                String dataRowKey = col.getKey().getRow().toString();
+                if (col.getKey().getTimestamp() < maxTimestamp && !referencedDataRowKeys.contains(dataRowKey)) {
+                    Mutation m = new Mutation(dataRowKey);
+                    // only delete the cells that were scanned, a value stored again since then is newer
+                    m.putDelete(col.getKey().getColumnFamily(), col.getKey().getColumnQualifier(), col.getKey().getTimestamp());
+                    mutations.add(m);
+                    if (removedDataRowKeys.add(dataRowKey)) {
+                        removed++;
+                    }
+                }
+            }
+            if (mutations.size() > 0) {
+                addMutations(getDataWriter(), mutations);
+                flush();
+            }
+            return removed;
+        } catch (SecureGraphException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new SecureGraphException("Could not sweep streaming property values", ex);
+        }
+    }
+
+    /**
+     * A property the sweep can not see does not count as a reference, so refuse to sweep unless the authorizations
+     * satisfy the visibility of every property written with a content addressed value.
+     */
+    private void checkCanSeeStreamingPropertyValueRefs(org.apache.accumulo.core.security.Authorizations accumuloAuthorizations) throws Exception {
+        VisibilityEvaluator visibilityEvaluator = new VisibilityEvaluator(accumuloAuthorizations);
+        Scanner scanner = connector.createScanner(getDataTableName(), new org.apache.accumulo.core.security.Authorizations());
+        scanner.setRange(new Range(ElementMutationBuilder.CONTENT_ADDRESSED_VISIBILITIES_ROW_KEY));
+        for (Map.Entry<Key, Value> col : scanner) {
+            String visibilityString = col.getKey().getColumnFamily().toString();
+            if (!visibilityEvaluator.evaluate(new ColumnVisibility(visibilityString))) {
+                throw new SecureGraphException("Could not sweep streaming property values, the authorizations of " + connector.whoami() + " do not satisfy the property visibility \"" + visibilityString + "\"");
+            }
+        }
+    }
+
+    private boolean deleteIfNotModifiedSince(Path path, long maxTimestamp) throws IOException {
+        // storing the same value again refreshes the modification time of the file after it was listed
+        try {
+            if (fileSystem.getFileStatus(path).getModificationTime() >= maxTimestamp) {
+                return false;
+            }
+        } catch (FileNotFoundException ex) {
+            return false;
+        }
+        return fileSystem.delete(path, false);
+    }
+
+    private void findStreamingPropertyValueRefs(
+            String tableName,
+            org.apache.accumulo.core.security.Authorizations accumuloAuthorizations,
+            Set<String> referencedPaths,
+            Set<String> referencedDataRowKeys
+    ) throws TableNotFoundException {
+        Scanner scanner = connector.createScanner(tableName, accumuloAuthorizations);
+        scanner.fetchColumnFamily(AccumuloElement.CF_PROPERTY);
+        for (Map.Entry<Key, Value> col : scanner) {
+            if (!isStreamingPropertyValueRef(col.getValue())) {
+                continue;
+            }
+            Object value = valueSerializer.valueToObject(col.getValue());
+            if (value instanceof StreamingPropertyValueHdfsRef) {
+                referencedPaths.add(((StreamingPropertyValueHdfsRef) value).getPath());
+            } else if (value instanceof StreamingPropertyValueTableRef) {
+                referencedDataRowKeys.add(((StreamingPropertyValueTableRef) value).getDataRowKey());
+            }
+        }
+    }
+
+    private boolean isStreamingPropertyValueRef(Value value) {
+        if (!(valueSerializer instanceof JavaValueSerializer)) {
+            return true;
+        }
+        // the class of a java serialized value is named in its header, there is no need to read the rest
+        String className = JavaValueSerializer.getSerializedClassName(value.get());
+        return StreamingPropertyValueHdfsRef.class.getName().equals(className)
+                || StreamingPropertyValueTableRef.class.getName().equals(className);
     }
 
     public static ColumnVisibility visibilityToAccumuloVisibility(Visibility visibility) {
@@ -1283,6 +2259,13 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         return connector;
     }
 
+    /**
+     * @return the element cache or null if elementCacheSize is not configured.
+     */
+    public AccumuloElementCache getElementCache() {
+        return elementCache;
+    }
+
     void alterElementVisibility(AccumuloElement element, Visibility newVisibility) {
         BatchWriter elementWriter = getWriterFromElementType(element);
         String rowPrefix = getRowPrefixForElement(element);
@@ -1382,6 +2365,15 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
             this.connector.tableOperations().deleteRows(getEdgesTableName(), null, null);
             this.connector.tableOperations().deleteRows(getVerticesTableName(), null, null);
             this.connector.tableOperations().deleteRows(getMetadataTableName(), null, null);
+            if (pendingEdgeRefMutations != null) {
+                pendingEdgeRefMutations.clear();
+            }
+            if (writeOverlay != null) {
+                writeOverlay.clear();
+            }
+            if (elementCache != null) {
+                elementCache.invalidateAll();
+            }
             getSearchIndex().clearData();
         } catch (Exception ex) {
             throw new SecureGraphException("Could not delete rows", ex);
@@ -1406,6 +2398,7 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         int numQueryThreads = Math.min(Math.max(1, ranges.size() / 10), 10);
         // only fetch one size of the edge since we are scanning all vertices the edge will appear on the out on one of the vertices
         BatchScanner batchScanner = createElementBatchScanner(EnumSet.of(FetchHint.OUT_EDGE_REFS), authorizations, ElementType.VERTEX, numQueryThreads);
+        batchScanner.addScanIterator(createEdgeRefFilterIteratorSetting(null, vertexIdsSet));
         try {
             batchScanner.setRanges(ranges);
 
@@ -1428,6 +2421,230 @@ public class AccumuloGraph extends GraphBaseWithSearchIndex {
         }
     }
 
+    /**
+     * Streams the edge refs of a single direction of a vertex row. Labels and the other vertex id are filtered on
+     * the tablet server and the refs are read in batches of {@link AccumuloGraphConfiguration#getEdgeRefPageSize()},
+     * so vertices with very many edges can be walked in bounded memory.
+     */
+    CloseableIterable<Map.Entry<String, EdgeInfo>> getEdgeInfos(
+            String vertexId,
+            Direction direction,
+            final String[] labels,
+            final String otherVertexId,
+            boolean includeHidden,
+            final Authorizations authorizations
+    ) {
+        final Text edgeColumnFamily;
+        Text hiddenEdgeColumnFamily;
+        switch (direction) {
+            case IN:
+                edgeColumnFamily = AccumuloVertex.CF_IN_EDGE;
+                hiddenEdgeColumnFamily = AccumuloVertex.CF_IN_EDGE_HIDDEN;
+                break;
+            case OUT:
+                edgeColumnFamily = AccumuloVertex.CF_OUT_EDGE;
+                hiddenEdgeColumnFamily = AccumuloVertex.CF_OUT_EDGE_HIDDEN;
+                break;
+            default:
+                throw new SecureGraphException("Unexpected direction: " + direction);
+        }
+
+        final Range range = new Range(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertexId);
+
+        // hidden markers sort after the refs they hide so they are collected up front
+        final Set<String> hiddenEdgeIds = new HashSet<>();
+        if (!includeHidden) {
+            Scanner scanner = createEdgeRefScanner(range, hiddenEdgeColumnFamily, authorizations);
+            try {
+                for (Map.Entry<Key, Value> column : scanner) {
+                    hiddenEdgeIds.add(column.getKey().getColumnQualifier().toString());
+                }
+            } finally {
+                scanner.close();
+            }
+        }
+
+        return new LookAheadIterable<Map.Entry<Key, Value>, Map.Entry<String, EdgeInfo>>() {
+            public Scanner scanner;
+
+            @Override
+            protected boolean isIncluded(Map.Entry<Key, Value> src, Map.Entry<String, EdgeInfo> dest) {
+                return !hiddenEdgeIds.contains(dest.getKey());
+            }
+
+            @Override
+            protected Map.Entry<String, EdgeInfo> convert(Map.Entry<Key, Value> next) {
+                String edgeId = next.getKey().getColumnQualifier().toString();
+                return new AbstractMap.SimpleImmutableEntry<>(edgeId, EdgeInfo.parse(next.getValue()));
+            }
+
+            @Override
+            protected Iterator<Map.Entry<Key, Value>> createIterator() {
+                scanner = createEdgeRefScanner(range, edgeColumnFamily, authorizations);
+                List<String> labelsList = labels == null || labels.length == 0 ? null : Arrays.asList(labels);
+                List<String> otherVertexIds = otherVertexId == null ? null : Collections.singletonList(otherVertexId);
+                if (labelsList != null || otherVertexIds != null) {
+                    scanner.addScanIterator(createEdgeRefFilterIteratorSetting(labelsList, otherVertexIds));
+                }
+                return scanner.iterator();
+            }
+
+            @Override
+            public void close() {
+                super.close();
+                scanner.close();
+            }
+        };
+    }
+
+    private Scanner createEdgeRefScanner(Range range, Text columnFamily, Authorizations authorizations) {
+        try {
+            Scanner scanner = connector.createScanner(getVerticesTableName(), toAccumuloAuthorizations(authorizations));
+            scanner.setRange(range);
+            scanner.fetchColumnFamily(columnFamily);
+            scanner.setBatchSize(getConfiguration().getEdgeRefPageSize());
+            return scanner;
+        } catch (TableNotFoundException e) {
+            throw new SecureGraphException(e);
+        }
+    }
+
+    /**
+     * Counts the edge refs of a single direction of a vertex row on the tablet server.
+     */
+    int getEdgeCount(String vertexId, Direction direction, boolean includeHidden, Authorizations authorizations) {
+        Text edgeCountColumnFamily;
+        switch (direction) {
+            case IN:
+                edgeCountColumnFamily = EdgeCountIterator.CF_IN_EDGE_COUNT;
+                break;
+            case OUT:
+                edgeCountColumnFamily = EdgeCountIterator.CF_OUT_EDGE_COUNT;
+                break;
+            default:
+                throw new SecureGraphException("Unexpected direction: " + direction);
+        }
+
+        try {
+            Scanner scanner = connector.createScanner(getVerticesTableName(), toAccumuloAuthorizations(authorizations));
+            try {
+                scanner.setRange(new Range(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertexId));
+                scanner.fetchColumnFamily(AccumuloVertex.CF_IN_EDGE);
+                scanner.fetchColumnFamily(AccumuloVertex.CF_IN_EDGE_HIDDEN);
+                scanner.fetchColumnFamily(AccumuloVertex.CF_OUT_EDGE);
+                scanner.fetchColumnFamily(AccumuloVertex.CF_OUT_EDGE_HIDDEN);
+                scanner.addScanIterator(createEdgeCountIteratorSetting(false, includeHidden));
+                for (Map.Entry<Key, Value> column : scanner) {
+                    if (column.getKey().compareColumnFamily(edgeCountColumnFamily) == 0) {
+                        return Integer.parseInt(column.getValue().toString());
+                    }
+                }
+                return 0;
+            } finally {
+                scanner.close();
+            }
+        } catch (TableNotFoundException e) {
+            throw new SecureGraphException(e);
+        }
+    }
+
+    @Override
+    public Map<String, EdgeCounts> getEdgeCounts(Iterable<String> vertexIds, boolean includeLabelCounts, Authorizations authorizations) {
+        List<Range> ranges = new ArrayList<>();
+        for (String vertexId : vertexIds) {
+            ranges.add(new Range(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertexId));
+        }
+        Map<String, EdgeCounts> results = new HashMap<>();
+        if (ranges.size() == 0) {
+            return results;
+        }
+
+        Map<String, int[]> counts = new HashMap<>();
+        Map<String, Map<String, Integer>> inEdgeCountsByLabel = new HashMap<>();
+        Map<String, Map<String, Integer>> outEdgeCountsByLabel = new HashMap<>();
+        BatchScanner batchScanner = createElementVisibilityBatchScanner(FetchHint.EDGE_REFS, authorizations, ElementType.VERTEX, Math.min(Math.max(1, ranges.size() / 10), 10));
+        try {
+            batchScanner.addScanIterator(createEdgeCountIteratorSetting(includeLabelCounts, false));
+            batchScanner.setRanges(ranges);
+            for (Map.Entry<Key, Value> column : batchScanner) {
+                Key key = column.getKey();
+                String vertexId = key.getRow().toString().substring(AccumuloConstants.VERTEX_ROW_KEY_PREFIX.length());
+                int count = Integer.parseInt(column.getValue().toString());
+                int[] vertexCounts = counts.get(vertexId);
+                if (vertexCounts == null) {
+                    vertexCounts = new int[2];
+                    counts.put(vertexId, vertexCounts);
+                }
+                if (key.compareColumnFamily(EdgeCountIterator.CF_IN_EDGE_COUNT) == 0) {
+                    vertexCounts[0] = count;
+                } else if (key.compareColumnFamily(EdgeCountIterator.CF_OUT_EDGE_COUNT) == 0) {
+                    vertexCounts[1] = count;
+                } else if (key.compareColumnFamily(EdgeCountIterator.CF_IN_EDGE_LABEL_COUNT) == 0) {
+                    addLabelCount(inEdgeCountsByLabel, vertexId, key.getColumnQualifier().toString(), count);
+                } else if (key.compareColumnFamily(EdgeCountIterator.CF_OUT_EDGE_LABEL_COUNT) == 0) {
+                    addLabelCount(outEdgeCountsByLabel, vertexId, key.getColumnQualifier().toString(), count);
+                }
+            }
+        } finally {
+            batchScanner.close();
+        }
+
+        for (Map.Entry<String, int[]> vertexCounts : counts.entrySet()) {
+            String vertexId = vertexCounts.getKey();
+            results.put(vertexId, new EdgeCounts(
+                    vertexId,
+                    vertexCounts.getValue()[0],
+                    vertexCounts.getValue()[1],
+                    includeLabelCounts ? getLabelCounts(inEdgeCountsByLabel, vertexId) : null,
+                    includeLabelCounts ? getLabelCounts(outEdgeCountsByLabel, vertexId) : null
+            ));
+        }
+        return results;
+    }
+
+    private static void addLabelCount(Map<String, Map<String, Integer>> countsByLabel, String vertexId, String label, int count) {
+        Map<String, Integer> labelCounts = countsByLabel.get(vertexId);
+        if (labelCounts == null) {
+            labelCounts = new HashMap<>();
+            countsByLabel.put(vertexId, labelCounts);
+        }
+        labelCounts.put(label, count);
+    }
+
+    private static Map<String, Integer> getLabelCounts(Map<String, Map<String, Integer>> countsByLabel, String vertexId) {
+        Map<String, Integer> labelCounts = countsByLabel.get(vertexId);
+        if (labelCounts == null) {
+            return new HashMap<>();
+        }
+        return labelCounts;
+    }
+
+    private IteratorSetting createEdgeCountIteratorSetting(boolean countLabels, boolean includeHidden) {
+        IteratorSetting iteratorSetting = new IteratorSetting(
+                EDGE_COUNT_ITERATOR_PRIORITY,
+                EdgeCountIterator.class.getSimpleName(),
+                EdgeCountIterator.class
+        );
+        iteratorSetting.addOption(EdgeCountIterator.OPT_COUNT_LABELS, Boolean.toString(countLabels));
+        iteratorSetting.addOption(EdgeCountIterator.OPT_INCLUDE_HIDDEN, Boolean.toString(includeHidden));
+        return iteratorSetting;
+    }
+
+    private IteratorSetting createEdgeRefFilterIteratorSetting(Collection<String> labels, Collection<String> otherVertexIds) {
+        IteratorSetting iteratorSetting = new IteratorSetting(
+                EDGE_REF_FILTER_PRIORITY,
+                EdgeRefFilter.class.getSimpleName(),
+                EdgeRefFilter.class
+        );
+        if (labels != null) {
+            EdgeRefFilter.setLabels(iteratorSetting, labels);
+        }
+        if (otherVertexIds != null) {
+            EdgeRefFilter.setOtherVertexIds(iteratorSetting, otherVertexIds);
+        }
+        return iteratorSetting;
+    }
+
     public Iterable<GraphMetadataEntry> getMetadataInRange(final Range range) {
         return new LookAheadIterable<Map.Entry<Key, Value>, GraphMetadataEntry>() {
             public BatchScanner batchScanner;
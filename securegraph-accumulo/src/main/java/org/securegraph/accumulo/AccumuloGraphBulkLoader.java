@@ -0,0 +1,287 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.data.*;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.securegraph.*;
+import org.securegraph.property.MutableProperty;
+import org.securegraph.property.StreamingPropertyValue;
+import org.securegraph.util.ByteChunkPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Loads vertices and edges by writing sorted RFiles and bulk importing them into the vertex, edge and data tables,
+ * instead of sending mutations through the graph's batch writers. The files have the same layout as
+ * {@link ElementMutationBuilder} writes, are partitioned by the current splits of each table and use the table's
+ * locality groups.
+ * <p/>
+ * Elements are buffered in memory and written to files whenever a table buffers more than maxBufferedKeyValues
+ * cells. Nothing is visible in the graph until {@link #importFiles()} is called. The search index is not updated,
+ * index the loaded elements in bulk afterwards, for example with {@link Graph#reindex(Authorizations)}.
+ */
+public class AccumuloGraphBulkLoader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccumuloGraphBulkLoader.class);
+    public static final int DEFAULT_MAX_BUFFERED_KEY_VALUES = 1000000;
+    private final AccumuloGraph graph;
+    private final FileSystem fileSystem;
+    private final Path workDir;
+    private final int maxBufferedKeyValues;
+    private final long timestamp;
+    private final ElementMutationBuilder elementMutationBuilder;
+    private final TableFiles verticesTableFiles;
+    private final TableFiles edgesTableFiles;
+    private final TableFiles dataTableFiles;
+
+    public AccumuloGraphBulkLoader(AccumuloGraph graph, String workDir) {
+        this(graph, workDir, DEFAULT_MAX_BUFFERED_KEY_VALUES);
+    }
+
+    /**
+     * @param workDir Directory on the file system of the Accumulo instance to write the files to. Must not exist.
+     */
+    public AccumuloGraphBulkLoader(final AccumuloGraph graph, String workDir, int maxBufferedKeyValues) {
+        this.graph = graph;
+        this.fileSystem = graph.getFileSystem();
+        this.workDir = new Path(workDir);
+        this.maxBufferedKeyValues = maxBufferedKeyValues;
+        this.timestamp = System.currentTimeMillis();
+        try {
+            if (fileSystem.exists(this.workDir)) {
+                throw new SecureGraphException("Bulk load work directory already exists: " + workDir);
+            }
+        } catch (IOException ex) {
+            throw new SecureGraphException("Could not check bulk load work directory: " + workDir, ex);
+        }
+        this.verticesTableFiles = new TableFiles(graph.getVerticesTableName());
+        this.edgesTableFiles = new TableFiles(graph.getEdgesTableName());
+        this.dataTableFiles = new TableFiles(graph.getDataTableName());
+
+        long maxStreamingPropertyValueTableDataSize = graph.getConfiguration().getMaxStreamingPropertyValueTableDataSize();
+        this.elementMutationBuilder = new ElementMutationBuilder(fileSystem, graph.getValueSerializer(), maxStreamingPropertyValueTableDataSize, graph.getDataDir()) {
+            @Override
+            protected void saveVertexMutation(Mutation m) {
+                verticesTableFiles.add(m);
+            }
+
+            @Override
+            protected void saveEdgeMutation(Mutation m) {
+                edgesTableFiles.add(m);
+            }
+
+            @Override
+            protected void saveDataMutation(Mutation dataMutation) {
+                dataTableFiles.add(dataMutation);
+            }
+
+            @Override
+            protected StreamingPropertyValueRef saveStreamingPropertyValue(String rowKey, Property property, StreamingPropertyValue propertyValue) {
+                StreamingPropertyValueRef streamingPropertyValueRef = super.saveStreamingPropertyValue(rowKey, property, propertyValue);
+                ((MutableProperty) property).setValue(streamingPropertyValueRef.toStreamingPropertyValue(graph));
+                return streamingPropertyValueRef;
+            }
+
+            @Override
+            protected boolean isContentAddressedStreamingPropertyValues() {
+                return graph.getConfiguration().isContentAddressedStreamingPropertyValues();
+            }
+
+            @Override
+            protected ByteChunkPool getStreamingPropertyValueBufferPool() {
+                return graph.getStreamingPropertyValueBufferPool();
+            }
+
+            @Override
+            protected int getStreamingPropertyValueTableChunkSize() {
+                return graph.getConfiguration().getStreamingPropertyValueTableChunkSize();
+            }
+
+            @Override
+            protected Iterable<Key> getStoredDataColumns(String dataRowKey) {
+                return graph.getStoredDataColumns(dataRowKey);
+            }
+        };
+    }
+
+    public VertexBuilder prepareVertex(String vertexId, Visibility visibility) {
+        if (vertexId == null) {
+            vertexId = graph.getIdGenerator().nextId();
+        }
+
+        return new VertexBuilder(vertexId, visibility) {
+            @Override
+            public Vertex save(Authorizations authorizations) {
+                AccumuloVertex vertex = new AccumuloVertex(
+                        graph,
+                        getVertexId(),
+                        getVisibility(),
+                        getProperties(),
+                        getPropertyRemoves(),
+                        null,
+                        authorizations,
+                        timestamp
+                );
+                elementMutationBuilder.saveVertex(vertex);
+                return vertex;
+            }
+        };
+    }
+
+    public EdgeBuilderByVertexId prepareEdge(String edgeId, String outVertexId, String inVertexId, String label, Visibility visibility) {
+        if (edgeId == null) {
+            edgeId = graph.getIdGenerator().nextId();
+        }
+
+        return new EdgeBuilderByVertexId(edgeId, outVertexId, inVertexId, label, visibility) {
+            @Override
+            public Edge save(Authorizations authorizations) {
+                AccumuloEdge edge = new AccumuloEdge(
+                        graph,
+                        getEdgeId(),
+                        getOutVertexId(),
+                        getInVertexId(),
+                        getLabel(),
+                        getNewEdgeLabel(),
+                        getVisibility(),
+                        getProperties(),
+                        getPropertyRemoves(),
+                        null,
+                        authorizations,
+                        timestamp
+                );
+                elementMutationBuilder.saveEdge(edge);
+                return edge;
+            }
+        };
+    }
+
+    /**
+     * Writes the remaining buffered cells, imports all files into the tables and removes the work directory.
+     */
+    public void importFiles() {
+        try {
+            verticesTableFiles.importFiles();
+            edgesTableFiles.importFiles();
+            dataTableFiles.importFiles();
+            fileSystem.delete(workDir, true);
+        } catch (Exception ex) {
+            throw new SecureGraphException("Could not import files from " + workDir, ex);
+        }
+        graph.invalidateElementCache();
+    }
+
+    private class TableFiles {
+        private final String tableName;
+        private final Path filesDir;
+        private final Path failuresDir;
+        private final List<Text> splits;
+        private final Map<String, Set<Text>> localityGroups;
+        private final SortedMap<Key, Value> buffer = new TreeMap<>();
+        private int fileCount;
+
+        public TableFiles(String tableName) {
+            this.tableName = tableName;
+            this.filesDir = new Path(workDir, tableName + "/files");
+            this.failuresDir = new Path(workDir, tableName + "/failures");
+            try {
+                this.splits = new ArrayList<>(graph.getConnector().tableOperations().listSplits(tableName));
+                this.localityGroups = graph.getConnector().tableOperations().getLocalityGroups(tableName);
+            } catch (Exception ex) {
+                throw new SecureGraphException("Could not read splits of table " + tableName, ex);
+            }
+        }
+
+        public synchronized void add(Mutation m) {
+            byte[] row = m.getRow();
+            for (ColumnUpdate update : m.getUpdates()) {
+                Key key = new Key(
+                        row,
+                        update.getColumnFamily(),
+                        update.getColumnQualifier(),
+                        update.getColumnVisibility(),
+                        update.hasTimestamp() ? update.getTimestamp() : timestamp,
+                        update.isDeleted(),
+                        false
+                );
+                buffer.put(key, new Value(update.getValue(), false));
+            }
+            if (buffer.size() >= maxBufferedKeyValues) {
+                writeFiles();
+            }
+        }
+
+        // writes one file per tablet, so the import does not have to assign a file to several tablets
+        private void writeFiles() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            try {
+                Key startKey = null;
+                for (Text split : splits) {
+                    Key endKey = new Key(split).followingKey(PartialKey.ROW);
+                    writeFile(startKey == null ? buffer.headMap(endKey) : buffer.subMap(startKey, endKey));
+                    startKey = endKey;
+                }
+                writeFile(startKey == null ? buffer : buffer.tailMap(startKey));
+            } catch (IOException ex) {
+                throw new SecureGraphException("Could not write files for table " + tableName, ex);
+            }
+            buffer.clear();
+        }
+
+        private void writeFile(SortedMap<Key, Value> keyValues) throws IOException {
+            if (keyValues.isEmpty()) {
+                return;
+            }
+            String fileName = new Path(filesDir, String.format("part-%05d.rf", fileCount++)).toString();
+            LOGGER.debug("writing " + keyValues.size() + " cells to " + fileName);
+            FileSKVWriter writer = FileOperations.getInstance().openWriter(fileName, fileSystem, fileSystem.getConf(), AccumuloConfiguration.getDefaultConfiguration());
+            try {
+                Set<ByteSequence> groupedColumnFamilies = new HashSet<>();
+                for (Map.Entry<String, Set<Text>> localityGroup : localityGroups.entrySet()) {
+                    Set<ByteSequence> columnFamilies = new HashSet<>();
+                    for (Text columnFamily : localityGroup.getValue()) {
+                        columnFamilies.add(new ArrayByteSequence(columnFamily.copyBytes()));
+                    }
+                    writer.startNewLocalityGroup(localityGroup.getKey(), columnFamilies);
+                    append(writer, keyValues, columnFamilies, true);
+                    groupedColumnFamilies.addAll(columnFamilies);
+                }
+                writer.startDefaultLocalityGroup();
+                append(writer, keyValues, groupedColumnFamilies, false);
+            } finally {
+                writer.close();
+            }
+        }
+
+        private void append(FileSKVWriter writer, SortedMap<Key, Value> keyValues, Set<ByteSequence> columnFamilies, boolean inColumnFamilies) throws IOException {
+            for (Map.Entry<Key, Value> keyValue : keyValues.entrySet()) {
+                if (columnFamilies.contains(keyValue.getKey().getColumnFamilyData()) == inColumnFamilies) {
+                    writer.append(keyValue.getKey(), keyValue.getValue());
+                }
+            }
+        }
+
+        public synchronized void importFiles() throws Exception {
+            writeFiles();
+            if (fileCount == 0) {
+                return;
+            }
+            fileSystem.mkdirs(failuresDir);
+            LOGGER.info("importing " + fileCount + " files into table " + tableName);
+            graph.getConnector().tableOperations().importDirectory(tableName, filesDir.toString(), failuresDir.toString(), false);
+            FileStatus[] failures = fileSystem.listStatus(failuresDir);
+            if (failures != null && failures.length > 0) {
+                throw new SecureGraphException("Could not import " + failures.length + " files into table " + tableName + ", see " + failuresDir);
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.securegraph.GraphConfiguration;
 import org.securegraph.SecureGraphException;
 import org.securegraph.accumulo.serializer.JavaValueSerializer;
 import org.securegraph.accumulo.serializer.ValueSerializer;
+import org.securegraph.util.ByteChunkPool;
 import org.securegraph.util.ConfigurationUtils;
 import org.securegraph.util.MapUtils;
 import org.slf4j.Logger;
@@ -48,6 +49,24 @@ public class AccumuloGraphConfiguration extends GraphConfiguration {
     public static final String HDFS_ROOT_DIR = HDFS_CONFIG_PREFIX + ".rootDir";
     public static final String DATA_DIR = HDFS_CONFIG_PREFIX + ".dataDir";
     public static final String USE_SERVER_SIDE_ELEMENT_VISIBILITY_ROW_FILTER = "useServerSideElementVisibilityRowFilter";
+    public static final String ELEMENT_CACHE_SIZE = "elementCacheSize";
+    public static final String EDGE_REF_STREAMING_THRESHOLD = "edgeRefStreamingThreshold";
+    public static final String EDGE_REF_PAGE_SIZE = "edgeRefPageSize";
+    public static final String PARALLEL_SCAN_THREADS = "parallelScanThreads";
+    public static final String PARALLEL_SCAN_ORDERED = "parallelScanOrdered";
+    public static final String DECODE_THREADS = "decodeThreads";
+    public static final String USE_LOCALITY_GROUPS = "useLocalityGroups";
+    public static final String BATCH_WRITER_MAX_MEMORY = "batchWriterMaxMemory";
+    public static final String BATCH_WRITER_MAX_WRITE_THREADS = "batchWriterMaxWriteThreads";
+    public static final String BATCH_WRITER_MAX_LATENCY = "batchWriterMaxLatency";
+    public static final String BATCH_WRITER_TIMEOUT = "batchWriterTimeout";
+    public static final String EDGE_REF_COALESCE_MAX_UPDATES = "edgeRefCoalesceMaxUpdates";
+    public static final String GROUP_COMMIT_WINDOW = "groupCommitWindow";
+    public static final String WRITE_OVERLAY_MAX_CELLS = "writeOverlayMaxCells";
+    public static final String ELIDE_UNCHANGED_PROPERTY_WRITES = "elideUnchangedPropertyWrites";
+    public static final String CONTENT_ADDRESSED_STREAMING_PROPERTY_VALUES = "contentAddressedStreamingPropertyValues";
+    public static final String STREAMING_PROPERTY_VALUE_BUFFER_MAX_SIZE = "streamingPropertyValueBufferMaxSize";
+    public static final String STREAMING_PROPERTY_VALUE_TABLE_CHUNK_SIZE = "streamingPropertyValueTableChunkSize";
 
     public static final String DEFAULT_ACCUMULO_SECURITY = ACCUMULO_SECURITY_PASSWORD;
     public static final String DEFAULT_ACCUMULO_PASSWORD = "password";
@@ -62,6 +81,24 @@ public class AccumuloGraphConfiguration extends GraphConfiguration {
     public static final String DEFAULT_HDFS_ROOT_DIR = "";
     public static final String DEFAULT_DATA_DIR = "/accumuloGraph";
     public static final boolean DEFAULT_USE_SERVER_SIDE_ELEMENT_VISIBILITY_ROW_FILTER = true;
+    public static final int DEFAULT_ELEMENT_CACHE_SIZE = 0;
+    public static final int DEFAULT_EDGE_REF_STREAMING_THRESHOLD = -1;
+    public static final int DEFAULT_EDGE_REF_PAGE_SIZE = 1000;
+    public static final int DEFAULT_PARALLEL_SCAN_THREADS = 0;
+    public static final boolean DEFAULT_PARALLEL_SCAN_ORDERED = true;
+    public static final int DEFAULT_DECODE_THREADS = 0;
+    public static final boolean DEFAULT_USE_LOCALITY_GROUPS = true;
+    public static final long DEFAULT_BATCH_WRITER_MAX_MEMORY = 50 * 1024 * 1024;
+    public static final int DEFAULT_BATCH_WRITER_MAX_WRITE_THREADS = 3;
+    public static final long DEFAULT_BATCH_WRITER_MAX_LATENCY = 2 * 60 * 1000;
+    public static final long DEFAULT_BATCH_WRITER_TIMEOUT = 0;
+    public static final int DEFAULT_EDGE_REF_COALESCE_MAX_UPDATES = 0;
+    public static final long DEFAULT_GROUP_COMMIT_WINDOW = -1;
+    public static final int DEFAULT_WRITE_OVERLAY_MAX_CELLS = 0;
+    public static final boolean DEFAULT_ELIDE_UNCHANGED_PROPERTY_WRITES = false;
+    public static final boolean DEFAULT_CONTENT_ADDRESSED_STREAMING_PROPERTY_VALUES = false;
+    public static final long DEFAULT_STREAMING_PROPERTY_VALUE_BUFFER_MAX_SIZE = 0;
+    public static final int DEFAULT_STREAMING_PROPERTY_VALUE_TABLE_CHUNK_SIZE = 0;
 
     public AccumuloGraphConfiguration(Map config) {
         super(config);
@@ -181,4 +218,145 @@ public class AccumuloGraphConfiguration extends GraphConfiguration {
     public boolean isUseServerSideElementVisibilityRowFilter() {
         return getBoolean(USE_SERVER_SIDE_ELEMENT_VISIBILITY_ROW_FILTER, DEFAULT_USE_SERVER_SIDE_ELEMENT_VISIBILITY_ROW_FILTER);
     }
+
+    public int getElementCacheSize() {
+        return getInt(ELEMENT_CACHE_SIZE, DEFAULT_ELEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Number of edge refs in one direction above which a loaded vertex stops holding its edge refs in memory and
+     * streams them from the vertex table instead. A negative value disables streaming.
+     */
+    public int getEdgeRefStreamingThreshold() {
+        return getInt(EDGE_REF_STREAMING_THRESHOLD, DEFAULT_EDGE_REF_STREAMING_THRESHOLD);
+    }
+
+    public int getEdgeRefPageSize() {
+        return getInt(EDGE_REF_PAGE_SIZE, DEFAULT_EDGE_REF_PAGE_SIZE);
+    }
+
+    /**
+     * Number of threads used to iterate over all vertices or all edges, one scanner per tablet. Values less than
+     * two scan the table with a single scanner.
+     */
+    public int getParallelScanThreads() {
+        return getInt(PARALLEL_SCAN_THREADS, DEFAULT_PARALLEL_SCAN_THREADS);
+    }
+
+    /**
+     * If false, parallel scans return elements as soon as they are decoded instead of in row order.
+     */
+    public boolean isParallelScanOrdered() {
+        return getBoolean(PARALLEL_SCAN_ORDERED, DEFAULT_PARALLEL_SCAN_ORDERED);
+    }
+
+    /**
+     * Number of threads decoding rows of range scans and batch lookups while the scanner reads ahead. Zero decodes
+     * on the thread iterating the results.
+     */
+    public int getDecodeThreads() {
+        return getInt(DECODE_THREADS, DEFAULT_DECODE_THREADS);
+    }
+
+    /**
+     * If true, newly created vertex and edge tables get one locality group per kind of column (signal, edge refs,
+     * properties, property metadata). Existing tables can be converted with GraphLocalityGroups.
+     */
+    public boolean isUseLocalityGroups() {
+        return getBoolean(USE_LOCALITY_GROUPS, DEFAULT_USE_LOCALITY_GROUPS);
+    }
+
+    /**
+     * Bytes of mutations buffered by the graph's batch writer, shared by all tables, before they are sent.
+     */
+    public long getBatchWriterMaxMemory() {
+        return getConfigLong(BATCH_WRITER_MAX_MEMORY, DEFAULT_BATCH_WRITER_MAX_MEMORY);
+    }
+
+    public int getBatchWriterMaxWriteThreads() {
+        return getInt(BATCH_WRITER_MAX_WRITE_THREADS, DEFAULT_BATCH_WRITER_MAX_WRITE_THREADS);
+    }
+
+    /**
+     * Milliseconds a mutation may stay buffered before it is sent.
+     */
+    public long getBatchWriterMaxLatency() {
+        return getConfigLong(BATCH_WRITER_MAX_LATENCY, DEFAULT_BATCH_WRITER_MAX_LATENCY);
+    }
+
+    /**
+     * Milliseconds to keep retrying a write to an unresponsive tablet server before failing. Zero retries forever.
+     */
+    public long getBatchWriterTimeout() {
+        return getConfigLong(BATCH_WRITER_TIMEOUT, DEFAULT_BATCH_WRITER_TIMEOUT);
+    }
+
+    /**
+     * Number of edge refs held back between flushes to combine the edge refs of each vertex row into one mutation.
+     * Only used if auto flush is off. Zero writes every edge ref as soon as its edge is saved.
+     */
+    public int getEdgeRefCoalesceMaxUpdates() {
+        return getInt(EDGE_REF_COALESCE_MAX_UPDATES, DEFAULT_EDGE_REF_COALESCE_MAX_UPDATES);
+    }
+
+    /**
+     * With auto flush on, milliseconds a save waits for concurrent saves before they share one flush. Zero shares a
+     * flush only with saves arriving while a flush is running. A negative value flushes after every save.
+     */
+    public long getGroupCommitWindow() {
+        return getConfigLong(GROUP_COMMIT_WINDOW, DEFAULT_GROUP_COMMIT_WINDOW);
+    }
+
+    /**
+     * With auto flush off, number of unflushed vertex and edge cells kept in memory so getVertex, getEdge and the
+     * lookups by id see saves which are not flushed yet. The graph is flushed when the limit is reached. Zero
+     * disables the overlay.
+     */
+    public int getWriteOverlayMaxCells() {
+        return getInt(WRITE_OVERLAY_MAX_CELLS, DEFAULT_WRITE_OVERLAY_MAX_CELLS);
+    }
+
+    /**
+     * Skip writing, indexing and raising events for properties saved through an existing element mutation whose
+     * value and metadata equal the property already on the element.
+     */
+    public boolean isElideUnchangedPropertyWrites() {
+        return getBoolean(ELIDE_UNCHANGED_PROPERTY_WRITES, DEFAULT_ELIDE_UNCHANGED_PROPERTY_WRITES);
+    }
+
+    /**
+     * Store streaming property values once under the SHA-256 digest of their content instead of once per element and
+     * property. Values no longer referenced are removed by {@link AccumuloGraph#sweepStreamingPropertyValues(long)}.
+     */
+    public boolean isContentAddressedStreamingPropertyValues() {
+        return getBoolean(CONTENT_ADDRESSED_STREAMING_PROPERTY_VALUES, DEFAULT_CONTENT_ADDRESSED_STREAMING_PROPERTY_VALUES);
+    }
+
+    /**
+     * Total bytes of memory all threads of the graph may use to buffer streaming property values before they are
+     * written to the data table or HDFS. Buffers are reused and a value which does not fit is written to HDFS. Zero
+     * allocates buffers as needed without a limit.
+     */
+    public long getStreamingPropertyValueBufferMaxSize() {
+        return getConfigLong(STREAMING_PROPERTY_VALUE_BUFFER_MAX_SIZE, DEFAULT_STREAMING_PROPERTY_VALUE_BUFFER_MAX_SIZE);
+    }
+
+    /**
+     * @return A pool limited to {@link #getStreamingPropertyValueBufferMaxSize()}, or null if it is zero.
+     */
+    public ByteChunkPool createStreamingPropertyValueBufferPool() {
+        long streamingPropertyValueBufferMaxSize = getStreamingPropertyValueBufferMaxSize();
+        if (streamingPropertyValueBufferMaxSize <= 0) {
+            return null;
+        }
+        return new ByteChunkPool((int) Math.min(ByteChunkPool.DEFAULT_CHUNK_SIZE, streamingPropertyValueBufferMaxSize), streamingPropertyValueBufferMaxSize);
+    }
+
+    /**
+     * Size of the chunks streaming property values stored in the data table are split into so they can be read
+     * lazily and by range. Zero stores each value in a single cell.
+     */
+    public int getStreamingPropertyValueTableChunkSize() {
+        return getInt(STREAMING_PROPERTY_VALUE_TABLE_CHUNK_SIZE, DEFAULT_STREAMING_PROPERTY_VALUE_TABLE_CHUNK_SIZE);
+    }
 }
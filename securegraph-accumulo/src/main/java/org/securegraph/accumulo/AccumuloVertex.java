@@ -15,7 +15,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
-import static org.securegraph.util.IterableUtils.count;
 import static org.securegraph.util.IterableUtils.toSet;
 
 public class AccumuloVertex extends AccumuloElement implements Vertex {
@@ -24,8 +23,10 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
     public static final Text CF_OUT_EDGE_HIDDEN = new Text("EOUTH");
     public static final Text CF_IN_EDGE = new Text("EIN");
     public static final Text CF_IN_EDGE_HIDDEN = new Text("EINH");
+    // null when the edge refs of that direction are streamed from the vertex table instead of held in memory
     private final Map<String, EdgeInfo> inEdges;
     private final Map<String, EdgeInfo> outEdges;
+    private final boolean includeHiddenEdges;
 
     public AccumuloVertex(
             AccumuloGraph graph,
@@ -46,6 +47,7 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
                 hiddenVisibilities,
                 new HashMap<String, EdgeInfo>(),
                 new HashMap<String, EdgeInfo>(),
+                false,
                 authorizations,
                 timestamp
         );
@@ -60,12 +62,14 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
             Iterable<Visibility> hiddenVisibilities,
             Map<String, EdgeInfo> inEdges,
             Map<String, EdgeInfo> outEdges,
+            boolean includeHiddenEdges,
             Authorizations authorizations,
             long timestamp
     ) {
         super(graph, vertexId, vertexVisibility, properties, propertyRemoveMutations, hiddenVisibilities, authorizations, timestamp);
         this.inEdges = inEdges;
         this.outEdges = outEdges;
+        this.includeHiddenEdges = includeHiddenEdges;
     }
 
     @Override
@@ -160,12 +164,27 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
 
     @Override
     public int getEdgeCount(Direction direction, Authorizations authorizations) {
-        return count(getEdgeIds(direction, authorizations));
+        switch (direction) {
+            case IN:
+                if (this.inEdges == null) {
+                    return getGraph().getEdgeCount(getId(), Direction.IN, includeHiddenEdges, authorizations);
+                }
+                return this.inEdges.size();
+            case OUT:
+                if (this.outEdges == null) {
+                    return getGraph().getEdgeCount(getId(), Direction.OUT, includeHiddenEdges, authorizations);
+                }
+                return this.outEdges.size();
+            case BOTH:
+                return getEdgeCount(Direction.IN, authorizations) + getEdgeCount(Direction.OUT, authorizations);
+            default:
+                throw new SecureGraphException("Unexpected direction: " + direction);
+        }
     }
 
     @Override
     public Iterable<String> getEdgeLabels(Direction direction, Authorizations authorizations) {
-        return toSet(new ConvertingIterable<Map.Entry<String, EdgeInfo>, String>(getEdgeInfos(direction)) {
+        return toSet(new ConvertingIterable<Map.Entry<String, EdgeInfo>, String>(getEdgeInfos(direction, null, null, authorizations)) {
             @Override
             protected String convert(Map.Entry<String, EdgeInfo> o) {
                 return o.getValue().getLabel();
@@ -207,19 +226,48 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
 
             @Override
             protected Iterator<Map.Entry<String, EdgeInfo>> createIterator() {
-                return getEdgeInfos(direction).iterator();
+                return getEdgeInfos(direction, labels, otherVertexId, authorizations).iterator();
             }
         };
     }
 
-    private Iterable<Map.Entry<String, EdgeInfo>> getEdgeInfos(Direction direction) {
+    /**
+     * Held edge refs are filtered by the caller, streamed edge refs are filtered on the tablet server.
+     */
+    private Iterable<Map.Entry<String, EdgeInfo>> getEdgeInfos(Direction direction, String[] labels, String otherVertexId, Authorizations authorizations) {
         switch (direction) {
             case IN:
+                if (this.inEdges == null) {
+                    return getGraph().getEdgeInfos(getId(), Direction.IN, labels, otherVertexId, includeHiddenEdges, authorizations);
+                }
                 return this.inEdges.entrySet();
             case OUT:
+                if (this.outEdges == null) {
+                    return getGraph().getEdgeInfos(getId(), Direction.OUT, labels, otherVertexId, includeHiddenEdges, authorizations);
+                }
                 return this.outEdges.entrySet();
             case BOTH:
-                return new JoinIterable<>(this.inEdges.entrySet(), this.outEdges.entrySet());
+                return new JoinIterable<>(
+                        getEdgeInfos(Direction.IN, labels, otherVertexId, authorizations),
+                        getEdgeInfos(Direction.OUT, labels, otherVertexId, authorizations)
+                );
+            default:
+                throw new SecureGraphException("Unexpected direction: " + direction);
+        }
+    }
+
+    /**
+     * True if the edge refs of the given direction are streamed from the vertex table rather than held by this
+     * vertex, see {@link AccumuloGraphConfiguration#getEdgeRefStreamingThreshold()}.
+     */
+    public boolean isStreamingEdgeRefs(Direction direction) {
+        switch (direction) {
+            case IN:
+                return this.inEdges == null;
+            case OUT:
+                return this.outEdges == null;
+            case BOTH:
+                return this.inEdges == null || this.outEdges == null;
             default:
                 throw new SecureGraphException("Unexpected direction: " + direction);
         }
@@ -268,9 +316,17 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
                 Iterable<String> outVertexIds = getVertexIds(Direction.OUT, labels, authorizations);
                 return new JoinIterable<>(inVertexIds, outVertexIds);
             case IN:
-                return new GetVertexIdsIterable(this.inEdges.values(), labels);
             case OUT:
-                return new GetVertexIdsIterable(this.outEdges.values(), labels);
+                Map<String, EdgeInfo> edgeInfos = direction == Direction.IN ? this.inEdges : this.outEdges;
+                if (edgeInfos == null) {
+                    return new ConvertingIterable<Map.Entry<String, EdgeInfo>, String>(getEdgeInfos(direction, labels, null, authorizations)) {
+                        @Override
+                        protected String convert(Map.Entry<String, EdgeInfo> o) {
+                            return o.getValue().getVertexId();
+                        }
+                    };
+                }
+                return new GetVertexIdsIterable(edgeInfos.values(), labels);
             default:
                 throw new SecureGraphException("Unexpected direction: " + direction);
         }
@@ -287,19 +343,39 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
     }
 
     void addOutEdge(Edge edge) {
-        this.outEdges.put(edge.getId(), new EdgeInfo(edge.getLabel(), edge.getVertexId(Direction.IN)));
+        addOutEdge(edge.getId(), new EdgeInfo(edge.getLabel(), edge.getVertexId(Direction.IN)));
+    }
+
+    void addOutEdge(String edgeId, EdgeInfo edgeInfo) {
+        if (this.outEdges == null) {
+            return;
+        }
+        this.outEdges.put(edgeId, edgeInfo);
     }
 
-    void removeOutEdge(Edge edge) {
-        this.outEdges.remove(edge.getId());
+    void removeOutEdge(String edgeId) {
+        if (this.outEdges == null) {
+            return;
+        }
+        this.outEdges.remove(edgeId);
     }
 
     void addInEdge(Edge edge) {
-        this.inEdges.put(edge.getId(), new EdgeInfo(edge.getLabel(), edge.getVertexId(Direction.OUT)));
+        addInEdge(edge.getId(), new EdgeInfo(edge.getLabel(), edge.getVertexId(Direction.OUT)));
     }
 
-    void removeInEdge(Edge edge) {
-        this.inEdges.remove(edge.getId());
+    void addInEdge(String edgeId, EdgeInfo edgeInfo) {
+        if (this.inEdges == null) {
+            return;
+        }
+        this.inEdges.put(edgeId, edgeInfo);
+    }
+
+    void removeInEdge(String edgeId) {
+        if (this.inEdges == null) {
+            return;
+        }
+        this.inEdges.remove(edgeId);
     }
 
     @Override
@@ -0,0 +1,63 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.securegraph.accumulo.iterator.RowBoundaryIterator;
+
+import java.util.*;
+
+/**
+ * Groups the cells returned by a BatchScanner with a {@link RowBoundaryIterator} attached into rows. Cells of
+ * different rows may arrive interleaved, so each row is held until its boundary marker arrives and is then
+ * returned in the order its cells were read.
+ */
+class BatchRowIterator implements Iterator<Iterator<Map.Entry<Key, Value>>> {
+    private final Iterator<Map.Entry<Key, Value>> cells;
+    private final Map<ByteSequence, List<Map.Entry<Key, Value>>> partialRows = new HashMap<>();
+    private List<Map.Entry<Key, Value>> next;
+
+    public BatchRowIterator(Iterator<Map.Entry<Key, Value>> cells) {
+        this.cells = cells;
+    }
+
+    @Override
+    public boolean hasNext() {
+        loadNext();
+        return next != null;
+    }
+
+    @Override
+    public Iterator<Map.Entry<Key, Value>> next() {
+        loadNext();
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        Iterator<Map.Entry<Key, Value>> result = next.iterator();
+        next = null;
+        return result;
+    }
+
+    private void loadNext() {
+        while (next == null && cells.hasNext()) {
+            Map.Entry<Key, Value> cell = cells.next();
+            Key key = cell.getKey();
+            ByteSequence row = key.getRowData();
+            if (RowBoundaryIterator.isRowBoundary(key)) {
+                next = partialRows.remove(row);
+                continue;
+            }
+            List<Map.Entry<Key, Value>> partialRow = partialRows.get(row);
+            if (partialRow == null) {
+                partialRow = new ArrayList<>();
+                partialRows.put(row, partialRow);
+            }
+            partialRow.add(cell);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
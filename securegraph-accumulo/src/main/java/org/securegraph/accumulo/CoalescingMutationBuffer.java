@@ -0,0 +1,86 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds mutations back and combines all mutations of a row into one when drained. Rows are drained in the order
+ * they were first added, the updates of a row in the order they were added.
+ */
+class CoalescingMutationBuffer {
+    private final Map<Text, List<Mutation>> mutationsByRow = new LinkedHashMap<>();
+    private int updateCount;
+
+    public synchronized void add(Mutation m) {
+        Text row = new Text(m.getRow());
+        List<Mutation> mutations = mutationsByRow.get(row);
+        if (mutations == null) {
+            mutations = new ArrayList<>();
+            mutationsByRow.put(row, mutations);
+        }
+        mutations.add(m);
+        updateCount += m.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return mutationsByRow.isEmpty();
+    }
+
+    /**
+     * Number of column updates held back.
+     */
+    public synchronized int getUpdateCount() {
+        return updateCount;
+    }
+
+    public synchronized void clear() {
+        mutationsByRow.clear();
+        updateCount = 0;
+    }
+
+    /**
+     * Removes all mutations from the buffer, returning one mutation per row.
+     */
+    public synchronized List<Mutation> drain() {
+        List<Mutation> results = new ArrayList<>(mutationsByRow.size());
+        for (Map.Entry<Text, List<Mutation>> rowMutations : mutationsByRow.entrySet()) {
+            if (rowMutations.getValue().size() == 1) {
+                results.add(rowMutations.getValue().get(0));
+                continue;
+            }
+            Mutation merged = new Mutation(rowMutations.getKey());
+            for (Mutation m : rowMutations.getValue()) {
+                copyUpdates(m, merged);
+            }
+            results.add(merged);
+        }
+        clear();
+        return results;
+    }
+
+    private static void copyUpdates(Mutation from, Mutation to) {
+        for (ColumnUpdate update : from.getUpdates()) {
+            ColumnVisibility columnVisibility = new ColumnVisibility(update.getColumnVisibility());
+            if (update.isDeleted()) {
+                if (update.hasTimestamp()) {
+                    to.putDelete(update.getColumnFamily(), update.getColumnQualifier(), columnVisibility, update.getTimestamp());
+                } else {
+                    to.putDelete(update.getColumnFamily(), update.getColumnQualifier(), columnVisibility);
+                }
+            } else {
+                if (update.hasTimestamp()) {
+                    to.put(update.getColumnFamily(), update.getColumnQualifier(), columnVisibility, update.getTimestamp(), update.getValue());
+                } else {
+                    to.put(update.getColumnFamily(), update.getColumnQualifier(), columnVisibility, update.getValue());
+                }
+            }
+        }
+    }
+}
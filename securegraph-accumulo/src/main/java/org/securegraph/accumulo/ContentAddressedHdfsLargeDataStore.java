@@ -0,0 +1,92 @@
+package org.securegraph.accumulo;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.securegraph.SecureGraphException;
+import org.securegraph.util.LimitOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * Writes a large value to a temporary file which is moved to a path derived from the digest of its content once the
+ * value has been written. If a file with the same digest already exists the temporary file is deleted and the
+ * existing file's modification time is updated so it is not swept while the new reference is being saved.
+ */
+class ContentAddressedHdfsLargeDataStore extends LimitOutputStream.LargeDataStore {
+    public static final String DIGEST_ALGORITHM = "SHA-256";
+    public static final String DIRECTORY = "sha256";
+    private static final String TEMP_DIRECTORY = "tmp";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private final FileSystem fs;
+    private final String dataDir;
+    private Path tempPath;
+
+    public ContentAddressedHdfsLargeDataStore(FileSystem fs, String dataDir) {
+        this.fs = fs;
+        this.dataDir = dataDir;
+    }
+
+    @Override
+    public OutputStream createOutputStream() throws IOException {
+        this.tempPath = new Path(dataDir, TEMP_DIRECTORY + "/" + UUID.randomUUID().toString());
+        if (!this.fs.mkdirs(this.tempPath.getParent())) {
+            throw new IOException("Could not create directory " + this.tempPath.getParent());
+        }
+        return this.fs.create(this.tempPath);
+    }
+
+    /**
+     * Moves the written file to its content addressed location and returns its path relative to the data directory.
+     */
+    public String commit(String digest) throws IOException {
+        String relativeFileName = getRelativeFileName(digest);
+        Path path = new Path(dataDir, relativeFileName);
+        if (!this.fs.exists(path)) {
+            if (!this.fs.mkdirs(path.getParent())) {
+                throw new IOException("Could not create directory " + path.getParent());
+            }
+            if (this.fs.rename(this.tempPath, path)) {
+                this.tempPath = null;
+                return relativeFileName;
+            }
+            if (!this.fs.exists(path)) {
+                throw new IOException("Could not rename " + this.tempPath + " to " + path);
+            }
+        }
+        discard();
+        this.fs.setTimes(path, System.currentTimeMillis(), -1);
+        return relativeFileName;
+    }
+
+    public void discard() throws IOException {
+        if (this.tempPath != null) {
+            this.fs.delete(this.tempPath, false);
+            this.tempPath = null;
+        }
+    }
+
+    public static String getRelativeFileName(String digest) {
+        return DIRECTORY + "/" + digest.substring(0, 2) + "/" + digest;
+    }
+
+    public static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new SecureGraphException("Could not create " + DIGEST_ALGORITHM + " digest", ex);
+        }
+    }
+
+    public static String toHex(byte[] digest) {
+        char[] result = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            result[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+            result[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+        }
+        return new String(result);
+    }
+}
@@ -0,0 +1,68 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.MultiTableBatchWriter;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.data.Mutation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the mutations and mutation bytes added to a table. When created for a single table of a
+ * {@link MultiTableBatchWriter} flushing flushes all tables of the shared writer and closing is left to the owner of
+ * the shared writer, otherwise both apply to the wrapped writer only.
+ */
+class CountingBatchWriter implements BatchWriter {
+    private final MultiTableBatchWriter multiTableBatchWriter;
+    private final BatchWriter writer;
+    private final AtomicLong mutationCount = new AtomicLong();
+    private final AtomicLong byteCount = new AtomicLong();
+
+    public CountingBatchWriter(MultiTableBatchWriter multiTableBatchWriter, BatchWriter writer) {
+        this.multiTableBatchWriter = multiTableBatchWriter;
+        this.writer = writer;
+    }
+
+    public CountingBatchWriter(BatchWriter writer) {
+        this(null, writer);
+    }
+
+    @Override
+    public void addMutation(Mutation m) throws MutationsRejectedException {
+        writer.addMutation(m);
+        mutationCount.incrementAndGet();
+        byteCount.addAndGet(m.numBytes());
+    }
+
+    @Override
+    public void addMutations(Iterable<Mutation> iterable) throws MutationsRejectedException {
+        for (Mutation m : iterable) {
+            addMutation(m);
+        }
+    }
+
+    @Override
+    public void flush() throws MutationsRejectedException {
+        if (multiTableBatchWriter == null) {
+            writer.flush();
+        } else {
+            multiTableBatchWriter.flush();
+        }
+    }
+
+    @Override
+    public void close() throws MutationsRejectedException {
+        // a shared writer is closed by AccumuloGraph.shutdown
+        if (multiTableBatchWriter == null) {
+            writer.close();
+        }
+    }
+
+    public long getMutationCount() {
+        return mutationCount.get();
+    }
+
+    public long getByteCount() {
+        return byteCount.get();
+    }
+}
@@ -35,7 +35,7 @@ public class EdgeInfo {
                 vertexIdBytes = vertexId.getBytes(CHARSET_NAME);
                 vertexIdBytesLength = vertexIdBytes.length;
             }
-            int len = 4 + labelBytesLength + 4 + vertexIdBytesLength;
+            int len = 4 + Math.max(0, labelBytesLength) + 4 + Math.max(0, vertexIdBytesLength);
 
             ByteBuffer buffer = ByteBuffer.allocate(len);
             buffer.putInt(labelBytesLength);
@@ -11,7 +11,6 @@ import java.util.Iterator;
 import java.util.Map;
 
 public class EdgeMaker extends ElementMaker<Edge> {
-    private static final String VISIBILITY_SIGNAL = AccumuloEdge.CF_SIGNAL.toString();
     private final AccumuloGraph graph;
     private String inVertexId;
     private String outVertexId;
@@ -25,22 +24,19 @@ public class EdgeMaker extends ElementMaker<Edge> {
 
     @Override
     protected void processColumn(Key key, Value value) {
-        Text columnFamily = key.getColumnFamily();
-        Text columnQualifier = key.getColumnQualifier();
-
-        if (AccumuloEdge.CF_SIGNAL.compareTo(columnFamily) == 0) {
-            this.label = columnQualifier.toString();
+        if (key.compareColumnFamily(AccumuloEdge.CF_SIGNAL) == 0) {
+            this.label = toString(key.getColumnQualifierData());
             this.timestamp = key.getTimestamp();
             return;
         }
 
-        if (AccumuloEdge.CF_IN_VERTEX.compareTo(columnFamily) == 0) {
-            this.inVertexId = columnQualifier.toString();
+        if (key.compareColumnFamily(AccumuloEdge.CF_IN_VERTEX) == 0) {
+            this.inVertexId = toString(key.getColumnQualifierData());
             return;
         }
 
-        if (AccumuloEdge.CF_OUT_VERTEX.compareTo(columnFamily) == 0) {
-            this.outVertexId = columnQualifier.toString();
+        if (key.compareColumnFamily(AccumuloEdge.CF_OUT_VERTEX) == 0) {
+            this.outVertexId = toString(key.getColumnQualifierData());
         }
     }
 
@@ -53,8 +49,8 @@ public class EdgeMaker extends ElementMaker<Edge> {
     }
 
     @Override
-    protected String getVisibilitySignal() {
-        return VISIBILITY_SIGNAL;
+    protected Text getVisibilitySignal() {
+        return AccumuloEdge.CF_SIGNAL;
     }
 
     @Override
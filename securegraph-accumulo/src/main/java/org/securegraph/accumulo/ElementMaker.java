@@ -1,26 +1,31 @@
 package org.securegraph.accumulo;
 
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.user.RowDeletingIterator;
-import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.hadoop.io.Text;
 import org.securegraph.Authorizations;
 import org.securegraph.Property;
 import org.securegraph.SecureGraphException;
 import org.securegraph.Visibility;
 
+import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Decodes the columns of a single element row. Row, column and visibility bytes are read directly from the
+ * {@link Key} and only converted to strings once per property when the final properties are built.
+ */
 public abstract class ElementMaker<T> {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final byte VALUE_SEPARATOR = (byte) ElementMutationBuilder.VALUE_SEPARATOR.charAt(0);
+    private static final int MAX_VISIBILITY_CACHE_SIZE = 10000;
+    private static final Map<ByteSequence, Visibility> visibilityCache = new ConcurrentHashMap<>();
     private final Iterator<Map.Entry<Key, Value>> row;
-    private final Map<String, String> propertyNames = new HashMap<>();
-    private final Map<String, String> propertyColumnQualifier = new HashMap<>();
-    private final Map<String, byte[]> propertyValues = new HashMap<>();
-    private final Map<String, Visibility> propertyVisibilities = new HashMap<>();
-    private final Map<String, LazyPropertyMetadata> propertyMetadata = new HashMap<>();
-    private final Map<String, Long> propertyTimestamps = new HashMap<>();
-    private final Set<HiddenProperty> hiddenProperties = new HashSet<>();
+    private final Map<PropertyColumnKey, PropertyColumn> propertyColumns = new LinkedHashMap<>();
     private final Set<Visibility> hiddenVisibilities = new HashSet<>();
     private final AccumuloGraph graph;
     private final Authorizations authorizations;
@@ -34,51 +39,50 @@ public abstract class ElementMaker<T> {
     }
 
     public T make(boolean includeHidden) {
+        Text visibilitySignal = getVisibilitySignal();
         while (row.hasNext()) {
             Map.Entry<Key, Value> col = row.next();
+            Key key = col.getKey();
+            Value value = col.getValue();
 
             if (this.id == null) {
-                this.id = getIdFromRowKey(col.getKey().getRow().toString());
+                this.id = getIdFromRowKey(toString(key.getRowData()));
             }
 
-            Text columnFamily = col.getKey().getColumnFamily();
-            Text columnQualifier = col.getKey().getColumnQualifier();
-            ColumnVisibility columnVisibility = AccumuloGraph.visibilityToAccumuloVisibility(col.getKey().getColumnVisibility().toString());
-            Value value = col.getValue();
-
-            if (columnFamily.equals(AccumuloGraph.DELETE_ROW_COLUMN_FAMILY)
-                    && columnQualifier.equals(AccumuloGraph.DELETE_ROW_COLUMN_QUALIFIER)
+            if (key.getColumnFamilyData().length() == 0
+                    && key.getColumnQualifierData().length() == 0
                     && value.equals(RowDeletingIterator.DELETE_ROW_VALUE)) {
                 return null;
             }
 
-            if (columnFamily.equals(AccumuloElement.CF_HIDDEN)) {
-                if (includeHidden) {
-                    this.hiddenVisibilities.add(AccumuloGraph.accumuloVisibilityToVisibility(columnVisibility));
-                } else {
-                    return null;
-                }
+            if (key.compareColumnFamily(AccumuloElement.CF_PROPERTY) == 0) {
+                extractPropertyData(key, value);
+                continue;
             }
 
-            if (columnFamily.equals(AccumuloElement.CF_PROPERTY_HIDDEN)) {
-                extractPropertyHidden(columnQualifier, columnVisibility);
+            if (key.compareColumnFamily(AccumuloElement.CF_PROPERTY_METADATA) == 0) {
+                extractPropertyMetadata(key, value);
+                continue;
             }
 
-            if (AccumuloElement.CF_PROPERTY.compareTo(columnFamily) == 0) {
-                extractPropertyData(col, columnVisibility);
+            if (key.compareColumnFamily(AccumuloElement.CF_PROPERTY_HIDDEN) == 0) {
+                extractPropertyHidden(key);
                 continue;
             }
 
-            if (AccumuloElement.CF_PROPERTY_METADATA.compareTo(columnFamily) == 0) {
-                extractPropertyMetadata(columnQualifier, columnVisibility, value);
-                continue;
+            if (key.compareColumnFamily(AccumuloElement.CF_HIDDEN) == 0) {
+                if (includeHidden) {
+                    this.hiddenVisibilities.add(getVisibility(key.getColumnVisibilityData()));
+                } else {
+                    return null;
+                }
             }
 
-            if (getVisibilitySignal().equals(columnFamily.toString())) {
-                this.visibility = AccumuloGraph.accumuloVisibilityToVisibility(columnVisibility);
+            if (key.compareColumnFamily(visibilitySignal) == 0) {
+                this.visibility = getVisibility(key.getColumnVisibilityData());
             }
 
-            processColumn(col.getKey(), col.getValue());
+            processColumn(key, value);
         }
 
         // If the org.securegraph.accumulo.iterator.ElementVisibilityRowFilter isn't installed this will catch stray rows
@@ -93,7 +97,7 @@ public abstract class ElementMaker<T> {
 
     protected abstract String getIdFromRowKey(String rowKey);
 
-    protected abstract String getVisibilitySignal();
+    protected abstract Text getVisibilitySignal();
 
     protected abstract T makeElement(boolean includeHidden);
 
@@ -114,157 +118,144 @@ public abstract class ElementMaker<T> {
     }
 
     protected List<Property> getProperties(boolean includeHidden) {
-        List<Property> results = new ArrayList<>(propertyValues.size());
-        for (Map.Entry<String, byte[]> propertyValueEntry : propertyValues.entrySet()) {
-            String key = propertyValueEntry.getKey();
-            String propertyKey = getPropertyKeyFromColumnQualifier(propertyColumnQualifier.get(key));
-            String propertyName = propertyNames.get(key);
-            byte[] propertyValue = propertyValueEntry.getValue();
-            Visibility propertyVisibility = propertyVisibilities.get(key);
-            long propertyTimestamp = propertyTimestamps.get(key);
-            Set<Visibility> propertyHiddenVisibilities = getPropertyHiddenVisibilities(propertyKey, propertyName, propertyVisibility);
-            if (!includeHidden && isHidden(propertyKey, propertyName, propertyVisibility)) {
+        List<Property> results = new ArrayList<>(propertyColumns.size());
+        for (Map.Entry<PropertyColumnKey, PropertyColumn> entry : propertyColumns.entrySet()) {
+            PropertyColumn propertyColumn = entry.getValue();
+            if (propertyColumn.value == null) {
+                // metadata or hidden markers for a property that wasn't fetched or no longer exists
+                continue;
+            }
+            if (!includeHidden && propertyColumn.hiddenVisibilities != null) {
                 continue;
             }
-            LazyPropertyMetadata metadata = propertyMetadata.get(key);
+            ByteSequence nameAndKey = entry.getKey().nameAndKey;
+            int sep = indexOf(nameAndKey, 0);
+            if (sep < 0) {
+                throw new SecureGraphException("Invalid property column qualifier");
+            }
             LazyMutableProperty property = new LazyMutableProperty(
                     getGraph(),
                     getGraph().getValueSerializer(),
-                    propertyKey,
-                    propertyName,
-                    propertyValue,
-                    metadata,
-                    propertyHiddenVisibilities,
-                    propertyVisibility,
-                    propertyTimestamp
+                    toString(nameAndKey.subSequence(sep + 1, nameAndKey.length())),
+                    toString(nameAndKey.subSequence(0, sep)),
+                    propertyColumn.value,
+                    propertyColumn.metadata,
+                    propertyColumn.hiddenVisibilities,
+                    getVisibility(entry.getKey().visibility),
+                    propertyColumn.timestamp
             );
             results.add(property);
         }
         return results;
     }
 
-    private Set<Visibility> getPropertyHiddenVisibilities(String propertyKey, String propertyName, Visibility propertyVisibility) {
-        Set<Visibility> hiddenVisibilities = null;
-        for (HiddenProperty hiddenProperty : hiddenProperties) {
-            if (hiddenProperty.matches(propertyKey, propertyName, propertyVisibility)) {
-                if (hiddenVisibilities == null) {
-                    hiddenVisibilities = new HashSet<>();
-                }
-                hiddenVisibilities.add(hiddenProperty.getHiddenVisibility());
-            }
-        }
-        return hiddenVisibilities;
-    }
-
-    private boolean isHidden(String propertyKey, String propertyName, Visibility visibility) {
-        for (HiddenProperty hiddenProperty : hiddenProperties) {
-            if (hiddenProperty.matches(propertyKey, propertyName, visibility)) {
-                return true;
-            }
-        }
-        return false;
+    // column qualifier: name \x1f key, column visibility: property visibility
+    private void extractPropertyData(Key key, Value value) {
+        PropertyColumn propertyColumn = getOrCreatePropertyColumn(key.getColumnQualifierData(), key.getColumnVisibilityData());
+        propertyColumn.value = value.get();
+        propertyColumn.timestamp = key.getTimestamp();
     }
 
-    private void extractPropertyHidden(Text columnQualifier, ColumnVisibility columnVisibility) {
-        String columnQualifierStr = columnQualifier.toString();
-        int nameKeySep = columnQualifierStr.indexOf(ElementMutationBuilder.VALUE_SEPARATOR);
+    // column qualifier: name \x1f key \x1f property visibility, column visibility: hidden visibility
+    private void extractPropertyHidden(Key key) {
+        ByteSequence columnQualifier = key.getColumnQualifierData();
+        int nameKeySep = indexOf(columnQualifier, 0);
         if (nameKeySep < 0) {
             throw new SecureGraphException("Invalid property hidden column qualifier");
         }
-        int keyVisSep = columnQualifierStr.indexOf(ElementMutationBuilder.VALUE_SEPARATOR, nameKeySep + 1);
-        if (nameKeySep < 0) {
+        int keyVisSep = indexOf(columnQualifier, nameKeySep + 1);
+        if (keyVisSep < 0) {
             throw new SecureGraphException("Invalid property hidden column qualifier");
         }
 
-        String name = columnQualifierStr.substring(0, nameKeySep);
-        String key = columnQualifierStr.substring(nameKeySep + 1, keyVisSep);
-        String vis = columnQualifierStr.substring(keyVisSep + 1);
-
-        this.hiddenProperties.add(new HiddenProperty(key, name, vis, AccumuloGraph.accumuloVisibilityToVisibility(columnVisibility)));
+        PropertyColumn propertyColumn = getOrCreatePropertyColumn(
+                columnQualifier.subSequence(0, keyVisSep),
+                columnQualifier.subSequence(keyVisSep + 1, columnQualifier.length())
+        );
+        if (propertyColumn.hiddenVisibilities == null) {
+            propertyColumn.hiddenVisibilities = new HashSet<>();
+        }
+        propertyColumn.hiddenVisibilities.add(getVisibility(key.getColumnVisibilityData()));
     }
 
-    private void extractPropertyMetadata(Text columnQualifier, ColumnVisibility columnVisibility, Value value) {
-        Visibility metadataVisibility = AccumuloGraph.accumuloVisibilityToVisibility(columnVisibility);
-        String columnQualifierString = columnQualifier.toString();
-        int i = columnQualifierString.lastIndexOf(ElementMutationBuilder.VALUE_SEPARATOR);
-        if (i < 0) {
-            throw new SecureGraphException("Invalid property metadata column qualifier: " + columnQualifierString);
+    // column qualifier: name \x1f key \x1f property visibility \x1f metadata key, column visibility: metadata visibility
+    private void extractPropertyMetadata(Key key, Value value) {
+        ByteSequence columnQualifier = key.getColumnQualifierData();
+        int nameKeySep = indexOf(columnQualifier, 0);
+        int keyVisSep = nameKeySep < 0 ? -1 : indexOf(columnQualifier, nameKeySep + 1);
+        int metadataKeySep = lastIndexOf(columnQualifier);
+        if (keyVisSep < 0 || metadataKeySep <= keyVisSep) {
+            throw new SecureGraphException("Invalid property metadata column qualifier: " + toString(columnQualifier));
         }
-        String propertyKey = columnQualifierString.substring(0, i);
-        String metadataKey = columnQualifierString.substring(i + 1);
 
-        LazyPropertyMetadata lazyPropertyMetadata = getOrCreatePropertyMetadata(propertyKey);
-        lazyPropertyMetadata.add(metadataKey, metadataVisibility, value.get());
+        PropertyColumn propertyColumn = getOrCreatePropertyColumn(
+                columnQualifier.subSequence(0, keyVisSep),
+                columnQualifier.subSequence(keyVisSep + 1, metadataKeySep)
+        );
+        if (propertyColumn.metadata == null) {
+            propertyColumn.metadata = new LazyPropertyMetadata();
+        }
+        String metadataKey = toString(columnQualifier.subSequence(metadataKeySep + 1, columnQualifier.length()));
+        propertyColumn.metadata.add(metadataKey, getVisibility(key.getColumnVisibilityData()), value.get());
     }
 
-    private LazyPropertyMetadata getOrCreatePropertyMetadata(String propertyKey) {
-        LazyPropertyMetadata lazyPropertyMetadata = propertyMetadata.get(propertyKey);
-        if (lazyPropertyMetadata == null) {
-            lazyPropertyMetadata = new LazyPropertyMetadata();
-            propertyMetadata.put(propertyKey, lazyPropertyMetadata);
+    private PropertyColumn getOrCreatePropertyColumn(ByteSequence nameAndKey, ByteSequence visibility) {
+        PropertyColumnKey propertyColumnKey = new PropertyColumnKey(nameAndKey, visibility);
+        PropertyColumn propertyColumn = propertyColumns.get(propertyColumnKey);
+        if (propertyColumn == null) {
+            propertyColumn = new PropertyColumn();
+            propertyColumns.put(propertyColumnKey, propertyColumn);
         }
-        return lazyPropertyMetadata;
+        return propertyColumn;
     }
 
-    private void extractPropertyData(Map.Entry<Key, Value> column, ColumnVisibility columnVisibility) {
-        Text columnQualifier = column.getKey().getColumnQualifier();
-        Value value = column.getValue();
-        Visibility visibility = AccumuloGraph.accumuloVisibilityToVisibility(columnVisibility);
-        String propertyName = getPropertyNameFromColumnQualifier(columnQualifier.toString());
-        String key = propertyColumnQualifierToKey(columnQualifier, visibility);
-        long timestamp = column.getKey().getTimestamp();
-        propertyColumnQualifier.put(key, columnQualifier.toString());
-        propertyNames.put(key, propertyName);
-        propertyValues.put(key, value.get());
-        propertyVisibilities.put(key, visibility);
-        propertyTimestamps.put(key, timestamp);
+    protected static Visibility getVisibility(ByteSequence columnVisibility) {
+        Visibility visibility = visibilityCache.get(columnVisibility);
+        if (visibility == null) {
+            visibility = new Visibility(toString(columnVisibility));
+            if (visibilityCache.size() >= MAX_VISIBILITY_CACHE_SIZE) {
+                visibilityCache.clear();
+            }
+            visibilityCache.put(new ArrayByteSequence(columnVisibility.toArray()), visibility);
+        }
+        return visibility;
     }
 
-    private String propertyColumnQualifierToKey(Text columnQualifier, Visibility visibility) {
-        return columnQualifier.toString() + ElementMutationBuilder.VALUE_SEPARATOR + visibility.toString();
+    protected static String toString(ByteSequence bytes) {
+        return new String(bytes.getBackingArray(), bytes.offset(), bytes.length(), UTF8);
     }
 
-    private String getPropertyNameFromColumnQualifier(String columnQualifier) {
-        int i = columnQualifier.indexOf(ElementMutationBuilder.VALUE_SEPARATOR);
-        if (i < 0) {
-            throw new SecureGraphException("Invalid property column qualifier");
+    private static int indexOf(ByteSequence bytes, int start) {
+        for (int i = start; i < bytes.length(); i++) {
+            if (bytes.byteAt(i) == VALUE_SEPARATOR) {
+                return i;
+            }
         }
-        return columnQualifier.substring(0, i);
+        return -1;
     }
 
-    private String getPropertyKeyFromColumnQualifier(String columnQualifier) {
-        int i = columnQualifier.indexOf(ElementMutationBuilder.VALUE_SEPARATOR);
-        if (i < 0) {
-            throw new SecureGraphException("Invalid property column qualifier");
+    private static int lastIndexOf(ByteSequence bytes) {
+        for (int i = bytes.length() - 1; i >= 0; i--) {
+            if (bytes.byteAt(i) == VALUE_SEPARATOR) {
+                return i;
+            }
         }
-        return columnQualifier.substring(i + 1);
+        return -1;
     }
 
     public Authorizations getAuthorizations() {
         return authorizations;
     }
 
-    private static class HiddenProperty {
-        private final String key;
-        private final String name;
-        private final String visibility;
-        private final Visibility hiddenVisibility;
+    private static class PropertyColumnKey {
+        private final ByteSequence nameAndKey;
+        private final ByteSequence visibility;
+        private final int hash;
 
-        public HiddenProperty(String key, String name, String visibility, Visibility hiddenVisibility) {
-            this.key = key;
-            this.name = name;
+        public PropertyColumnKey(ByteSequence nameAndKey, ByteSequence visibility) {
+            this.nameAndKey = nameAndKey;
             this.visibility = visibility;
-            this.hiddenVisibility = hiddenVisibility;
-        }
-
-        public boolean matches(String propertyKey, String propertyName, Visibility visibility) {
-            return propertyKey.equals(this.key)
-                    && propertyName.equals(this.name)
-                    && visibility.getVisibilityString().equals(this.visibility);
-        }
-
-        public Visibility getHiddenVisibility() {
-            return hiddenVisibility;
+            this.hash = 31 * nameAndKey.hashCode() + visibility.hashCode();
         }
 
         @Override
@@ -275,37 +266,20 @@ public abstract class ElementMaker<T> {
             if (o == null || getClass() != o.getClass()) {
                 return false;
             }
-
-            HiddenProperty that = (HiddenProperty) o;
-
-            if (key != null ? !key.equals(that.key) : that.key != null) {
-                return false;
-            }
-            if (name != null ? !name.equals(that.name) : that.name != null) {
-                return false;
-            }
-            if (visibility != null ? !visibility.equals(that.visibility) : that.visibility != null) {
-                return false;
-            }
-
-            return true;
+            PropertyColumnKey that = (PropertyColumnKey) o;
+            return hash == that.hash && nameAndKey.equals(that.nameAndKey) && visibility.equals(that.visibility);
         }
 
         @Override
         public int hashCode() {
-            int result = key != null ? key.hashCode() : 0;
-            result = 31 * result + (name != null ? name.hashCode() : 0);
-            result = 31 * result + (visibility != null ? visibility.hashCode() : 0);
-            return result;
+            return hash;
         }
+    }
 
-        @Override
-        public String toString() {
-            return "HiddenProperty{" +
-                    "key='" + key + '\'' +
-                    ", name='" + name + '\'' +
-                    ", visibility='" + visibility + '\'' +
-                    '}';
-        }
+    private static class PropertyColumn {
+        private byte[] value;
+        private long timestamp;
+        private LazyPropertyMetadata metadata;
+        private Set<Visibility> hiddenVisibilities;
     }
 }
@@ -1,5 +1,6 @@
 package org.securegraph.accumulo;
 
+import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.security.ColumnVisibility;
@@ -10,12 +11,16 @@ import org.securegraph.accumulo.serializer.ValueSerializer;
 import org.securegraph.mutation.PropertyPropertyRemoveMutation;
 import org.securegraph.mutation.PropertyRemoveMutation;
 import org.securegraph.property.StreamingPropertyValue;
+import org.securegraph.util.ByteChunkPool;
 import org.securegraph.util.LimitOutputStream;
 import org.securegraph.util.StreamUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Collections;
 
 import static org.securegraph.util.Preconditions.checkNotNull;
 
@@ -24,6 +29,9 @@ public abstract class ElementMutationBuilder {
     private static final Text EMPTY_TEXT = new Text("");
     public static final Value EMPTY_VALUE = new Value(new byte[0]);
     public static final String VALUE_SEPARATOR = "\u001f";
+    public static final String CONTENT_ADDRESSED_DATA_ROW_KEY_PREFIX = AccumuloConstants.DATA_ROW_KEY_PREFIX + ContentAddressedHdfsLargeDataStore.DIRECTORY + VALUE_SEPARATOR;
+    // column families of this row are the visibilities of the properties referencing content addressed values
+    public static final String CONTENT_ADDRESSED_VISIBILITIES_ROW_KEY = AccumuloConstants.DATA_ROW_KEY_PREFIX + ContentAddressedHdfsLargeDataStore.DIRECTORY;
 
     private final FileSystem fileSystem;
     private final ValueSerializer valueSerializer;
@@ -71,13 +79,21 @@ public abstract class ElementMutationBuilder {
         Mutation addEdgeToOutMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + edge.getVertexId(Direction.OUT));
         EdgeInfo edgeInfo = new EdgeInfo(edgeLabel, edge.getVertexId(Direction.IN));
         addEdgeToOutMutation.put(AccumuloVertex.CF_OUT_EDGE, new Text(edge.getId()), edgeColumnVisibility, edgeInfo.toValue());
-        saveVertexMutation(addEdgeToOutMutation);
+        saveEdgeRefMutation(addEdgeToOutMutation);
 
         // Update in vertex.
         Mutation addEdgeToInMutation = new Mutation(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + edge.getVertexId(Direction.IN));
         edgeInfo = new EdgeInfo(edgeLabel, edge.getVertexId(Direction.OUT));
         addEdgeToInMutation.put(AccumuloVertex.CF_IN_EDGE, new Text(edge.getId()), edgeColumnVisibility, edgeInfo.toValue());
-        saveVertexMutation(addEdgeToInMutation);
+        saveEdgeRefMutation(addEdgeToInMutation);
+    }
+
+    /**
+     * Saves a mutation adding an edge ref to a vertex row. Implementations may hold it back to combine it with other
+     * edge refs of the same vertex.
+     */
+    protected void saveEdgeRefMutation(Mutation m) {
+        saveVertexMutation(m);
     }
 
     public void alterEdgeLabel(AccumuloEdge edge, String newEdgeLabel) {
@@ -237,9 +253,12 @@ public abstract class ElementMutationBuilder {
     }
 
     protected StreamingPropertyValueRef saveStreamingPropertyValue(final String rowKey, final Property property, StreamingPropertyValue propertyValue) {
+        if (isContentAddressedStreamingPropertyValues()) {
+            return saveContentAddressedStreamingPropertyValue(property, propertyValue);
+        }
         try {
             HdfsLargeDataStore largeDataStore = new HdfsLargeDataStore(this.fileSystem, this.dataDir, rowKey, property);
-            LimitOutputStream out = new LimitOutputStream(largeDataStore, maxStreamingPropertyValueTableDataSize);
+            LimitOutputStream out = new LimitOutputStream(largeDataStore, maxStreamingPropertyValueTableDataSize, getStreamingPropertyValueBufferPool());
             try {
                 StreamUtils.copy(propertyValue.getInputStream(), out);
             } finally {
@@ -250,13 +269,64 @@ public abstract class ElementMutationBuilder {
                 LOGGER.debug(String.format("saved large file to \"%s\" (length: %d)", largeDataStore.getFullHdfsPath(), out.getLength()));
                 return new StreamingPropertyValueHdfsRef(largeDataStore.getRelativeFileName(), propertyValue);
             } else {
-                return saveStreamingPropertyValueSmall(rowKey, property, out.getSmall(), propertyValue);
+                return saveStreamingPropertyValueSmall(createTableDataRowKey(rowKey, property), out.getSmall(), propertyValue, true);
+            }
+        } catch (IOException ex) {
+            throw new SecureGraphException(ex);
+        }
+    }
+
+    /**
+     * Stores the value once under the digest of its content so elements saving the same content share it.
+     */
+    private StreamingPropertyValueRef saveContentAddressedStreamingPropertyValue(Property property, StreamingPropertyValue propertyValue) {
+        // recorded so the sweep can tell whether it is able to see every reference
+        Mutation visibilityMutation = new Mutation(CONTENT_ADDRESSED_VISIBILITIES_ROW_KEY);
+        visibilityMutation.put(new Text(property.getVisibility().getVisibilityString()), EMPTY_TEXT, EMPTY_VALUE);
+        saveDataMutation(visibilityMutation);
+        try {
+            ContentAddressedHdfsLargeDataStore largeDataStore = new ContentAddressedHdfsLargeDataStore(this.fileSystem, this.dataDir);
+            LimitOutputStream out = new LimitOutputStream(largeDataStore, maxStreamingPropertyValueTableDataSize, getStreamingPropertyValueBufferPool());
+            MessageDigest messageDigest = ContentAddressedHdfsLargeDataStore.createMessageDigest();
+            boolean committed = false;
+            try {
+                try {
+                    StreamUtils.copy(propertyValue.getInputStream(), new DigestOutputStream(out, messageDigest));
+                } finally {
+                    out.close();
+                }
+                String digest = ContentAddressedHdfsLargeDataStore.toHex(messageDigest.digest());
+
+                if (out.hasExceededSizeLimit()) {
+                    String relativeFileName = largeDataStore.commit(digest);
+                    committed = true;
+                    LOGGER.debug(String.format("saved large file to \"%s\" (length: %d)", relativeFileName, out.getLength()));
+                    return new StreamingPropertyValueHdfsRef(relativeFileName, propertyValue);
+                }
+                committed = true;
+                // the row of a digest always holds the same content
+                return saveStreamingPropertyValueSmall(CONTENT_ADDRESSED_DATA_ROW_KEY_PREFIX + digest, out.getSmall(), propertyValue, false);
+            } finally {
+                if (!committed) {
+                    largeDataStore.discard();
+                }
             }
         } catch (IOException ex) {
             throw new SecureGraphException(ex);
         }
     }
 
+    protected boolean isContentAddressedStreamingPropertyValues() {
+        return false;
+    }
+
+    /**
+     * Pool the in memory buffers of streaming property values are taken from, or null to allocate them as needed.
+     */
+    protected ByteChunkPool getStreamingPropertyValueBufferPool() {
+        return null;
+    }
+
     public void addPropertyRemoveToMutation(Mutation m, Property property) {
         checkNotNull(m, "mutation cannot be null");
         checkNotNull(property, "property cannot be null");
@@ -270,14 +340,51 @@ public abstract class ElementMutationBuilder {
         }
     }
 
-    private StreamingPropertyValueRef saveStreamingPropertyValueSmall(String rowKey, Property property, byte[] data, StreamingPropertyValue propertyValue) {
-        String dataRowKey = createTableDataRowKey(rowKey, property);
+    private StreamingPropertyValueRef saveStreamingPropertyValueSmall(String dataRowKey, byte[] data, StreamingPropertyValue propertyValue, boolean replacesValue) {
         Mutation dataMutation = new Mutation(dataRowKey);
-        dataMutation.put(EMPTY_TEXT, EMPTY_TEXT, new Value(data));
+        int chunkSize = getStreamingPropertyValueTableChunkSize();
+        // a row written while chunking is enabled may hold the chunks of a longer value stored before
+        Iterable<Key> storedColumns = replacesValue && chunkSize > 0 ? getStoredDataColumns(dataRowKey) : Collections.<Key>emptyList();
+        long chunkCount = 0;
+        if (chunkSize > 0 && data.length > chunkSize) {
+            for (int offset = 0; offset < data.length; offset += chunkSize) {
+                Value chunk = new Value(data, offset, Math.min(chunkSize, data.length - offset));
+                dataMutation.put(StreamingPropertyValueTable.CF_CHUNK, StreamingPropertyValueTable.getChunkColumnQualifier(chunkCount++), chunk);
+            }
+        } else {
+            chunkSize = 0;
+            dataMutation.put(EMPTY_TEXT, EMPTY_TEXT, new Value(data));
+        }
+        dataMutation.put(StreamingPropertyValueTable.CF_INFO, StreamingPropertyValueTable.CQ_LENGTH, new Value(Long.toString(data.length).getBytes()));
+        dataMutation.put(StreamingPropertyValueTable.CF_INFO, StreamingPropertyValueTable.CQ_CHUNK_SIZE, new Value(Integer.toString(chunkSize).getBytes()));
+        Text lastChunkColumnQualifier = StreamingPropertyValueTable.getChunkColumnQualifier(chunkCount);
+        for (Key storedColumn : storedColumns) {
+            Text columnFamily = storedColumn.getColumnFamily();
+            boolean staleChunk = columnFamily.equals(StreamingPropertyValueTable.CF_CHUNK) && storedColumn.getColumnQualifier().compareTo(lastChunkColumnQualifier) >= 0;
+            boolean staleSingleCell = columnFamily.getLength() == 0 && chunkSize > 0;
+            if (staleChunk || staleSingleCell) {
+                dataMutation.putDelete(columnFamily, storedColumn.getColumnQualifier());
+            }
+        }
         saveDataMutation(dataMutation);
         return new StreamingPropertyValueTableRef(dataRowKey, propertyValue, data);
     }
 
+    /**
+     * Columns stored in the data table row, read before a value is stored again so that the columns it does not
+     * overwrite can be removed. Only called when chunking is enabled.
+     */
+    protected Iterable<Key> getStoredDataColumns(String dataRowKey) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Size of the chunks values stored in the data table are split into, or zero to store them in a single cell.
+     */
+    protected int getStreamingPropertyValueTableChunkSize() {
+        return 0;
+    }
+
     protected abstract void saveDataMutation(Mutation dataMutation);
 
     private String createTableDataRowKey(String rowKey, Property property) {
@@ -0,0 +1,71 @@
+package org.securegraph.accumulo;
+
+import org.securegraph.SecureGraphException;
+
+/**
+ * Lets concurrent callers share one flush. A caller calls {@link #commit()} after adding its mutations and returns
+ * once a flush which started after that has completed. While a flush is running, other callers wait for it and the
+ * next flush is done by one of them for all who arrived in the meantime.
+ */
+class GroupCommit {
+    private final long windowMillis;
+    private final Runnable flusher;
+    private long requestedSequence;
+    private long flushedSequence;
+    private boolean flushing;
+
+    /**
+     * @param windowMillis Time the flushing caller waits for other callers to join before it flushes.
+     */
+    public GroupCommit(long windowMillis, Runnable flusher) {
+        this.windowMillis = windowMillis;
+        this.flusher = flusher;
+    }
+
+    public void commit() {
+        long sequence;
+        synchronized (this) {
+            sequence = ++requestedSequence;
+            while (flushing && flushedSequence < sequence) {
+                waitForFlush();
+            }
+            if (flushedSequence >= sequence) {
+                return;
+            }
+            flushing = true;
+        }
+
+        long flushSequence = 0;
+        boolean flushed = false;
+        try {
+            if (windowMillis > 0) {
+                Thread.sleep(windowMillis);
+            }
+            synchronized (this) {
+                flushSequence = requestedSequence;
+            }
+            flusher.run();
+            flushed = true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SecureGraphException("Interrupted waiting for group commit", ex);
+        } finally {
+            synchronized (this) {
+                if (flushed) {
+                    flushedSequence = flushSequence;
+                }
+                flushing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private void waitForFlush() {
+        try {
+            wait();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SecureGraphException("Interrupted waiting for group commit", ex);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.securegraph.accumulo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks ids between two ids to split the rows of a tablet into ranges of similar size without reading them. The
+ * characters after the common prefix of the two ids are read as the digits of a number which is divided evenly, only
+ * ASCII characters are produced so the ids sort the same as their row keys.
+ */
+class IdSplitter {
+    private static final int DIGITS = 4;
+    private static final int RADIX = 128;
+
+    /**
+     * @return up to parts - 1 ids in increasing order which are greater than startId and less than endId.
+     */
+    static List<String> split(String startId, String endId, int parts) {
+        List<String> results = new ArrayList<>();
+        int prefixLength = 0;
+        while (prefixLength < startId.length() && prefixLength < endId.length() && startId.charAt(prefixLength) == endId.charAt(prefixLength)) {
+            prefixLength++;
+        }
+        String prefix = startId.substring(0, prefixLength);
+        long start = toNumber(startId, prefixLength);
+        long end = toNumber(endId, prefixLength);
+        for (int i = 1; i < parts; i++) {
+            String id = prefix + toDigits(start + (end - start) * i / parts);
+            if (id.compareTo(startId) > 0 && id.compareTo(endId) < 0 && (results.isEmpty() || id.compareTo(results.get(results.size() - 1)) > 0)) {
+                results.add(id);
+            }
+        }
+        return results;
+    }
+
+    private static long toNumber(String id, int offset) {
+        long result = 0;
+        for (int i = 0; i < DIGITS; i++) {
+            int digit = offset + i < id.length() ? Math.min(id.charAt(offset + i), RADIX - 1) : 0;
+            result = result * RADIX + digit;
+        }
+        return result;
+    }
+
+    private static String toDigits(long number) {
+        char[] digits = new char[DIGITS];
+        for (int i = DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) (number % RADIX);
+            number /= RADIX;
+        }
+        int length = DIGITS;
+        while (length > 0 && digits[length - 1] == 0) {
+            length--;
+        }
+        return new String(digits, 0, length);
+    }
+}
@@ -0,0 +1,191 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.client.RowIterator;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+import org.securegraph.SecureGraphException;
+import org.securegraph.util.CloseableIterable;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scans a range of a table with one scanner per tablet, decoding rows on worker threads.
+ * <p/>
+ * In unordered mode rows are returned as soon as any worker has decoded them. In ordered mode the tablets are
+ * returned one after another, so the rows come back sorted just like a single {@link Scanner} would return them,
+ * while the following tablets are already being read in the background.
+ */
+public abstract class ParallelScanIterable<T> implements CloseableIterable<T> {
+    private static final Object END_OF_RANGE = new Object();
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    private final List<Range> ranges;
+    private final int numThreads;
+    private final boolean ordered;
+    private final int queueSize;
+    private ExecutorService executor;
+
+    protected ParallelScanIterable(Range range, Collection<Text> splits, int numThreads, boolean ordered, int queueSize) {
+        this.ranges = splitRange(range, splits);
+        this.numThreads = Math.max(1, Math.min(numThreads, this.ranges.size()));
+        this.ordered = ordered;
+        this.queueSize = queueSize;
+    }
+
+    static List<Range> splitRange(Range range, Collection<Text> splits) {
+        List<Range> results = new ArrayList<>();
+        Text previousSplit = null;
+        for (Text split : new TreeSet<>(splits)) {
+            addClipped(results, range, new Range(previousSplit, false, split, true));
+            previousSplit = split;
+        }
+        addClipped(results, range, new Range(previousSplit, false, null, true));
+        return results;
+    }
+
+    private static void addClipped(List<Range> results, Range range, Range tabletRange) {
+        Range clipped = range.clip(tabletRange, true);
+        if (clipped != null) {
+            results.add(clipped);
+        }
+    }
+
+    protected abstract Scanner createScanner(Range range);
+
+    /**
+     * Decodes a single row. Called on the worker threads, return null to skip the row.
+     */
+    protected abstract T convert(Iterator<Map.Entry<Key, Value>> row);
+
+    @Override
+    public Iterator<T> iterator() {
+        final List<BlockingQueue<Object>> queues = new ArrayList<>();
+        if (ordered) {
+            for (int i = 0; i < ranges.size(); i++) {
+                queues.add(new ArrayBlockingQueue<>(queueSize));
+            }
+        } else {
+            BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueSize);
+            for (int i = 0; i < ranges.size(); i++) {
+                queues.add(queue);
+            }
+        }
+
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        close();
+        executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "securegraph-parallel-scan-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < ranges.size(); i++) {
+            final Range range = ranges.get(i);
+            final BlockingQueue<Object> queue = queues.get(i);
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        scanRange(range, queue);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } catch (Throwable ex) {
+                        error.compareAndSet(null, ex instanceof Exception ? (Exception) ex : new RuntimeException(ex));
+                        queue.offer(END_OF_RANGE);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+
+        return new Iterator<T>() {
+            private int queueIndex;
+            private int rangesRemaining = ranges.size();
+            private T next;
+
+            @Override
+            public boolean hasNext() {
+                loadNext();
+                if (next == null) {
+                    close();
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                loadNext();
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T result = next;
+                next = null;
+                return result;
+            }
+
+            @SuppressWarnings("unchecked")
+            private void loadNext() {
+                while (next == null && rangesRemaining > 0) {
+                    Object o;
+                    try {
+                        o = queues.get(queueIndex).take();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new SecureGraphException("Interrupted while waiting for scan results", ex);
+                    }
+                    if (error.get() != null) {
+                        close();
+                        throw new SecureGraphException("Could not scan range", error.get());
+                    }
+                    if (o == END_OF_RANGE) {
+                        rangesRemaining--;
+                        if (ordered) {
+                            queueIndex++;
+                        }
+                        continue;
+                    }
+                    next = (T) o;
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private void scanRange(Range range, BlockingQueue<Object> queue) throws InterruptedException {
+        Scanner scanner = createScanner(range);
+        try {
+            RowIterator rows = new RowIterator(scanner.iterator());
+            while (rows.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                T element = convert(rows.next());
+                if (element != null) {
+                    queue.put(element);
+                }
+            }
+        } finally {
+            scanner.close();
+        }
+        queue.put(END_OF_RANGE);
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
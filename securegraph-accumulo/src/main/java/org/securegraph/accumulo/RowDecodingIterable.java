@@ -0,0 +1,187 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.securegraph.SecureGraphException;
+import org.securegraph.util.CloseableIterable;
+import org.securegraph.util.LookAheadIterable;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes the rows of a scanner into elements, skipping rows that decode to null.
+ * <p/>
+ * Without a decode executor the rows are decoded on the consumer thread between calls to hasNext. With one, a
+ * producer thread reads the rows from the scanner and hands them to the executor, so reading from the network and
+ * decoding overlap. Elements are still returned in row order. At most queueSize rows are read ahead of the
+ * consumer.
+ */
+public abstract class RowDecodingIterable<T> implements CloseableIterable<T> {
+    private static final Object END_OF_ROWS = new Object();
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService decodeExecutor;
+    private final int queueSize;
+    private boolean rowsOpen;
+    private Thread producer;
+
+    protected RowDecodingIterable(ExecutorService decodeExecutor, int queueSize) {
+        this.decodeExecutor = decodeExecutor;
+        this.queueSize = queueSize;
+    }
+
+    protected abstract Iterator<Iterator<Map.Entry<Key, Value>>> createRows();
+
+    protected abstract T convert(Iterator<Map.Entry<Key, Value>> row);
+
+    /**
+     * Releases the scanner behind the rows, called once when the iteration completes or is closed.
+     */
+    protected abstract void closeRows();
+
+    @Override
+    public Iterator<T> iterator() {
+        if (decodeExecutor == null) {
+            return new LookAheadIterable<Iterator<Map.Entry<Key, Value>>, T>() {
+                @Override
+                protected boolean isIncluded(Iterator<Map.Entry<Key, Value>> src, T dest) {
+                    return dest != null;
+                }
+
+                @Override
+                protected T convert(Iterator<Map.Entry<Key, Value>> row) {
+                    return RowDecodingIterable.this.convert(row);
+                }
+
+                @Override
+                protected Iterator<Iterator<Map.Entry<Key, Value>>> createIterator() {
+                    return RowDecodingIterable.this.createRowsOnce();
+                }
+
+                @Override
+                public void close() {
+                    RowDecodingIterable.this.close();
+                }
+            }.iterator();
+        }
+        return createPipelinedIterator();
+    }
+
+    private synchronized Iterator<Iterator<Map.Entry<Key, Value>>> createRowsOnce() {
+        rowsOpen = true;
+        return createRows();
+    }
+
+    private synchronized void closeRowsOnce() {
+        if (rowsOpen) {
+            rowsOpen = false;
+            closeRows();
+        }
+    }
+
+    private Iterator<T> createPipelinedIterator() {
+        final BlockingQueue<Object> results = new ArrayBlockingQueue<>(queueSize);
+        final Iterator<Iterator<Map.Entry<Key, Value>>> rows = createRowsOnce();
+        producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (rows.hasNext() && !Thread.currentThread().isInterrupted()) {
+                        final List<Map.Entry<Key, Value>> row = new ArrayList<>();
+                        Iterator<Map.Entry<Key, Value>> cells = rows.next();
+                        while (cells.hasNext()) {
+                            row.add(cells.next());
+                        }
+                        results.put(decodeExecutor.submit(new Callable<T>() {
+                            @Override
+                            public T call() throws Exception {
+                                return convert(row.iterator());
+                            }
+                        }));
+                    }
+                    results.put(END_OF_ROWS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable ex) {
+                    results.clear();
+                    results.offer(ex instanceof Exception ? ex : new RuntimeException(ex));
+                } finally {
+                    closeRowsOnce();
+                }
+            }
+        }, "securegraph-row-reader-" + threadCounter.incrementAndGet());
+        producer.setDaemon(true);
+        producer.start();
+
+        return new Iterator<T>() {
+            private T next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                loadNext();
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                loadNext();
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T result = next;
+                next = null;
+                return result;
+            }
+
+            @SuppressWarnings("unchecked")
+            private void loadNext() {
+                while (next == null && !done) {
+                    Object o;
+                    try {
+                        o = results.take();
+                        if (o == END_OF_ROWS) {
+                            done = true;
+                            close();
+                            return;
+                        }
+                        if (o instanceof Exception) {
+                            throw new SecureGraphException("Could not read rows", (Exception) o);
+                        }
+                        next = ((Future<T>) o).get();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        done = true;
+                        close();
+                        throw new SecureGraphException("Interrupted while decoding rows", ex);
+                    } catch (ExecutionException ex) {
+                        done = true;
+                        close();
+                        throw new SecureGraphException("Could not decode row", ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex);
+                    } catch (SecureGraphException ex) {
+                        done = true;
+                        close();
+                        throw ex;
+                    }
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if (producer != null) {
+            // the producer closes the rows once it stops reading
+            producer.interrupt();
+            producer = null;
+        } else {
+            closeRowsOnce();
+        }
+    }
+}
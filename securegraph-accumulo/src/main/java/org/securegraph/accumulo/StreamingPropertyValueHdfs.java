@@ -2,9 +2,12 @@ package org.securegraph.accumulo;
 
 import org.securegraph.SecureGraphException;
 import org.securegraph.property.StreamingPropertyValue;
+import org.securegraph.util.LimitInputStream;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -37,4 +40,19 @@ class StreamingPropertyValueHdfs extends StreamingPropertyValue {
             throw new SecureGraphException("Could not open: " + this.path, ex);
         }
     }
+
+    @Override
+    public InputStream getInputStream(long offset, long length) {
+        try {
+            FSDataInputStream in = fs.open(this.path);
+            if (offset >= fs.getFileStatus(this.path).getLen()) {
+                in.close();
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            in.seek(offset);
+            return new LimitInputStream(in, length);
+        } catch (IOException ex) {
+            throw new SecureGraphException("Could not open: " + this.path, ex);
+        }
+    }
 }
@@ -1,14 +1,38 @@
 package org.securegraph.accumulo;
 
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+import org.securegraph.SecureGraphException;
 import org.securegraph.property.StreamingPropertyValue;
+import org.securegraph.util.LimitInputStream;
+import org.securegraph.util.StreamUtils;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
 
+/**
+ * A value stored in a data table row, either in a single cell with an empty column or split into chunks in the
+ * {@link #CF_CHUNK} column family. The {@link #CF_INFO} columns hold the length and chunk size, a chunk size of zero
+ * meaning a single cell. Chunked values are read lazily and ranged reads only fetch the chunks they need.
+ */
 class StreamingPropertyValueTable extends StreamingPropertyValue {
+    static final Text CF_CHUNK = new Text("C");
+    static final Text CF_INFO = new Text("I");
+    static final Text CQ_LENGTH = new Text("length");
+    static final Text CQ_CHUNK_SIZE = new Text("chunkSize");
     private final AccumuloGraph graph;
     private final String dataRowKey;
     private transient byte[] data;
+    private long dataLength = -1;
+    private int chunkSize = -1;
 
     StreamingPropertyValueTable(AccumuloGraph graph, String dataRowKey, StreamingPropertyValueTableRef valueRef) {
         super(null, valueRef.getValueType());
@@ -21,6 +45,12 @@ class StreamingPropertyValueTable extends StreamingPropertyValue {
 
     @Override
     public long getLength() {
+        if (this.data == null) {
+            ensureInfoLoaded();
+            if (this.dataLength >= 0) {
+                return this.dataLength;
+            }
+        }
         ensureDataLoaded();
         return this.data.length;
     }
@@ -29,13 +59,91 @@ class StreamingPropertyValueTable extends StreamingPropertyValue {
     public InputStream getInputStream() {
         // we need to store the data here to handle the case that the mutation hasn't been flushed yet but the element is
         // passed to the search indexer to be indexed and we can't get the value yet.
+        if (this.data == null) {
+            ensureInfoLoaded();
+            if (this.chunkSize > 0) {
+                return readChunks(0, this.dataLength);
+            }
+        }
         ensureDataLoaded();
         return new ByteArrayInputStream(this.data);
     }
 
+    @Override
+    public InputStream getInputStream(long offset, long length) {
+        if (this.data == null) {
+            ensureInfoLoaded();
+            if (this.chunkSize > 0) {
+                return readChunks(offset, length);
+            }
+        }
+        ensureDataLoaded();
+        int start = (int) Math.min(offset, this.data.length);
+        return new ByteArrayInputStream(this.data, start, (int) Math.min(length, this.data.length - start));
+    }
+
+    private InputStream readChunks(long offset, long length) {
+        long end = Math.min(this.dataLength, offset + length);
+        if (offset >= end) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        long firstChunk = offset / this.chunkSize;
+        long lastChunk = (end - 1) / this.chunkSize;
+        final Iterator<Map.Entry<Key, Value>> chunks = this.graph.scanDataTable(getChunkRange(this.dataRowKey, firstChunk, lastChunk));
+        InputStream in = new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return chunks.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return new ByteArrayInputStream(chunks.next().getValue().get());
+            }
+        });
+        try {
+            StreamUtils.skip(in, offset - firstChunk * this.chunkSize);
+        } catch (IOException ex) {
+            throw new SecureGraphException("Could not read " + this.dataRowKey, ex);
+        }
+        return new LimitInputStream(in, end - offset);
+    }
+
+    private void ensureInfoLoaded() {
+        if (this.chunkSize >= 0) {
+            return;
+        }
+        int infoChunkSize = 0;
+        Iterator<Map.Entry<Key, Value>> it = this.graph.scanDataTable(getInfoRange(this.dataRowKey));
+        while (it.hasNext()) {
+            Map.Entry<Key, Value> col = it.next();
+            if (col.getKey().getColumnQualifier().equals(CQ_LENGTH)) {
+                this.dataLength = Long.parseLong(col.getValue().toString());
+            } else if (col.getKey().getColumnQualifier().equals(CQ_CHUNK_SIZE)) {
+                infoChunkSize = Integer.parseInt(col.getValue().toString());
+            }
+        }
+        this.chunkSize = infoChunkSize;
+    }
+
     private void ensureDataLoaded() {
         if (this.data == null) {
             this.data = this.graph.streamingPropertyValueTableData(this.dataRowKey);
         }
     }
+
+    static Text getChunkColumnQualifier(long chunkIndex) {
+        return new Text(String.format("%08x", chunkIndex));
+    }
+
+    static Range getChunkRange(String dataRowKey, long firstChunk, long lastChunk) {
+        Key start = new Key(new Text(dataRowKey), CF_CHUNK, getChunkColumnQualifier(firstChunk));
+        Key end = new Key(new Text(dataRowKey), CF_CHUNK, getChunkColumnQualifier(lastChunk)).followingKey(PartialKey.ROW_COLFAM_COLQUAL);
+        return new Range(start, true, end, false);
+    }
+
+    static Range getInfoRange(String dataRowKey) {
+        Key start = new Key(new Text(dataRowKey), CF_INFO);
+        return new Range(start, true, start.followingKey(PartialKey.ROW_COLFAM), false);
+    }
 }
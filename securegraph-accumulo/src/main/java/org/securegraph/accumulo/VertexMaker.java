@@ -6,55 +6,78 @@ import org.apache.hadoop.io.Text;
 import org.securegraph.Authorizations;
 import org.securegraph.SecureGraphException;
 import org.securegraph.Vertex;
+import org.securegraph.accumulo.iterator.EdgeRefLimitIterator;
 
 import java.util.*;
 
 public class VertexMaker extends ElementMaker<Vertex> {
-    private static final String VISIBILITY_SIGNAL = AccumuloVertex.CF_SIGNAL.toString();
-
     private final AccumuloGraph graph;
-    private final Map<String, EdgeInfo> outEdges = new HashMap<>();
-    private final Map<String, EdgeInfo> inEdges = new HashMap<>();
+    private final int edgeRefStreamingThreshold;
+    private Map<String, EdgeInfo> outEdges = new HashMap<>();
+    private Map<String, EdgeInfo> inEdges = new HashMap<>();
     private final Set<String> hiddenEdges = new HashSet<>();
     private long timestamp;
 
     public VertexMaker(AccumuloGraph graph, Iterator<Map.Entry<Key, Value>> row, Authorizations authorizations) {
         super(graph, row, authorizations);
         this.graph = graph;
+        this.edgeRefStreamingThreshold = graph.getEdgeRefStreamingThreshold();
     }
 
     @Override
     protected void processColumn(Key key, Value value) {
-        Text columnFamily = key.getColumnFamily();
-        Text columnQualifier = key.getColumnQualifier();
-
-        if (AccumuloVertex.CF_SIGNAL.compareTo(columnFamily) == 0) {
+        if (key.compareColumnFamily(AccumuloVertex.CF_SIGNAL) == 0) {
             this.timestamp = key.getTimestamp();
             return;
         }
 
-        if (AccumuloVertex.CF_OUT_EDGE_HIDDEN.compareTo(columnFamily) == 0
-                || AccumuloVertex.CF_IN_EDGE_HIDDEN.compareTo(columnFamily) == 0) {
-            String edgeId = columnQualifier.toString();
+        if (key.compareColumnFamily(AccumuloVertex.CF_OUT_EDGE_HIDDEN) == 0
+                || key.compareColumnFamily(AccumuloVertex.CF_IN_EDGE_HIDDEN) == 0) {
+            String edgeId = toString(key.getColumnQualifierData());
             hiddenEdges.add(edgeId);
             return;
         }
 
-        if (AccumuloVertex.CF_OUT_EDGE.compareTo(columnFamily) == 0) {
-            String edgeId = columnQualifier.toString();
-            EdgeInfo edgeInfo = EdgeInfo.parse(value);
-            outEdges.put(edgeId, edgeInfo);
+        // the tablet server left out the edge refs of a direction over the streaming threshold
+        if (key.compareColumnFamily(EdgeRefLimitIterator.CF_OUT_EDGE_OMITTED) == 0) {
+            outEdges = null;
+            return;
+        }
+
+        if (key.compareColumnFamily(EdgeRefLimitIterator.CF_IN_EDGE_OMITTED) == 0) {
+            inEdges = null;
+            return;
+        }
+
+        if (key.compareColumnFamily(AccumuloVertex.CF_OUT_EDGE) == 0) {
+            if (outEdges != null) {
+                String edgeId = toString(key.getColumnQualifierData());
+                EdgeInfo edgeInfo = EdgeInfo.parse(value);
+                outEdges.put(edgeId, edgeInfo);
+                if (isOverStreamingThreshold(outEdges)) {
+                    outEdges = null;
+                }
+            }
             return;
         }
 
-        if (AccumuloVertex.CF_IN_EDGE.compareTo(columnFamily) == 0) {
-            String edgeId = columnQualifier.toString();
-            EdgeInfo edgeInfo = EdgeInfo.parse(value);
-            inEdges.put(edgeId, edgeInfo);
+        if (key.compareColumnFamily(AccumuloVertex.CF_IN_EDGE) == 0) {
+            if (inEdges != null) {
+                String edgeId = toString(key.getColumnQualifierData());
+                EdgeInfo edgeInfo = EdgeInfo.parse(value);
+                inEdges.put(edgeId, edgeInfo);
+                if (isOverStreamingThreshold(inEdges)) {
+                    inEdges = null;
+                }
+            }
             return;
         }
     }
 
+    private boolean isOverStreamingThreshold(Map<String, EdgeInfo> edges) {
+        return edgeRefStreamingThreshold >= 0 && edges.size() > edgeRefStreamingThreshold;
+    }
+
     @Override
     protected String getIdFromRowKey(String rowKey) throws SecureGraphException {
         if (rowKey.startsWith(AccumuloConstants.VERTEX_ROW_KEY_PREFIX)) {
@@ -64,16 +87,20 @@ public class VertexMaker extends ElementMaker<Vertex> {
     }
 
     @Override
-    protected String getVisibilitySignal() {
-        return VISIBILITY_SIGNAL;
+    protected Text getVisibilitySignal() {
+        return AccumuloVertex.CF_SIGNAL;
     }
 
     @Override
     protected Vertex makeElement(boolean includeHidden) {
         if (!includeHidden) {
             for (String edgeId : this.hiddenEdges) {
-                this.inEdges.remove(edgeId);
-                this.outEdges.remove(edgeId);
+                if (this.inEdges != null) {
+                    this.inEdges.remove(edgeId);
+                }
+                if (this.outEdges != null) {
+                    this.outEdges.remove(edgeId);
+                }
             }
         }
 
@@ -86,6 +113,7 @@ public class VertexMaker extends ElementMaker<Vertex> {
                 this.getHiddenVisibilities(),
                 this.inEdges,
                 this.outEdges,
+                includeHidden,
                 this.getAuthorizations(),
                 timestamp
         );
@@ -0,0 +1,307 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.RowDeletingIterator;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.security.VisibilityEvaluator;
+import org.apache.accumulo.core.security.VisibilityParseException;
+import org.apache.hadoop.io.Text;
+import org.securegraph.ElementType;
+import org.securegraph.PropertyProjection;
+
+import java.util.*;
+
+/**
+ * Keeps the cells of vertex and edge mutations which were added to the writers but not flushed yet, so point
+ * lookups can merge them into the rows read from the tables. Cells are dropped once a flush which started after
+ * they were added has completed.
+ * <p/>
+ * A buffered cell replaces the table cell with the same column and visibility regardless of timestamps, a buffered
+ * delete removes it and a buffered row delete removes all cells of the row added before it.
+ */
+class WriteOverlay {
+    private static final Comparator<Key> COLUMN_COMPARATOR = new Comparator<Key>() {
+        @Override
+        public int compare(Key key1, Key key2) {
+            return key1.compareTo(key2, PartialKey.ROW_COLFAM_COLQUAL_COLVIS);
+        }
+    };
+    private final int maxCells;
+    private final Map<Text, List<Cell>> vertexRows = new HashMap<>();
+    private final Map<Text, List<Cell>> edgeRows = new HashMap<>();
+    private long sequence;
+    private int cellCount;
+
+    public WriteOverlay(int maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    public synchronized void add(ElementType elementType, Mutation mutation) {
+        Map<Text, List<Cell>> rows = getRows(elementType);
+        Text row = new Text(mutation.getRow());
+        List<Cell> cells = rows.get(row);
+        if (cells == null) {
+            cells = new ArrayList<>();
+            rows.put(row, cells);
+        }
+        long seq = ++sequence;
+        long timestamp = System.currentTimeMillis();
+        for (ColumnUpdate update : mutation.getUpdates()) {
+            Key key = new Key(
+                    mutation.getRow(),
+                    update.getColumnFamily(),
+                    update.getColumnQualifier(),
+                    update.getColumnVisibility(),
+                    update.hasTimestamp() ? update.getTimestamp() : timestamp,
+                    update.isDeleted(),
+                    false
+            );
+            cells.add(new Cell(key, new Value(update.getValue(), false), seq));
+            cellCount++;
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return cellCount == 0;
+    }
+
+    public synchronized boolean isFull() {
+        return cellCount >= maxCells;
+    }
+
+    /**
+     * Must be called before the writers are flushed. The returned value is passed to {@link #flushed(long)}.
+     */
+    public synchronized long beforeFlush() {
+        return sequence;
+    }
+
+    public synchronized void flushed(long flushSequence) {
+        flushed(vertexRows, flushSequence);
+        flushed(edgeRows, flushSequence);
+    }
+
+    private void flushed(Map<Text, List<Cell>> rows, long flushSequence) {
+        Iterator<List<Cell>> it = rows.values().iterator();
+        while (it.hasNext()) {
+            List<Cell> cells = it.next();
+            Iterator<Cell> cellIt = cells.iterator();
+            while (cellIt.hasNext()) {
+                if (cellIt.next().sequence <= flushSequence) {
+                    cellIt.remove();
+                    cellCount--;
+                }
+            }
+            if (cells.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        vertexRows.clear();
+        edgeRows.clear();
+        cellCount = 0;
+    }
+
+    private synchronized List<Cell> getCells(ElementType elementType, Text row) {
+        List<Cell> cells = getRows(elementType).get(row);
+        return cells == null ? null : new ArrayList<>(cells);
+    }
+
+    private Map<Text, List<Cell>> getRows(ElementType elementType) {
+        return elementType == ElementType.VERTEX ? vertexRows : edgeRows;
+    }
+
+    /**
+     * Merges the buffered cells into the given rows. Rows in rowKeys which only exist in the buffer are returned
+     * after the table rows. Buffered cells are filtered like the table scan, by the fetched column families (null
+     * for all) and the property projection (null for all properties).
+     */
+    public Iterator<Iterator<Map.Entry<Key, Value>>> merge(
+            final Iterator<Iterator<Map.Entry<Key, Value>>> rows,
+            final ElementType elementType,
+            Collection<Text> rowKeys,
+            Set<Text> columnFamilies,
+            PropertyProjection propertyProjection,
+            Authorizations authorizations
+    ) {
+        final CellFilter cellFilter = new CellFilter(new VisibilityEvaluator(authorizations), columnFamilies, propertyProjection);
+        final Set<Text> bufferedRowKeys = new LinkedHashSet<>();
+        for (Text rowKey : rowKeys) {
+            if (getCells(elementType, rowKey) != null) {
+                bufferedRowKeys.add(rowKey);
+            }
+        }
+        if (bufferedRowKeys.isEmpty()) {
+            return rows;
+        }
+
+        return new Iterator<Iterator<Map.Entry<Key, Value>>>() {
+            private Iterator<Text> remainingRowKeys;
+            private Iterator<Map.Entry<Key, Value>> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (remainingRowKeys == null && rows.hasNext()) {
+                        Iterator<Map.Entry<Key, Value>> row = rows.next();
+                        Map.Entry<Key, Value> first = row.next();
+                        Text rowKey = first.getKey().getRow();
+                        if (!bufferedRowKeys.remove(rowKey)) {
+                            List<Map.Entry<Key, Value>> cols = new ArrayList<>();
+                            cols.add(first);
+                            while (row.hasNext()) {
+                                cols.add(row.next());
+                            }
+                            next = cols.iterator();
+                            continue;
+                        }
+                        TreeMap<Key, Value> merged = new TreeMap<>(COLUMN_COMPARATOR);
+                        merged.put(first.getKey(), first.getValue());
+                        while (row.hasNext()) {
+                            Map.Entry<Key, Value> col = row.next();
+                            merged.put(col.getKey(), col.getValue());
+                        }
+                        apply(merged, getCells(elementType, rowKey), cellFilter);
+                        if (!merged.isEmpty()) {
+                            next = merged.entrySet().iterator();
+                        }
+                    } else {
+                        if (remainingRowKeys == null) {
+                            remainingRowKeys = bufferedRowKeys.iterator();
+                        }
+                        if (!remainingRowKeys.hasNext()) {
+                            return false;
+                        }
+                        Text rowKey = remainingRowKeys.next();
+                        TreeMap<Key, Value> merged = new TreeMap<>(COLUMN_COMPARATOR);
+                        apply(merged, getCells(elementType, rowKey), cellFilter);
+                        if (!merged.isEmpty()) {
+                            next = merged.entrySet().iterator();
+                        }
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Iterator<Map.Entry<Key, Value>> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Iterator<Map.Entry<Key, Value>> result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static void apply(TreeMap<Key, Value> merged, List<Cell> cells, CellFilter cellFilter) {
+        if (cells == null) {
+            return;
+        }
+        for (Cell cell : cells) {
+            if (!cellFilter.accept(cell)) {
+                continue;
+            }
+            if (cell.isDeleteRow()) {
+                merged.clear();
+                merged.put(cell.key, cell.value);
+                continue;
+            }
+            if (!merged.isEmpty() && isDeleteRow(merged.firstKey(), merged.firstEntry().getValue())) {
+                merged.pollFirstEntry();
+            }
+            merged.remove(cell.key);
+            if (!cell.key.isDeleted()) {
+                merged.put(cell.key, cell.value);
+            }
+        }
+    }
+
+    private static boolean isDeleteRow(Key key, Value value) {
+        return key.getColumnFamilyData().length() == 0
+                && key.getColumnQualifierData().length() == 0
+                && value.equals(RowDeletingIterator.DELETE_ROW_VALUE);
+    }
+
+    private static class CellFilter {
+        private final VisibilityEvaluator visibilityEvaluator;
+        private final Set<Text> columnFamilies;
+        private final PropertyProjection propertyProjection;
+
+        public CellFilter(VisibilityEvaluator visibilityEvaluator, Set<Text> columnFamilies, PropertyProjection propertyProjection) {
+            this.visibilityEvaluator = visibilityEvaluator;
+            this.columnFamilies = columnFamilies;
+            this.propertyProjection = propertyProjection;
+        }
+
+        public boolean accept(Cell cell) {
+            if (!isVisible(cell.key)) {
+                return false;
+            }
+            // row deletes have no column family and must remove the table cells whatever was fetched
+            if (cell.isDeleteRow()) {
+                return true;
+            }
+            Text columnFamily = cell.key.getColumnFamily();
+            if (columnFamilies != null && !columnFamilies.contains(columnFamily)) {
+                return false;
+            }
+            return propertyProjection == null || !isPropertyColumnFamily(columnFamily) || isProjected(cell.key.getColumnQualifier());
+        }
+
+        private boolean isVisible(Key key) {
+            if (key.getColumnVisibilityData().length() == 0) {
+                return true;
+            }
+            try {
+                return visibilityEvaluator.evaluate(new ColumnVisibility(key.getColumnVisibilityData().toArray()));
+            } catch (VisibilityParseException ex) {
+                return false;
+            }
+        }
+
+        private static boolean isPropertyColumnFamily(Text columnFamily) {
+            return columnFamily.equals(AccumuloElement.CF_PROPERTY)
+                    || columnFamily.equals(AccumuloElement.CF_PROPERTY_METADATA)
+                    || columnFamily.equals(AccumuloElement.CF_PROPERTY_HIDDEN);
+        }
+
+        // column qualifier layout must match ElementMutationBuilder: name, key, ...
+        private boolean isProjected(Text columnQualifier) {
+            String[] parts = columnQualifier.toString().split(ElementMutationBuilder.VALUE_SEPARATOR, 3);
+            if (parts.length < 2) {
+                return false;
+            }
+            return propertyProjection.isIncluded(parts[0], parts[1]);
+        }
+    }
+
+    private static class Cell {
+        private final Key key;
+        private final Value value;
+        private final long sequence;
+
+        public Cell(Key key, Value value, long sequence) {
+            this.key = key;
+            this.value = value;
+            this.sequence = sequence;
+        }
+
+        public boolean isDeleteRow() {
+            return !key.isDeleted() && WriteOverlay.isDeleteRow(key, value);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.securegraph.*;
 import org.securegraph.accumulo.*;
 import org.securegraph.accumulo.serializer.ValueSerializer;
 import org.securegraph.id.IdGenerator;
+import org.securegraph.util.ByteChunkPool;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -29,6 +30,9 @@ public abstract class ElementMapper<KEYIN, VALUEIN, KEYOUT, VALUEOUT> extends Ma
         ValueSerializer valueSerializer = accumuloGraphConfiguration.createValueSerializer();
         long maxStreamingPropertyValueTableDataSize = accumuloGraphConfiguration.getMaxStreamingPropertyValueTableDataSize();
         String dataDir = accumuloGraphConfiguration.getDataDir();
+        final boolean contentAddressedStreamingPropertyValues = accumuloGraphConfiguration.isContentAddressedStreamingPropertyValues();
+        final ByteChunkPool streamingPropertyValueBufferPool = accumuloGraphConfiguration.createStreamingPropertyValueBufferPool();
+        final int streamingPropertyValueTableChunkSize = accumuloGraphConfiguration.getStreamingPropertyValueTableChunkSize();
         FileSystem fileSystem;
         try {
             fileSystem = accumuloGraphConfiguration.createFileSystem();
@@ -63,6 +67,21 @@ public abstract class ElementMapper<KEYIN, VALUEIN, KEYOUT, VALUEOUT> extends Ma
                     throw new RuntimeException("Could not save data", e);
                 }
             }
+
+            @Override
+            protected boolean isContentAddressedStreamingPropertyValues() {
+                return contentAddressedStreamingPropertyValues;
+            }
+
+            @Override
+            protected ByteChunkPool getStreamingPropertyValueBufferPool() {
+                return streamingPropertyValueBufferPool;
+            }
+
+            @Override
+            protected int getStreamingPropertyValueTableChunkSize() {
+                return streamingPropertyValueTableChunkSize;
+            }
         };
 
         this.graph = new ElementMapperGraph(this);
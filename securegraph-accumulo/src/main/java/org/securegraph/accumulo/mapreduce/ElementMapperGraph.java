@@ -74,6 +74,11 @@ public class ElementMapperGraph extends GraphBase {
         throw new SecureGraphException("Not supported");
     }
 
+    @Override
+    public void reindex(EnumSet<ElementType> elementTypes, int threads, boolean resume, Authorizations authorizations) {
+        throw new SecureGraphException("Not supported");
+    }
+
     @Override
     public void flush() {
         throw new SecureGraphException("Not supported");
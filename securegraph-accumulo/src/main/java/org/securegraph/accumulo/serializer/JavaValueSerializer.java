@@ -3,6 +3,10 @@ package org.securegraph.accumulo.serializer;
 import org.apache.accumulo.core.data.Value;
 import org.securegraph.util.JavaSerializableUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectStreamConstants;
 import java.util.Map;
 
 public class JavaValueSerializer implements ValueSerializer {
@@ -20,4 +24,27 @@ public class JavaValueSerializer implements ValueSerializer {
     public <T> T valueToObject(byte[] data) {
         return (T) JavaSerializableUtils.bytesToObject(data);
     }
+
+    /**
+     * Reads the class name of a serialized object from the stream header without deserializing it.
+     *
+     * @return The class name, or null if the data is not a serialized object with a new class description.
+     */
+    public static String getSerializedClassName(byte[] data) {
+        if (data.length < 8) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readShort() != ObjectStreamConstants.STREAM_MAGIC
+                    || in.readShort() != ObjectStreamConstants.STREAM_VERSION
+                    || in.readByte() != ObjectStreamConstants.TC_OBJECT
+                    || in.readByte() != ObjectStreamConstants.TC_CLASSDESC) {
+                return null;
+            }
+            return in.readUTF();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
 }
@@ -1,32 +1,45 @@
 package org.securegraph.accumulo;
 
 import org.apache.accumulo.core.client.*;
+import org.apache.accumulo.core.client.admin.TableOperations;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.minicluster.MiniAccumuloCluster;
 import org.apache.accumulo.minicluster.MiniAccumuloConfig;
+import org.apache.hadoop.io.Text;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.securegraph.*;
+import org.securegraph.property.StreamingPropertyValue;
 import org.securegraph.test.GraphTestBase;
+import org.securegraph.util.StreamUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import static junit.framework.Assert.*;
 import static org.junit.Assert.assertNotEquals;
 import static org.securegraph.util.IterableUtils.count;
+import static org.securegraph.util.IterableUtils.toList;
 
 @RunWith(JUnit4.class)
 public class AccumuloGraphTest extends GraphTestBase {
@@ -181,6 +194,447 @@ public class AccumuloGraphTest extends GraphTestBase {
         }
     }
 
+    @Test
+    public void testElementCache() throws Exception {
+        Map configMap = createConfig();
+        configMap.put(AccumuloGraphConfiguration.ELEMENT_CACHE_SIZE, 10);
+        AccumuloGraph cachedGraph = AccumuloGraph.create(new AccumuloGraphConfiguration(configMap));
+        try {
+            AccumuloElementCache elementCache = cachedGraph.getElementCache();
+            assertNotNull(elementCache);
+
+            Vertex v1 = cachedGraph.addVertex("v1", VISIBILITY_A, AUTHORIZATIONS_A);
+            v1.addPropertyValue("k1", "n1", "value1", VISIBILITY_A, AUTHORIZATIONS_A);
+            cachedGraph.flush();
+
+            v1 = cachedGraph.getVertex("v1", AUTHORIZATIONS_A);
+            Vertex v1Cached = cachedGraph.getVertex("v1", AUTHORIZATIONS_A);
+            assertEquals(1, elementCache.getHitCount());
+            assertNotSame(v1, v1Cached);
+            assertNotSame(v1.getProperty("k1", "n1"), v1Cached.getProperty("k1", "n1"));
+            assertEquals("value1", v1Cached.getPropertyValue("k1", "n1"));
+            cachedGraph.getVertex("v1", AUTHORIZATIONS_A_AND_B);
+            cachedGraph.getVertex("v1", FetchHint.NONE, AUTHORIZATIONS_A);
+            assertEquals(1, elementCache.getHitCount());
+
+            v1.setProperty("n1", "value2", VISIBILITY_A, AUTHORIZATIONS_A);
+            cachedGraph.flush();
+            Vertex v1Reloaded = cachedGraph.getVertex("v1", AUTHORIZATIONS_A);
+            assertNotSame(v1, v1Reloaded);
+            assertEquals("value2", v1Reloaded.getPropertyValue("n1"));
+
+            Vertex v2 = cachedGraph.addVertex("v2", VISIBILITY_A, AUTHORIZATIONS_A);
+            cachedGraph.addEdge("e1", v1Reloaded, v2, "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+            cachedGraph.flush();
+            assertEquals(1, count(cachedGraph.getVertex("v1", AUTHORIZATIONS_A).getEdges(Direction.OUT, AUTHORIZATIONS_A)));
+
+            cachedGraph.removeVertex(cachedGraph.getVertex("v2", AUTHORIZATIONS_A), AUTHORIZATIONS_A);
+            cachedGraph.flush();
+            assertNull(cachedGraph.getVertex("v2", AUTHORIZATIONS_A));
+            assertNull(cachedGraph.getEdge("e1", AUTHORIZATIONS_A));
+            assertEquals(0, count(cachedGraph.getVertex("v1", AUTHORIZATIONS_A).getEdges(Direction.OUT, AUTHORIZATIONS_A)));
+        } finally {
+            cachedGraph.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreamingEdgeRefs() throws Exception {
+        Map configMap = createConfig();
+        configMap.put(AccumuloGraphConfiguration.EDGE_REF_STREAMING_THRESHOLD, 2);
+        configMap.put(AccumuloGraphConfiguration.EDGE_REF_PAGE_SIZE, 2);
+        AccumuloGraph streamingGraph = AccumuloGraph.create(new AccumuloGraphConfiguration(configMap));
+        try {
+            Vertex v1 = streamingGraph.addVertex("v1", VISIBILITY_A, AUTHORIZATIONS_A);
+            Vertex v2 = streamingGraph.addVertex("v2", VISIBILITY_A, AUTHORIZATIONS_A);
+            Vertex v3 = streamingGraph.addVertex("v3", VISIBILITY_A, AUTHORIZATIONS_A);
+            streamingGraph.addEdge("e1", v1, v2, "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+            streamingGraph.addEdge("e2", v1, v2, "label2", VISIBILITY_A, AUTHORIZATIONS_A);
+            streamingGraph.addEdge("e3", v1, v3, "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+            streamingGraph.addEdge("e4", v3, v1, "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+            Edge e5 = streamingGraph.addEdge("e5", v1, v3, "label2", VISIBILITY_A, AUTHORIZATIONS_A);
+            streamingGraph.flush();
+            streamingGraph.markEdgeHidden(e5, VISIBILITY_A, AUTHORIZATIONS_A);
+            streamingGraph.flush();
+
+            // the out refs of v1 are left on the tablet server when it is loaded
+            Scanner vertexScanner = streamingGraph.createVertexScanner(FetchHint.ALL, AUTHORIZATIONS_A);
+            vertexScanner.setRange(new Range(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + "v1"));
+            List<String> columnFamilies = new ArrayList<>();
+            for (Map.Entry<Key, Value> column : vertexScanner) {
+                columnFamilies.add(column.getKey().getColumnFamily().toString());
+            }
+            assertEquals(Arrays.asList("EIN", "EOUTS", "V"), columnFamilies);
+            for (Vertex v : streamingGraph.getVertices(Arrays.asList("v1", "v2"), AUTHORIZATIONS_A)) {
+                assertEquals(v.getId().equals("v1"), ((AccumuloVertex) v).isStreamingEdgeRefs(Direction.OUT));
+            }
+            // the edge ref limit and the property projection run in the same scan
+            PropertyProjection projection = new PropertyProjection().addProperty("name");
+            for (Vertex v : streamingGraph.getVertices(Arrays.asList("v1", "v2"), FetchHint.ALL, projection, AUTHORIZATIONS_A)) {
+                assertEquals(v.getId().equals("v1"), ((AccumuloVertex) v).isStreamingEdgeRefs(Direction.OUT));
+            }
+
+            AccumuloVertex v1Loaded = (AccumuloVertex) streamingGraph.getVertex("v1", AUTHORIZATIONS_A);
+            assertTrue(v1Loaded.isStreamingEdgeRefs(Direction.OUT));
+            assertFalse(v1Loaded.isStreamingEdgeRefs(Direction.IN));
+            assertEquals(3, v1Loaded.getEdgeCount(Direction.OUT, AUTHORIZATIONS_A));
+            assertEquals(4, v1Loaded.getEdgeCount(Direction.BOTH, AUTHORIZATIONS_A));
+            assertEquals(2, count(v1Loaded.getEdgeIds(Direction.OUT, "label1", AUTHORIZATIONS_A)));
+            assertEquals(2, count(v1Loaded.getEdgeIds(v2, Direction.OUT, AUTHORIZATIONS_A)));
+            assertEquals(1, count(v1Loaded.getVertexIds(Direction.OUT, "label2", AUTHORIZATIONS_A)));
+            assertEquals(2, count(v1Loaded.getEdgeLabels(Direction.OUT, AUTHORIZATIONS_A)));
+            assertEquals(1, count(v1Loaded.getEdgeIds(v3, Direction.IN, "label1", AUTHORIZATIONS_A)));
+            assertEquals(0, count(v1Loaded.getEdgeIds(v3, Direction.IN, "label2", AUTHORIZATIONS_A)));
+            assertEquals(1, count(v1Loaded.getVertices(Direction.IN, "label1", AUTHORIZATIONS_A)));
+
+            v1Loaded = (AccumuloVertex) streamingGraph.getVertex("v1", FetchHint.ALL_INCLUDING_HIDDEN, AUTHORIZATIONS_A);
+            assertEquals(4, v1Loaded.getEdgeCount(Direction.OUT, AUTHORIZATIONS_A));
+
+        } finally {
+            streamingGraph.shutdown();
+        }
+    }
+
+    @Test
+    public void testBulkLoader() throws Exception {
+        AccumuloGraph accumuloGraph = (AccumuloGraph) graph;
+        SortedSet<Text> splits = new TreeSet<>();
+        splits.add(new Text(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + "v5"));
+        accumuloGraph.getConnector().tableOperations().addSplits(accumuloGraph.getVerticesTableName(), splits);
+
+        File workDir = new File(tempDir, "bulk-" + System.nanoTime());
+        AccumuloGraphBulkLoader bulkLoader = new AccumuloGraphBulkLoader(accumuloGraph, workDir.getAbsolutePath(), 5);
+        for (int i = 0; i < 10; i++) {
+            bulkLoader.prepareVertex("v" + i, VISIBILITY_A)
+                    .setProperty("name", "vertex " + i, VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+        }
+        for (int i = 1; i < 10; i++) {
+            bulkLoader.prepareEdge("e" + i, "v0", "v" + i, "label1", VISIBILITY_A)
+                    .setProperty("weight", i, VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+        }
+        assertNull(graph.getVertex("v0", AUTHORIZATIONS_A));
+        bulkLoader.importFiles();
+        assertFalse(workDir.exists());
+
+        assertEquals(10, count(graph.getVertices(AUTHORIZATIONS_A)));
+        assertEquals(9, count(graph.getEdges(AUTHORIZATIONS_A)));
+        Vertex v0 = graph.getVertex("v0", AUTHORIZATIONS_A);
+        assertEquals("vertex 0", v0.getPropertyValue("name"));
+        assertEquals(9, v0.getEdgeCount(Direction.OUT, AUTHORIZATIONS_A));
+        Vertex v7 = graph.getVertex("v7", AUTHORIZATIONS_A);
+        assertEquals(1, count(v7.getEdges(Direction.IN, AUTHORIZATIONS_A)));
+        assertEquals(7, graph.getEdge("e7", AUTHORIZATIONS_A).getPropertyValue("weight"));
+    }
+
+    @Test
+    public void testMutationCounts() throws Exception {
+        AccumuloGraph accumuloGraph = (AccumuloGraph) graph;
+        long vertexMutationCount = accumuloGraph.getMutationCount(accumuloGraph.getVerticesTableName());
+        long edgeMutationCount = accumuloGraph.getMutationCount(accumuloGraph.getEdgesTableName());
+        Vertex v1 = graph.addVertex("v1", VISIBILITY_A, AUTHORIZATIONS_A);
+        Vertex v2 = graph.addVertex("v2", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.addEdge("e1", v1, v2, "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.flush();
+        assertEquals(vertexMutationCount + 4, accumuloGraph.getMutationCount(accumuloGraph.getVerticesTableName()));
+        assertEquals(edgeMutationCount + 1, accumuloGraph.getMutationCount(accumuloGraph.getEdgesTableName()));
+        assertTrue(accumuloGraph.getMutationByteCount(accumuloGraph.getEdgesTableName()) > 0);
+        assertNotNull(graph.getEdge("e1", AUTHORIZATIONS_A));
+    }
+
+    @Test
+    public void testRemoveHubVertex() throws Exception {
+        AccumuloGraph accumuloGraph = (AccumuloGraph) graph;
+        Vertex hub = graph.addVertex("hub", VISIBILITY_A, AUTHORIZATIONS_A);
+        for (int i = 0; i < 10; i++) {
+            Vertex spoke = graph.addVertex("v" + i, VISIBILITY_A, AUTHORIZATIONS_A);
+            graph.addEdge("e" + i, hub, spoke, "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+        }
+        graph.flush();
+
+        long vertexMutationCount = accumuloGraph.getMutationCount(accumuloGraph.getVerticesTableName());
+        graph.removeVertex(graph.getVertex("hub", AUTHORIZATIONS_A), AUTHORIZATIONS_A);
+        graph.flush();
+        // one mutation for each spoke and the row delete of the hub
+        assertEquals(vertexMutationCount + 11, accumuloGraph.getMutationCount(accumuloGraph.getVerticesTableName()));
+        assertNull(graph.getVertex("hub", AUTHORIZATIONS_A));
+        assertEquals(0, count(graph.getEdges(AUTHORIZATIONS_A)));
+        assertEquals(0, graph.getVertex("v3", AUTHORIZATIONS_A).getEdgeCount(Direction.IN, AUTHORIZATIONS_A));
+
+        Vertex hub2 = graph.addVertex("hub2", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.addEdge("e10", hub2, graph.getVertex("v1", AUTHORIZATIONS_A), "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.addEdge("e11", graph.getVertex("v2", AUTHORIZATIONS_A), hub2, "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.flush();
+        graph.markVertexHidden(graph.getVertex("hub2", AUTHORIZATIONS_A), VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.flush();
+        assertNull(graph.getVertex("hub2", AUTHORIZATIONS_A));
+        assertNull(graph.getEdge("e10", AUTHORIZATIONS_A));
+        assertEquals(0, graph.getVertex("v2", AUTHORIZATIONS_A).getEdgeCount(Direction.OUT, AUTHORIZATIONS_A));
+    }
+
+    @Test
+    public void testWriteOverlay() throws Exception {
+        Map configMap = createConfig();
+        configMap.put(AccumuloGraphConfiguration.AUTO_FLUSH, false);
+        configMap.put(AccumuloGraphConfiguration.WRITE_OVERLAY_MAX_CELLS, 1000);
+        AccumuloGraph overlayGraph = AccumuloGraph.create(new AccumuloGraphConfiguration(configMap));
+        try {
+            overlayGraph.prepareVertex("v1", VISIBILITY_A)
+                    .setProperty("name", "joe", VISIBILITY_A)
+                    .setProperty("age", 25, VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            Vertex v1 = overlayGraph.getVertex("v1", AUTHORIZATIONS_A);
+            assertNotNull(v1);
+            assertEquals("joe", v1.getPropertyValue("name"));
+            assertNull(overlayGraph.getVertex("v1", AUTHORIZATIONS_B));
+
+            v1.setProperty("name", "bob", VISIBILITY_A, AUTHORIZATIONS_A);
+            Vertex v2 = overlayGraph.addVertex("v2", VISIBILITY_A, AUTHORIZATIONS_A);
+            overlayGraph.addEdge("e1", v1, v2, "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+            assertEquals("bob", overlayGraph.getVertex("v1", AUTHORIZATIONS_A).getPropertyValue("name"));
+            assertEquals(2, count(overlayGraph.getVertices(Arrays.asList("v1", "v2"), AUTHORIZATIONS_A)));
+            assertNotNull(overlayGraph.getEdge("e1", AUTHORIZATIONS_A));
+            assertEquals(1, overlayGraph.getVertex("v1", AUTHORIZATIONS_A).getEdgeCount(Direction.OUT, AUTHORIZATIONS_A));
+
+            // unflushed cells are filtered like the table columns
+            assertEquals(0, count(overlayGraph.getVertex("v1", EnumSet.of(FetchHint.OUT_EDGE_REFS), AUTHORIZATIONS_A).getProperties()));
+            PropertyProjection projection = new PropertyProjection().addProperty("name");
+            Vertex projected = toList(overlayGraph.getVertices(Arrays.asList("v1"), FetchHint.ALL, projection, AUTHORIZATIONS_A)).get(0);
+            assertEquals(1, count(projected.getProperties()));
+            assertEquals("bob", projected.getPropertyValue("name"));
+
+            overlayGraph.flush();
+            overlayGraph.removeVertex(overlayGraph.getVertex("v2", AUTHORIZATIONS_A), AUTHORIZATIONS_A);
+            assertNull(overlayGraph.getVertex("v2", AUTHORIZATIONS_A));
+            assertNull(overlayGraph.getEdge("e1", AUTHORIZATIONS_A));
+            assertEquals(0, overlayGraph.getVertex("v1", AUTHORIZATIONS_A).getEdgeCount(Direction.OUT, AUTHORIZATIONS_A));
+        } finally {
+            overlayGraph.shutdown();
+        }
+    }
+
+    @Test
+    public void testElideUnchangedPropertyWrites() throws Exception {
+        Map configMap = createConfig();
+        configMap.put(AccumuloGraphConfiguration.ELIDE_UNCHANGED_PROPERTY_WRITES, true);
+        AccumuloGraph elidingGraph = AccumuloGraph.create(new AccumuloGraphConfiguration(configMap));
+        try {
+            elidingGraph.prepareVertex("v1", VISIBILITY_A)
+                    .setProperty("name", "joe", VISIBILITY_A)
+                    .setProperty("age", 25, VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            long vertexMutationCount = elidingGraph.getMutationCount(elidingGraph.getVerticesTableName());
+
+            Vertex v1 = elidingGraph.getVertex("v1", AUTHORIZATIONS_A);
+            v1.prepareMutation()
+                    .setProperty("name", "joe", VISIBILITY_A)
+                    .setProperty("age", 25, VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            assertEquals(2, elidingGraph.getElidedPropertyWriteCount());
+            assertEquals(vertexMutationCount, elidingGraph.getMutationCount(elidingGraph.getVerticesTableName()));
+
+            v1 = elidingGraph.getVertex("v1", AUTHORIZATIONS_A);
+            v1.prepareMutation()
+                    .setProperty("name", "joe", VISIBILITY_A)
+                    .setProperty("age", 26, VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            assertEquals(3, elidingGraph.getElidedPropertyWriteCount());
+            assertEquals(vertexMutationCount + 1, elidingGraph.getMutationCount(elidingGraph.getVerticesTableName()));
+            v1 = elidingGraph.getVertex("v1", AUTHORIZATIONS_A);
+            assertEquals("joe", v1.getPropertyValue("name"));
+            assertEquals(26, v1.getPropertyValue("age"));
+        } finally {
+            elidingGraph.shutdown();
+        }
+    }
+
+    @Test
+    public void testContentAddressedStreamingPropertyValues() throws Exception {
+        Map configMap = createConfig();
+        configMap.put(AccumuloGraphConfiguration.CONTENT_ADDRESSED_STREAMING_PROPERTY_VALUES, true);
+        configMap.put(AccumuloGraphConfiguration.MAX_STREAMING_PROPERTY_VALUE_TABLE_DATA_SIZE, 10);
+        AccumuloGraph casGraph = AccumuloGraph.create(new AccumuloGraphConfiguration(configMap));
+        try {
+            for (String vertexId : Arrays.asList("v1", "v2")) {
+                casGraph.prepareVertex(vertexId, VISIBILITY_A)
+                        .setProperty("small", new StreamingPropertyValue(new ByteArrayInputStream("small".getBytes()), String.class), VISIBILITY_A)
+                        .setProperty("large", new StreamingPropertyValue(new ByteArrayInputStream("large content".getBytes()), String.class), VISIBILITY_A)
+                        .save(AUTHORIZATIONS_A);
+            }
+            casGraph.flush();
+
+            Vertex v2 = casGraph.getVertex("v2", AUTHORIZATIONS_A);
+            assertEquals("small", StreamUtils.toString(((StreamingPropertyValue) v2.getPropertyValue("small")).getInputStream()));
+            assertEquals("large content", StreamUtils.toString(((StreamingPropertyValue) v2.getPropertyValue("large")).getInputStream()));
+
+            casGraph.removeVertex(casGraph.getVertex("v1", AUTHORIZATIONS_A), AUTHORIZATIONS_A);
+            assertEquals(0, casGraph.sweepStreamingPropertyValues(0));
+            v2 = casGraph.getVertex("v2", AUTHORIZATIONS_A);
+            assertEquals("large content", StreamUtils.toString(((StreamingPropertyValue) v2.getPropertyValue("large")).getInputStream()));
+
+            casGraph.removeVertex(v2, AUTHORIZATIONS_A);
+            Thread.sleep(1);
+            assertEquals(2, casGraph.sweepStreamingPropertyValues(0));
+
+            // a reference the sweep can not see must not let it remove the value
+            casGraph.prepareVertex("v3", VISIBILITY_A)
+                    .setProperty("large", new StreamingPropertyValue(new ByteArrayInputStream("hidden content".getBytes()), String.class), new Visibility("hiddenLabel"))
+                    .save(AUTHORIZATIONS_A);
+            casGraph.flush();
+            try {
+                casGraph.sweepStreamingPropertyValues(0);
+                fail("sweep should fail when it can not see every reference");
+            } catch (SecureGraphException ex) {
+                // expected
+            }
+        } finally {
+            casGraph.shutdown();
+        }
+    }
+
+    @Test
+    public void testChunkedStreamingPropertyValues() throws Exception {
+        Map configMap = createConfig();
+        configMap.put(AccumuloGraphConfiguration.STREAMING_PROPERTY_VALUE_TABLE_CHUNK_SIZE, 4);
+        AccumuloGraph chunkedGraph = AccumuloGraph.create(new AccumuloGraphConfiguration(configMap));
+        try {
+            chunkedGraph.prepareVertex("v1", VISIBILITY_A)
+                    .setProperty("prop1", new StreamingPropertyValue(new ByteArrayInputStream("0123456789".getBytes()), String.class), VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            chunkedGraph.flush();
+
+            Scanner scanner = chunkedGraph.getConnector().createScanner(chunkedGraph.getDataTableName(), new org.apache.accumulo.core.security.Authorizations());
+            int chunkCount = 0;
+            for (Map.Entry<Key, Value> col : scanner) {
+                if (col.getKey().getColumnFamily().equals(StreamingPropertyValueTable.CF_CHUNK)) {
+                    chunkCount++;
+                }
+            }
+            assertEquals(3, chunkCount);
+
+            StreamingPropertyValue value = (StreamingPropertyValue) chunkedGraph.getVertex("v1", AUTHORIZATIONS_A).getPropertyValue("prop1");
+            assertEquals(10, value.getLength());
+            assertEquals("0123456789", StreamUtils.toString(value.getInputStream()));
+            assertEquals("3456", StreamUtils.toString(value.getInputStream(3, 4)));
+            assertEquals("89", StreamUtils.toString(value.getInputStream(8, 100)));
+
+            chunkedGraph.prepareVertex("v1", VISIBILITY_A)
+                    .setProperty("prop1", new StreamingPropertyValue(new ByteArrayInputStream("abcdef".getBytes()), String.class), VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            chunkedGraph.flush();
+            // the third chunk of the longer value is removed
+            chunkCount = 0;
+            for (Map.Entry<Key, Value> col : scanner) {
+                if (col.getKey().getColumnFamily().equals(StreamingPropertyValueTable.CF_CHUNK)) {
+                    chunkCount++;
+                }
+            }
+            assertEquals(2, chunkCount);
+            value = (StreamingPropertyValue) chunkedGraph.getVertex("v1", AUTHORIZATIONS_A).getPropertyValue("prop1");
+            assertEquals("abcdef", StreamUtils.toString(value.getInputStream()));
+            assertEquals("abcdef", new String(chunkedGraph.streamingPropertyValueTableData(AccumuloConstants.DATA_ROW_KEY_PREFIX + "Vv1" + ElementMutationBuilder.VALUE_SEPARATOR + "prop1" + ElementMutationBuilder.VALUE_SEPARATOR)));
+        } finally {
+            chunkedGraph.shutdown();
+        }
+    }
+
+    @Test
+    public void testCoalescedEdgeRefs() throws Exception {
+        Map configMap = createConfig();
+        configMap.put(AccumuloGraphConfiguration.AUTO_FLUSH, false);
+        configMap.put(AccumuloGraphConfiguration.EDGE_REF_COALESCE_MAX_UPDATES, 1000);
+        AccumuloGraph coalescingGraph = AccumuloGraph.create(new AccumuloGraphConfiguration(configMap));
+        try {
+            Vertex hub = coalescingGraph.addVertex("hub", VISIBILITY_A, AUTHORIZATIONS_A);
+            List<Vertex> spokes = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                spokes.add(coalescingGraph.addVertex("v" + i, VISIBILITY_A, AUTHORIZATIONS_A));
+            }
+            long vertexMutationCount = coalescingGraph.getMutationCount(coalescingGraph.getVerticesTableName());
+            for (int i = 0; i < spokes.size(); i++) {
+                coalescingGraph.addEdge("e" + i, hub, spokes.get(i), "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+            }
+            coalescingGraph.flush();
+            // one mutation for the hub and one for each spoke instead of two per edge
+            assertEquals(vertexMutationCount + 11, coalescingGraph.getMutationCount(coalescingGraph.getVerticesTableName()));
+
+            Vertex hubLoaded = coalescingGraph.getVertex("hub", AUTHORIZATIONS_A);
+            assertEquals(10, hubLoaded.getEdgeCount(Direction.OUT, AUTHORIZATIONS_A));
+            assertEquals(1, coalescingGraph.getVertex("v3", AUTHORIZATIONS_A).getEdgeCount(Direction.IN, AUTHORIZATIONS_A));
+        } finally {
+            coalescingGraph.shutdown();
+        }
+    }
+
+    @Test
+    public void testLocalityGroups() throws Exception {
+        AccumuloGraph accumuloGraph = (AccumuloGraph) graph;
+        TableOperations tableOperations = accumuloGraph.getConnector().tableOperations();
+        assertEquals(AccumuloGraph.getVertexLocalityGroups(), tableOperations.getLocalityGroups(accumuloGraph.getVerticesTableName()));
+        assertEquals(AccumuloGraph.getEdgeLocalityGroups(), tableOperations.getLocalityGroups(accumuloGraph.getEdgesTableName()));
+
+        tableOperations.setLocalityGroups(accumuloGraph.getVerticesTableName(), new HashMap<String, Set<Text>>());
+        accumuloGraph.setupLocalityGroups(false);
+        assertEquals(AccumuloGraph.getVertexLocalityGroups(), tableOperations.getLocalityGroups(accumuloGraph.getVerticesTableName()));
+    }
+
+    @Test
+    public void testPropertyProjection() throws Exception {
+        graph.prepareVertex("v1", VISIBILITY_A)
+                .addPropertyValue("k1", "name", "joe", VISIBILITY_A)
+                .addPropertyValue("k1", "age", 25, VISIBILITY_A)
+                .addPropertyValue("k2", "age", 26, VISIBILITY_A)
+                .addPropertyValue("k1", "city", "Boston", VISIBILITY_A)
+                .save(AUTHORIZATIONS_A);
+        graph.addVertex("v2", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.flush();
+
+        PropertyProjection projection = new PropertyProjection()
+                .addProperty("name")
+                .addProperty("age", "k2");
+        List<Vertex> vertices = toList(graph.getVertices(Arrays.asList("v1", "v2"), FetchHint.ALL, projection, AUTHORIZATIONS_A));
+        assertEquals(2, vertices.size());
+        Vertex v1 = vertices.get(0).getId().equals("v1") ? vertices.get(0) : vertices.get(1);
+        assertEquals(2, count(v1.getProperties()));
+        assertEquals("joe", v1.getPropertyValue("name"));
+        assertEquals(26, v1.getPropertyValue("k2", "age"));
+        assertNull(v1.getPropertyValue("city"));
+    }
+
+    @Test
+    public void testParallelScan() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            graph.addVertex("v" + i, VISIBILITY_A, AUTHORIZATIONS_A);
+        }
+        graph.flush();
+        SortedSet<Text> splits = new TreeSet<>();
+        splits.add(new Text(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + "v15"));
+        splits.add(new Text(AccumuloConstants.VERTEX_ROW_KEY_PREFIX + "v5"));
+        ((AccumuloGraph) graph).getConnector().tableOperations().addSplits(((AccumuloGraph) graph).getVerticesTableName(), splits);
+
+        Map configMap = createConfig();
+        configMap.put(AccumuloGraphConfiguration.PARALLEL_SCAN_THREADS, 3);
+        AccumuloGraph parallelGraph = AccumuloGraph.create(new AccumuloGraphConfiguration(configMap));
+        try {
+            List<String> vertexIds = new ArrayList<>();
+            for (Vertex vertex : parallelGraph.getVertices(AUTHORIZATIONS_A)) {
+                vertexIds.add(vertex.getId());
+            }
+            List<String> sortedVertexIds = new ArrayList<>(vertexIds);
+            Collections.sort(sortedVertexIds);
+            assertEquals(20, vertexIds.size());
+            assertEquals(sortedVertexIds, vertexIds);
+
+            configMap.put(AccumuloGraphConfiguration.PARALLEL_SCAN_ORDERED, false);
+            AccumuloGraph unorderedGraph = AccumuloGraph.create(new AccumuloGraphConfiguration(configMap));
+            assertEquals(20, count(unorderedGraph.getVertices(AUTHORIZATIONS_A)));
+            unorderedGraph.shutdown();
+        } finally {
+            parallelGraph.shutdown();
+        }
+    }
+
     public void start() throws IOException, InterruptedException {
         if (accumulo != null) {
             return;
@@ -235,10 +689,10 @@ public class AccumuloGraphTest extends GraphTestBase {
 
     public void dropGraph(Connector connector, String graphDirectoryName) {
         try {
+            // the graph creates the table again, with its locality groups
             if (connector.tableOperations().exists(graphDirectoryName)) {
                 connector.tableOperations().delete(graphDirectoryName);
             }
-            connector.tableOperations().create(graphDirectoryName);
         } catch (Exception e) {
             throw new RuntimeException("Unable to drop graph: " + graphDirectoryName, e);
         }
@@ -0,0 +1,104 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.securegraph.accumulo.iterator.EdgeCountIterator;
+import org.securegraph.accumulo.iterator.ElementVisibilityRowFilter;
+
+import java.io.IOException;
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class EdgeCountIteratorTest {
+    @Test
+    public void testCounts() throws IOException {
+        SortedMap<Key, Value> rows = new TreeMap<>();
+        addEdgeRef(rows, "Vv1", "EOUT", "e1", "label1", "v2");
+        addEdgeRef(rows, "Vv1", "EOUT", "e2", "label1", "v3");
+        addEdgeRef(rows, "Vv1", "EOUT", "e3", "label2", "v3");
+        addEdgeRef(rows, "Vv1", "EIN", "e4", "label2", "v2");
+        rows.put(new Key("Vv1", "EOUTH", "e2", "a"), AccumuloElement.HIDDEN_VALUE);
+        rows.put(new Key("Vv1", "EOUTH", "e9", "a"), AccumuloElement.HIDDEN_VALUE);
+        addEdgeRef(rows, "Vv2", "EOUT", "e4", "label2", "v1");
+        rows.put(new Key("Vv2", "H", "H", "a"), AccumuloElement.HIDDEN_VALUE);
+        addEdgeRef(rows, "Vv3", "EIN", "e2", "label1", "v1");
+
+        Map<Key, String> counts = scan(rows, true, false, new Range());
+        assertEquals("1", counts.get(new Key("Vv1", "EIN", "")));
+        assertEquals("2", counts.get(new Key("Vv1", "EOUT", "")));
+        assertEquals("1", counts.get(new Key("Vv1", "EOUTL", "label1")));
+        assertEquals("1", counts.get(new Key("Vv1", "EOUTL", "label2")));
+        assertEquals("1", counts.get(new Key("Vv3", "EIN", "")));
+        assertEquals(8, counts.size());
+
+        counts = scan(rows, false, true, new Range());
+        assertEquals("3", counts.get(new Key("Vv1", "EOUT", "")));
+        assertEquals("1", counts.get(new Key("Vv2", "EOUT", "")));
+        assertEquals(6, counts.size());
+
+        // a scan re-seeked in the middle of a row must not return the counts it already returned
+        counts = scan(rows, true, false, new Range(new Key("Vv1", "EOUT", ""), false, null, true));
+        assertEquals("1", counts.get(new Key("Vv1", "EOUTL", "label1")));
+        assertEquals(5, counts.size());
+    }
+
+    @Test
+    public void testNullLabel() throws IOException {
+        SortedMap<Key, Value> rows = new TreeMap<>();
+        addEdgeRef(rows, "Vv1", "EOUT", "e1", null, "v2");
+        addEdgeRef(rows, "Vv1", "EOUT", "e2", "label1", "v3");
+
+        Map<Key, String> counts = scan(rows, true, false, new Range());
+        assertEquals("2", counts.get(new Key("Vv1", "EOUT", "")));
+        assertEquals("1", counts.get(new Key("Vv1", "EOUTL", "label1")));
+        assertEquals(3, counts.size());
+    }
+
+    @Test
+    public void testHiddenEdgesBelowElementVisibilityRowFilter() throws IOException {
+        SortedMap<Key, Value> rows = new TreeMap<>();
+        addEdgeRef(rows, "Vv1", "EIN", "e1", "label1", "v2");
+        addEdgeRef(rows, "Vv1", "EIN", "e2", "label1", "v3");
+        rows.put(new Key("Vv1", "EINH", "e2", "a"), AccumuloElement.HIDDEN_VALUE);
+        rows.put(new Key("Vv1", "V", "", "a"), new Value(new byte[0]));
+
+        ElementVisibilityRowFilter rowFilter = new ElementVisibilityRowFilter();
+        rowFilter.init(new SortedMapIterator(rows), Collections.singletonMap(ElementVisibilityRowFilter.OPT_FILTER_VERTICES, "true"), null);
+        Map<Key, String> counts = scan(rowFilter, true, false, new Range());
+        assertEquals("1", counts.get(new Key("Vv1", "EIN", "")));
+        assertEquals("1", counts.get(new Key("Vv1", "EINL", "label1")));
+    }
+
+    private Map<Key, String> scan(SortedMap<Key, Value> rows, boolean countLabels, boolean includeHidden, Range range) throws IOException {
+        return scan(new SortedMapIterator(rows), countLabels, includeHidden, range);
+    }
+
+    private Map<Key, String> scan(SortedKeyValueIterator<Key, Value> source, boolean countLabels, boolean includeHidden, Range range) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        options.put(EdgeCountIterator.OPT_COUNT_LABELS, Boolean.toString(countLabels));
+        options.put(EdgeCountIterator.OPT_INCLUDE_HIDDEN, Boolean.toString(includeHidden));
+        EdgeCountIterator iterator = new EdgeCountIterator();
+        iterator.init(source, options, null);
+        iterator.seek(range, Collections.<ByteSequence>emptyList(), false);
+
+        Map<Key, String> results = new LinkedHashMap<>();
+        while (iterator.hasTop()) {
+            results.put(iterator.getTopKey(), iterator.getTopValue().toString());
+            iterator.next();
+        }
+        return results;
+    }
+
+    private static void addEdgeRef(SortedMap<Key, Value> rows, String row, String columnFamily, String edgeId, String label, String otherVertexId) {
+        rows.put(new Key(row, columnFamily, edgeId, "a"), new EdgeInfo(label, otherVertexId).toValue());
+    }
+}
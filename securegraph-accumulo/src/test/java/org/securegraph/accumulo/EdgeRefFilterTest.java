@@ -0,0 +1,109 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.securegraph.accumulo.iterator.EdgeRefFilter;
+
+import java.io.IOException;
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class EdgeRefFilterTest {
+    @Test
+    public void testLabels() throws IOException {
+        SortedMap<Key, Value> rows = createRows();
+
+        List<Key> keys = scan(rows, Arrays.asList("label1", "label3"), null, new Range());
+        assertEquals(Arrays.asList("EIN:e4", "EOUT:e1", "EOUT:e2", "EOUTH:e2", "V:"), toColumns(keys));
+
+        keys = scan(rows, Collections.singletonList("label9"), null, new Range());
+        assertEquals(Arrays.asList("EOUTH:e2", "V:"), toColumns(keys));
+    }
+
+    @Test
+    public void testOtherVertexIds() throws IOException {
+        SortedMap<Key, Value> rows = createRows();
+
+        List<Key> keys = scan(rows, null, Collections.singletonList("v3"), new Range());
+        assertEquals(Arrays.asList("EOUT:e2", "EOUT:e3", "EOUTH:e2", "V:"), toColumns(keys));
+
+        keys = scan(rows, Collections.singletonList("label1"), Collections.singletonList("v3"), new Range());
+        assertEquals(Arrays.asList("EOUT:e2", "EOUTH:e2", "V:"), toColumns(keys));
+
+        // unlabeled refs never match a label but still match their other vertex
+        keys = scan(rows, null, Collections.singletonList("v4"), new Range());
+        assertEquals(Arrays.asList("EIN:e5", "EOUTH:e2", "V:"), toColumns(keys));
+    }
+
+    @Test
+    public void testReseek() throws IOException {
+        SortedMap<Key, Value> rows = createRows();
+
+        // a scan re-seeked after a returned ref, on a copy of the filter, keeps filtering by the same options
+        EdgeRefFilter filter = createFilter(new SortedMapIterator(rows), Collections.singletonList("label1"), null);
+        SortedKeyValueIterator<Key, Value> copy = filter.deepCopy(null);
+        List<Key> keys = scan(copy, new Range(new Key("Vv1", "EOUT", "e1", "a"), false, null, true));
+        assertEquals(Arrays.asList("EOUT:e2", "EOUTH:e2", "V:"), toColumns(keys));
+    }
+
+    private static SortedMap<Key, Value> createRows() {
+        SortedMap<Key, Value> rows = new TreeMap<>();
+        addEdgeRef(rows, "Vv1", "EIN", "e4", "label3", "v2");
+        addEdgeRef(rows, "Vv1", "EIN", "e5", null, "v4");
+        addEdgeRef(rows, "Vv1", "EOUT", "e1", "label1", "v2");
+        addEdgeRef(rows, "Vv1", "EOUT", "e2", "label1", "v3");
+        addEdgeRef(rows, "Vv1", "EOUT", "e3", "label2", "v3");
+        rows.put(new Key("Vv1", "EOUTH", "e2", "a"), AccumuloElement.HIDDEN_VALUE);
+        rows.put(new Key("Vv1", "V", "", "a"), new Value(new byte[0]));
+        return rows;
+    }
+
+    private static EdgeRefFilter createFilter(SortedKeyValueIterator<Key, Value> source, Collection<String> labels, Collection<String> otherVertexIds) throws IOException {
+        IteratorSetting iteratorSetting = new IteratorSetting(1, EdgeRefFilter.class);
+        if (labels != null) {
+            EdgeRefFilter.setLabels(iteratorSetting, labels);
+        }
+        if (otherVertexIds != null) {
+            EdgeRefFilter.setOtherVertexIds(iteratorSetting, otherVertexIds);
+        }
+        EdgeRefFilter filter = new EdgeRefFilter();
+        filter.init(source, iteratorSetting.getOptions(), null);
+        return filter;
+    }
+
+    private List<Key> scan(SortedMap<Key, Value> rows, Collection<String> labels, Collection<String> otherVertexIds, Range range) throws IOException {
+        return scan(createFilter(new SortedMapIterator(rows), labels, otherVertexIds), range);
+    }
+
+    private List<Key> scan(SortedKeyValueIterator<Key, Value> iterator, Range range) throws IOException {
+        iterator.seek(range, Collections.<ByteSequence>emptyList(), false);
+        List<Key> results = new ArrayList<>();
+        while (iterator.hasTop()) {
+            results.add(new Key(iterator.getTopKey()));
+            iterator.next();
+        }
+        return results;
+    }
+
+    private static List<String> toColumns(List<Key> keys) {
+        List<String> results = new ArrayList<>();
+        for (Key key : keys) {
+            results.add(key.getColumnFamily() + ":" + key.getColumnQualifier());
+        }
+        return results;
+    }
+
+    private static void addEdgeRef(SortedMap<Key, Value> rows, String row, String columnFamily, String edgeId, String label, String otherVertexId) {
+        rows.put(new Key(row, columnFamily, edgeId, "a"), new EdgeInfo(label, otherVertexId).toValue());
+    }
+}
@@ -0,0 +1,99 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.securegraph.accumulo.iterator.EdgeRefLimitIterator;
+import org.securegraph.accumulo.iterator.ElementVisibilityRowFilter;
+
+import java.io.IOException;
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class EdgeRefLimitIteratorTest {
+    @Test
+    public void testLimit() throws IOException {
+        SortedMap<Key, Value> rows = createRows();
+
+        List<Key> keys = scan(rows, 2, new Range());
+        assertEquals(Arrays.asList("Vv1 EIN:e4", "Vv1 EOUTS:", "Vv1 V:", "Vv2 EOUT:e4", "Vv2 V:"), toColumns(keys));
+
+        keys = scan(rows, 3, new Range());
+        assertEquals(8, keys.size());
+    }
+
+    @Test
+    public void testReseek() throws IOException {
+        SortedMap<Key, Value> rows = createRows();
+
+        // re-seeked after the marker, the left out refs stay left out
+        List<Key> keys = scan(rows, 2, new Range(new Key(new Text("Vv1"), EdgeRefLimitIterator.CF_OUT_EDGE_OMITTED), false, null, true));
+        assertEquals(Arrays.asList("Vv1 V:", "Vv2 EOUT:e4", "Vv2 V:"), toColumns(keys));
+
+        // re-seeked after a returned ref, the rest of that direction is returned without counting again
+        keys = scan(rows, 3, new Range(new Key("Vv1", "EOUT", "e1", "a"), false, null, true));
+        assertEquals(Arrays.asList("Vv1 EOUT:e2", "Vv1 EOUT:e3", "Vv1 EOUTH:e2", "Vv1 V:", "Vv2 EOUT:e4", "Vv2 V:"), toColumns(keys));
+
+        // a range ending inside the left out refs
+        keys = scan(rows, 2, new Range(new Key("Vv1"), true, new Key("Vv1", "EOUT", "e2", "a"), true));
+        assertEquals(Arrays.asList("Vv1 EIN:e4"), toColumns(keys));
+    }
+
+    @Test
+    public void testAboveElementVisibilityRowFilter() throws IOException {
+        ElementVisibilityRowFilter rowFilter = new ElementVisibilityRowFilter();
+        rowFilter.init(new SortedMapIterator(createRows()), Collections.singletonMap(ElementVisibilityRowFilter.OPT_FILTER_VERTICES, "true"), null);
+        List<Key> keys = scan(rowFilter, 2, new Range());
+        assertEquals(Arrays.asList("Vv1 EIN:e4", "Vv1 EOUTS:", "Vv1 V:", "Vv2 EOUT:e4", "Vv2 V:"), toColumns(keys));
+    }
+
+    private static SortedMap<Key, Value> createRows() {
+        SortedMap<Key, Value> rows = new TreeMap<>();
+        addEdgeRef(rows, "Vv1", "EIN", "e4", "label2", "v2");
+        addEdgeRef(rows, "Vv1", "EOUT", "e1", "label1", "v2");
+        addEdgeRef(rows, "Vv1", "EOUT", "e2", "label1", "v3");
+        addEdgeRef(rows, "Vv1", "EOUT", "e3", "label2", "v3");
+        rows.put(new Key("Vv1", "EOUTH", "e2", "a"), AccumuloElement.HIDDEN_VALUE);
+        rows.put(new Key("Vv1", "V", "", "a"), new Value(new byte[0]));
+        addEdgeRef(rows, "Vv2", "EOUT", "e4", "label2", "v1");
+        rows.put(new Key("Vv2", "V", "", "a"), new Value(new byte[0]));
+        return rows;
+    }
+
+    private List<Key> scan(SortedMap<Key, Value> rows, int limit, Range range) throws IOException {
+        return scan(new SortedMapIterator(rows), limit, range);
+    }
+
+    private List<Key> scan(SortedKeyValueIterator<Key, Value> source, int limit, Range range) throws IOException {
+        EdgeRefLimitIterator iterator = new EdgeRefLimitIterator();
+        iterator.init(source, Collections.singletonMap(EdgeRefLimitIterator.OPT_LIMIT, Integer.toString(limit)), null);
+        iterator.seek(range, Collections.<ByteSequence>emptyList(), false);
+        List<Key> results = new ArrayList<>();
+        while (iterator.hasTop()) {
+            results.add(new Key(iterator.getTopKey()));
+            iterator.next();
+        }
+        return results;
+    }
+
+    private static List<String> toColumns(List<Key> keys) {
+        List<String> results = new ArrayList<>();
+        for (Key key : keys) {
+            results.add(key.getRow() + " " + key.getColumnFamily() + ":" + key.getColumnQualifier());
+        }
+        return results;
+    }
+
+    private static void addEdgeRef(SortedMap<Key, Value> rows, String row, String columnFamily, String edgeId, String label, String otherVertexId) {
+        rows.put(new Key(row, columnFamily, edgeId, "a"), new EdgeInfo(label, otherVertexId).toValue());
+    }
+}
@@ -0,0 +1,154 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.securegraph.*;
+import org.securegraph.accumulo.serializer.JavaValueSerializer;
+import org.securegraph.accumulo.serializer.ValueSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+import static junit.framework.Assert.*;
+import static org.securegraph.util.IterableUtils.count;
+import static org.securegraph.util.IterableUtils.toList;
+
+@RunWith(JUnit4.class)
+public class ElementMakerTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElementMakerTest.class);
+    private static final String SEP = ElementMutationBuilder.VALUE_SEPARATOR;
+    private static final int MAX_DECODE_BYTES_PER_COLUMN = 1024;
+    private final Authorizations authorizations = new AccumuloAuthorizations("a", "b");
+    private final ValueSerializer valueSerializer = new JavaValueSerializer();
+    private AccumuloGraph graph;
+
+    @Before
+    public void before() {
+        AccumuloGraphConfiguration config = new AccumuloGraphConfiguration(new HashMap());
+        graph = new AccumuloGraph(config, null, null, null, null, valueSerializer);
+    }
+
+    @Test
+    public void testMakeVertex() {
+        SortedMap<Key, Value> row = createVertexRow("v1", 2);
+        row.put(new Key("Vv1", "PROPH", "name0" + SEP + "key0" + SEP + "a", "b"), AccumuloElement.HIDDEN_VALUE);
+        row.put(new Key("Vv1", "PROPMETA", "name1" + SEP + "key1" + SEP + "a" + SEP + "meta1", "b"), valueSerializer.objectToValue("metaValue1"));
+        row.put(new Key("Vv1", "PROPMETA", "name9" + SEP + "key9" + SEP + "a" + SEP + "meta1", "b"), valueSerializer.objectToValue("orphan"));
+
+        Vertex v1 = new VertexMaker(graph, row.entrySet().iterator(), authorizations).make(false);
+        assertNotNull(v1);
+        assertEquals("v1", v1.getId());
+        assertEquals(new Visibility("a"), v1.getVisibility());
+        List<Property> properties = toList(v1.getProperties());
+        assertEquals(1, properties.size());
+        Property property = properties.get(0);
+        assertEquals("key1", property.getKey());
+        assertEquals("name1", property.getName());
+        assertEquals("value1", property.getValue());
+        assertEquals(new Visibility("a"), property.getVisibility());
+        assertEquals("metaValue1", property.getMetadata().getValue("meta1"));
+        assertEquals(1, count(v1.getEdgeIds(Direction.OUT, authorizations)));
+        assertEquals(1, count(v1.getEdgeIds(Direction.IN, authorizations)));
+
+        v1 = new VertexMaker(graph, row.entrySet().iterator(), authorizations).make(true);
+        assertNotNull(v1);
+        assertEquals(2, count(v1.getProperties()));
+        Property hiddenProperty = v1.getProperty("key0", "name0");
+        assertTrue(hiddenProperty.isHidden(authorizations));
+        assertEquals(new Visibility("b"), hiddenProperty.getHiddenVisibilities().iterator().next());
+    }
+
+    @Test
+    public void testMakeHiddenVertex() {
+        SortedMap<Key, Value> row = createVertexRow("v1", 1);
+        row.put(new Key("Vv1", "H", "H", "b"), AccumuloElement.HIDDEN_VALUE);
+        assertNull(new VertexMaker(graph, row.entrySet().iterator(), authorizations).make(false));
+
+        Vertex v1 = new VertexMaker(graph, row.entrySet().iterator(), authorizations).make(true);
+        assertNotNull(v1);
+        assertTrue(v1.isHidden(authorizations));
+    }
+
+    @Test
+    public void testMakeEdge() {
+        SortedMap<Key, Value> row = new TreeMap<>();
+        row.put(new Key("Ee1", "E", "label1", "a"), ElementMutationBuilder.EMPTY_VALUE);
+        row.put(new Key("Ee1", "EOUT", "v1", "a"), ElementMutationBuilder.EMPTY_VALUE);
+        row.put(new Key("Ee1", "EIN", "v2", "a"), ElementMutationBuilder.EMPTY_VALUE);
+        row.put(new Key("Ee1", "PROP", "name1" + SEP + "key1", "a"), valueSerializer.objectToValue("value1"));
+
+        Edge e1 = new EdgeMaker(graph, row.entrySet().iterator(), authorizations).make(false);
+        assertNotNull(e1);
+        assertEquals("e1", e1.getId());
+        assertEquals("label1", e1.getLabel());
+        assertEquals("v1", e1.getVertexId(Direction.OUT));
+        assertEquals("v2", e1.getVertexId(Direction.IN));
+        assertEquals("value1", e1.getPropertyValue("key1", "name1"));
+    }
+
+    @Test
+    public void testDecodeAllocation() {
+        final SortedMap<Key, Value> row = createVertexRow("v1", 200);
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+
+        long baselineBytesPerRow = measureDecode(sunThreadMXBean, "String decoder", row.size(), new Runnable() {
+            @Override
+            public void run() {
+                new StringElementDecoder(graph).decode(row.entrySet().iterator(), false);
+            }
+        });
+        long bytesPerRow = measureDecode(sunThreadMXBean, "VertexMaker", row.size(), new Runnable() {
+            @Override
+            public void run() {
+                new VertexMaker(graph, row.entrySet().iterator(), authorizations).make(false);
+            }
+        });
+        LOGGER.info(String.format("VertexMaker allocates %.2f of the String decoder", (double) bytesPerRow / baselineBytesPerRow));
+        // 400 to 500 bytes per column when the bound was set
+        assertTrue("allocated " + bytesPerRow + " bytes per row", bytesPerRow < row.size() * MAX_DECODE_BYTES_PER_COLUMN);
+        // the String decoder does not even create the vertex, VertexMaker allocated 0.28 of it when this was written
+        assertTrue("allocated " + bytesPerRow + " bytes per row, the String decoder " + baselineBytesPerRow, bytesPerRow * 2 < baselineBytesPerRow);
+    }
+
+    private static long measureDecode(com.sun.management.ThreadMXBean threadMXBean, String name, int columnCount, Runnable decode) {
+        long threadId = Thread.currentThread().getId();
+        int iterations = 1000;
+        for (int i = 0; i < iterations; i++) {
+            decode.run();
+        }
+        long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            decode.run();
+        }
+        long bytesPerRow = (threadMXBean.getThreadAllocatedBytes(threadId) - startBytes) / iterations;
+        long nanosPerRow = (System.nanoTime() - startTime) / iterations;
+        LOGGER.info(String.format("%s decoded %d column row: %d bytes allocated, %d ns per row", name, columnCount, bytesPerRow, nanosPerRow));
+        return bytesPerRow;
+    }
+
+    private SortedMap<Key, Value> createVertexRow(String vertexId, int propertyCount) {
+        String rowKey = AccumuloConstants.VERTEX_ROW_KEY_PREFIX + vertexId;
+        SortedMap<Key, Value> row = new TreeMap<>();
+        row.put(new Key(rowKey, "V", "", "a"), ElementMutationBuilder.EMPTY_VALUE);
+        row.put(new Key(rowKey, "EOUT", "e1", "a"), new EdgeInfo("label1", "v2").toValue());
+        row.put(new Key(rowKey, "EIN", "e2", "a"), new EdgeInfo("label1", "v3").toValue());
+        for (int i = 0; i < propertyCount; i++) {
+            String columnQualifier = "name" + i + SEP + "key" + i;
+            row.put(new Key(rowKey, "PROP", columnQualifier, "a"), valueSerializer.objectToValue("value" + i));
+            row.put(new Key(rowKey, "PROPMETA", columnQualifier + SEP + "a" + SEP + "meta0", "a"), valueSerializer.objectToValue("metaValue" + i));
+        }
+        return row;
+    }
+}
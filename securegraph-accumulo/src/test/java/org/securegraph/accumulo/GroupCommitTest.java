@@ -0,0 +1,63 @@
+package org.securegraph.accumulo;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class GroupCommitTest {
+    @Test
+    public void testConcurrentCommits() throws Exception {
+        final AtomicLong writes = new AtomicLong();
+        final AtomicLong flushedWrites = new AtomicLong();
+        final AtomicInteger flushCount = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final GroupCommit groupCommit = new GroupCommit(0, new Runnable() {
+            @Override
+            public void run() {
+                long writesBeforeFlush = writes.get();
+                flushCount.incrementAndGet();
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+                flushedWrites.set(writesBeforeFlush);
+            }
+        });
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 20; j++) {
+                        long write = writes.incrementAndGet();
+                        groupCommit.commit();
+                        if (flushedWrites.get() < write) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertEquals(160, writes.get());
+        assertTrue("expected shared flushes, found " + flushCount.get(), flushCount.get() < 160);
+    }
+}
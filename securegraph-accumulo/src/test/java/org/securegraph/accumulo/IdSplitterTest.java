@@ -0,0 +1,54 @@
+package org.securegraph.accumulo;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class IdSplitterTest {
+    @Test
+    public void testSplit() {
+        List<String> ids = IdSplitter.split("a", "e", 4);
+        assertEquals(3, ids.size());
+        assertEquals("b", ids.get(0));
+        assertEquals("c", ids.get(1));
+        assertEquals("d", ids.get(2));
+    }
+
+    @Test
+    public void testSplitAfterCommonPrefix() {
+        List<String> ids = IdSplitter.split("vertex100", "vertex999", 3);
+        assertEquals(2, ids.size());
+        assertIncreasing("vertex100", ids, "vertex999");
+        for (String id : ids) {
+            assertTrue(id, id.startsWith("vertex"));
+        }
+    }
+
+    @Test
+    public void testSplitAdjacentIds() {
+        assertEquals(0, IdSplitter.split("a", "a\u0000", 4).size());
+        assertEquals(0, IdSplitter.split("b", "a", 4).size());
+        assertEquals(0, IdSplitter.split("a", "a", 4).size());
+    }
+
+    @Test
+    public void testSplitNonAsciiIds() {
+        List<String> ids = IdSplitter.split("a", "été", 4);
+        assertIncreasing("a", ids, "été");
+    }
+
+    private void assertIncreasing(String startId, List<String> ids, String endId) {
+        String previous = startId;
+        for (String id : ids) {
+            assertTrue(previous + " < " + id, previous.compareTo(id) < 0);
+            previous = id;
+        }
+        assertTrue(previous + " < " + endId, previous.compareTo(endId) < 0);
+    }
+}
@@ -0,0 +1,30 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class ParallelScanIterableTest {
+    @Test
+    public void testSplitRange() {
+        List<Text> splits = Arrays.asList(new Text("Vm"), new Text("Ea"), new Text("Vc"), new Text("X"));
+        List<Range> ranges = ParallelScanIterable.splitRange(new Range("V", true, "W", false), splits);
+        assertEquals(3, ranges.size());
+        assertEquals(new Range("V", true, "Vc", true), ranges.get(0));
+        assertEquals(new Range("Vc", false, "Vm", true), ranges.get(1));
+        assertEquals(new Range("Vm", false, "W", false), ranges.get(2));
+
+        ranges = ParallelScanIterable.splitRange(new Range("V", true, "W", false), Collections.<Text>emptyList());
+        assertEquals(1, ranges.size());
+        assertEquals(new Range("V", true, "W", false), ranges.get(0));
+    }
+}
@@ -0,0 +1,67 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.securegraph.PropertyProjection;
+import org.securegraph.accumulo.iterator.PropertyProjectionFilter;
+
+import java.io.IOException;
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class PropertyProjectionFilterTest {
+    private static final String SEP = ElementMutationBuilder.VALUE_SEPARATOR;
+
+    @Test
+    public void testProjection() throws IOException {
+        SortedMap<Key, Value> rows = new TreeMap<>();
+        rows.put(new Key("Vv1", "V", ""), new Value(new byte[0]));
+        rows.put(new Key("Vv1", "PROP", "name" + SEP + "k1"), new Value(new byte[0]));
+        rows.put(new Key("Vv1", "PROP", "name" + SEP + "k2"), new Value(new byte[0]));
+        rows.put(new Key("Vv1", "PROP", "names" + SEP + "k1"), new Value(new byte[0]));
+        rows.put(new Key("Vv1", "PROP", "age" + SEP + "k1"), new Value(new byte[0]));
+        rows.put(new Key("Vv1", "PROP", "age" + SEP + "k2"), new Value(new byte[0]));
+        rows.put(new Key("Vv1", "PROPMETA", "age" + SEP + "k1" + SEP + "a" + SEP + "m1"), new Value(new byte[0]));
+        rows.put(new Key("Vv1", "PROPMETA", "age" + SEP + "k2" + SEP + "a" + SEP + "m1"), new Value(new byte[0]));
+        rows.put(new Key("Vv1", "PROPH", "other" + SEP + "k1" + SEP + "a"), new Value(new byte[0]));
+
+        PropertyProjection projection = new PropertyProjection()
+                .addProperty("name")
+                .addProperty("age", "k1");
+        List<Key> keys = scan(rows, projection);
+        assertEquals(5, keys.size());
+        assertEquals("age" + SEP + "k1", keys.get(0).getColumnQualifier().toString());
+        assertEquals("name" + SEP + "k1", keys.get(1).getColumnQualifier().toString());
+        assertEquals("name" + SEP + "k2", keys.get(2).getColumnQualifier().toString());
+        assertEquals("age" + SEP + "k1" + SEP + "a" + SEP + "m1", keys.get(3).getColumnQualifier().toString());
+        assertEquals("V", keys.get(4).getColumnFamily().toString());
+
+        keys = scan(rows, new PropertyProjection());
+        assertEquals(1, keys.size());
+    }
+
+    private List<Key> scan(SortedMap<Key, Value> rows, PropertyProjection projection) throws IOException {
+        IteratorSetting iteratorSetting = new IteratorSetting(104, PropertyProjectionFilter.class);
+        PropertyProjectionFilter.setPropertyNames(iteratorSetting, projection.getPropertyNames());
+        PropertyProjectionFilter.setPropertyKeys(iteratorSetting, projection.getPropertyKeys());
+        PropertyProjectionFilter filter = new PropertyProjectionFilter();
+        filter.init(new SortedMapIterator(rows), iteratorSetting.getOptions(), null);
+        filter.seek(new Range(), Collections.<ByteSequence>emptyList(), false);
+
+        List<Key> results = new ArrayList<>();
+        while (filter.hasTop()) {
+            results.add(new Key(filter.getTopKey()));
+            filter.next();
+        }
+        return results;
+    }
+}
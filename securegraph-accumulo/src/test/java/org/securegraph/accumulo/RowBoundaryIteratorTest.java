@@ -0,0 +1,84 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.securegraph.accumulo.iterator.RowBoundaryIterator;
+
+import java.io.IOException;
+import java.util.*;
+
+import static junit.framework.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RowBoundaryIteratorTest {
+    @Test
+    public void testBoundaries() throws IOException {
+        SortedMap<Key, Value> rows = new TreeMap<>();
+        rows.put(new Key("Vv1", "PROP", "a"), new Value("1".getBytes()));
+        rows.put(new Key("Vv1", "V", ""), new Value("2".getBytes()));
+        rows.put(new Key("Vv2", "V", ""), new Value("3".getBytes()));
+
+        List<Key> keys = scan(rows, new Range());
+        assertEquals(5, keys.size());
+        assertFalse(RowBoundaryIterator.isRowBoundary(keys.get(1)));
+        assertTrue(RowBoundaryIterator.isRowBoundary(keys.get(2)));
+        assertEquals("Vv1", keys.get(2).getRow().toString());
+        assertTrue(RowBoundaryIterator.isRowBoundary(keys.get(4)));
+        assertEquals("Vv2", keys.get(4).getRow().toString());
+
+        // re-seeked right after the last cell of a row, the boundary of that row is still returned
+        keys = scan(rows, new Range(new Key("Vv1", "V", ""), false, null, true));
+        assertEquals(3, keys.size());
+        assertTrue(RowBoundaryIterator.isRowBoundary(keys.get(0)));
+        assertEquals("Vv1", keys.get(0).getRow().toString());
+
+        keys = scan(rows, new Range(keys.get(0), false, null, true));
+        assertEquals(2, keys.size());
+        assertEquals("Vv2", keys.get(0).getRow().toString());
+    }
+
+    @Test
+    public void testBatchRowIterator() {
+        List<Map.Entry<Key, Value>> cells = new ArrayList<>();
+        cells.add(entry(new Key("Vv1", "PROP", "a")));
+        cells.add(entry(new Key("Vv2", "V", "")));
+        cells.add(entry(new Key("Vv1", "V", "")));
+        cells.add(entry(new Key(new Text("Vv2"), RowBoundaryIterator.CF_ROW_BOUNDARY)));
+        cells.add(entry(new Key(new Text("Vv1"), RowBoundaryIterator.CF_ROW_BOUNDARY)));
+
+        BatchRowIterator rows = new BatchRowIterator(cells.iterator());
+        assertTrue(rows.hasNext());
+        Iterator<Map.Entry<Key, Value>> row = rows.next();
+        assertEquals("Vv2", row.next().getKey().getRow().toString());
+        assertFalse(row.hasNext());
+
+        row = rows.next();
+        assertEquals("PROP", row.next().getKey().getColumnFamily().toString());
+        assertEquals("V", row.next().getKey().getColumnFamily().toString());
+        assertFalse(row.hasNext());
+        assertFalse(rows.hasNext());
+    }
+
+    private List<Key> scan(SortedMap<Key, Value> rows, Range range) throws IOException {
+        RowBoundaryIterator iterator = new RowBoundaryIterator();
+        iterator.init(new SortedMapIterator(rows), new HashMap<String, String>(), null);
+        iterator.seek(range, Collections.<ByteSequence>emptyList(), false);
+        List<Key> results = new ArrayList<>();
+        while (iterator.hasTop()) {
+            results.add(new Key(iterator.getTopKey()));
+            iterator.next();
+        }
+        return results;
+    }
+
+    private static Map.Entry<Key, Value> entry(Key key) {
+        return new AbstractMap.SimpleImmutableEntry<>(key, new Value(new byte[0]));
+    }
+}
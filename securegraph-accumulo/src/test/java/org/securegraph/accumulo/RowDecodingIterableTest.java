@@ -0,0 +1,99 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.securegraph.util.IterableUtils;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RowDecodingIterableTest {
+    private ExecutorService decodeExecutor;
+
+    @Before
+    public void before() {
+        decodeExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void after() {
+        decodeExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testOrderAndSkippedRows() {
+        TestIterable iterable = new TestIterable(decodeExecutor, 100);
+        List<String> results = new ArrayList<>();
+        for (String row : iterable) {
+            results.add(row);
+        }
+        assertEquals(50, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("row" + (i * 2), results.get(i));
+        }
+        assertTrue(iterable.closed.get());
+    }
+
+    @Test
+    public void testCloseBeforeEnd() throws InterruptedException {
+        TestIterable iterable = new TestIterable(decodeExecutor, 100000);
+        Iterator<String> it = iterable.iterator();
+        assertEquals("row0", it.next());
+        iterable.close();
+        for (int i = 0; i < 100 && !iterable.closed.get(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(iterable.closed.get());
+    }
+
+    @Test
+    public void testWithoutExecutor() {
+        TestIterable iterable = new TestIterable(null, 10);
+        assertEquals(5, IterableUtils.count(iterable));
+        assertTrue(iterable.closed.get());
+    }
+
+    private static class TestIterable extends RowDecodingIterable<String> {
+        private final int rowCount;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        public TestIterable(ExecutorService decodeExecutor, int rowCount) {
+            super(decodeExecutor, 10);
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        protected Iterator<Iterator<Map.Entry<Key, Value>>> createRows() {
+            List<Iterator<Map.Entry<Key, Value>>> rows = new ArrayList<>();
+            for (int i = 0; i < rowCount; i++) {
+                Map.Entry<Key, Value> cell = new AbstractMap.SimpleImmutableEntry<>(new Key("row" + i), new Value(new byte[0]));
+                rows.add(Collections.singletonList(cell).iterator());
+            }
+            return rows.iterator();
+        }
+
+        @Override
+        protected String convert(Iterator<Map.Entry<Key, Value>> row) {
+            String rowKey = row.next().getKey().getRow().toString();
+            if (Integer.parseInt(rowKey.substring(3)) % 2 == 1) {
+                return null;
+            }
+            return rowKey;
+        }
+
+        @Override
+        protected void closeRows() {
+            closed.set(true);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.RowDeletingIterator;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+import org.securegraph.Property;
+import org.securegraph.SecureGraphException;
+import org.securegraph.Visibility;
+
+import java.util.*;
+
+/**
+ * Copy of the column decoding of ElementMaker and VertexMaker before rows were decoded from the key bytes, which
+ * converts every column to Text and String and parses a ColumnVisibility per cell. Used as the baseline for the
+ * decode allocation test. It stops at the decoded properties and edge refs, without creating the vertex.
+ */
+class StringElementDecoder {
+    private final AccumuloGraph graph;
+    private final Map<String, String> propertyNames = new HashMap<>();
+    private final Map<String, String> propertyColumnQualifier = new HashMap<>();
+    private final Map<String, byte[]> propertyValues = new HashMap<>();
+    private final Map<String, Visibility> propertyVisibilities = new HashMap<>();
+    private final Map<String, LazyPropertyMetadata> propertyMetadata = new HashMap<>();
+    private final Map<String, Long> propertyTimestamps = new HashMap<>();
+    private final Set<HiddenProperty> hiddenProperties = new HashSet<>();
+    private final Set<Visibility> hiddenVisibilities = new HashSet<>();
+    private final Map<String, EdgeInfo> outEdges = new HashMap<>();
+    private final Map<String, EdgeInfo> inEdges = new HashMap<>();
+    private String id;
+    private Visibility visibility;
+
+    public StringElementDecoder(AccumuloGraph graph) {
+        this.graph = graph;
+    }
+
+    public List<Property> decode(Iterator<Map.Entry<Key, Value>> row, boolean includeHidden) {
+        while (row.hasNext()) {
+            Map.Entry<Key, Value> col = row.next();
+
+            if (this.id == null) {
+                this.id = col.getKey().getRow().toString().substring(AccumuloConstants.VERTEX_ROW_KEY_PREFIX.length());
+            }
+
+            Text columnFamily = col.getKey().getColumnFamily();
+            Text columnQualifier = col.getKey().getColumnQualifier();
+            ColumnVisibility columnVisibility = AccumuloGraph.visibilityToAccumuloVisibility(col.getKey().getColumnVisibility().toString());
+            Value value = col.getValue();
+
+            if (columnFamily.equals(AccumuloGraph.DELETE_ROW_COLUMN_FAMILY)
+                    && columnQualifier.equals(AccumuloGraph.DELETE_ROW_COLUMN_QUALIFIER)
+                    && value.equals(RowDeletingIterator.DELETE_ROW_VALUE)) {
+                return null;
+            }
+
+            if (columnFamily.equals(AccumuloElement.CF_HIDDEN)) {
+                if (includeHidden) {
+                    this.hiddenVisibilities.add(AccumuloGraph.accumuloVisibilityToVisibility(columnVisibility));
+                } else {
+                    return null;
+                }
+            }
+
+            if (columnFamily.equals(AccumuloElement.CF_PROPERTY_HIDDEN)) {
+                extractPropertyHidden(columnQualifier, columnVisibility);
+            }
+
+            if (AccumuloElement.CF_PROPERTY.compareTo(columnFamily) == 0) {
+                extractPropertyData(col, columnVisibility);
+                continue;
+            }
+
+            if (AccumuloElement.CF_PROPERTY_METADATA.compareTo(columnFamily) == 0) {
+                extractPropertyMetadata(columnQualifier, columnVisibility, value);
+                continue;
+            }
+
+            if (AccumuloVertex.CF_SIGNAL.toString().equals(columnFamily.toString())) {
+                this.visibility = AccumuloGraph.accumuloVisibilityToVisibility(columnVisibility);
+            }
+
+            if (AccumuloVertex.CF_OUT_EDGE.compareTo(columnFamily) == 0) {
+                outEdges.put(columnQualifier.toString(), EdgeInfo.parse(value));
+            } else if (AccumuloVertex.CF_IN_EDGE.compareTo(columnFamily) == 0) {
+                inEdges.put(columnQualifier.toString(), EdgeInfo.parse(value));
+            }
+        }
+
+        if (this.visibility == null) {
+            return null;
+        }
+
+        return getProperties(includeHidden);
+    }
+
+    private List<Property> getProperties(boolean includeHidden) {
+        List<Property> results = new ArrayList<>(propertyValues.size());
+        for (Map.Entry<String, byte[]> propertyValueEntry : propertyValues.entrySet()) {
+            String key = propertyValueEntry.getKey();
+            String propertyKey = getPropertyKeyFromColumnQualifier(propertyColumnQualifier.get(key));
+            String propertyName = propertyNames.get(key);
+            byte[] propertyValue = propertyValueEntry.getValue();
+            Visibility propertyVisibility = propertyVisibilities.get(key);
+            long propertyTimestamp = propertyTimestamps.get(key);
+            Set<Visibility> propertyHiddenVisibilities = getPropertyHiddenVisibilities(propertyKey, propertyName, propertyVisibility);
+            if (!includeHidden && propertyHiddenVisibilities != null) {
+                continue;
+            }
+            results.add(new LazyMutableProperty(
+                    graph,
+                    graph.getValueSerializer(),
+                    propertyKey,
+                    propertyName,
+                    propertyValue,
+                    propertyMetadata.get(key),
+                    propertyHiddenVisibilities,
+                    propertyVisibility,
+                    propertyTimestamp
+            ));
+        }
+        return results;
+    }
+
+    private Set<Visibility> getPropertyHiddenVisibilities(String propertyKey, String propertyName, Visibility propertyVisibility) {
+        Set<Visibility> hiddenVisibilities = null;
+        for (HiddenProperty hiddenProperty : hiddenProperties) {
+            if (hiddenProperty.matches(propertyKey, propertyName, propertyVisibility)) {
+                if (hiddenVisibilities == null) {
+                    hiddenVisibilities = new HashSet<>();
+                }
+                hiddenVisibilities.add(hiddenProperty.hiddenVisibility);
+            }
+        }
+        return hiddenVisibilities;
+    }
+
+    private void extractPropertyHidden(Text columnQualifier, ColumnVisibility columnVisibility) {
+        String columnQualifierStr = columnQualifier.toString();
+        int nameKeySep = columnQualifierStr.indexOf(ElementMutationBuilder.VALUE_SEPARATOR);
+        int keyVisSep = columnQualifierStr.indexOf(ElementMutationBuilder.VALUE_SEPARATOR, nameKeySep + 1);
+        if (nameKeySep < 0 || keyVisSep < 0) {
+            throw new SecureGraphException("Invalid property hidden column qualifier");
+        }
+        String name = columnQualifierStr.substring(0, nameKeySep);
+        String key = columnQualifierStr.substring(nameKeySep + 1, keyVisSep);
+        String vis = columnQualifierStr.substring(keyVisSep + 1);
+        this.hiddenProperties.add(new HiddenProperty(key, name, vis, AccumuloGraph.accumuloVisibilityToVisibility(columnVisibility)));
+    }
+
+    private void extractPropertyMetadata(Text columnQualifier, ColumnVisibility columnVisibility, Value value) {
+        Visibility metadataVisibility = AccumuloGraph.accumuloVisibilityToVisibility(columnVisibility);
+        String columnQualifierString = columnQualifier.toString();
+        int i = columnQualifierString.lastIndexOf(ElementMutationBuilder.VALUE_SEPARATOR);
+        if (i < 0) {
+            throw new SecureGraphException("Invalid property metadata column qualifier: " + columnQualifierString);
+        }
+        String propertyKey = columnQualifierString.substring(0, i);
+        String metadataKey = columnQualifierString.substring(i + 1);
+
+        LazyPropertyMetadata lazyPropertyMetadata = propertyMetadata.get(propertyKey);
+        if (lazyPropertyMetadata == null) {
+            lazyPropertyMetadata = new LazyPropertyMetadata();
+            propertyMetadata.put(propertyKey, lazyPropertyMetadata);
+        }
+        lazyPropertyMetadata.add(metadataKey, metadataVisibility, value.get());
+    }
+
+    private void extractPropertyData(Map.Entry<Key, Value> column, ColumnVisibility columnVisibility) {
+        Text columnQualifier = column.getKey().getColumnQualifier();
+        Visibility visibility = AccumuloGraph.accumuloVisibilityToVisibility(columnVisibility);
+        String columnQualifierString = columnQualifier.toString();
+        int i = columnQualifierString.indexOf(ElementMutationBuilder.VALUE_SEPARATOR);
+        if (i < 0) {
+            throw new SecureGraphException("Invalid property column qualifier");
+        }
+        String key = columnQualifier.toString() + ElementMutationBuilder.VALUE_SEPARATOR + visibility.toString();
+        propertyColumnQualifier.put(key, columnQualifier.toString());
+        propertyNames.put(key, columnQualifierString.substring(0, i));
+        propertyValues.put(key, column.getValue().get());
+        propertyVisibilities.put(key, visibility);
+        propertyTimestamps.put(key, column.getKey().getTimestamp());
+    }
+
+    private String getPropertyKeyFromColumnQualifier(String columnQualifier) {
+        int i = columnQualifier.indexOf(ElementMutationBuilder.VALUE_SEPARATOR);
+        if (i < 0) {
+            throw new SecureGraphException("Invalid property column qualifier");
+        }
+        return columnQualifier.substring(i + 1);
+    }
+
+    private static class HiddenProperty {
+        private final String key;
+        private final String name;
+        private final String visibility;
+        private final Visibility hiddenVisibility;
+
+        public HiddenProperty(String key, String name, String visibility, Visibility hiddenVisibility) {
+            this.key = key;
+            this.name = name;
+            this.visibility = visibility;
+            this.hiddenVisibility = hiddenVisibility;
+        }
+
+        public boolean matches(String propertyKey, String propertyName, Visibility visibility) {
+            return propertyKey.equals(this.key)
+                    && propertyName.equals(this.name)
+                    && visibility.getVisibilityString().equals(this.visibility);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            HiddenProperty that = (HiddenProperty) o;
+            return key.equals(that.key) && name.equals(that.name) && visibility.equals(that.visibility);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = key.hashCode();
+            result = 31 * result + name.hashCode();
+            result = 31 * result + visibility.hashCode();
+            return result;
+        }
+    }
+}
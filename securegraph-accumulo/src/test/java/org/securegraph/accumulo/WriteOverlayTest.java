@@ -0,0 +1,110 @@
+package org.securegraph.accumulo;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.RowDeletingIterator;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.securegraph.ElementType;
+import org.securegraph.PropertyProjection;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class WriteOverlayTest {
+    private static final Authorizations AUTHORIZATIONS_A = new Authorizations("a");
+
+    @Test
+    public void testMerge() {
+        WriteOverlay overlay = new WriteOverlay(100);
+
+        Mutation m = new Mutation("Vv1");
+        m.put(new Text("PROP"), new Text("name"), new ColumnVisibility("a"), new Value("joe".getBytes()));
+        m.putDelete(new Text("PROP"), new Text("age"), new ColumnVisibility("a"));
+        m.put(new Text("PROP"), new Text("secret"), new ColumnVisibility("b"), new Value("x".getBytes()));
+        overlay.add(ElementType.VERTEX, m);
+
+        Mutation m2 = new Mutation("Vv2");
+        m2.put(new Text("V"), new Text(""), new ColumnVisibility("a"), new Value(new byte[0]));
+        overlay.add(ElementType.VERTEX, m2);
+
+        List<Iterator<Map.Entry<Key, Value>>> tableRows = new ArrayList<>();
+        tableRows.add(row(
+                entry("Vv1", "PROP", "age", "a", "25"),
+                entry("Vv1", "PROP", "name", "a", "bob"),
+                entry("Vv1", "V", "", "a", "")
+        ));
+        tableRows.add(row(entry("Vv3", "V", "", "a", "")));
+
+        List<List<String>> rows = toStrings(overlay.merge(tableRows.iterator(), ElementType.VERTEX, Arrays.asList(new Text("Vv1"), new Text("Vv2"), new Text("Vv3")), null, null, AUTHORIZATIONS_A));
+        assertEquals(3, rows.size());
+        assertEquals(Arrays.asList("Vv1 PROP:name=joe", "Vv1 V:="), rows.get(0));
+        assertEquals(Arrays.asList("Vv3 V:="), rows.get(1));
+        assertEquals(Arrays.asList("Vv2 V:="), rows.get(2));
+
+        overlay.flushed(overlay.beforeFlush());
+        assertTrue(overlay.isEmpty());
+    }
+
+    @Test
+    public void testDeleteRow() {
+        WriteOverlay overlay = new WriteOverlay(100);
+        Mutation m = new Mutation("Vv1");
+        m.put(AccumuloGraph.DELETE_ROW_COLUMN_FAMILY, AccumuloGraph.DELETE_ROW_COLUMN_QUALIFIER, RowDeletingIterator.DELETE_ROW_VALUE);
+        overlay.add(ElementType.VERTEX, m);
+        assertFalse(overlay.isFull());
+
+        List<Iterator<Map.Entry<Key, Value>>> tableRows = new ArrayList<>();
+        tableRows.add(row(entry("Vv1", "V", "", "a", "")));
+        List<List<String>> rows = toStrings(overlay.merge(tableRows.iterator(), ElementType.VERTEX, Collections.singletonList(new Text("Vv1")), null, null, AUTHORIZATIONS_A));
+        assertEquals(1, rows.size());
+        assertEquals(Collections.singletonList("Vv1 :=" + RowDeletingIterator.DELETE_ROW_VALUE), rows.get(0));
+    }
+
+    @Test
+    public void testMergeFiltered() {
+        WriteOverlay overlay = new WriteOverlay(100);
+        Mutation m = new Mutation("Vv1");
+        m.put(new Text("PROP"), new Text("name\u001fk1"), new ColumnVisibility("a"), new Value("joe".getBytes()));
+        m.put(new Text("PROP"), new Text("age\u001fk1"), new ColumnVisibility("a"), new Value("25".getBytes()));
+        m.put(new Text("EOUT"), new Text("e1"), new ColumnVisibility("a"), new Value(new byte[0]));
+        overlay.add(ElementType.VERTEX, m);
+
+        List<Iterator<Map.Entry<Key, Value>>> tableRows = new ArrayList<>();
+        tableRows.add(row(entry("Vv1", "V", "", "a", "")));
+        Set<Text> columnFamilies = new HashSet<>(Arrays.asList(new Text("V"), new Text("PROP")));
+        PropertyProjection projection = new PropertyProjection().addProperty("name");
+        List<List<String>> rows = toStrings(overlay.merge(tableRows.iterator(), ElementType.VERTEX, Collections.singletonList(new Text("Vv1")), columnFamilies, projection, AUTHORIZATIONS_A));
+        assertEquals(1, rows.size());
+        assertEquals(Arrays.asList("Vv1 PROP:name\u001fk1=joe", "Vv1 V:="), rows.get(0));
+    }
+
+    private static Iterator<Map.Entry<Key, Value>> row(Map.Entry<Key, Value>... entries) {
+        return Arrays.asList(entries).iterator();
+    }
+
+    private static Map.Entry<Key, Value> entry(String row, String columnFamily, String columnQualifier, String visibility, String value) {
+        return new AbstractMap.SimpleEntry<>(new Key(row, columnFamily, columnQualifier, visibility), new Value(value.getBytes()));
+    }
+
+    private static List<List<String>> toStrings(Iterator<Iterator<Map.Entry<Key, Value>>> rows) {
+        List<List<String>> results = new ArrayList<>();
+        while (rows.hasNext()) {
+            List<String> row = new ArrayList<>();
+            Iterator<Map.Entry<Key, Value>> cols = rows.next();
+            while (cols.hasNext()) {
+                Map.Entry<Key, Value> col = cols.next();
+                row.add(col.getKey().getRow() + " " + col.getKey().getColumnFamily() + ":" + col.getKey().getColumnQualifier() + "=" + col.getValue());
+            }
+            results.add(row);
+        }
+        return results;
+    }
+}
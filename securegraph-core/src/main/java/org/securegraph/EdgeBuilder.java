@@ -10,11 +10,11 @@ public abstract class EdgeBuilder extends EdgeBuilderBase {
         this.inVertex = inVertex;
     }
 
-    protected Vertex getOutVertex() {
+    public Vertex getOutVertex() {
         return outVertex;
     }
 
-    protected Vertex getInVertex() {
+    public Vertex getInVertex() {
         return inVertex;
     }
 }
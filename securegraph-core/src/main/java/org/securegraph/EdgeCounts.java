@@ -0,0 +1,70 @@
+package org.securegraph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class EdgeCounts {
+    private final String vertexId;
+    private final int inEdgeCount;
+    private final int outEdgeCount;
+    private final Map<String, Integer> inEdgeCountsByLabel;
+    private final Map<String, Integer> outEdgeCountsByLabel;
+
+    public EdgeCounts(String vertexId, int inEdgeCount, int outEdgeCount, Map<String, Integer> inEdgeCountsByLabel, Map<String, Integer> outEdgeCountsByLabel) {
+        this.vertexId = vertexId;
+        this.inEdgeCount = inEdgeCount;
+        this.outEdgeCount = outEdgeCount;
+        this.inEdgeCountsByLabel = inEdgeCountsByLabel;
+        this.outEdgeCountsByLabel = outEdgeCountsByLabel;
+    }
+
+    public String getVertexId() {
+        return vertexId;
+    }
+
+    public int getEdgeCount(Direction direction) {
+        switch (direction) {
+            case IN:
+                return inEdgeCount;
+            case OUT:
+                return outEdgeCount;
+            case BOTH:
+                return inEdgeCount + outEdgeCount;
+            default:
+                throw new SecureGraphException("Unexpected direction: " + direction);
+        }
+    }
+
+    /**
+     * Edge counts keyed by label, or null if the counts were requested without labels.
+     */
+    public Map<String, Integer> getEdgeCountsByLabel(Direction direction) {
+        switch (direction) {
+            case IN:
+                return inEdgeCountsByLabel;
+            case OUT:
+                return outEdgeCountsByLabel;
+            case BOTH:
+                if (inEdgeCountsByLabel == null || outEdgeCountsByLabel == null) {
+                    return null;
+                }
+                Map<String, Integer> results = new HashMap<>(inEdgeCountsByLabel);
+                for (Map.Entry<String, Integer> outEdgeCount : outEdgeCountsByLabel.entrySet()) {
+                    Integer inEdgeCount = results.get(outEdgeCount.getKey());
+                    results.put(outEdgeCount.getKey(), outEdgeCount.getValue() + (inEdgeCount == null ? 0 : inEdgeCount));
+                }
+                return results;
+            default:
+                throw new SecureGraphException("Unexpected direction: " + direction);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EdgeCounts{" +
+                "vertexId='" + vertexId + '\'' +
+                ", inEdgeCount=" + inEdgeCount +
+                ", outEdgeCount=" + outEdgeCount +
+                '}';
+    }
+}
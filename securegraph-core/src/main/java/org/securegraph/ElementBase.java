@@ -199,12 +199,12 @@ public abstract class ElementBase implements Element {
             if (property.getKey() == null) {
                 throw new IllegalArgumentException("key is required for property");
             }
-            Object propertyValue = property.getValue();
-            if (propertyValue instanceof PropertyValue && !((PropertyValue) propertyValue).isStore()) {
+            if (!isStored(property)) {
                 continue;
             }
-            Property existingProperty = getProperty(property.getKey(), property.getName(), property.getVisibility());
-            if (existingProperty == null) {
+            // properties are ordered by name, key and visibility so the set can find a matching property without a scan
+            Property existingProperty = this.properties.ceiling(property);
+            if (existingProperty == null || existingProperty.compareTo(property) != 0) {
                 this.properties.add(property);
             } else {
                 if (existingProperty instanceof MutableProperty) {
@@ -216,6 +216,11 @@ public abstract class ElementBase implements Element {
         }
     }
 
+    protected boolean isStored(Property property) {
+        Object propertyValue = property.getValue();
+        return !(propertyValue instanceof PropertyValue) || ((PropertyValue) propertyValue).isStore();
+    }
+
     protected Property removePropertyInternal(String key, String name, Visibility visibility) {
         Property property = getProperty(key, name, visibility);
         if (property != null) {
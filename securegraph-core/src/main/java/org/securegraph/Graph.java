@@ -110,6 +110,16 @@ public interface Graph {
      */
     Map<String, Boolean> doVerticesExist(List<String> ids, Authorizations authorizations);
 
+    /**
+     * Counts the edges of many vertices at once without loading the edges themselves.
+     *
+     * @param vertexIds          The ids of the vertices to count the edges of.
+     * @param includeLabelCounts true, to also count the edges per label.
+     * @param authorizations     The authorizations required to load the vertices and edges.
+     * @return Map of vertex id to edge counts. Vertices which are not found are not included.
+     */
+    Map<String, EdgeCounts> getEdgeCounts(Iterable<String> vertexIds, boolean includeLabelCounts, Authorizations authorizations);
+
     /**
      * Gets all vertices matching the given ids on the graph. The order of
      * the returned vertices is not guaranteed {@link org.securegraph.Graph#getVerticesInOrder(Iterable, Authorizations)}.
@@ -133,6 +143,19 @@ public interface Graph {
      */
     Iterable<Vertex> getVertices(Iterable<String> ids, EnumSet<FetchHint> fetchHints, Authorizations authorizations);
 
+    /**
+     * Gets all vertices matching the given ids on the graph, fetching only the projected properties. The order of
+     * the returned vertices is not guaranteed {@link org.securegraph.Graph#getVerticesInOrder(Iterable, Authorizations)}.
+     * Vertices are not kept in memory during the iteration.
+     *
+     * @param ids                The ids of the vertices to get.
+     * @param fetchHints         Hint at what parts of the vertex to fetch.
+     * @param propertyProjection Hint at which properties to fetch, or null to fetch all properties.
+     * @param authorizations     The authorizations required to load the vertex.
+     * @return An iterable of all the vertices.
+     */
+    Iterable<Vertex> getVertices(Iterable<String> ids, EnumSet<FetchHint> fetchHints, PropertyProjection propertyProjection, Authorizations authorizations);
+
     /**
      * Gets all vertices matching the given ids on the graph. This method is similar to
      * {@link org.securegraph.Graph#getVertices(Iterable, Authorizations)}
@@ -216,6 +239,15 @@ public interface Graph {
      */
     Edge addEdge(String edgeId, String outVertexId, String inVertexId, String label, Visibility visibility, Authorizations authorizations);
 
+    /**
+     * Adds the edges to the graph.
+     *
+     * @param edges          The edges to add.
+     * @param authorizations The authorizations required to add and retrieve the new edges.
+     * @return The edges.
+     */
+    Iterable<Edge> addEdges(Iterable<ElementBuilder<Edge>> edges, Authorizations authorizations);
+
     /**
      * Prepare an edge to be added to the graph. This method provides a way to build up an edge with it's properties to be inserted
      * with a single operation. The id of the new edge will be generated using an org.securegraph.id.IdGenerator.
@@ -339,6 +371,17 @@ public interface Graph {
      */
     Iterable<Edge> getEdges(Iterable<String> ids, EnumSet<FetchHint> fetchHints, Authorizations authorizations);
 
+    /**
+     * Gets all edges on the graph matching the given ids, fetching only the projected properties.
+     *
+     * @param ids                The ids of the edges to get.
+     * @param fetchHints         Hint at what parts of the edge to fetch.
+     * @param propertyProjection Hint at which properties to fetch, or null to fetch all properties.
+     * @param authorizations     The authorizations required to load the edge.
+     * @return An iterable of all the edges.
+     */
+    Iterable<Edge> getEdges(Iterable<String> ids, EnumSet<FetchHint> fetchHints, PropertyProjection propertyProjection, Authorizations authorizations);
+
     /**
      * Given a list of vertex ids, find all the edge ids that connect them.
      *
@@ -460,6 +503,17 @@ public interface Graph {
      */
     void reindex(Authorizations authorizations);
 
+    /**
+     * Reindex the given element types, splitting each into id ranges which are indexed on several threads. Completed
+     * ranges are recorded in the graph metadata so an interrupted reindex can be resumed.
+     *
+     * @param elementTypes   the element types to reindex.
+     * @param threads        the number of ranges to index at the same time.
+     * @param resume         skip the ranges completed by an earlier reindex which did not finish.
+     * @param authorizations authorizations used to query for the data to reindex.
+     */
+    void reindex(EnumSet<ElementType> elementTypes, int threads, boolean resume, Authorizations authorizations);
+
     /**
      * Creates a defines property builder. This is typically used by the indexer to give it hints on how it should index a property.
      *
@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
+import static org.securegraph.util.IterableUtils.count;
 import static org.securegraph.util.IterableUtils.toList;
 
 public abstract class GraphBase implements Graph {
@@ -41,6 +42,15 @@ public abstract class GraphBase implements Graph {
         return addedVertices;
     }
 
+    @Override
+    public Iterable<Edge> addEdges(Iterable<ElementBuilder<Edge>> edges, Authorizations authorizations) {
+        List<Edge> addedEdges = new ArrayList<Edge>();
+        for (ElementBuilder<Edge> edgeBuilder : edges) {
+            addedEdges.add(edgeBuilder.save(authorizations));
+        }
+        return addedEdges;
+    }
+
     @Override
     public VertexBuilder prepareVertex(Visibility visibility) {
         return prepareVertex(getIdGenerator().nextId(), visibility);
@@ -88,6 +98,11 @@ public abstract class GraphBase implements Graph {
         };
     }
 
+    @Override
+    public Iterable<Vertex> getVertices(Iterable<String> ids, EnumSet<FetchHint> fetchHints, PropertyProjection propertyProjection, Authorizations authorizations) {
+        return getVertices(ids, fetchHints, authorizations);
+    }
+
     @Override
     public Map<String, Boolean> doVerticesExist(List<String> ids, Authorizations authorizations) {
         Map<String, Boolean> results = new HashMap<String, Boolean>();
@@ -100,6 +115,35 @@ public abstract class GraphBase implements Graph {
         return results;
     }
 
+    @Override
+    public Map<String, EdgeCounts> getEdgeCounts(Iterable<String> vertexIds, boolean includeLabelCounts, Authorizations authorizations) {
+        Map<String, EdgeCounts> results = new HashMap<String, EdgeCounts>();
+        for (Vertex vertex : getVertices(vertexIds, FetchHint.EDGE_REFS, authorizations)) {
+            Map<String, Integer> inEdgeCountsByLabel = null;
+            Map<String, Integer> outEdgeCountsByLabel = null;
+            if (includeLabelCounts) {
+                inEdgeCountsByLabel = getEdgeCountsByLabel(vertex, Direction.IN, authorizations);
+                outEdgeCountsByLabel = getEdgeCountsByLabel(vertex, Direction.OUT, authorizations);
+            }
+            results.put(vertex.getId(), new EdgeCounts(
+                    vertex.getId(),
+                    vertex.getEdgeCount(Direction.IN, authorizations),
+                    vertex.getEdgeCount(Direction.OUT, authorizations),
+                    inEdgeCountsByLabel,
+                    outEdgeCountsByLabel
+            ));
+        }
+        return results;
+    }
+
+    private Map<String, Integer> getEdgeCountsByLabel(Vertex vertex, Direction direction, Authorizations authorizations) {
+        Map<String, Integer> results = new HashMap<String, Integer>();
+        for (String label : vertex.getEdgeLabels(direction, authorizations)) {
+            results.put(label, count(vertex.getEdgeIds(direction, label, authorizations)));
+        }
+        return results;
+    }
+
     @Override
     public Iterable<Vertex> getVertices(final Iterable<String> ids, final Authorizations authorizations) {
         return getVertices(ids, FetchHint.ALL, authorizations);
@@ -220,6 +264,11 @@ public abstract class GraphBase implements Graph {
         };
     }
 
+    @Override
+    public Iterable<Edge> getEdges(Iterable<String> ids, EnumSet<FetchHint> fetchHints, PropertyProjection propertyProjection, Authorizations authorizations) {
+        return getEdges(ids, fetchHints, authorizations);
+    }
+
     @Override
     public Iterable<Edge> getEdges(final Iterable<String> ids, final Authorizations authorizations) {
         return getEdges(ids, FetchHint.ALL, authorizations);
@@ -338,6 +387,9 @@ public abstract class GraphBase implements Graph {
     @Override
     public abstract void reindex(Authorizations authorizations);
 
+    @Override
+    public abstract void reindex(EnumSet<ElementType> elementTypes, int threads, boolean resume, Authorizations authorizations);
+
     @Override
     public abstract void flush();
 
@@ -4,17 +4,24 @@ import org.securegraph.id.IdGenerator;
 import org.securegraph.path.PathFindingAlgorithm;
 import org.securegraph.path.RecursivePathFindingAlgorithm;
 import org.securegraph.query.GraphQuery;
+import org.securegraph.search.AsyncSearchIndex;
 import org.securegraph.search.SearchIndex;
+import org.securegraph.util.FilterIterable;
 import org.securegraph.util.ToElementIterable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 
 public abstract class GraphBaseWithSearchIndex extends GraphBase implements Graph {
     private static final Logger LOGGER = LoggerFactory.getLogger(GraphBaseWithSearchIndex.class);
     public static final String METADATA_DEFINE_PROPERTY_PREFIX = "defineProperty.";
     public static final String METADATA_ID_GENERATOR_CLASSNAME = "idGenerator.classname";
+    public static final String METADATA_REINDEX_CHECKPOINT_PREFIX = "reindexCheckpoint.";
+    public static final String METADATA_REINDEX_RANGES_PREFIX = "reindexRanges.";
     private final GraphConfiguration configuration;
     private final IdGenerator idGenerator;
     private SearchIndex searchIndex;
@@ -24,6 +31,14 @@ public abstract class GraphBaseWithSearchIndex extends GraphBase implements Grap
     protected GraphBaseWithSearchIndex(GraphConfiguration configuration, IdGenerator idGenerator, SearchIndex searchIndex) {
         this.configuration = configuration;
         this.idGenerator = idGenerator;
+        if (searchIndex != null && configuration.getSearchIndexAsyncThreads() > 0) {
+            searchIndex = new AsyncSearchIndex(
+                    searchIndex,
+                    configuration.getSearchIndexAsyncThreads(),
+                    configuration.getSearchIndexAsyncQueueSize(),
+                    configuration.getSearchIndexAsyncBatchSize()
+            );
+        }
         this.searchIndex = searchIndex;
     }
 
@@ -105,6 +120,37 @@ public abstract class GraphBaseWithSearchIndex extends GraphBase implements Grap
         this.searchIndex.addElements(this, new ToElementIterable<Edge>(getEdges(authorizations)), authorizations);
     }
 
+    @Override
+    public void reindex(EnumSet<ElementType> elementTypes, int threads, boolean resume, Authorizations authorizations) {
+        ParallelReindex parallelReindex = new ParallelReindex(this, threads, resume, authorizations);
+        for (ElementType elementType : elementTypes) {
+            parallelReindex.run(elementType);
+        }
+        flush();
+    }
+
+    /**
+     * Splits the ids of the given element type into ranges which can be reindexed independently.
+     */
+    protected List<IdRange> getReindexRanges(ElementType elementType, int threads, Authorizations authorizations) {
+        return Collections.singletonList(new IdRange(null, null));
+    }
+
+    protected Iterable<Element> getElementsInIdRange(ElementType elementType, final IdRange range, Authorizations authorizations) {
+        Iterable<Element> elements;
+        if (elementType == ElementType.VERTEX) {
+            elements = new ToElementIterable<>(getVertices(authorizations));
+        } else {
+            elements = new ToElementIterable<>(getEdges(authorizations));
+        }
+        return new FilterIterable<Element>(elements) {
+            @Override
+            protected boolean isIncluded(Element element) {
+                return range.contains(element.getId());
+            }
+        };
+    }
+
     @Override
     public void flush() {
         if (getSearchIndex() != null) {
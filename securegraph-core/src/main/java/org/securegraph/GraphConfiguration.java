@@ -2,6 +2,7 @@ package org.securegraph;
 
 import org.securegraph.id.IdGenerator;
 import org.securegraph.id.UUIDIdGenerator;
+import org.securegraph.search.AsyncSearchIndex;
 import org.securegraph.search.DefaultSearchIndex;
 import org.securegraph.search.SearchIndex;
 import org.securegraph.util.ConfigurationUtils;
@@ -12,10 +13,16 @@ public class GraphConfiguration {
     public static final String IDGENERATOR_PROP_PREFIX = "idgenerator";
     public static final String SEARCH_INDEX_PROP_PREFIX = "search";
     public static final String AUTO_FLUSH = "autoFlush";
+    public static final String SEARCH_INDEX_ASYNC_THREADS = "searchIndexAsyncThreads";
+    public static final String SEARCH_INDEX_ASYNC_QUEUE_SIZE = "searchIndexAsyncQueueSize";
+    public static final String SEARCH_INDEX_ASYNC_BATCH_SIZE = "searchIndexAsyncBatchSize";
 
     public static final String DEFAULT_IDGENERATOR = UUIDIdGenerator.class.getName();
     public static final String DEFAULT_SEARCH_INDEX = DefaultSearchIndex.class.getName();
     public static final boolean DEFAULT_AUTO_FLUSH = false;
+    public static final int DEFAULT_SEARCH_INDEX_ASYNC_THREADS = 0;
+    public static final int DEFAULT_SEARCH_INDEX_ASYNC_QUEUE_SIZE = 10000;
+    public static final int DEFAULT_SEARCH_INDEX_ASYNC_BATCH_SIZE = 500;
 
     private final Map config;
 
@@ -48,6 +55,25 @@ public class GraphConfiguration {
         return ConfigurationUtils.createProvider(this, SEARCH_INDEX_PROP_PREFIX, DEFAULT_SEARCH_INDEX);
     }
 
+    /**
+     * Number of threads sending search index updates in the background, see {@link AsyncSearchIndex}. Zero updates
+     * the search index on the thread saving the element.
+     */
+    public int getSearchIndexAsyncThreads() {
+        return getInt(SEARCH_INDEX_ASYNC_THREADS, DEFAULT_SEARCH_INDEX_ASYNC_THREADS);
+    }
+
+    /**
+     * Number of search index updates queued before saving elements blocks.
+     */
+    public int getSearchIndexAsyncQueueSize() {
+        return getInt(SEARCH_INDEX_ASYNC_QUEUE_SIZE, DEFAULT_SEARCH_INDEX_ASYNC_QUEUE_SIZE);
+    }
+
+    public int getSearchIndexAsyncBatchSize() {
+        return getInt(SEARCH_INDEX_ASYNC_BATCH_SIZE, DEFAULT_SEARCH_INDEX_ASYNC_BATCH_SIZE);
+    }
+
     public boolean getBoolean(String configKey, boolean defaultValue) {
         Object obj = config.get(configKey);
         if (obj == null) {
@@ -96,7 +122,7 @@ public class GraphConfiguration {
             return defaultValue;
         }
         if (obj instanceof String) {
-            return Integer.parseInt((String) obj);
+            return Long.parseLong((String) obj);
         }
         if (obj instanceof Long) {
             return (long) obj;
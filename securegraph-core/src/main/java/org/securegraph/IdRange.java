@@ -0,0 +1,35 @@
+package org.securegraph;
+
+import java.io.Serializable;
+
+/**
+ * A range of element ids from startId (inclusive) to endId (exclusive). A null start or end leaves that side
+ * unbounded.
+ */
+public class IdRange implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final String startId;
+    private final String endId;
+
+    public IdRange(String startId, String endId) {
+        this.startId = startId;
+        this.endId = endId;
+    }
+
+    public String getStartId() {
+        return startId;
+    }
+
+    public String getEndId() {
+        return endId;
+    }
+
+    public boolean contains(String id) {
+        return (startId == null || id.compareTo(startId) >= 0) && (endId == null || id.compareTo(endId) < 0);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (startId == null ? "" : startId) + "," + (endId == null ? "" : endId) + ")";
+    }
+}
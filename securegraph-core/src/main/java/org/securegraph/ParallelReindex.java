@@ -0,0 +1,158 @@
+package org.securegraph;
+
+import org.securegraph.util.ConvertingIterable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reindexes the id ranges of an element type on a pool of threads. Once the search index has been flushed after a
+ * range, the range is stored in the graph metadata so an interrupted reindex can be resumed. The ranges themselves
+ * are stored when the reindex starts and reused on resume, since the ranges computed by the graph change with its
+ * splits and contents. The stored ranges are cleared once all ranges are done.
+ */
+class ParallelReindex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelReindex.class);
+    private final GraphBaseWithSearchIndex graph;
+    private final int threads;
+    private final boolean resume;
+    private final Authorizations authorizations;
+    private boolean searchIndexFailed;
+
+    ParallelReindex(GraphBaseWithSearchIndex graph, int threads, boolean resume, Authorizations authorizations) {
+        this.graph = graph;
+        this.threads = Math.max(1, threads);
+        this.resume = resume;
+        this.authorizations = authorizations;
+    }
+
+    static String getCheckpointMetadataKey(ElementType elementType) {
+        return GraphBaseWithSearchIndex.METADATA_REINDEX_CHECKPOINT_PREFIX + elementType.name();
+    }
+
+    static String getRangesMetadataKey(ElementType elementType) {
+        return GraphBaseWithSearchIndex.METADATA_REINDEX_RANGES_PREFIX + elementType.name();
+    }
+
+    @SuppressWarnings("unchecked")
+    public void run(final ElementType elementType) {
+        final String checkpointKey = getCheckpointMetadataKey(elementType);
+        final String rangesKey = getRangesMetadataKey(elementType);
+        final Set<String> completedRanges = new HashSet<>();
+        List<IdRange> storedRanges = null;
+        if (resume) {
+            Object checkpoint = graph.getMetadata(checkpointKey);
+            if (checkpoint instanceof Collection) {
+                completedRanges.addAll((Collection<String>) checkpoint);
+            }
+            Object rangesMetadata = graph.getMetadata(rangesKey);
+            if (rangesMetadata instanceof List && !((List) rangesMetadata).isEmpty()) {
+                storedRanges = (List<IdRange>) rangesMetadata;
+            }
+        } else {
+            graph.setMetadata(checkpointKey, new HashSet<String>());
+        }
+
+        final List<IdRange> ranges;
+        if (storedRanges != null) {
+            ranges = storedRanges;
+        } else {
+            ranges = graph.getReindexRanges(elementType, threads, authorizations);
+            graph.setMetadata(rangesKey, new ArrayList<>(ranges));
+        }
+        final List<IdRange> remainingRanges = new ArrayList<>();
+        Set<String> rangeNames = new HashSet<>();
+        for (IdRange range : ranges) {
+            rangeNames.add(range.toString());
+            if (!completedRanges.contains(range.toString())) {
+                remainingRanges.add(range);
+            }
+        }
+        // ranges recorded by an earlier run which did not store its ranges are indexed again
+        completedRanges.retainAll(rangeNames);
+        LOGGER.info("reindexing " + remainingRanges.size() + " of " + ranges.size() + " " + elementType + " ranges with " + threads + " threads");
+
+        final long startTime = System.currentTimeMillis();
+        final AtomicLong elementCount = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (final IdRange range : remainingRanges) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        long count = reindexRange(elementType, range);
+                        long totalCount = elementCount.addAndGet(count);
+                        synchronized (completedRanges) {
+                            flushSearchIndex();
+                            completedRanges.add(range.toString());
+                            graph.setMetadata(checkpointKey, new HashSet<>(completedRanges));
+                            long elapsedMillis = Math.max(1, System.currentTimeMillis() - startTime);
+                            LOGGER.info(String.format(
+                                    "reindexed %s range %s: %d elements (%d/%d ranges, %d elements, %.1f elements/s)",
+                                    elementType, range, count, completedRanges.size(), ranges.size(),
+                                    totalCount, totalCount * 1000.0 / elapsedMillis
+                            ));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new SecureGraphException("Could not reindex " + elementType + " (completed ranges are kept for resume)", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SecureGraphException("Interrupted reindexing " + elementType, ex);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        graph.setMetadata(checkpointKey, new HashSet<String>());
+        graph.setMetadata(rangesKey, new ArrayList<IdRange>());
+        LOGGER.info("reindexed " + elementCount.get() + " " + elementType + " elements in " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * Waits for the queued updates of the range to be indexed before its checkpoint is written. A failure reported by
+     * the search index may belong to the elements of any range, so no range is checkpointed after one has been seen.
+     * Called while holding the checkpoint lock so flushes of different ranges don't hide failures from each other.
+     */
+    private void flushSearchIndex() {
+        if (searchIndexFailed) {
+            throw new SecureGraphException("Search index failed while reindexing another range");
+        }
+        try {
+            graph.getSearchIndex().flush();
+        } catch (RuntimeException ex) {
+            searchIndexFailed = true;
+            throw ex;
+        }
+    }
+
+    private long reindexRange(ElementType elementType, IdRange range) {
+        final AtomicLong count = new AtomicLong();
+        Iterable<Element> elements = new ConvertingIterable<Element, Element>(graph.getElementsInIdRange(elementType, range, authorizations)) {
+            @Override
+            protected Element convert(Element element) {
+                count.incrementAndGet();
+                return element;
+            }
+        };
+        graph.getSearchIndex().addElements(graph, elements, authorizations);
+        return count.get();
+    }
+}
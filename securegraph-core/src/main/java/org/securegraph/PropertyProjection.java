@@ -0,0 +1,64 @@
+package org.securegraph;
+
+import java.util.*;
+
+/**
+ * Limits the properties fetched with {@link FetchHint#PROPERTIES} and {@link FetchHint#PROPERTY_METADATA} to the
+ * given property names, or to single keys of a property. Like the fetch hints this is a hint, implementations may
+ * return more properties than were asked for.
+ */
+public class PropertyProjection {
+    private final Set<String> propertyNames = new HashSet<>();
+    private final Map<String, Set<String>> propertyKeys = new HashMap<>();
+
+    /**
+     * Includes all the properties with the given name.
+     */
+    public PropertyProjection addProperty(String propertyName) {
+        propertyNames.add(propertyName);
+        return this;
+    }
+
+    /**
+     * Includes the property with the given name and key.
+     */
+    public PropertyProjection addProperty(String propertyName, String propertyKey) {
+        Set<String> keys = propertyKeys.get(propertyName);
+        if (keys == null) {
+            keys = new HashSet<>();
+            propertyKeys.put(propertyName, keys);
+        }
+        keys.add(propertyKey);
+        return this;
+    }
+
+    /**
+     * Names of the properties included with all their keys.
+     */
+    public Set<String> getPropertyNames() {
+        return Collections.unmodifiableSet(propertyNames);
+    }
+
+    /**
+     * Keys included by property name, for properties which are only included with some of their keys.
+     */
+    public Map<String, Set<String>> getPropertyKeys() {
+        return Collections.unmodifiableMap(propertyKeys);
+    }
+
+    public boolean isIncluded(String propertyName, String propertyKey) {
+        if (propertyNames.contains(propertyName)) {
+            return true;
+        }
+        Set<String> keys = propertyKeys.get(propertyName);
+        return keys != null && keys.contains(propertyKey);
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyProjection{" +
+                "propertyNames=" + propertyNames +
+                ", propertyKeys=" + propertyKeys +
+                '}';
+    }
+}
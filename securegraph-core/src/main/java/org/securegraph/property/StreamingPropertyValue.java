@@ -1,6 +1,7 @@
 package org.securegraph.property;
 
 import org.securegraph.SecureGraphException;
+import org.securegraph.util.LimitInputStream;
 import org.securegraph.util.StreamUtils;
 
 import java.io.ByteArrayInputStream;
@@ -26,6 +27,20 @@ public class StreamingPropertyValue extends PropertyValue {
         return inputStream;
     }
 
+    /**
+     * Returns a stream over up to length bytes of the value starting at offset. Implementations backed by storage
+     * which supports it read only the requested range.
+     */
+    public InputStream getInputStream(long offset, long length) {
+        InputStream in = getInputStream();
+        try {
+            StreamUtils.skip(in, offset);
+        } catch (IOException e) {
+            throw new SecureGraphException("Could not skip to offset " + offset + " of streaming property value", e);
+        }
+        return new LimitInputStream(in, length);
+    }
+
     public Class getValueType() {
         return valueType;
     }
@@ -0,0 +1,344 @@
+package org.securegraph.search;
+
+import org.securegraph.*;
+import org.securegraph.query.GraphQuery;
+import org.securegraph.query.VertexQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Queues the index updates of another search index and sends them from background threads. Updates of an element
+ * are always sent by the same thread in the order they were queued, an added element which is still queued is
+ * replaced by a later add of the same element, and consecutive adds are sent with
+ * {@link SearchIndex#addElements(Graph, Iterable, Authorizations)}.
+ * <p/>
+ * Queuing blocks while the queue of a thread is full. {@link #flush()} waits for all queued updates to be sent and
+ * throws the first failure since the last flush. Queries are not affected, they may not see queued updates.
+ */
+public class AsyncSearchIndex implements SearchIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncSearchIndex.class);
+    private final SearchIndex searchIndex;
+    private final int batchSize;
+    private final Lane[] lanes;
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    public AsyncSearchIndex(SearchIndex searchIndex, int threads, int queueSize, int batchSize) {
+        this.searchIndex = searchIndex;
+        this.batchSize = Math.max(1, batchSize);
+        this.lanes = new Lane[threads];
+        int laneCapacity = Math.max(1, (queueSize + threads - 1) / threads);
+        for (int i = 0; i < threads; i++) {
+            lanes[i] = new Lane(laneCapacity);
+            Thread thread = new Thread(lanes[i], "securegraph-search-index-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    @Override
+    public void addElement(Graph graph, Element element, Authorizations authorizations) {
+        getLane(element).add(new AddElementOperation(graph, element, authorizations));
+    }
+
+    @Override
+    public void addElements(Graph graph, Iterable<? extends Element> elements, Authorizations authorizations) {
+        for (Element element : elements) {
+            addElement(graph, element, authorizations);
+        }
+    }
+
+    @Override
+    public void removeElement(final Graph graph, final Element element, final Authorizations authorizations) {
+        getLane(element).add(new Operation(element) {
+            @Override
+            public void run() {
+                searchIndex.removeElement(graph, element, authorizations);
+            }
+        });
+    }
+
+    @Override
+    public void removeElements(Graph graph, Iterable<? extends Element> elements, Authorizations authorizations) {
+        for (Element element : elements) {
+            removeElement(graph, element, authorizations);
+        }
+    }
+
+    @Override
+    public void removeProperty(final Graph graph, final Element element, final Property property, final Authorizations authorizations) {
+        getLane(element).add(new Operation(element) {
+            @Override
+            public void run() {
+                searchIndex.removeProperty(graph, element, property, authorizations);
+            }
+        });
+    }
+
+    @Override
+    public void removeProperty(
+            final Graph graph,
+            final Element element,
+            final String propertyKey,
+            final String propertyName,
+            final Visibility propertyVisibility,
+            final Authorizations authorizations
+    ) {
+        getLane(element).add(new Operation(element) {
+            @Override
+            public void run() {
+                searchIndex.removeProperty(graph, element, propertyKey, propertyName, propertyVisibility, authorizations);
+            }
+        });
+    }
+
+    @Override
+    public GraphQuery queryGraph(Graph graph, String queryString, Authorizations authorizations) {
+        return searchIndex.queryGraph(graph, queryString, authorizations);
+    }
+
+    @Override
+    public VertexQuery queryVertex(Graph graph, Vertex vertex, String queryString, Authorizations authorizations) {
+        return searchIndex.queryVertex(graph, vertex, queryString, authorizations);
+    }
+
+    @Override
+    public void flush() {
+        for (Lane lane : lanes) {
+            lane.waitUntilEmpty();
+        }
+        searchIndex.flush();
+        RuntimeException ex = failure.getAndSet(null);
+        if (ex != null) {
+            throw new SecureGraphException("Could not update search index", ex);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            flush();
+        } finally {
+            for (Lane lane : lanes) {
+                lane.close();
+            }
+            searchIndex.shutdown();
+        }
+    }
+
+    @Override
+    public void addPropertyDefinition(PropertyDefinition propertyDefinition) throws IOException {
+        searchIndex.addPropertyDefinition(propertyDefinition);
+    }
+
+    @Override
+    public boolean isFieldBoostSupported() {
+        return searchIndex.isFieldBoostSupported();
+    }
+
+    @Override
+    public void clearData() {
+        for (Lane lane : lanes) {
+            lane.clear();
+        }
+        failure.set(null);
+        searchIndex.clearData();
+    }
+
+    @Override
+    public SearchIndexSecurityGranularity getSearchIndexSecurityGranularity() {
+        return searchIndex.getSearchIndexSecurityGranularity();
+    }
+
+    private Lane getLane(Element element) {
+        return lanes[(toElementKey(element).hashCode() & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    private static String toElementKey(Element element) {
+        return (element instanceof Edge ? "E" : "V") + element.getId();
+    }
+
+    private abstract static class Operation implements Runnable {
+        private final String elementKey;
+
+        protected Operation(Element element) {
+            this.elementKey = toElementKey(element);
+        }
+
+        public String getElementKey() {
+            return elementKey;
+        }
+    }
+
+    private class AddElementOperation extends Operation {
+        private final Graph graph;
+        private Element element;
+        private Authorizations authorizations;
+
+        public AddElementOperation(Graph graph, Element element, Authorizations authorizations) {
+            super(element);
+            this.graph = graph;
+            this.element = element;
+            this.authorizations = authorizations;
+        }
+
+        public boolean canReplace(AddElementOperation operation) {
+            return graph == operation.graph;
+        }
+
+        public void replace(AddElementOperation operation) {
+            this.element = operation.element;
+            this.authorizations = operation.authorizations;
+        }
+
+        public boolean canBatchWith(AddElementOperation operation) {
+            return graph == operation.graph && authorizations.equals(operation.authorizations);
+        }
+
+        @Override
+        public void run() {
+            searchIndex.addElement(graph, element, authorizations);
+        }
+    }
+
+    private class Lane implements Runnable {
+        private final int capacity;
+        private final LinkedList<Operation> operations = new LinkedList<>();
+        private final Map<String, AddElementOperation> queuedAdds = new HashMap<>();
+        private boolean running;
+        private boolean closed;
+
+        public Lane(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public synchronized void add(Operation operation) {
+            if (closed) {
+                throw new SecureGraphException("Search index is shut down");
+            }
+            if (operation instanceof AddElementOperation) {
+                AddElementOperation addOperation = (AddElementOperation) operation;
+                AddElementOperation queuedAdd = queuedAdds.get(operation.getElementKey());
+                if (queuedAdd != null && queuedAdd.canReplace(addOperation)) {
+                    queuedAdd.replace(addOperation);
+                    return;
+                }
+                queuedAdds.put(operation.getElementKey(), addOperation);
+            } else {
+                // a later add must not move in front of this operation
+                queuedAdds.remove(operation.getElementKey());
+            }
+            while (operations.size() >= capacity) {
+                waitForChange();
+            }
+            operations.add(operation);
+            notifyAll();
+        }
+
+        public synchronized void waitUntilEmpty() {
+            while (!operations.isEmpty() || running) {
+                waitForChange();
+            }
+        }
+
+        public synchronized void clear() {
+            operations.clear();
+            queuedAdds.clear();
+            waitUntilEmpty();
+        }
+
+        public synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        private void waitForChange() {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SecureGraphException("Interrupted waiting for search index queue", ex);
+            }
+        }
+
+        private synchronized List<Operation> take() throws InterruptedException {
+            running = false;
+            notifyAll();
+            while (operations.isEmpty() && !closed) {
+                wait();
+            }
+            if (operations.isEmpty()) {
+                return null;
+            }
+            List<Operation> batch = new ArrayList<>();
+            while (!operations.isEmpty() && batch.size() < batchSize) {
+                Operation operation = operations.removeFirst();
+                if (operation instanceof AddElementOperation) {
+                    queuedAdds.remove(operation.getElementKey());
+                }
+                batch.add(operation);
+            }
+            running = true;
+            notifyAll();
+            return batch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Operation> batch;
+                while ((batch = take()) != null) {
+                    send(batch);
+                }
+            } catch (InterruptedException ex) {
+                LOGGER.warn("search index thread interrupted", ex);
+            }
+        }
+
+        private void send(List<Operation> batch) {
+            int i = 0;
+            while (i < batch.size()) {
+                Operation operation = batch.get(i);
+                if (!(operation instanceof AddElementOperation)) {
+                    execute(operation);
+                    i++;
+                    continue;
+                }
+                final AddElementOperation first = (AddElementOperation) operation;
+                final List<Element> elements = new ArrayList<>();
+                while (i < batch.size()
+                        && batch.get(i) instanceof AddElementOperation
+                        && first.canBatchWith((AddElementOperation) batch.get(i))) {
+                    elements.add(((AddElementOperation) batch.get(i)).element);
+                    i++;
+                }
+                if (elements.size() == 1) {
+                    execute(first);
+                } else {
+                    execute(new Operation(first.element) {
+                        @Override
+                        public void run() {
+                            searchIndex.addElements(first.graph, elements, first.authorizations);
+                        }
+                    });
+                }
+            }
+        }
+
+        private void execute(Operation operation) {
+            try {
+                operation.run();
+            } catch (RuntimeException ex) {
+                LOGGER.error("Could not update search index for " + operation.getElementKey(), ex);
+                failure.compareAndSet(null, ex);
+            }
+        }
+    }
+}
@@ -27,6 +27,13 @@ public class DefaultSearchIndex implements SearchIndex {
 
     }
 
+    @Override
+    public void removeElements(Graph graph, Iterable<? extends Element> elements, Authorizations authorizations) {
+        for (Element element : elements) {
+            removeElement(graph, element, authorizations);
+        }
+    }
+
     @Override
     public void removeProperty(Graph graph, Element element, Property property, Authorizations authorizations) {
 
@@ -11,6 +11,8 @@ public interface SearchIndex {
 
     void removeElement(Graph graph, Element element, Authorizations authorizations);
 
+    void removeElements(Graph graph, Iterable<? extends Element> elements, Authorizations authorizations);
+
     void removeProperty(Graph graph, Element element, Property property, Authorizations authorizations);
 
     void removeProperty(
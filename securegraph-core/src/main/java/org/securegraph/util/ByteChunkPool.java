@@ -0,0 +1,48 @@
+package org.securegraph.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Hands out fixed size byte arrays for buffering and keeps released ones for reuse. The bytes handed out and kept
+ * never exceed maxBytes; {@link #tryAcquire()} returns null once that limit is reached.
+ */
+public class ByteChunkPool {
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    private final int chunkSize;
+    private final long maxBytes;
+    private final Deque<byte[]> freeChunks = new ArrayDeque<>();
+    private long acquiredBytes;
+
+    public ByteChunkPool(long maxBytes) {
+        this(DEFAULT_CHUNK_SIZE, maxBytes);
+    }
+
+    public ByteChunkPool(int chunkSize, long maxBytes) {
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize must be greater than 0");
+        this.chunkSize = chunkSize;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized byte[] tryAcquire() {
+        if (acquiredBytes + chunkSize > maxBytes) {
+            return null;
+        }
+        acquiredBytes += chunkSize;
+        byte[] chunk = freeChunks.poll();
+        return chunk == null ? new byte[chunkSize] : chunk;
+    }
+
+    public synchronized void release(byte[] chunk) {
+        acquiredBytes -= chunkSize;
+        freeChunks.push(chunk);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public synchronized long getAcquiredBytes() {
+        return acquiredBytes;
+    }
+}
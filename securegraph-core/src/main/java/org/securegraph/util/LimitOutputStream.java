@@ -1,20 +1,35 @@
 package org.securegraph.util;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Buffers up to maxSizeToStore bytes in memory and moves everything to the {@link LargeDataStore} once more is
+ * written. The memory buffer grows in chunks as data arrives. If a {@link ByteChunkPool} is given the chunks are taken
+ * from it, and the data is moved to the large data store early when the pool has no chunks left.
+ */
 public class LimitOutputStream extends OutputStream {
-    private final int maxSizeToStore;
-    private final ByteArrayOutputStream smallOutputStream;
+    private final long maxSizeToStore;
     private final LargeDataStore largeDataStore;
+    private final ByteChunkPool chunkPool;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private final byte[] singleByte = new byte[1];
+    private int lastChunkLength;
+    private int smallLength;
+    private byte[] small;
     private OutputStream largeOutputStream;
     private long length;
 
     public LimitOutputStream(LargeDataStore largeDataStore, long maxSizeToStore) {
+        this(largeDataStore, maxSizeToStore, null);
+    }
+
+    public LimitOutputStream(LargeDataStore largeDataStore, long maxSizeToStore, ByteChunkPool chunkPool) {
         this.largeDataStore = largeDataStore;
-        this.maxSizeToStore = (int) maxSizeToStore;
-        this.smallOutputStream = new ByteArrayOutputStream((int) maxSizeToStore);
+        this.maxSizeToStore = maxSizeToStore;
+        this.chunkPool = chunkPool;
         this.length = 0;
     }
 
@@ -29,43 +44,89 @@ public class LimitOutputStream extends OutputStream {
             }
 
             largeOutputStream = largeDataStore.createOutputStream();
-            if (smallOutputStream.size() > 0) {
-                largeOutputStream.write(smallOutputStream.toByteArray());
+            for (int i = 0; i < chunks.size(); i++) {
+                byte[] chunk = chunks.get(i);
+                largeOutputStream.write(chunk, 0, i == chunks.size() - 1 ? lastChunkLength : chunk.length);
             }
+            releaseChunks();
             return largeOutputStream;
         }
     }
 
     @Override
     public void write(int b) throws IOException {
-        if (this.smallOutputStream.size() <= maxSizeToStore - 1) {
-            this.smallOutputStream.write(b);
-        } else {
-            getLargeOutputStream().write(b);
-        }
-        length++;
+        singleByte[0] = (byte) b;
+        write(singleByte, 0, 1);
     }
 
     @Override
     public void write(byte[] b) throws IOException {
-        if (this.smallOutputStream.size() <= maxSizeToStore - b.length) {
-            this.smallOutputStream.write(b);
-        } else {
-            getLargeOutputStream().write(b);
-        }
-        length += b.length;
+        write(b, 0, b.length);
     }
 
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
-        if (this.smallOutputStream.size() <= maxSizeToStore - len) {
-            this.smallOutputStream.write(b, off, len);
-        } else {
-            getLargeOutputStream().write(b, off, len);
+        int written = 0;
+        if (this.largeOutputStream == null && this.smallLength + (long) len <= maxSizeToStore) {
+            written = writeSmall(b, off, len);
+        }
+        if (written < len) {
+            getLargeOutputStream().write(b, off + written, len - written);
         }
         length += len;
     }
 
+    private int writeSmall(byte[] b, int off, int len) {
+        int written = 0;
+        while (written < len) {
+            if (chunks.isEmpty() || lastChunkLength == chunks.get(chunks.size() - 1).length) {
+                byte[] chunk = acquireChunk();
+                if (chunk == null) {
+                    break;
+                }
+                chunks.add(chunk);
+                lastChunkLength = 0;
+            }
+            byte[] chunk = chunks.get(chunks.size() - 1);
+            int count = Math.min(len - written, chunk.length - lastChunkLength);
+            System.arraycopy(b, off + written, chunk, lastChunkLength, count);
+            lastChunkLength += count;
+            smallLength += count;
+            written += count;
+        }
+        return written;
+    }
+
+    private byte[] acquireChunk() {
+        if (chunkPool != null) {
+            return chunkPool.tryAcquire();
+        }
+        return new byte[(int) Math.min(ByteChunkPool.DEFAULT_CHUNK_SIZE, maxSizeToStore - smallLength)];
+    }
+
+    private void releaseChunks() {
+        if (chunkPool != null) {
+            for (byte[] chunk : chunks) {
+                chunkPool.release(chunk);
+            }
+        }
+        chunks.clear();
+        lastChunkLength = 0;
+        smallLength = 0;
+    }
+
+    private byte[] copySmall() {
+        byte[] result = new byte[smallLength];
+        int offset = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            byte[] chunk = chunks.get(i);
+            int count = i == chunks.size() - 1 ? lastChunkLength : chunk.length;
+            System.arraycopy(chunk, 0, result, offset, count);
+            offset += count;
+        }
+        return result;
+    }
+
     public boolean hasExceededSizeLimit() {
         return this.largeOutputStream != null;
     }
@@ -74,7 +135,10 @@ public class LimitOutputStream extends OutputStream {
         if (hasExceededSizeLimit()) {
             return null;
         }
-        return this.smallOutputStream.toByteArray();
+        if (this.small != null) {
+            return this.small;
+        }
+        return copySmall();
     }
 
     @Override
@@ -85,12 +149,17 @@ public class LimitOutputStream extends OutputStream {
         super.close();
     }
 
+    /**
+     * Closes the large data store stream, or copies the buffered data so the chunks can be returned to the pool.
+     */
     @Override
     public void close() throws IOException {
         if (this.largeOutputStream != null) {
             this.largeOutputStream.close();
+        } else if (this.small == null) {
+            this.small = copySmall();
+            releaseChunks();
         }
-        this.smallOutputStream.close();
         super.close();
     }
 
@@ -19,6 +19,24 @@ public class StreamUtils {
         return count;
     }
 
+    /**
+     * Skips count bytes or up to the end of the stream and returns the number of bytes skipped.
+     */
+    public static long skip(InputStream input, long count) throws IOException {
+        long total = 0;
+        while (total < count) {
+            long skipped = input.skip(count - total);
+            if (skipped <= 0) {
+                if (input.read() == -1) {
+                    break;
+                }
+                skipped = 1;
+            }
+            total += skipped;
+        }
+        return total;
+    }
+
     public static byte[] toBytes(InputStream in) throws IOException {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         copy(in, out);
@@ -0,0 +1,135 @@
+package org.securegraph.search;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.securegraph.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class AsyncSearchIndexTest {
+    private static final Authorizations AUTHORIZATIONS = new Authorizations() {
+        @Override
+        public boolean canRead(Visibility visibility) {
+            return true;
+        }
+
+        @Override
+        public String[] getAuthorizations() {
+            return new String[0];
+        }
+
+        @Override
+        public boolean equals(Authorizations authorizations) {
+            return authorizations == this;
+        }
+    };
+
+    @Test
+    public void testCollapseAndBatch() throws Exception {
+        RecordingSearchIndex recordingSearchIndex = new RecordingSearchIndex();
+        AsyncSearchIndex searchIndex = new AsyncSearchIndex(recordingSearchIndex, 1, 100, 100);
+        try {
+            searchIndex.addElement(null, createVertex("v0"), AUTHORIZATIONS);
+            recordingSearchIndex.started.await();
+
+            // queued while v0 is being sent
+            searchIndex.addElement(null, createVertex("v1"), AUTHORIZATIONS);
+            searchIndex.addElement(null, createVertex("v2"), AUTHORIZATIONS);
+            searchIndex.addElement(null, createVertex("v1"), AUTHORIZATIONS);
+            searchIndex.removeElement(null, createVertex("v2"), AUTHORIZATIONS);
+            searchIndex.addElement(null, createVertex("v2"), AUTHORIZATIONS);
+            recordingSearchIndex.release.countDown();
+            searchIndex.flush();
+
+            List<String> expected = new ArrayList<>();
+            expected.add("add v0");
+            expected.add("addAll [v1, v2]");
+            expected.add("remove v2");
+            expected.add("add v2");
+            assertEquals(expected, recordingSearchIndex.calls);
+        } finally {
+            searchIndex.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailureThrownOnFlush() throws Exception {
+        RecordingSearchIndex recordingSearchIndex = new RecordingSearchIndex();
+        recordingSearchIndex.release.countDown();
+        AsyncSearchIndex searchIndex = new AsyncSearchIndex(recordingSearchIndex, 2, 100, 100);
+        try {
+            searchIndex.removeElement(null, createVertex("fail"), AUTHORIZATIONS);
+            try {
+                searchIndex.flush();
+                fail("expected failure");
+            } catch (SecureGraphException ex) {
+                assertEquals("remove failed", ex.getCause().getMessage());
+            }
+            searchIndex.flush();
+        } finally {
+            searchIndex.shutdown();
+        }
+    }
+
+    private static Vertex createVertex(final String id) {
+        return (Vertex) Proxy.newProxyInstance(Vertex.class.getClassLoader(), new Class[]{Vertex.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("getId") || method.getName().equals("toString")) {
+                    return id;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static class RecordingSearchIndex extends DefaultSearchIndex {
+        private final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        public RecordingSearchIndex() {
+            super(new GraphConfiguration(new HashMap()));
+        }
+
+        @Override
+        public void addElement(Graph graph, Element element, Authorizations authorizations) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                throw new SecureGraphException("interrupted", ex);
+            }
+            calls.add("add " + element.getId());
+        }
+
+        @Override
+        public void addElements(Graph graph, Iterable<? extends Element> elements, Authorizations authorizations) {
+            List<Object> ids = new ArrayList<>();
+            for (Element element : elements) {
+                ids.add(element.getId());
+            }
+            calls.add("addAll " + ids);
+        }
+
+        @Override
+        public void removeElement(Graph graph, Element element, Authorizations authorizations) {
+            if (element.getId().equals("fail")) {
+                throw new SecureGraphException("remove failed");
+            }
+            calls.add("remove " + element.getId());
+        }
+    }
+}
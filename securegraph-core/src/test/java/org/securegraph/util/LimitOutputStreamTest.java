@@ -0,0 +1,72 @@
+package org.securegraph.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class LimitOutputStreamTest {
+    @Test
+    public void testSmall() throws IOException {
+        RecordingLargeDataStore largeDataStore = new RecordingLargeDataStore();
+        LimitOutputStream out = new LimitOutputStream(largeDataStore, 10 * 1024 * 1024);
+        out.write("hello ".getBytes());
+        out.write('w');
+        out.write("xorldx".getBytes(), 1, 4);
+        out.close();
+
+        assertFalse(out.hasExceededSizeLimit());
+        assertEquals("hello world", new String(out.getSmall()));
+        assertEquals(11, out.getLength());
+        assertNull(largeDataStore.out);
+    }
+
+    @Test
+    public void testLarge() throws IOException {
+        RecordingLargeDataStore largeDataStore = new RecordingLargeDataStore();
+        LimitOutputStream out = new LimitOutputStream(largeDataStore, 8, new ByteChunkPool(3, 100));
+        out.write("hello ".getBytes());
+        out.write("world".getBytes());
+        out.close();
+
+        assertTrue(out.hasExceededSizeLimit());
+        assertNull(out.getSmall());
+        assertEquals("hello world", largeDataStore.out.toString());
+        assertEquals(11, out.getLength());
+    }
+
+    @Test
+    public void testPoolExhausted() throws IOException {
+        ByteChunkPool pool = new ByteChunkPool(4, 8);
+        LimitOutputStream first = new LimitOutputStream(new RecordingLargeDataStore(), 100, pool);
+        first.write("12345678".getBytes());
+        assertEquals(8, pool.getAcquiredBytes());
+
+        RecordingLargeDataStore largeDataStore = new RecordingLargeDataStore();
+        LimitOutputStream second = new LimitOutputStream(largeDataStore, 100, pool);
+        second.write("abc".getBytes());
+        second.close();
+        assertTrue(second.hasExceededSizeLimit());
+        assertEquals("abc", largeDataStore.out.toString());
+
+        first.close();
+        assertEquals("12345678", new String(first.getSmall()));
+        assertEquals(0, pool.getAcquiredBytes());
+    }
+
+    private static class RecordingLargeDataStore extends LimitOutputStream.LargeDataStore {
+        private ByteArrayOutputStream out;
+
+        @Override
+        public OutputStream createOutputStream() throws IOException {
+            out = new ByteArrayOutputStream();
+            return out;
+        }
+    }
+}
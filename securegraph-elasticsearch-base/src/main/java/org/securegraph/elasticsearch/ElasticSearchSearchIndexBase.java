@@ -299,6 +299,13 @@ public abstract class ElasticSearchSearchIndexBase implements SearchIndex {
     @Override
     public abstract void removeElement(Graph graph, Element element, Authorizations authorizations);
 
+    @Override
+    public void removeElements(Graph graph, Iterable<? extends Element> elements, Authorizations authorizations) {
+        for (Element element : elements) {
+            removeElement(graph, element, authorizations);
+        }
+    }
+
     @Override
     public void removeProperty(Graph graph, Element element, Property property, Authorizations authorizations) {
         removeProperty(graph, element, property.getKey(), property.getName(), property.getVisibility(), authorizations);
@@ -514,6 +521,9 @@ public abstract class ElasticSearchSearchIndexBase implements SearchIndex {
     }
 
     protected void doBulkRequest(BulkRequest bulkRequest) {
+        if (bulkRequest.numberOfActions() == 0) {
+            return;
+        }
         BulkResponse response = getClient().bulk(bulkRequest).actionGet();
         if (response.hasFailures()) {
             for (BulkItemResponse bulkResponse : response) {
@@ -25,6 +25,16 @@ public class ElasticSearchSearchIndexConfiguration {
     public static final int DEFAULT_PORT = 9300;
     public static final String CONFIG_SCORING_STRATEGY_CLASS_NAME = "scoringStrategy";
     public static final Class<? extends ScoringStrategy> DEFAULT_SCORING_STRATEGY = EdgeCountScoringStrategy.class;
+    public static final String CONFIG_PARTIAL_UPDATES = "partialUpdates";
+    public static final boolean DEFAULT_PARTIAL_UPDATES = false;
+    public static final String CONFIG_BULK_MAX_ACTIONS = "bulkMaxActions";
+    public static final int DEFAULT_BULK_MAX_ACTIONS = 1000;
+    public static final String CONFIG_BULK_MAX_SIZE = "bulkMaxSize";
+    public static final long DEFAULT_BULK_MAX_SIZE = 5 * 1024 * 1024;
+    public static final String CONFIG_BULK_CONCURRENT_REQUESTS = "bulkConcurrentRequests";
+    public static final int DEFAULT_BULK_CONCURRENT_REQUESTS = 2;
+    public static final String CONFIG_BULK_MAX_RETRIES = "bulkMaxRetries";
+    public static final int DEFAULT_BULK_MAX_RETRIES = 5;
 
     private final boolean autoFlush;
     private final boolean storeSourceData;
@@ -34,6 +44,11 @@ public class ElasticSearchSearchIndexConfiguration {
     private final boolean indexEdges;
     private final String clusterName;
     private final int port;
+    private final boolean partialUpdates;
+    private final int bulkMaxActions;
+    private final long bulkMaxSize;
+    private final int bulkConcurrentRequests;
+    private final int bulkMaxRetries;
     private ScoringStrategy scoringStrategy;
 
     public ElasticSearchSearchIndexConfiguration(GraphConfiguration config) {
@@ -41,10 +56,15 @@ public class ElasticSearchSearchIndexConfiguration {
         defaultIndexName = getDefaultIndexName(config);
         indicesToQuery = getIndicesToQuery(config, defaultIndexName);
         indexEdges = getIndexEdges(config);
-        storeSourceData = getStoreSourceData(config);
+        partialUpdates = getPartialUpdates(config);
+        storeSourceData = getStoreSourceData(config, partialUpdates);
         autoFlush = getAutoFlush(config);
         clusterName = getClusterName(config);
         port = getPort(config);
+        bulkMaxActions = config.getInt(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + CONFIG_BULK_MAX_ACTIONS, DEFAULT_BULK_MAX_ACTIONS);
+        bulkMaxSize = config.getConfigLong(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + CONFIG_BULK_MAX_SIZE, DEFAULT_BULK_MAX_SIZE);
+        bulkConcurrentRequests = config.getInt(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + CONFIG_BULK_CONCURRENT_REQUESTS, DEFAULT_BULK_CONCURRENT_REQUESTS);
+        bulkMaxRetries = config.getInt(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + CONFIG_BULK_MAX_RETRIES, DEFAULT_BULK_MAX_RETRIES);
         scoringStrategy = getScoringStrategy(config);
     }
 
@@ -84,14 +104,27 @@ public class ElasticSearchSearchIndexConfiguration {
         return scoringStrategy;
     }
 
+    /**
+     * Index added elements with partial updates of the fields of the properties they carry instead of requerying the
+     * graph and replacing the whole document. The visibility of the document is merged with the stored one. Partial
+     * updates need the document source so they turn on {@link #isStoreSourceData()}.
+     */
+    public boolean isPartialUpdates() {
+        return partialUpdates;
+    }
+
     private static boolean getAutoFlush(GraphConfiguration config) {
         boolean autoFlush = config.getBoolean(GraphConfiguration.AUTO_FLUSH, DEFAULT_AUTO_FLUSH);
         LOGGER.info("Auto flush: " + autoFlush);
         return autoFlush;
     }
 
-    private static boolean getStoreSourceData(GraphConfiguration config) {
+    private static boolean getStoreSourceData(GraphConfiguration config, boolean partialUpdates) {
         boolean storeSourceData = config.getBoolean(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + CONFIG_STORE_SOURCE_DATA, DEFAULT_STORE_SOURCE_DATA);
+        if (!storeSourceData && partialUpdates) {
+            LOGGER.warn(CONFIG_PARTIAL_UPDATES + " requires the document source, enabling " + CONFIG_STORE_SOURCE_DATA);
+            storeSourceData = true;
+        }
         LOGGER.info("Store source data: " + storeSourceData);
         return storeSourceData;
     }
@@ -153,6 +186,40 @@ public class ElasticSearchSearchIndexConfiguration {
         return port;
     }
 
+    /**
+     * Number of actions after which a bulk request of addElements is sent.
+     */
+    public int getBulkMaxActions() {
+        return bulkMaxActions;
+    }
+
+    /**
+     * Size in bytes after which a bulk request of addElements is sent.
+     */
+    public long getBulkMaxSize() {
+        return bulkMaxSize;
+    }
+
+    /**
+     * Number of bulk requests addElements keeps in flight while it builds the next one.
+     */
+    public int getBulkConcurrentRequests() {
+        return bulkConcurrentRequests;
+    }
+
+    /**
+     * Number of times items rejected by a full Elasticsearch bulk queue are sent again.
+     */
+    public int getBulkMaxRetries() {
+        return bulkMaxRetries;
+    }
+
+    private static boolean getPartialUpdates(GraphConfiguration config) {
+        boolean partialUpdates = config.getBoolean(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + CONFIG_PARTIAL_UPDATES, DEFAULT_PARTIAL_UPDATES);
+        LOGGER.info("Partial updates: " + partialUpdates);
+        return partialUpdates;
+    }
+
     private static ScoringStrategy getScoringStrategy(GraphConfiguration config) {
         String className = config.getString(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + CONFIG_SCORING_STRATEGY_CLASS_NAME, DEFAULT_SCORING_STRATEGY.getName());
         return ConfigurationUtils.createProvider(className, config);
@@ -0,0 +1,249 @@
+package org.securegraph.elasticsearch;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.rest.RestStatus;
+import org.securegraph.SecureGraphException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends requests through a {@link BulkProcessor} which flushes on action count and size and keeps several bulk
+ * requests in flight. Items Elasticsearch rejects because its bulk queue is full are sent again with a growing delay
+ * once the other requests have completed. Items which failed because their document changed after it was read are
+ * recreated by a {@link ConflictHandler} and sent again. The latency of each batch and the overall throughput are
+ * logged.
+ */
+public class RetryingBulkProcessor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetryingBulkProcessor.class);
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 50;
+    private final Client client;
+    private final int bulkActions;
+    private final ByteSizeValue bulkSize;
+    private final int concurrentRequests;
+    private final int maxRetries;
+    private final ConflictHandler conflictHandler;
+    private final int maxConflictRetries;
+    private final Map<Long, Long> batchStartTimes = new ConcurrentHashMap<>();
+    private final List<ActionRequest> rejectedRequests = new ArrayList<>();
+    private final List<ActionRequest> conflictingRequests = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+    private BulkProcessor bulkProcessor;
+    private long startTime;
+    private long batchCount;
+    private long actionCount;
+    private long byteCount;
+    private long totalLatencyMillis;
+
+    public RetryingBulkProcessor(Client client, int bulkActions, long bulkSizeBytes, int concurrentRequests, int maxRetries) {
+        this(client, bulkActions, bulkSizeBytes, concurrentRequests, maxRetries, null, 0);
+    }
+
+    /**
+     * @param conflictHandler recreates items failing with a version conflict, null to count them as failed
+     */
+    public RetryingBulkProcessor(Client client, int bulkActions, long bulkSizeBytes, int concurrentRequests, int maxRetries, ConflictHandler conflictHandler, int maxConflictRetries) {
+        this.client = client;
+        this.bulkActions = bulkActions;
+        this.bulkSize = new ByteSizeValue(bulkSizeBytes);
+        this.concurrentRequests = concurrentRequests;
+        this.maxRetries = maxRetries;
+        this.conflictHandler = conflictHandler;
+        this.maxConflictRetries = maxConflictRetries;
+    }
+
+    public void add(ActionRequest request) {
+        if (bulkProcessor == null) {
+            startTime = System.currentTimeMillis();
+            bulkProcessor = createBulkProcessor();
+        }
+        bulkProcessor.add(request);
+    }
+
+    public void add(BulkRequest bulkRequest) {
+        for (ActionRequest request : bulkRequest.requests()) {
+            add(request);
+        }
+    }
+
+    /**
+     * Waits for all requests, retrying rejected and conflicting ones, and throws if any item could not be indexed.
+     */
+    public void close() {
+        if (bulkProcessor == null) {
+            return;
+        }
+        awaitClose();
+        long retryDelay = INITIAL_RETRY_DELAY_MILLIS;
+        int rejectedRetry = 0;
+        int conflictRetry = 0;
+        while (true) {
+            List<ActionRequest> retryRequests = new ArrayList<>();
+            List<ActionRequest> conflictRetryRequests = new ArrayList<>();
+            synchronized (this) {
+                if (rejectedRetry < maxRetries) {
+                    retryRequests.addAll(rejectedRequests);
+                    rejectedRequests.clear();
+                }
+                if (conflictRetry < maxConflictRetries) {
+                    conflictRetryRequests.addAll(conflictingRequests);
+                    conflictingRequests.clear();
+                }
+            }
+            if (retryRequests.isEmpty() && conflictRetryRequests.isEmpty()) {
+                break;
+            }
+            if (!retryRequests.isEmpty()) {
+                rejectedRetry++;
+                LOGGER.debug("retrying " + retryRequests.size() + " rejected requests (attempt " + rejectedRetry + ")");
+                sleep(retryDelay);
+                retryDelay *= 2;
+            }
+            if (!conflictRetryRequests.isEmpty()) {
+                conflictRetry++;
+                LOGGER.debug("retrying " + conflictRetryRequests.size() + " conflicting requests (attempt " + conflictRetry + ")");
+                for (ActionRequest request : conflictRetryRequests) {
+                    ActionRequest retryRequest = conflictHandler.createRetryRequest(request);
+                    if (retryRequest == null) {
+                        synchronized (this) {
+                            failures.add("conflicting request " + request);
+                        }
+                    } else {
+                        retryRequests.add(retryRequest);
+                    }
+                }
+            }
+            bulkProcessor = createBulkProcessor();
+            for (ActionRequest request : retryRequests) {
+                bulkProcessor.add(request);
+            }
+            awaitClose();
+        }
+        bulkProcessor = null;
+
+        long elapsedMillis = Math.max(1, System.currentTimeMillis() - startTime);
+        synchronized (this) {
+            LOGGER.info(String.format(
+                    "bulk indexed %d actions (%d bytes) in %d batches in %d ms (%.1f actions/s, average batch latency %d ms)",
+                    actionCount, byteCount, batchCount, elapsedMillis, actionCount * 1000.0 / elapsedMillis,
+                    batchCount == 0 ? 0 : totalLatencyMillis / batchCount
+            ));
+            for (ActionRequest request : rejectedRequests) {
+                failures.add("rejected after " + maxRetries + " retries: " + request);
+            }
+            rejectedRequests.clear();
+            for (ActionRequest request : conflictingRequests) {
+                failures.add("conflicting after " + maxConflictRetries + " retries: " + request);
+            }
+            conflictingRequests.clear();
+            if (failures.size() > 0) {
+                for (String failure : failures) {
+                    LOGGER.error("Failed to index " + failure);
+                }
+                int failureCount = failures.size();
+                failures.clear();
+                throw new SecureGraphException("Could not add " + failureCount + " elements.");
+            }
+        }
+    }
+
+    private BulkProcessor createBulkProcessor() {
+        return BulkProcessor.builder(client, new BulkProcessor.Listener() {
+            @Override
+            public void beforeBulk(long executionId, BulkRequest request) {
+                batchStartTimes.put(executionId, System.currentTimeMillis());
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+                long latency = batchCompleted(executionId, request);
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("bulk request " + executionId + ": " + request.numberOfActions() + " actions in " + latency + " ms");
+                }
+                if (!response.hasFailures()) {
+                    return;
+                }
+                synchronized (RetryingBulkProcessor.this) {
+                    for (BulkItemResponse item : response) {
+                        if (!item.isFailed()) {
+                            continue;
+                        }
+                        if (item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS) {
+                            rejectedRequests.add(request.requests().get(item.getItemId()));
+                        } else if (item.getFailure().getStatus() == RestStatus.CONFLICT && conflictHandler != null) {
+                            conflictingRequests.add(request.requests().get(item.getItemId()));
+                        } else {
+                            failures.add(item.getId() + " (message: " + item.getFailureMessage() + ")");
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+                batchCompleted(executionId, request);
+                synchronized (RetryingBulkProcessor.this) {
+                    if (ExceptionsHelper.unwrap(failure, EsRejectedExecutionException.class) != null) {
+                        rejectedRequests.addAll(request.requests());
+                    } else {
+                        LOGGER.error("bulk request " + executionId + " failed", failure);
+                        failures.add(request.numberOfActions() + " actions of bulk request " + executionId + " (message: " + failure.getMessage() + ")");
+                    }
+                }
+            }
+        })
+                .setBulkActions(bulkActions)
+                .setBulkSize(bulkSize)
+                .setConcurrentRequests(concurrentRequests)
+                .build();
+    }
+
+    private synchronized long batchCompleted(long executionId, BulkRequest request) {
+        Long batchStartTime = batchStartTimes.remove(executionId);
+        long latency = batchStartTime == null ? 0 : System.currentTimeMillis() - batchStartTime;
+        batchCount++;
+        actionCount += request.numberOfActions();
+        byteCount += request.estimatedSizeInBytes();
+        totalLatencyMillis += latency;
+        return latency;
+    }
+
+    private void awaitClose() {
+        try {
+            bulkProcessor.awaitClose(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SecureGraphException("Interrupted waiting for bulk requests", ex);
+        }
+    }
+
+    public interface ConflictHandler {
+        /**
+         * Reads the document of a request which failed with a version conflict again and creates the request to send
+         * in its place, or returns null to count it as failed.
+         */
+        ActionRequest createRetryRequest(ActionRequest request);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SecureGraphException("Interrupted waiting to retry bulk requests", ex);
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package org.securegraph.elasticsearch;
 
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.rest.RestStatus;
 import org.securegraph.*;
+import org.securegraph.elasticsearch.utils.GetResponseUtil;
 import org.securegraph.property.StreamingPropertyValue;
 import org.securegraph.query.GraphQuery;
 import org.securegraph.type.GeoPoint;
@@ -17,13 +27,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 public class ElasticSearchSearchIndex extends ElasticSearchSearchIndexBase {
     private static final Logger LOGGER = LoggerFactory.getLogger(ElasticSearchSearchIndexBase.class);
+    private static final int MAX_BULK_REMOVE_SIZE = 1000;
+    private static final int MAX_UPDATE_RETRIES = 5;
 
     public ElasticSearchSearchIndex(GraphConfiguration config) {
         super(config);
@@ -31,6 +40,18 @@ public class ElasticSearchSearchIndex extends ElasticSearchSearchIndexBase {
 
     @Override
     public void addElement(Graph graph, Element element, Authorizations authorizations) {
+        addElement(graph, element, authorizations, isPartialUpdate(element));
+    }
+
+    /**
+     * A partial update cannot drop the field of a removed property so the document is replaced.
+     */
+    @Override
+    public void removeProperty(Graph graph, Element element, String propertyKey, String propertyName, Visibility propertyVisibility, Authorizations authorizations) {
+        addElement(graph, element, authorizations, false);
+    }
+
+    private void addElement(Graph graph, Element element, Authorizations authorizations, boolean partialUpdate) {
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("addElement: " + element.getId());
         }
@@ -41,15 +62,18 @@ public class ElasticSearchSearchIndex extends ElasticSearchSearchIndexBase {
         IndexInfo indexInfo = addPropertiesToIndex(element, element.getProperties());
 
         try {
-            XContentBuilder jsonBuilder = buildJsonContentFromElement(graph, indexInfo, element, authorizations);
-
-            IndexResponse response = getClient()
-                    .prepareIndex(indexInfo.getIndexName(), ElasticSearchSearchIndexBase.ELEMENT_TYPE, element.getId())
-                    .setSource(jsonBuilder.endObject())
-                    .execute()
-                    .actionGet();
-            if (response.getId() == null) {
-                throw new SecureGraphException("Could not index document " + element.getId());
+            if (partialUpdate) {
+                updateElementDocument(graph, indexInfo, element, authorizations);
+            } else {
+                XContentBuilder jsonBuilder = buildJsonContentFromElement(graph, indexInfo, element, authorizations, true, new HashSet<String>());
+                IndexResponse response = getClient()
+                        .prepareIndex(indexInfo.getIndexName(), ElasticSearchSearchIndexBase.ELEMENT_TYPE, element.getId())
+                        .setSource(jsonBuilder.endObject())
+                        .execute()
+                        .actionGet();
+                if (response.getId() == null) {
+                    throw new SecureGraphException("Could not index document " + element.getId());
+                }
             }
 
             if (getConfig().isAutoFlush()) {
@@ -62,17 +86,242 @@ public class ElasticSearchSearchIndex extends ElasticSearchSearchIndexBase {
         getConfig().getScoringStrategy().addElement(this, graph, element, authorizations);
     }
 
+    /**
+     * Elements without properties may have been fetched without them, so they are merged with the stored element.
+     */
+    private boolean isPartialUpdate(Element element) {
+        return getConfig().isPartialUpdates() && element.getProperties().iterator().hasNext();
+    }
+
+    /**
+     * Sends a partial update made against the version of the stored document which was read, reading it again when
+     * another write changed the document in the meantime.
+     */
+    private void updateElementDocument(Graph graph, IndexInfo indexInfo, Element element, Authorizations authorizations) throws IOException {
+        for (int retry = 0; ; retry++) {
+            ActionRequest request = createPartialUpdateRequest(graph, indexInfo, element, authorizations);
+            try {
+                if (request instanceof UpdateRequest) {
+                    getClient().update((UpdateRequest) request).actionGet();
+                } else {
+                    getClient().index((IndexRequest) request).actionGet();
+                }
+                return;
+            } catch (ElasticsearchException ex) {
+                if (ex.status() != RestStatus.CONFLICT || retry >= MAX_UPDATE_RETRIES) {
+                    throw ex;
+                }
+                LOGGER.debug("document " + element.getId() + " changed while updating it, retrying");
+            }
+        }
+    }
+
+    /**
+     * The element only carries the properties the saving user can read while the stored document keeps the fields of
+     * all other properties, so the stored visibility is kept as part of the new one. A missing document is created
+     * and an existing one is updated only if it is still at the version which was read.
+     */
+    private ActionRequest createPartialUpdateRequest(Graph graph, IndexInfo indexInfo, Element element, Authorizations authorizations) throws IOException {
+        GetResponse existingDocument = getClient()
+                .prepareGet(indexInfo.getIndexName(), ELEMENT_TYPE, element.getId())
+                .setFields(VISIBILITY_FIELD_NAME)
+                .execute()
+                .actionGet();
+        return createPartialUpdateRequest(graph, indexInfo, element, existingDocument, authorizations);
+    }
+
+    private ActionRequest createPartialUpdateRequest(Graph graph, IndexInfo indexInfo, Element element, GetResponse existingDocument, Authorizations authorizations) throws IOException {
+        Set<String> visibilityStrings = new HashSet<>();
+        if (existingDocument.isExists()) {
+            visibilityStrings.addAll(splitVisibility(GetResponseUtil.getFieldValueString(existingDocument, VISIBILITY_FIELD_NAME)));
+        }
+        XContentBuilder json = buildJsonContentFromElement(graph, indexInfo, element, authorizations, false, visibilityStrings).endObject();
+        if (existingDocument.isExists()) {
+            UpdateRequest updateRequest = new UpdateRequest(indexInfo.getIndexName(), ELEMENT_TYPE, element.getId()).doc(json);
+            updateRequest.version(existingDocument.getVersion());
+            return updateRequest;
+        }
+        return new IndexRequest(indexInfo.getIndexName(), ELEMENT_TYPE, element.getId()).source(json).create(true);
+    }
+
+    /**
+     * Splits a visibility written by {@link Visibility#and(Set)} back into the visibilities it was made of.
+     */
+    static Set<String> splitVisibility(String visibilityString) {
+        Set<String> results = new HashSet<>();
+        if (visibilityString == null || visibilityString.length() == 0) {
+            return results;
+        }
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i <= visibilityString.length(); i++) {
+            char c = i < visibilityString.length() ? visibilityString.charAt(i) : '&';
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '&' && depth == 0) {
+                String part = visibilityString.substring(start, i);
+                if (part.startsWith("(") && part.endsWith(")")) {
+                    part = part.substring(1, part.length() - 1);
+                }
+                results.add(part);
+                start = i + 1;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Partial updates made in a bulk request are sent against the version which was read, a concurrent write fails
+     * the item instead of dropping the visibility it added.
+     */
     @Override
     public void addElementToBulkRequest(Graph graph, BulkRequest bulkRequest, IndexInfo indexInfo, Element element, Authorizations authorizations) {
         try {
-            XContentBuilder json = buildJsonContentFromElement(graph, indexInfo, element, authorizations);
-            IndexRequest indexRequest = new IndexRequest(indexInfo.getIndexName(), ELEMENT_TYPE, element.getId()).source(json);
-            bulkRequest.add(indexRequest);
+            if (isPartialUpdate(element)) {
+                bulkRequest.add(createPartialUpdateRequest(graph, indexInfo, element, authorizations));
+            } else {
+                XContentBuilder json = buildJsonContentFromElement(graph, indexInfo, element, authorizations, true, new HashSet<String>());
+                IndexRequest indexRequest = new IndexRequest(indexInfo.getIndexName(), ELEMENT_TYPE, element.getId()).source(json);
+                bulkRequest.add(indexRequest);
+            }
         } catch (IOException ex) {
             throw new SecureGraphException("Could not add element to bulk request", ex);
         }
     }
 
+    /**
+     * The stored visibilities partial updates are merged with are read with one multi get per batch of elements.
+     */
+    @Override
+    public void addElements(Graph graph, Iterable<? extends Element> elements, Authorizations authorizations) {
+        RetryingBulkProcessor bulkProcessor = createBulkProcessor();
+        int count = 0;
+        List<Element> partialUpdateElements = new ArrayList<>();
+        try {
+            for (Element element : elements) {
+                if (!getConfig().isIndexEdges() && element instanceof Edge) {
+                    continue;
+                }
+                if (isPartialUpdate(element)) {
+                    partialUpdateElements.add(element);
+                    if (partialUpdateElements.size() >= getConfig().getBulkMaxActions()) {
+                        addPartialUpdatesToBulkProcessor(graph, partialUpdateElements, bulkProcessor, authorizations);
+                        partialUpdateElements.clear();
+                    }
+                } else {
+                    IndexInfo indexInfo = addPropertiesToIndex(element, element.getProperties());
+                    addElementToBulkProcessor(graph, indexInfo, element, null, bulkProcessor, authorizations);
+                }
+                count++;
+            }
+            addPartialUpdatesToBulkProcessor(graph, partialUpdateElements, bulkProcessor, authorizations);
+        } finally {
+            bulkProcessor.close();
+        }
+        LOGGER.debug("added " + count + " elements");
+
+        if (getConfig().isAutoFlush()) {
+            flush();
+        }
+    }
+
+    RetryingBulkProcessor createBulkProcessor() {
+        return new RetryingBulkProcessor(
+                getClient(),
+                getConfig().getBulkMaxActions(),
+                getConfig().getBulkMaxSize(),
+                getConfig().getBulkConcurrentRequests(),
+                getConfig().getBulkMaxRetries(),
+                new RetryingBulkProcessor.ConflictHandler() {
+                    @Override
+                    public ActionRequest createRetryRequest(ActionRequest request) {
+                        return createConflictRetryRequest(request);
+                    }
+                },
+                MAX_UPDATE_RETRIES
+        );
+    }
+
+    /**
+     * Reads the stored visibility of a partial update which conflicted with another write again and merges it into
+     * the visibility of the update, like {@link #updateElementDocument} does.
+     */
+    private ActionRequest createConflictRetryRequest(ActionRequest request) {
+        String indexName;
+        String id;
+        Map<String, Object> source;
+        if (request instanceof UpdateRequest) {
+            UpdateRequest updateRequest = (UpdateRequest) request;
+            indexName = updateRequest.index();
+            id = updateRequest.id();
+            source = updateRequest.doc().sourceAsMap();
+        } else if (request instanceof IndexRequest) {
+            IndexRequest indexRequest = (IndexRequest) request;
+            indexName = indexRequest.index();
+            id = indexRequest.id();
+            source = indexRequest.sourceAsMap();
+        } else {
+            return null;
+        }
+        LOGGER.debug("document " + id + " changed while updating it, retrying");
+        GetResponse existingDocument = getClient()
+                .prepareGet(indexName, ELEMENT_TYPE, id)
+                .setFields(VISIBILITY_FIELD_NAME)
+                .execute()
+                .actionGet();
+        Set<String> visibilityStrings = splitVisibility((String) source.get(VISIBILITY_FIELD_NAME));
+        if (existingDocument.isExists()) {
+            visibilityStrings.addAll(splitVisibility(GetResponseUtil.getFieldValueString(existingDocument, VISIBILITY_FIELD_NAME)));
+        }
+        source.put(VISIBILITY_FIELD_NAME, Visibility.and(visibilityStrings).getVisibilityString());
+        if (existingDocument.isExists()) {
+            UpdateRequest updateRequest = new UpdateRequest(indexName, ELEMENT_TYPE, id).doc(source);
+            updateRequest.version(existingDocument.getVersion());
+            return updateRequest;
+        }
+        return new IndexRequest(indexName, ELEMENT_TYPE, id).source(source).create(true);
+    }
+
+    private void addPartialUpdatesToBulkProcessor(Graph graph, List<Element> elements, RetryingBulkProcessor bulkProcessor, Authorizations authorizations) {
+        if (elements.size() == 0) {
+            return;
+        }
+        List<IndexInfo> indexInfos = new ArrayList<>();
+        MultiGetRequestBuilder multiGetRequest = getClient().prepareMultiGet();
+        for (Element element : elements) {
+            IndexInfo indexInfo = addPropertiesToIndex(element, element.getProperties());
+            indexInfos.add(indexInfo);
+            multiGetRequest.add(new MultiGetRequest.Item(indexInfo.getIndexName(), ELEMENT_TYPE, element.getId()).fields(VISIBILITY_FIELD_NAME));
+        }
+        MultiGetItemResponse[] existingDocuments = multiGetRequest.execute().actionGet().getResponses();
+        for (int i = 0; i < elements.size(); i++) {
+            if (existingDocuments[i].isFailed()) {
+                throw new SecureGraphException("Could not read document " + existingDocuments[i].getId() + ": " + existingDocuments[i].getFailure().getMessage());
+            }
+            addElementToBulkProcessor(graph, indexInfos.get(i), elements.get(i), existingDocuments[i].getResponse(), bulkProcessor, authorizations);
+        }
+    }
+
+    /**
+     * @param existingDocument the stored document of a partial update, null to replace the document
+     */
+    private void addElementToBulkProcessor(Graph graph, IndexInfo indexInfo, Element element, GetResponse existingDocument, RetryingBulkProcessor bulkProcessor, Authorizations authorizations) {
+        BulkRequestWithCount bulkRequestWithCount = new BulkRequestWithCount();
+        if (existingDocument == null) {
+            addElementToBulkRequest(graph, bulkRequestWithCount.getBulkRequest(), indexInfo, element, authorizations);
+        } else {
+            try {
+                bulkRequestWithCount.getBulkRequest().add(createPartialUpdateRequest(graph, indexInfo, element, existingDocument, authorizations));
+            } catch (IOException ex) {
+                throw new SecureGraphException("Could not add element to bulk request", ex);
+            }
+        }
+        getConfig().getScoringStrategy().addElement(this, graph, bulkRequestWithCount, indexInfo, element, authorizations);
+        bulkProcessor.add(bulkRequestWithCount.getBulkRequest());
+    }
+
     @Override
     public void removeElement(Graph graph, Element element, Authorizations authorizations) {
         String indexName = getIndexName(element);
@@ -88,22 +337,43 @@ public class ElasticSearchSearchIndex extends ElasticSearchSearchIndexBase {
         }
     }
 
+    @Override
+    public void removeElements(Graph graph, Iterable<? extends Element> elements, Authorizations authorizations) {
+        BulkRequestWithCount bulkRequestWithCount = new BulkRequestWithCount();
+        for (Element element : elements) {
+            bulkRequestWithCount.getBulkRequest().add(new DeleteRequest(getIndexName(element), ELEMENT_TYPE, element.getId()));
+            bulkRequestWithCount.incrementCount();
+            if (bulkRequestWithCount.getCount() >= MAX_BULK_REMOVE_SIZE) {
+                doBulkRequest(bulkRequestWithCount.getBulkRequest());
+                bulkRequestWithCount.clear();
+            }
+        }
+        if (bulkRequestWithCount.getCount() > 0) {
+            doBulkRequest(bulkRequestWithCount.getBulkRequest());
+        }
+    }
+
     public String createJsonForElement(Graph graph, Element element, Authorizations authorizations) {
         try {
             String indexName = getIndexName(element);
             IndexInfo indexInfo = ensureIndexCreatedAndInitialized(indexName, getConfig().isStoreSourceData());
-            return buildJsonContentFromElement(graph, indexInfo, element, authorizations).string();
+            return buildJsonContentFromElement(graph, indexInfo, element, authorizations, true, new HashSet<String>()).string();
         } catch (Exception e) {
             throw new SecureGraphException("Could not create JSON for element", e);
         }
     }
 
-    private XContentBuilder buildJsonContentFromElement(Graph graph, IndexInfo indexInfo, Element element, Authorizations authorizations) throws IOException {
+    /**
+     * @param visibilityStrings visibilities the document visibility is made of in addition to those of the element
+     */
+    private XContentBuilder buildJsonContentFromElement(Graph graph, IndexInfo indexInfo, Element element, Authorizations authorizations, boolean requery, Set<String> visibilityStrings) throws IOException {
         XContentBuilder jsonBuilder;
         jsonBuilder = XContentFactory.jsonBuilder()
                 .startObject();
 
-        element = requeryWithAuthsAndMergedElement(graph, element, authorizations);
+        if (requery) {
+            element = requeryWithAuthsAndMergedElement(graph, element, authorizations);
+        }
 
         if (element instanceof Vertex) {
             jsonBuilder.field(ElasticSearchSearchIndexBase.ELEMENT_TYPE_FIELD_NAME, ElasticSearchSearchIndexBase.ELEMENT_TYPE_VERTEX);
@@ -115,7 +385,6 @@ public class ElasticSearchSearchIndex extends ElasticSearchSearchIndexBase {
             throw new SecureGraphException("Unexpected element type " + element.getClass().getName());
         }
 
-        Set<String> visibilityStrings = new HashSet<>();
         visibilityStrings.add(element.getVisibility().getVisibilityString());
 
         for (Property property : element.getProperties()) {
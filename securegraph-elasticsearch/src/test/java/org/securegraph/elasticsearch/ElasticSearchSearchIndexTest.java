@@ -1,6 +1,7 @@
 package org.securegraph.elasticsearch;
 
 import org.apache.commons.io.IOUtils;
+import org.elasticsearch.action.update.UpdateRequest;
 import org.json.JSONObject;
 import org.junit.*;
 import org.securegraph.*;
@@ -18,8 +19,14 @@ import org.securegraph.test.util.LargeStringInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNotNull;
+import static org.securegraph.util.IterableUtils.count;
 
 public class ElasticSearchSearchIndexTest extends GraphTestBase {
     @Override
@@ -81,6 +88,140 @@ public class ElasticSearchSearchIndexTest extends GraphTestBase {
         getSearchIndex().loadPropertyDefinitions();
     }
 
+    @Test
+    public void testPartialUpdates() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + ElasticSearchSearchIndexConfiguration.CONFIG_PARTIAL_UPDATES, true);
+        // the index of the default test graph is mapped without the document source partial updates need
+        config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + ElasticSearchSearchIndexConfiguration.CONFIG_INDEX_NAME, "securegraph-test-partial");
+        Graph partialUpdateGraph = ElasticSearchSearchIndexTestHelpers.createGraph(config);
+        try {
+            partialUpdateGraph.prepareVertex("v1", VISIBILITY_A)
+                    .setProperty("prop1", "value1", VISIBILITY_A)
+                    .setProperty("prop2", "value2", VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            partialUpdateGraph.flush();
+
+            Vertex v1 = partialUpdateGraph.getVertex("v1", AUTHORIZATIONS_A);
+            v1.setProperty("prop3", "value3", VISIBILITY_B, AUTHORIZATIONS_A_AND_B);
+            partialUpdateGraph.flush();
+            assertEquals(1, count(partialUpdateGraph.query("value1", AUTHORIZATIONS_A_AND_B).vertices()));
+            assertEquals(1, count(partialUpdateGraph.query("value3", AUTHORIZATIONS_A_AND_B).vertices()));
+            assertEquals(0, count(partialUpdateGraph.query("value1", AUTHORIZATIONS_A).vertices()));
+
+            partialUpdateGraph.getVertex("v1", AUTHORIZATIONS_A_AND_B).removeProperty("prop1", AUTHORIZATIONS_A_AND_B);
+            partialUpdateGraph.flush();
+            assertEquals(0, count(partialUpdateGraph.query("value1", AUTHORIZATIONS_A_AND_B).vertices()));
+            assertEquals(1, count(partialUpdateGraph.query("value2", AUTHORIZATIONS_A_AND_B).vertices()));
+
+            partialUpdateGraph.prepareVertex("v2", VISIBILITY_EMPTY)
+                    .setProperty("prop1", "secret", VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            partialUpdateGraph.flush();
+            partialUpdateGraph.getVertex("v2", AUTHORIZATIONS_B).setProperty("prop2", "public", VISIBILITY_B, AUTHORIZATIONS_B);
+            partialUpdateGraph.flush();
+            assertEquals(0, count(partialUpdateGraph.query("secret", AUTHORIZATIONS_B).vertices()));
+            assertEquals(1, count(partialUpdateGraph.query("secret", AUTHORIZATIONS_A_AND_B).vertices()));
+            assertEquals(1, count(partialUpdateGraph.query("public", AUTHORIZATIONS_A_AND_B).vertices()));
+        } finally {
+            partialUpdateGraph.shutdown();
+            getSearchIndex().getClient().admin().indices().prepareDelete("securegraph-test-partial").execute().actionGet();
+        }
+    }
+
+    @Test
+    public void testAddElementsInBatches() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + ElasticSearchSearchIndexConfiguration.CONFIG_BULK_MAX_ACTIONS, 2);
+        Graph bulkGraph = ElasticSearchSearchIndexTestHelpers.createGraph(config);
+        try {
+            List<Vertex> vertices = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                vertices.add(bulkGraph.prepareVertex("v" + i, VISIBILITY_A)
+                        .setProperty("prop1", "bulk", VISIBILITY_A)
+                        .save(AUTHORIZATIONS_A));
+            }
+            ElasticSearchSearchIndex searchIndex = (ElasticSearchSearchIndex) ((InMemoryGraph) bulkGraph).getSearchIndex();
+            searchIndex.clearData();
+            searchIndex.addElements(bulkGraph, vertices, AUTHORIZATIONS_A);
+            bulkGraph.flush();
+            assertEquals(5, count(bulkGraph.query("bulk", AUTHORIZATIONS_A).vertices()));
+        } finally {
+            bulkGraph.shutdown();
+        }
+    }
+
+    @Test
+    public void testAddElementsWithPartialUpdates() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + ElasticSearchSearchIndexConfiguration.CONFIG_PARTIAL_UPDATES, true);
+        config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + ElasticSearchSearchIndexConfiguration.CONFIG_INDEX_NAME, "securegraph-test-partial");
+        config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + ElasticSearchSearchIndexConfiguration.CONFIG_BULK_MAX_ACTIONS, 2);
+        Graph partialUpdateGraph = ElasticSearchSearchIndexTestHelpers.createGraph(config);
+        try {
+            for (int i = 0; i < 5; i++) {
+                partialUpdateGraph.prepareVertex("v" + i, VISIBILITY_EMPTY)
+                        .setProperty("prop1", "bulk", VISIBILITY_A)
+                        .save(AUTHORIZATIONS_A);
+            }
+            partialUpdateGraph.flush();
+
+            // the vertices read with B only carry prop2, the stored visibility of prop1 is kept
+            List<Vertex> vertices = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                partialUpdateGraph.getVertex("v" + i, AUTHORIZATIONS_B).setProperty("prop2", "public", VISIBILITY_B, AUTHORIZATIONS_B);
+                vertices.add(partialUpdateGraph.getVertex("v" + i, AUTHORIZATIONS_B));
+            }
+            ElasticSearchSearchIndex searchIndex = (ElasticSearchSearchIndex) ((InMemoryGraph) partialUpdateGraph).getSearchIndex();
+            searchIndex.addElements(partialUpdateGraph, vertices, AUTHORIZATIONS_B);
+            partialUpdateGraph.flush();
+            assertEquals(0, count(partialUpdateGraph.query("bulk", AUTHORIZATIONS_B).vertices()));
+            assertEquals(5, count(partialUpdateGraph.query("bulk", AUTHORIZATIONS_A_AND_B).vertices()));
+            assertEquals(5, count(partialUpdateGraph.query("public", AUTHORIZATIONS_A_AND_B).vertices()));
+        } finally {
+            partialUpdateGraph.shutdown();
+            getSearchIndex().getClient().admin().indices().prepareDelete("securegraph-test-partial").execute().actionGet();
+        }
+    }
+
+    @Test
+    public void testBulkPartialUpdateConflict() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + ElasticSearchSearchIndexConfiguration.CONFIG_PARTIAL_UPDATES, true);
+        config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + ElasticSearchSearchIndexConfiguration.CONFIG_INDEX_NAME, "securegraph-test-partial");
+        Graph partialUpdateGraph = ElasticSearchSearchIndexTestHelpers.createGraph(config);
+        try {
+            partialUpdateGraph.prepareVertex("v1", VISIBILITY_EMPTY)
+                    .setProperty("prop1", "secret", VISIBILITY_A)
+                    .save(AUTHORIZATIONS_A);
+            partialUpdateGraph.flush();
+            ElasticSearchSearchIndex searchIndex = (ElasticSearchSearchIndex) ((InMemoryGraph) partialUpdateGraph).getSearchIndex();
+            long readVersion = searchIndex.getClient().prepareGet("securegraph-test-partial", ElasticSearchSearchIndexBase.ELEMENT_TYPE, "v1").execute().actionGet().getVersion();
+
+            // another writer changes the document after the update below was made against the version read
+            partialUpdateGraph.getVertex("v1", AUTHORIZATIONS_A).setProperty("prop3", "other", VISIBILITY_A, AUTHORIZATIONS_A);
+            partialUpdateGraph.flush();
+
+            Map<String, Object> doc = new HashMap<>();
+            doc.put("prop2", "public");
+            doc.put(ElasticSearchSearchIndexBase.VISIBILITY_FIELD_NAME, VISIBILITY_B.getVisibilityString());
+            UpdateRequest updateRequest = new UpdateRequest("securegraph-test-partial", ElasticSearchSearchIndexBase.ELEMENT_TYPE, "v1").doc(doc);
+            updateRequest.version(readVersion);
+            RetryingBulkProcessor bulkProcessor = searchIndex.createBulkProcessor();
+            bulkProcessor.add(updateRequest);
+            bulkProcessor.close();
+            partialUpdateGraph.flush();
+
+            // the retried update kept the visibility stored by the other writer
+            assertEquals(0, count(partialUpdateGraph.query("secret", AUTHORIZATIONS_B).vertices()));
+            assertEquals(1, count(partialUpdateGraph.query("secret", AUTHORIZATIONS_A_AND_B).vertices()));
+            assertEquals(1, count(partialUpdateGraph.query("public", AUTHORIZATIONS_A_AND_B).vertices()));
+        } finally {
+            partialUpdateGraph.shutdown();
+            getSearchIndex().getClient().admin().indices().prepareDelete("securegraph-test-partial").execute().actionGet();
+        }
+    }
+
     @Override
     protected boolean disableUpdateEdgeCountInSearchIndex(Graph graph) {
         ElasticSearchSearchIndex searchIndex = getSearchIndex();
@@ -30,6 +30,10 @@ public class ElasticSearchSearchIndexTestHelpers {
     private static boolean TESTING = false;
 
     public static Graph createGraph() {
+        return createGraph(new HashMap());
+    }
+
+    public static Graph createGraph(Map additionalConfig) {
         Map config = new HashMap();
         config.put(GraphConfiguration.AUTO_FLUSH, true);
         config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX, ElasticSearchSearchIndex.class.getName());
@@ -41,6 +45,7 @@ public class ElasticSearchSearchIndexTestHelpers {
             config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + ElasticSearchSearchIndexConfiguration.CONFIG_CLUSTER_NAME, clusterName);
         }
         config.put(GraphConfiguration.SEARCH_INDEX_PROP_PREFIX + "." + ElasticSearchSearchIndexConfiguration.CONFIG_ES_LOCATIONS, addr);
+        config.putAll(additionalConfig);
         InMemoryGraphConfiguration configuration = new InMemoryGraphConfiguration(config);
         return InMemoryGraph.create(configuration, configuration.createIdGenerator(), configuration.createSearchIndex());
     }
@@ -359,6 +359,21 @@ public class InMemoryGraph extends GraphBaseWithSearchIndex {
         this.metadata.put(key, value);
     }
 
+    @Override
+    protected List<IdRange> getReindexRanges(ElementType elementType, int threads, Authorizations authorizations) {
+        List<String> ids = new ArrayList<>(elementType == ElementType.VERTEX ? this.vertices.keySet() : this.edges.keySet());
+        Collections.sort(ids);
+        int rangeSize = Math.max(1, (ids.size() + threads - 1) / threads);
+        List<IdRange> ranges = new ArrayList<>();
+        String startId = null;
+        for (int i = rangeSize; i < ids.size(); i += rangeSize) {
+            ranges.add(new IdRange(startId, ids.get(i)));
+            startId = ids.get(i);
+        }
+        ranges.add(new IdRange(startId, null));
+        return ranges;
+    }
+
     @Override
     public void markEdgeHidden(Edge edge, Visibility visibility, Authorizations authorizations) {
         if (!((InMemoryEdge) edge).canRead(authorizations)) {
@@ -18,4 +18,10 @@ class InMemoryStreamingPropertyValue extends StreamingPropertyValue {
     public InputStream getInputStream() {
         return new ByteArrayInputStream(this.data);
     }
+
+    @Override
+    public InputStream getInputStream(long offset, long length) {
+        int start = (int) Math.min(offset, this.data.length);
+        return new ByteArrayInputStream(this.data, start, (int) Math.min(length, this.data.length - start));
+    }
 }
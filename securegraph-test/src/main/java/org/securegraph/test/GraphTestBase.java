@@ -14,6 +14,7 @@ import org.securegraph.mutation.ExistingElementMutation;
 import org.securegraph.property.PropertyValue;
 import org.securegraph.property.StreamingPropertyValue;
 import org.securegraph.query.*;
+import org.securegraph.search.AsyncSearchIndex;
 import org.securegraph.search.DefaultSearchIndex;
 import org.securegraph.search.IndexHint;
 import org.securegraph.search.SearchIndex;
@@ -186,6 +187,27 @@ public abstract class GraphTestBase {
         assertEquals(expectedLargeValue, IOUtils.toString(value.getInputStream()));
     }
 
+    @Test
+    public void testStreamingPropertyValueRangedRead() throws IOException {
+        String expectedLargeValue = IOUtils.toString(new LargeStringInputStream(LARGE_PROPERTY_VALUE_SIZE));
+        graph.prepareVertex("v1", VISIBILITY_A)
+                .setProperty("propSmall", new StreamingPropertyValue(new ByteArrayInputStream("value1".getBytes()), String.class), VISIBILITY_A)
+                .setProperty("propLarge", new StreamingPropertyValue(new ByteArrayInputStream(expectedLargeValue.getBytes()), String.class), VISIBILITY_A)
+                .save(AUTHORIZATIONS_A_AND_B);
+        graph.flush();
+
+        Vertex v1 = graph.getVertex("v1", AUTHORIZATIONS_A);
+        StreamingPropertyValue value = (StreamingPropertyValue) v1.getPropertyValue("propSmall");
+        assertEquals("lue", IOUtils.toString(value.getInputStream(2, 3)));
+        assertEquals("1", IOUtils.toString(value.getInputStream(5, 10)));
+        assertEquals("", IOUtils.toString(value.getInputStream(10, 10)));
+
+        value = (StreamingPropertyValue) v1.getPropertyValue("propLarge");
+        int offset = LARGE_PROPERTY_VALUE_SIZE / 2;
+        assertEquals(expectedLargeValue.substring(offset, offset + 100), IOUtils.toString(value.getInputStream(offset, 100)));
+        assertEquals(expectedLargeValue.substring(offset), IOUtils.toString(value.getInputStream(offset, LARGE_PROPERTY_VALUE_SIZE)));
+    }
+
     @Test
     public void testAddVertexPropertyWithMetadata() {
         Metadata prop1Metadata = new Metadata();
@@ -537,6 +559,29 @@ public abstract class GraphTestBase {
         }
     }
 
+    @Test
+    public void testAddMultipleEdges() {
+        Vertex v1 = graph.addVertex("v1", VISIBILITY_A, AUTHORIZATIONS_A);
+        Vertex v2 = graph.addVertex("v2", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.addVertex("v3", VISIBILITY_A, AUTHORIZATIONS_A);
+
+        List<ElementBuilder<Edge>> elements = new ArrayList<>();
+        elements.add(graph.prepareEdge("e1", v1, v2, "label1", VISIBILITY_A)
+                .setProperty("prop1", "e1", VISIBILITY_A));
+        elements.add(graph.prepareEdge("e2", "v1", "v3", "label1", VISIBILITY_A)
+                .setProperty("prop1", "e2", VISIBILITY_A));
+        elements.add(graph.prepareEdge("e3", "v2", "v3", "label2", VISIBILITY_A));
+        Iterable<Edge> edges = graph.addEdges(elements, AUTHORIZATIONS_A);
+        assertEquals(3, count(edges));
+        graph.flush();
+
+        assertEquals(3, count(graph.getEdges(AUTHORIZATIONS_A)));
+        assertEquals("e2", graph.getEdge("e2", AUTHORIZATIONS_A).getPropertyValue("prop1"));
+        assertEquals(2, graph.getVertex("v1", AUTHORIZATIONS_A).getEdgeCount(Direction.OUT, AUTHORIZATIONS_A));
+        assertEquals(2, graph.getVertex("v3", AUTHORIZATIONS_A).getEdgeCount(Direction.IN, AUTHORIZATIONS_A));
+        assertEquals(2, count(graph.getVertex("v2", AUTHORIZATIONS_A).getEdges(Direction.BOTH, AUTHORIZATIONS_A)));
+    }
+
     @Test
     public void testGetVerticesWithIds() {
         graph.prepareVertex("v1", VISIBILITY_A)
@@ -626,6 +671,35 @@ public abstract class GraphTestBase {
         assertEquals(0, count(graph.getVertices(AUTHORIZATIONS_A)));
     }
 
+    @Test
+    public void testGetEdgeCounts() {
+        Vertex v1 = graph.addVertex("v1", VISIBILITY_A, AUTHORIZATIONS_A);
+        Vertex v2 = graph.addVertex("v2", VISIBILITY_A, AUTHORIZATIONS_A);
+        Vertex v3 = graph.addVertex("v3", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.addEdge("e1", v1, v2, "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.addEdge("e2", v1, v3, "label1", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.addEdge("e3", v1, v3, "label2", VISIBILITY_A, AUTHORIZATIONS_A);
+        Edge e4 = graph.addEdge("e4", v2, v1, "label2", VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.addEdge("e5", v2, v1, "label2", VISIBILITY_B, AUTHORIZATIONS_B);
+        graph.flush();
+        graph.markEdgeHidden(e4, VISIBILITY_A, AUTHORIZATIONS_A);
+        graph.flush();
+
+        Map<String, EdgeCounts> edgeCounts = graph.getEdgeCounts(Arrays.asList("v1", "v2", "bad"), true, AUTHORIZATIONS_A);
+        assertEquals(2, edgeCounts.size());
+        EdgeCounts v1EdgeCounts = edgeCounts.get("v1");
+        assertEquals(3, v1EdgeCounts.getEdgeCount(Direction.OUT));
+        assertEquals(0, v1EdgeCounts.getEdgeCount(Direction.IN));
+        assertEquals(2, (int) v1EdgeCounts.getEdgeCountsByLabel(Direction.OUT).get("label1"));
+        assertEquals(1, (int) v1EdgeCounts.getEdgeCountsByLabel(Direction.OUT).get("label2"));
+        assertEquals(0, v1EdgeCounts.getEdgeCountsByLabel(Direction.IN).size());
+        assertEquals(1, edgeCounts.get("v2").getEdgeCount(Direction.BOTH));
+
+        edgeCounts = graph.getEdgeCounts(Arrays.asList("v1"), false, AUTHORIZATIONS_A_AND_B);
+        assertEquals(1, edgeCounts.get("v1").getEdgeCount(Direction.IN));
+        assertNull(edgeCounts.get("v1").getEdgeCountsByLabel(Direction.IN));
+    }
+
     @Test
     public void testMarkVertexHidden() {
         Vertex v1 = graph.addVertex("v1", VISIBILITY_A, AUTHORIZATIONS_A);
@@ -2567,6 +2641,48 @@ public abstract class GraphTestBase {
         assertEquals(existingMetadata.size() + 2, newMetadata.size());
     }
 
+    @Test
+    public void testReindexInRanges() {
+        List<Vertex> vertices = getVertices(10);
+        for (int i = 1; i < vertices.size(); i++) {
+            graph.addEdge("e" + i, vertices.get(i - 1), vertices.get(i), "label1", VISIBILITY_EMPTY, AUTHORIZATIONS_EMPTY);
+        }
+        graph.flush();
+
+        graph.reindex(EnumSet.allOf(ElementType.class), 3, false, AUTHORIZATIONS_EMPTY);
+        assertEquals(10, count(graph.query(AUTHORIZATIONS_EMPTY).vertices()));
+        assertEquals(9, count(graph.query(AUTHORIZATIONS_EMPTY).edges()));
+        assertEquals(0, ((Collection) graph.getMetadata(GraphBaseWithSearchIndex.METADATA_REINDEX_CHECKPOINT_PREFIX + "VERTEX")).size());
+        assertEquals(0, ((Collection) graph.getMetadata(GraphBaseWithSearchIndex.METADATA_REINDEX_CHECKPOINT_PREFIX + "EDGE")).size());
+
+        graph.reindex(EnumSet.of(ElementType.EDGE), 2, true, AUTHORIZATIONS_EMPTY);
+        assertEquals(9, count(graph.query(AUTHORIZATIONS_EMPTY).edges()));
+        assertEquals(0, ((Collection) graph.getMetadata(GraphBaseWithSearchIndex.METADATA_REINDEX_RANGES_PREFIX + "EDGE")).size());
+    }
+
+    @Test
+    public void testReindexResumeWithStoredRanges() {
+        if (isDefaultSearchIndex()) {
+            return;
+        }
+
+        for (int i = 0; i < 10; i++) {
+            graph.prepareVertex(Integer.toString(i), VISIBILITY_EMPTY)
+                    .setIndexHint(IndexHint.DO_NOT_INDEX)
+                    .save(AUTHORIZATIONS_EMPTY);
+        }
+        graph.flush();
+
+        // an interrupted reindex which completed its first range
+        List<IdRange> ranges = new ArrayList<>(Arrays.asList(new IdRange(null, "5"), new IdRange("5", null)));
+        graph.setMetadata(GraphBaseWithSearchIndex.METADATA_REINDEX_RANGES_PREFIX + "VERTEX", ranges);
+        graph.setMetadata(GraphBaseWithSearchIndex.METADATA_REINDEX_CHECKPOINT_PREFIX + "VERTEX", new HashSet<>(Collections.singleton(ranges.get(0).toString())));
+
+        graph.reindex(EnumSet.of(ElementType.VERTEX), 3, true, AUTHORIZATIONS_EMPTY);
+        assertEquals(5, count(graph.query(AUTHORIZATIONS_EMPTY).vertices()));
+        assertEquals(0, ((Collection) graph.getMetadata(GraphBaseWithSearchIndex.METADATA_REINDEX_RANGES_PREFIX + "VERTEX")).size());
+    }
+
     private List<Vertex> getVertices(long count) {
         List<Vertex> vertices = new ArrayList<>();
         for (int i = 0; i < count; i++) {
@@ -2581,8 +2697,11 @@ public abstract class GraphTestBase {
             return false;
         }
 
-        GraphBaseWithSearchIndex graphBaseWithSearchIndex = (GraphBaseWithSearchIndex) graph;
-        return graphBaseWithSearchIndex.getSearchIndex() instanceof DefaultSearchIndex;
+        SearchIndex searchIndex = ((GraphBaseWithSearchIndex) graph).getSearchIndex();
+        if (searchIndex instanceof AsyncSearchIndex) {
+            searchIndex = ((AsyncSearchIndex) searchIndex).getSearchIndex();
+        }
+        return searchIndex instanceof DefaultSearchIndex;
     }
 
     protected void assertVertexIds(Iterable<Vertex> vertices, String[] expectedIds) {
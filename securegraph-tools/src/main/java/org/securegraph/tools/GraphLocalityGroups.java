@@ -0,0 +1,25 @@
+package org.securegraph.tools;
+
+import com.beust.jcommander.Parameter;
+import org.securegraph.accumulo.AccumuloGraph;
+
+public class GraphLocalityGroups extends GraphToolBase {
+    @Parameter(names = {"--compact"}, description = "Compact the vertex and edge tables so existing data is moved into the locality groups")
+    private boolean compact = false;
+
+    public static void main(String[] args) throws Exception {
+        GraphLocalityGroups graphLocalityGroups = new GraphLocalityGroups();
+        graphLocalityGroups.run(args);
+    }
+
+    protected void run(String[] args) throws Exception {
+        super.run(args);
+
+        if (!(getGraph() instanceof AccumuloGraph)) {
+            throw new RuntimeException("Locality groups are only supported by " + AccumuloGraph.class.getName());
+        }
+        System.out.println("Setting locality groups");
+        ((AccumuloGraph) getGraph()).setupLocalityGroups(compact);
+        System.out.println("Locality groups set" + (compact ? ", compaction started" : ""));
+    }
+}
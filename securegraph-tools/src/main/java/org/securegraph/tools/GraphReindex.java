@@ -1,6 +1,23 @@
 package org.securegraph.tools;
 
+import com.beust.jcommander.Parameter;
+import org.securegraph.ElementType;
+
+import java.util.EnumSet;
+
 public class GraphReindex extends GraphToolBase {
+    @Parameter(names = {"-t", "--threads"}, description = "Number of id ranges to reindex at the same time")
+    private int threads = 1;
+
+    @Parameter(names = {"--resume"}, description = "Skip the id ranges completed by an earlier reindex which did not finish")
+    private boolean resume = false;
+
+    @Parameter(names = {"--verticesOnly"}, description = "Only reindex vertices")
+    private boolean verticesOnly = false;
+
+    @Parameter(names = {"--edgesOnly"}, description = "Only reindex edges")
+    private boolean edgesOnly = false;
+
     public static void main(String[] args) throws Exception {
         GraphReindex graphReindex = new GraphReindex();
         graphReindex.run(args);
@@ -9,9 +26,19 @@ public class GraphReindex extends GraphToolBase {
     protected void run(String[] args) throws Exception {
         super.run(args);
 
-        System.out.println("Starting reindex");
+        if (verticesOnly && edgesOnly) {
+            throw new RuntimeException("verticesOnly and edgesOnly cannot both be set");
+        }
+        EnumSet<ElementType> elementTypes = EnumSet.allOf(ElementType.class);
+        if (verticesOnly) {
+            elementTypes = EnumSet.of(ElementType.VERTEX);
+        } else if (edgesOnly) {
+            elementTypes = EnumSet.of(ElementType.EDGE);
+        }
+
+        System.out.println("Starting reindex of " + elementTypes + " (threads: " + threads + ", resume: " + resume + ")");
         long startTime = System.currentTimeMillis();
-        getGraph().reindex(getAuthorizations());
+        getGraph().reindex(elementTypes, threads, resume, getAuthorizations());
         long endTime = System.currentTimeMillis();
         System.out.println("Reindexing complete (" + (endTime - startTime) + "ms)");
     }